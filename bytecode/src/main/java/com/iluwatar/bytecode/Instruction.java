@@ -46,6 +46,20 @@ public enum Instruction {
   ADD(10),            // e.g. "ADD", pop 2 values, push their sum
   DIVIDE(11);         // e.g. "DIVIDE", pop 2 values, push their division
 
+  // Instructions indexed by their int value, so decoding is a single array access.
+  private static final Instruction[] BY_INT_VALUE;
+
+  static {
+    var maxValue = 0;
+    for (var instruction : values()) {
+      maxValue = Math.max(maxValue, instruction.intValue);
+    }
+    BY_INT_VALUE = new Instruction[maxValue + 1];
+    for (var instruction : values()) {
+      BY_INT_VALUE[instruction.intValue] = instruction;
+    }
+  }
+
   private final int intValue;
 
   /**
@@ -55,10 +69,8 @@ public enum Instruction {
    * @return representation of the instruction
    */
   public static Instruction getInstruction(int value) {
-    for (var i = 0; i < Instruction.values().length; i++) {
-      if (Instruction.values()[i].getIntValue() == value) {
-        return Instruction.values()[i];
-      }
+    if (value >= 0 && value < BY_INT_VALUE.length && BY_INT_VALUE[value] != null) {
+      return BY_INT_VALUE[value];
     }
     throw new IllegalArgumentException("Invalid instruction value");
   }
@@ -0,0 +1,158 @@
+/*
+ * This project is licensed under the MIT license. Module model-view-viewmodel is using ZK framework licensed under LGPL (see lgpl-3.0.txt).
+ *
+ * The MIT License
+ * Copyright © 2014-2022 Ilkka Seppälä
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.iluwatar.bytecode;
+
+import java.util.Arrays;
+
+/**
+ * Bytecode decoded once for repeated execution by {@link VirtualMachine#execute(Program)}.
+ *
+ * <p>Decoding resolves every opcode to its {@link Instruction} and checks the whole program up
+ * front: that all opcodes are valid, that every LITERAL has its value, and how deep the stack must
+ * be for the program never to pop an empty stack. Running it then needs no checks but one on the
+ * stack depth at the start.
+ *
+ * <p>A program that runs often enough is compiled to JVM bytecode by {@link SpellCompiler}; the
+ * virtual machine keeps count of its runs, and the compiled code, here. Programs are equal if they
+ * hold the same instructions, so equal programs decoded apart share their compiled code.
+ */
+public final class Program {
+
+  final Instruction[] instructions;
+
+  // The value of each LITERAL, at the index of the instruction.
+  final int[] literals;
+
+  // Values the stack must hold before the program runs.
+  final int requiredDepth;
+
+  // Most values the program puts on the stack on top of those it found there.
+  final int maxGrowth;
+
+  private final int hash;
+
+  // Tiering state of VirtualMachine. Races between machines sharing a program only cost an extra
+  // run in the interpreter, since compiling returns the same code for equal programs.
+  int executions;
+
+  SpellCode compiled;
+
+  boolean uncompilable;
+
+  private Program(Instruction[] instructions, int[] literals, int requiredDepth, int maxGrowth) {
+    this.instructions = instructions;
+    this.literals = literals;
+    this.requiredDepth = requiredDepth;
+    this.maxGrowth = maxGrowth;
+    this.hash = 31 * Arrays.hashCode(instructions) + Arrays.hashCode(literals);
+  }
+
+  /**
+   * Decodes and validates bytecode.
+   *
+   * @param bytecode to decode
+   * @return the decoded program
+   * @throws IllegalArgumentException if the bytecode holds an invalid instruction or ends in a
+   *                                  LITERAL without value
+   */
+  public static Program decode(int[] bytecode) {
+    var instructions = new Instruction[bytecode.length];
+    var literals = new int[bytecode.length];
+    var count = 0;
+    var depth = 0;
+    var minDepth = 0;
+    var maxDepth = 0;
+    for (var i = 0; i < bytecode.length; i++) {
+      var instruction = Instruction.getInstruction(bytecode[i]);
+      if (instruction == Instruction.LITERAL) {
+        if (i + 1 == bytecode.length) {
+          throw new IllegalArgumentException("LITERAL without value at the end of the bytecode");
+        }
+        literals[count] = bytecode[++i];
+      }
+      instructions[count++] = instruction;
+      depth -= pops(instruction);
+      minDepth = Math.min(minDepth, depth);
+      depth += pushes(instruction);
+      maxDepth = Math.max(maxDepth, depth);
+    }
+    return new Program(Arrays.copyOf(instructions, count),
+        Arrays.copyOf(literals, count), -minDepth, maxDepth);
+  }
+
+  /**
+   * Number of instructions of the program, not counting LITERAL values.
+   */
+  public int size() {
+    return instructions.length;
+  }
+
+  @Override
+  public boolean equals(Object o) {
+    if (this == o) {
+      return true;
+    }
+    if (!(o instanceof Program)) {
+      return false;
+    }
+    var other = (Program) o;
+    return hash == other.hash && Arrays.equals(instructions, other.instructions)
+        && Arrays.equals(literals, other.literals);
+  }
+
+  @Override
+  public int hashCode() {
+    return hash;
+  }
+
+  static int pops(Instruction instruction) {
+    switch (instruction) {
+      case LITERAL:
+        return 0;
+      case PLAY_SOUND:
+      case SPAWN_PARTICLES:
+      case GET_HEALTH:
+      case GET_AGILITY:
+      case GET_WISDOM:
+        return 1;
+      default:
+        return 2;
+    }
+  }
+
+  static int pushes(Instruction instruction) {
+    switch (instruction) {
+      case LITERAL:
+      case GET_HEALTH:
+      case GET_AGILITY:
+      case GET_WISDOM:
+      case ADD:
+      case DIVIDE:
+        return 1;
+      default:
+        return 0;
+    }
+  }
+}
@@ -0,0 +1,662 @@
+/*
+ * This project is licensed under the MIT license. Module model-view-viewmodel is using ZK framework licensed under LGPL (see lgpl-3.0.txt).
+ *
+ * The MIT License
+ * Copyright © 2014-2022 Ilkka Seppälä
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.iluwatar.bytecode;
+
+import java.lang.invoke.MethodHandles;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Compiles {@link Program}s to JVM bytecode, each into a hidden class implementing {@link
+ * SpellCode}. The last {@value #CACHE_SIZE} programs compiled are cached, so equal programs share one
+ * class; a program keeps its own compiled code, so eviction only stops sharing it with programs
+ * decoded later.
+ *
+ * <p>The generated code has no stack of its own: every stack slot the program uses becomes a local
+ * variable of the generated method, which the JIT can keep in a register. Values that were on the
+ * stack before the program ran are read from the stack array where needed, and the values left at
+ * the end are written back to it. The hidden classes are nestmates of {@link Wizard}, so they read
+ * and write its fields directly.
+ *
+ * <p>When an instruction fails, for instance dividing by zero or naming a wizard that does not
+ * exist, an exception handler writes the values still on the stack back to the array and throws a
+ * {@link SpellFailure} with the stack depth, so the virtual machine is left exactly as {@link
+ * VirtualMachine#execute(Program)} leaves it without compiling.
+ *
+ * <p>Programs are split into methods of {@value #CHUNK_SIZE} instructions, since HotSpot does not
+ * JIT-compile methods of more than 8000 bytes of bytecode.
+ */
+final class SpellCompiler {
+
+  static final int CHUNK_SIZE = 200;
+
+  static final int CACHE_SIZE = 256;
+
+  private static final int CLASS_VERSION = 61;
+  private static final String CLASS_NAME = "com/iluwatar/bytecode/CompiledSpell";
+  private static final String WIZARD = "com/iluwatar/bytecode/Wizard";
+  private static final String WIZARD_ARRAY = "[L" + WIZARD + ";";
+  private static final String RUN_DESCRIPTOR = "(" + WIZARD_ARRAY + "[II)I";
+
+  // Local variables of a chunk method, followed by one per stack slot.
+  private static final int WIZARDS = 0;
+  private static final int STACK = 1;
+  private static final int TOP = 2;
+  private static final int FIRST_SLOT = 3;
+
+  // Least recently used first; guarded by itself.
+  private static final Map<Program, SpellCode> CACHE =
+      new LinkedHashMap<>(CACHE_SIZE * 4 / 3 + 1, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Program, SpellCode> eldest) {
+          return size() > CACHE_SIZE;
+        }
+      };
+
+  private SpellCompiler() {
+  }
+
+  /**
+   * Compiles the program, or returns the compiled code of an equal program.
+   *
+   * @param program to compile
+   * @return the compiled program
+   * @throws IllegalStateException if the program cannot be compiled
+   */
+  static SpellCode compile(Program program) {
+    synchronized (CACHE) {
+      var code = CACHE.get(program);
+      if (code != null) {
+        return code;
+      }
+    }
+    // Compiled outside the lock; if two threads race, the first to finish wins.
+    var code = define(program);
+    synchronized (CACHE) {
+      var cached = CACHE.putIfAbsent(program, code);
+      return cached != null ? cached : code;
+    }
+  }
+
+  static int cacheSize() {
+    synchronized (CACHE) {
+      return CACHE.size();
+    }
+  }
+
+  /**
+   * Called by compiled code when an instruction fails.
+   */
+  static RuntimeException failure(Throwable cause, int depth) {
+    return new SpellFailure(cause, depth);
+  }
+
+  private static SpellCode define(Program program) {
+    try {
+      var lookup = Wizard.lookup().defineHiddenClass(generate(program), true,
+          MethodHandles.Lookup.ClassOption.NESTMATE);
+      return (SpellCode) lookup.lookupClass().getDeclaredConstructor().newInstance();
+    } catch (ReflectiveOperationException | LinkageError e) {
+      throw new IllegalStateException("Could not compile program", e);
+    }
+  }
+
+  static byte[] generate(Program program) {
+    var pool = new ConstantPool();
+    var thisClass = pool.classRef(CLASS_NAME);
+    var superClass = pool.classRef("java/lang/Object");
+    var spellCode = pool.classRef("com/iluwatar/bytecode/SpellCode");
+    var chunks = (program.size() + CHUNK_SIZE - 1) / CHUNK_SIZE;
+    var methods = new ArrayList<Bytes>();
+    methods.add(constructor(pool));
+    methods.add(run(pool, chunks));
+    for (var c = 0; c < chunks; c++) {
+      var to = Math.min(program.size(), (c + 1) * CHUNK_SIZE);
+      methods.add(new ChunkWriter(pool, program, c * CHUNK_SIZE, to).write("chunk" + c));
+    }
+    var out = new Bytes();
+    out.u4(0xCAFEBABE);
+    out.u2(0);
+    out.u2(CLASS_VERSION);
+    out.u2(pool.count);
+    out.append(pool.bytes);
+    out.u2(0x0030); // ACC_FINAL | ACC_SUPER
+    out.u2(thisClass);
+    out.u2(superClass);
+    out.u2(1);
+    out.u2(spellCode);
+    out.u2(0); // fields
+    out.u2(methods.size());
+    methods.forEach(out::append);
+    out.u2(0); // attributes
+    return out.toArray();
+  }
+
+  private static Bytes constructor(ConstantPool pool) {
+    var code = new Bytes();
+    code.u1(Op.ALOAD_0);
+    code.u1(Op.INVOKESPECIAL);
+    code.u2(pool.methodRef("java/lang/Object", "<init>", "()V"));
+    code.u1(Op.RETURN);
+    return method(pool, 0x0001, "<init>", "()V", 1, 1, code, List.of(), null);
+  }
+
+  /**
+   * The method of {@link SpellCode}, calling the chunks in turn.
+   */
+  private static Bytes run(ConstantPool pool, int chunks) {
+    var code = new Bytes();
+    for (var c = 0; c < chunks; c++) {
+      code.u1(Op.ALOAD_1);
+      code.u1(Op.ALOAD_2);
+      code.u1(Op.ILOAD_3);
+      code.u1(Op.INVOKESTATIC);
+      code.u2(pool.methodRef(CLASS_NAME, "chunk" + c, RUN_DESCRIPTOR));
+      code.u1(Op.ISTORE_3);
+    }
+    code.u1(Op.ILOAD_3);
+    code.u1(Op.IRETURN);
+    return method(pool, 0x0001, "run", RUN_DESCRIPTOR, 3, 4, code, List.of(), null);
+  }
+
+  private static Bytes method(ConstantPool pool, int access, String name, String descriptor,
+      int maxStack, int maxLocals, Bytes code, List<int[]> exceptions, Bytes stackMap) {
+    if (code.size() > 0xFFFF) {
+      throw new IllegalStateException("Method " + name + " too large");
+    }
+    var attribute = new Bytes();
+    attribute.u2(maxStack);
+    attribute.u2(maxLocals);
+    attribute.u4(code.size());
+    attribute.append(code);
+    attribute.u2(exceptions.size());
+    for (var entry : exceptions) {
+      for (var value : entry) {
+        attribute.u2(value);
+      }
+    }
+    if (stackMap == null) {
+      attribute.u2(0);
+    } else {
+      attribute.u2(1);
+      attribute.u2(pool.utf8("StackMapTable"));
+      attribute.u4(stackMap.size());
+      attribute.append(stackMap);
+    }
+    var method = new Bytes();
+    method.u2(access);
+    method.u2(pool.utf8(name));
+    method.u2(pool.utf8(descriptor));
+    method.u2(1);
+    method.u2(pool.utf8("Code"));
+    method.u4(attribute.size());
+    method.append(attribute);
+    return method;
+  }
+
+  /**
+   * Generates the method running instructions {@code from} to {@code to} of a program. Stack
+   * positions are counted from the top of the stack at the start of the chunk, so the values that
+   * were already there have negative positions.
+   */
+  private static final class ChunkWriter {
+
+    private final ConstantPool pool;
+    private final Program program;
+    private final int from;
+    private final int to;
+    private final int minPosition;
+    private final int maxPosition;
+    // Whether the value at a stack position, less minPosition, is in its local variable rather
+    // than in the stack array.
+    private final boolean[] inLocal;
+    private final Bytes code = new Bytes();
+    // Exception handlers by the stack they restore; each is used for all instructions that fail
+    // with that stack.
+    private final Map<String, Handler> handlers = new LinkedHashMap<>();
+    private int depth;
+
+    ChunkWriter(ConstantPool pool, Program program, int from, int to) {
+      this.pool = pool;
+      this.program = program;
+      this.from = from;
+      this.to = to;
+      var position = 0;
+      var min = 0;
+      var max = 0;
+      for (var i = from; i < to; i++) {
+        position -= Program.pops(program.instructions[i]);
+        min = Math.min(min, position);
+        position += Program.pushes(program.instructions[i]);
+        max = Math.max(max, position);
+      }
+      this.minPosition = min;
+      this.maxPosition = max;
+      this.inLocal = new boolean[max - min];
+    }
+
+    Bytes write(String name) {
+      for (var i = from; i < to; i++) {
+        instruction(program.instructions[i], program.literals[i]);
+      }
+      spillLocals(depth);
+      code.u1(Op.ILOAD_2);
+      addConstant(depth);
+      code.u1(Op.IRETURN);
+
+      var exceptions = new ArrayList<int[]>();
+      var stackMap = new Bytes();
+      var lastPc = -1;
+      for (var handler : handlers.values()) {
+        var pc = code.size();
+        frame(stackMap, pc - lastPc - 1, handler.live);
+        lastPc = pc;
+        for (var position : handler.live) {
+          spill(position);
+        }
+        code.u1(Op.ILOAD_2);
+        addConstant(handler.depth);
+        code.u1(Op.INVOKESTATIC);
+        code.u2(pool.methodRef("com/iluwatar/bytecode/SpellCompiler", "failure",
+            "(Ljava/lang/Throwable;I)Ljava/lang/RuntimeException;"));
+        code.u1(Op.ATHROW);
+        for (var range : handler.ranges) {
+          exceptions.add(new int[]{range[0], range[1], pc, 0});
+        }
+      }
+      var frames = new Bytes();
+      frames.u2(handlers.size());
+      frames.append(stackMap);
+      return method(pool, 0x000A, name, RUN_DESCRIPTOR, 6, FIRST_SLOT + maxPosition - minPosition,
+          code, exceptions, handlers.isEmpty() ? null : frames);
+    }
+
+    private void instruction(Instruction instruction, int literal) {
+      int start;
+      switch (instruction) {
+        case LITERAL:
+          pushConstant(literal);
+          store(depth++);
+          break;
+        case SET_HEALTH:
+        case SET_AGILITY:
+        case SET_WISDOM:
+          start = code.size();
+          wizard(depth - 2);
+          load(depth - 1);
+          code.u1(Op.PUTFIELD);
+          code.u2(pool.fieldRef(WIZARD, field(instruction), "I"));
+          depth -= 2;
+          guard(start);
+          break;
+        case GET_HEALTH:
+        case GET_AGILITY:
+        case GET_WISDOM:
+          start = code.size();
+          wizard(depth - 1);
+          code.u1(Op.GETFIELD);
+          code.u2(pool.fieldRef(WIZARD, field(instruction), "I"));
+          depth -= 1;
+          guard(start);
+          store(depth++);
+          break;
+        case ADD:
+          load(depth - 2);
+          load(depth - 1);
+          code.u1(Op.IADD);
+          depth -= 2;
+          store(depth++);
+          break;
+        case DIVIDE:
+          start = code.size();
+          load(depth - 2);
+          load(depth - 1);
+          code.u1(Op.IDIV);
+          depth -= 2;
+          guard(start);
+          store(depth++);
+          break;
+        case PLAY_SOUND:
+        case SPAWN_PARTICLES:
+          start = code.size();
+          wizard(depth - 1);
+          code.u1(Op.INVOKEVIRTUAL);
+          code.u2(pool.methodRef(WIZARD,
+              instruction == Instruction.PLAY_SOUND ? "playSound" : "spawnParticles", "()V"));
+          depth -= 1;
+          guard(start);
+          break;
+        default:
+          throw new IllegalArgumentException("Invalid instruction value");
+      }
+    }
+
+    private static String field(Instruction instruction) {
+      switch (instruction) {
+        case SET_HEALTH:
+        case GET_HEALTH:
+          return "health";
+        case SET_AGILITY:
+        case GET_AGILITY:
+          return "agility";
+        default:
+          return "wisdom";
+      }
+    }
+
+    /**
+     * Lets the code emitted since start fail to the handler restoring the current stack.
+     */
+    private void guard(int start) {
+      var live = new ArrayList<Integer>();
+      for (var position = minPosition; position < depth; position++) {
+        if (inLocal[position - minPosition]) {
+          live.add(position);
+        }
+      }
+      var key = depth + ":" + live;
+      handlers.computeIfAbsent(key, k -> new Handler(depth, live)).ranges
+          .add(new int[]{start, code.size()});
+    }
+
+    // Loads the wizard named by the value at the position.
+    private void wizard(int position) {
+      code.u1(Op.ALOAD_0);
+      load(position);
+      code.u1(Op.AALOAD);
+    }
+
+    private void load(int position) {
+      if (inLocal[position - minPosition]) {
+        localOp(Op.ILOAD, Op.ILOAD_0, local(position));
+      } else {
+        code.u1(Op.ALOAD_1);
+        code.u1(Op.ILOAD_2);
+        addConstant(position);
+        code.u1(Op.IALOAD);
+      }
+    }
+
+    private void store(int position) {
+      localOp(Op.ISTORE, Op.ISTORE_0, local(position));
+      inLocal[position - minPosition] = true;
+    }
+
+    private void spillLocals(int below) {
+      for (var position = minPosition; position < below; position++) {
+        if (inLocal[position - minPosition]) {
+          spill(position);
+        }
+      }
+    }
+
+    // Writes the local variable of the position to the stack array.
+    private void spill(int position) {
+      code.u1(Op.ALOAD_1);
+      code.u1(Op.ILOAD_2);
+      addConstant(position);
+      localOp(Op.ILOAD, Op.ILOAD_0, local(position));
+      code.u1(Op.IASTORE);
+    }
+
+    private int local(int position) {
+      return FIRST_SLOT + position - minPosition;
+    }
+
+    private void localOp(int op, int shortOp, int index) {
+      if (index <= 3) {
+        code.u1(shortOp + index);
+      } else if (index <= 0xFF) {
+        code.u1(op);
+        code.u1(index);
+      } else {
+        code.u1(Op.WIDE);
+        code.u1(op);
+        code.u2(index);
+      }
+    }
+
+    private void addConstant(int value) {
+      if (value != 0) {
+        pushConstant(value);
+        code.u1(Op.IADD);
+      }
+    }
+
+    private void pushConstant(int value) {
+      if (value >= -1 && value <= 5) {
+        code.u1(Op.ICONST_0 + value);
+      } else if (value == (byte) value) {
+        code.u1(Op.BIPUSH);
+        code.u1(value);
+      } else if (value == (short) value) {
+        code.u1(Op.SIPUSH);
+        code.u2(value);
+      } else {
+        code.u1(Op.LDC_W);
+        code.u2(pool.integer(value));
+      }
+    }
+
+    /**
+     * A full frame for a handler: the parameters, the live stack slots, and the exception.
+     */
+    private void frame(Bytes stackMap, int offsetDelta, List<Integer> live) {
+      var slots = live.isEmpty() ? 0 : live.get(live.size() - 1) - minPosition + 1;
+      stackMap.u1(255);
+      stackMap.u2(offsetDelta);
+      stackMap.u2(FIRST_SLOT + slots);
+      stackMap.u1(7);
+      stackMap.u2(pool.classRef(WIZARD_ARRAY));
+      stackMap.u1(7);
+      stackMap.u2(pool.classRef("[I"));
+      stackMap.u1(1);
+      for (var slot = 0; slot < slots; slot++) {
+        stackMap.u1(live.contains(slot + minPosition) ? 1 : 0);
+      }
+      stackMap.u2(1);
+      stackMap.u1(7);
+      stackMap.u2(pool.classRef("java/lang/Throwable"));
+    }
+  }
+
+  private static final class Handler {
+    private final int depth;
+    private final List<Integer> live;
+    private final List<int[]> ranges = new ArrayList<>();
+
+    Handler(int depth, List<Integer> live) {
+      this.depth = depth;
+      this.live = live;
+    }
+  }
+
+  /**
+   * Thrown by compiled code when an instruction fails, with the number of values left on the
+   * stack.
+   */
+  static final class SpellFailure extends RuntimeException {
+    private static final long serialVersionUID = 1L;
+
+    final int depth;
+
+    SpellFailure(Throwable cause, int depth) {
+      super(null, cause, false, false);
+      this.depth = depth;
+    }
+  }
+
+  private static final class ConstantPool {
+    private final Bytes bytes = new Bytes();
+    private final Map<String, Integer> indexes = new HashMap<>();
+    private int count = 1;
+
+    int utf8(String value) {
+      return entry("U" + value, () -> {
+        var encoded = value.getBytes(StandardCharsets.UTF_8);
+        bytes.u1(1);
+        bytes.u2(encoded.length);
+        bytes.append(encoded);
+      });
+    }
+
+    int integer(int value) {
+      return entry("I" + value, () -> {
+        bytes.u1(3);
+        bytes.u4(value);
+      });
+    }
+
+    int classRef(String name) {
+      var nameIndex = utf8(name);
+      return entry("C" + name, () -> {
+        bytes.u1(7);
+        bytes.u2(nameIndex);
+      });
+    }
+
+    int fieldRef(String owner, String name, String descriptor) {
+      return memberRef(9, owner, name, descriptor);
+    }
+
+    int methodRef(String owner, String name, String descriptor) {
+      return memberRef(10, owner, name, descriptor);
+    }
+
+    private int memberRef(int tag, String owner, String name, String descriptor) {
+      var ownerIndex = classRef(owner);
+      var nameIndex = utf8(name);
+      var descriptorIndex = utf8(descriptor);
+      var nameAndType = entry("N" + name + " " + descriptor, () -> {
+        bytes.u1(12);
+        bytes.u2(nameIndex);
+        bytes.u2(descriptorIndex);
+      });
+      return entry(tag + owner + "." + name + " " + descriptor, () -> {
+        bytes.u1(tag);
+        bytes.u2(ownerIndex);
+        bytes.u2(nameAndType);
+      });
+    }
+
+    private int entry(String key, Runnable writer) {
+      var index = indexes.get(key);
+      if (index != null) {
+        return index;
+      }
+      if (count == 0xFFFF) {
+        throw new IllegalStateException("Too many constants");
+      }
+      writer.run();
+      indexes.put(key, count);
+      return count++;
+    }
+  }
+
+  /**
+   * A growable array of big-endian bytes.
+   */
+  private static final class Bytes {
+    private byte[] data = new byte[256];
+    private int size;
+
+    void u1(int value) {
+      if (size == data.length) {
+        data = Arrays.copyOf(data, size * 2);
+      }
+      data[size++] = (byte) value;
+    }
+
+    void u2(int value) {
+      u1(value >>> 8);
+      u1(value);
+    }
+
+    void u4(int value) {
+      u2(value >>> 16);
+      u2(value);
+    }
+
+    void append(byte[] bytes) {
+      for (var b : bytes) {
+        u1(b);
+      }
+    }
+
+    void append(Bytes other) {
+      append(other.toArray());
+    }
+
+    int size() {
+      return size;
+    }
+
+    byte[] toArray() {
+      return Arrays.copyOf(data, size);
+    }
+  }
+
+  /**
+   * The JVM opcodes used.
+   */
+  private static final class Op {
+    static final int ICONST_0 = 0x03;
+    static final int BIPUSH = 0x10;
+    static final int SIPUSH = 0x11;
+    static final int LDC_W = 0x13;
+    static final int ILOAD = 0x15;
+    static final int ILOAD_0 = 0x1a;
+    static final int ILOAD_2 = 0x1c;
+    static final int ILOAD_3 = 0x1d;
+    static final int ALOAD_0 = 0x2a;
+    static final int ALOAD_1 = 0x2b;
+    static final int ALOAD_2 = 0x2c;
+    static final int IALOAD = 0x2e;
+    static final int AALOAD = 0x32;
+    static final int ISTORE = 0x36;
+    static final int ISTORE_0 = 0x3b;
+    static final int ISTORE_3 = 0x3e;
+    static final int IASTORE = 0x4f;
+    static final int IADD = 0x60;
+    static final int IDIV = 0x6c;
+    static final int IRETURN = 0xac;
+    static final int RETURN = 0xb1;
+    static final int GETFIELD = 0xb4;
+    static final int PUTFIELD = 0xb5;
+    static final int INVOKEVIRTUAL = 0xb6;
+    static final int INVOKESPECIAL = 0xb7;
+    static final int INVOKESTATIC = 0xb8;
+    static final int ATHROW = 0xbf;
+    static final int WIDE = 0xc4;
+
+    private Op() {
+    }
+  }
+}
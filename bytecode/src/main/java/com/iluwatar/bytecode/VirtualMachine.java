@@ -24,8 +24,10 @@
  */
 package com.iluwatar.bytecode;
 
+import java.util.Arrays;
 import java.util.Stack;
 import java.util.concurrent.ThreadLocalRandom;
+import lombok.AccessLevel;
 import lombok.Getter;
 import lombok.extern.slf4j.Slf4j;
 
@@ -36,10 +38,24 @@ import lombok.extern.slf4j.Slf4j;
 @Slf4j
 public class VirtualMachine {
 
+  /**
+   * Runs of a program in the interpreter before {@link #execute(Program)} compiles it.
+   */
+  public static final int DEFAULT_COMPILE_THRESHOLD = 1000;
+
   private final Stack<Integer> stack = new Stack<>();
 
   private final Wizard[] wizards = new Wizard[2];
 
+  // Stack of execute(Program), kept apart from the boxed stack of execute(int[]).
+  @Getter(AccessLevel.NONE)
+  private int[] operands = new int[16];
+
+  @Getter(AccessLevel.NONE)
+  private int operandCount;
+
+  private int compileThreshold = DEFAULT_COMPILE_THRESHOLD;
+
   /**
    * No-args constructor.
    */
@@ -125,6 +141,153 @@ public class VirtualMachine {
     }
   }
 
+  /**
+   * Executes a decoded program. Unlike {@link #execute(int[])}, it works on an int[] stack, with
+   * no boxing, no decoding and no logging per instruction. The stack keeps its values between
+   * calls, as the stack of {@link #execute(int[])} does, but the two stacks are separate.
+   *
+   * <p>Once a program has run {@link #getCompileThreshold()} times it is compiled to JVM bytecode,
+   * which the JIT then compiles like any other method, and later runs use the compiled code. A
+   * program that fails to compile stays in the interpreter. Either way the program has the same
+   * effect, also when an instruction fails.
+   *
+   * @param program to execute
+   * @throws IllegalStateException if the stack holds fewer values than the program pops
+   */
+  public void execute(Program program) {
+    if (operandCount < program.requiredDepth) {
+      throw new IllegalStateException("Program needs " + program.requiredDepth
+          + " values on the stack, it holds " + operandCount);
+    }
+    if (operandCount + program.maxGrowth > operands.length) {
+      operands = Arrays.copyOf(operands,
+          Math.max(operands.length * 2, operandCount + program.maxGrowth));
+    }
+    if (program.compiled == null && !program.uncompilable
+        && program.executions++ >= compileThreshold) {
+      try {
+        program.compiled = SpellCompiler.compile(program);
+      } catch (IllegalStateException e) {
+        LOGGER.warn("Program of " + program.size() + " instructions stays interpreted", e);
+        program.uncompilable = true;
+      }
+    }
+    if (program.compiled != null) {
+      runCompiled(program.compiled);
+    } else {
+      interpret(program);
+    }
+  }
+
+  private void runCompiled(SpellCode code) {
+    try {
+      operandCount = code.run(wizards, operands, operandCount);
+    } catch (SpellCompiler.SpellFailure e) {
+      operandCount = e.depth;
+      var cause = e.getCause();
+      if (cause instanceof RuntimeException) {
+        throw (RuntimeException) cause;
+      }
+      if (cause instanceof Error) {
+        throw (Error) cause;
+      }
+      throw new IllegalStateException(cause);
+    }
+  }
+
+  private void interpret(Program program) {
+    final var instructions = program.instructions;
+    final var literals = program.literals;
+    final var stack = operands;
+    var top = operandCount;
+    try {
+      for (var i = 0; i < instructions.length; i++) {
+        switch (instructions[i]) {
+          case LITERAL:
+            stack[top++] = literals[i];
+            break;
+          case SET_AGILITY:
+            var amount = stack[--top];
+            var wizard = stack[--top];
+            wizards[wizard].setAgility(amount);
+            break;
+          case SET_WISDOM:
+            amount = stack[--top];
+            wizard = stack[--top];
+            wizards[wizard].setWisdom(amount);
+            break;
+          case SET_HEALTH:
+            amount = stack[--top];
+            wizard = stack[--top];
+            wizards[wizard].setHealth(amount);
+            break;
+          case GET_HEALTH:
+            wizard = stack[--top];
+            // top moves after the value is read, so a failed read leaves the wizard popped
+            stack[top] = wizards[wizard].getHealth();
+            top++;
+            break;
+          case GET_AGILITY:
+            wizard = stack[--top];
+            stack[top] = wizards[wizard].getAgility();
+            top++;
+            break;
+          case GET_WISDOM:
+            wizard = stack[--top];
+            stack[top] = wizards[wizard].getWisdom();
+            top++;
+            break;
+          case ADD:
+            var a = stack[--top];
+            var b = stack[--top];
+            stack[top++] = a + b;
+            break;
+          case DIVIDE:
+            a = stack[--top];
+            b = stack[--top];
+            stack[top] = b / a;
+            top++;
+            break;
+          case PLAY_SOUND:
+            wizard = stack[--top];
+            wizards[wizard].playSound();
+            break;
+          case SPAWN_PARTICLES:
+            wizard = stack[--top];
+            wizards[wizard].spawnParticles();
+            break;
+          default:
+            throw new IllegalArgumentException("Invalid instruction value");
+        }
+      }
+    } finally {
+      // values popped before an instruction failed stay popped, as with execute(int[])
+      operandCount = top;
+    }
+  }
+
+  /**
+   * Values on the stack of {@link #execute(Program)}, bottom first.
+   *
+   * @return a copy of the stack
+   */
+  public int[] getOperandStack() {
+    return Arrays.copyOf(operands, operandCount);
+  }
+
+  /**
+   * Sets how many times {@link #execute(Program)} interprets a program before compiling it; 0
+   * compiles programs on their first run.
+   *
+   * @param compileThreshold runs before compiling
+   */
+  public void setCompileThreshold(int compileThreshold) {
+    if (compileThreshold < 0) {
+      throw new IllegalArgumentException("Compile threshold must not be negative");
+    }
+    this.compileThreshold = compileThreshold;
+  }
+
   public void setHealth(int wizard, int amount) {
     wizards[wizard].setHealth(amount);
   }
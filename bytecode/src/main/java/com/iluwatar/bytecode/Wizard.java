@@ -24,6 +24,7 @@
  */
 package com.iluwatar.bytecode;
 
+import java.lang.invoke.MethodHandles;
 import lombok.AllArgsConstructor;
 import lombok.Getter;
 import lombok.Setter;
@@ -54,4 +55,12 @@ public class Wizard {
     LOGGER.info("Spawning particles");
     numberOfSpawnedParticles++;
   }
+
+  /**
+   * Lookup for defining {@link SpellCompiler}'s classes as nestmates, which use the fields
+   * directly.
+   */
+  static MethodHandles.Lookup lookup() {
+    return MethodHandles.lookup();
+  }
 }
@@ -0,0 +1,114 @@
+/*
+ * This project is licensed under the MIT license. Module model-view-viewmodel is using ZK framework licensed under LGPL (see lgpl-3.0.txt).
+ *
+ * The MIT License
+ * Copyright © 2014-2022 Ilkka Seppälä
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.iluwatar.bytecode;
+
+import com.iluwatar.bytecode.util.InstructionConverterUtil;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * JMH benchmark: instructions per second of a long spell script, the spell of {@link App}
+ * repeated {@value #REPEATS} times. {@code interpreted} runs the bytecode with {@link
+ * VirtualMachine#execute(int[])}, which logs the stack after every instruction; {@code decoded}
+ * runs it decoded once with {@link VirtualMachine#execute(Program)}, never compiling it;
+ * {@code compiled} runs it compiled to JVM bytecode from the first call.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SpellBenchmark {
+
+  static final String SPELL = "LITERAL 0 LITERAL 0 GET_HEALTH LITERAL 0 GET_AGILITY LITERAL 0"
+      + " GET_WISDOM ADD LITERAL 2 DIVIDE ADD SET_HEALTH ";
+
+  static final int REPEATS = 1000;
+
+  // instructions in the script, LITERAL values not counted
+  static final int INSTRUCTIONS = 12 * REPEATS;
+
+  private int[] bytecode;
+
+  private Program program;
+
+  private Program compiledProgram;
+
+  private VirtualMachine vm;
+
+  private VirtualMachine compilingVm;
+
+  @Setup
+  public void setUp() {
+    bytecode = InstructionConverterUtil.convertToByteCode(SPELL.repeat(REPEATS));
+    program = Program.decode(bytecode);
+    compiledProgram = Program.decode(bytecode);
+    vm = new VirtualMachine(new Wizard(45, 7, 11, 0, 0), new Wizard(36, 18, 8, 0, 0));
+    vm.setCompileThreshold(Integer.MAX_VALUE);
+    compilingVm = new VirtualMachine(new Wizard(45, 7, 11, 0, 0), new Wizard(36, 18, 8, 0, 0));
+    compilingVm.setCompileThreshold(0);
+  }
+
+  @Benchmark
+  @OperationsPerInvocation(INSTRUCTIONS)
+  public int interpreted() {
+    vm.execute(bytecode);
+    return vm.getHealth(0);
+  }
+
+  @Benchmark
+  @OperationsPerInvocation(INSTRUCTIONS)
+  public int decoded() {
+    vm.execute(program);
+    return vm.getHealth(0);
+  }
+
+  @Benchmark
+  @OperationsPerInvocation(INSTRUCTIONS)
+  public int compiled() {
+    compilingVm.execute(compiledProgram);
+    return compilingVm.getHealth(0);
+  }
+
+  public static void main(String[] args) throws RunnerException {
+    new Runner(new OptionsBuilder()
+        .include(SpellBenchmark.class.getSimpleName())
+        .build()).run();
+  }
+}
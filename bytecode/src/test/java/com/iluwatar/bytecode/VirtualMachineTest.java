@@ -25,9 +25,17 @@
 package com.iluwatar.bytecode;
 
 import static com.iluwatar.bytecode.Instruction.*;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 
+import com.iluwatar.bytecode.util.InstructionConverterUtil;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.stream.IntStream;
 import org.junit.jupiter.api.Test;
 
 /**
@@ -153,4 +161,218 @@ class VirtualMachineTest {
 
     assertThrows(IllegalArgumentException.class, () -> vm.execute(bytecode));
   }
+
+  @Test
+  void testDecodedProgramMatchesInterpreter() {
+    var bytecode = InstructionConverterUtil.convertToByteCode("LITERAL 0 LITERAL 0 GET_HEALTH"
+        + " LITERAL 0 GET_AGILITY LITERAL 0 GET_WISDOM ADD LITERAL 2 DIVIDE ADD SET_HEALTH"
+        + " LITERAL 1 LITERAL 1 GET_WISDOM LITERAL 1 GET_AGILITY ADD SET_AGILITY"
+        + " LITERAL 1 PLAY_SOUND LITERAL 0 SPAWN_PARTICLES LITERAL 1 GET_HEALTH");
+
+    var interpreted = new VirtualMachine(new Wizard(45, 7, 11, 0, 0), new Wizard(36, 18, 8, 0, 0));
+    interpreted.execute(bytecode);
+    var decoded = new VirtualMachine(new Wizard(45, 7, 11, 0, 0), new Wizard(36, 18, 8, 0, 0));
+    decoded.execute(Program.decode(bytecode));
+
+    for (var i = 0; i < 2; i++) {
+      var expected = interpreted.getWizards()[i];
+      var actual = decoded.getWizards()[i];
+      assertEquals(expected.getHealth(), actual.getHealth());
+      assertEquals(expected.getAgility(), actual.getAgility());
+      assertEquals(expected.getWisdom(), actual.getWisdom());
+      assertEquals(expected.getNumberOfPlayedSounds(), actual.getNumberOfPlayedSounds());
+      assertEquals(expected.getNumberOfSpawnedParticles(), actual.getNumberOfSpawnedParticles());
+    }
+    assertArrayEquals(new int[]{36}, decoded.getOperandStack());
+  }
+
+  @Test
+  void testDecodedProgramKeepsStackBetweenCalls() {
+    var vm = new VirtualMachine(new Wizard(45, 7, 11, 0, 0), new Wizard(36, 18, 8, 0, 0));
+    vm.execute(Program.decode(InstructionConverterUtil.convertToByteCode("LITERAL 1")));
+    vm.execute(Program.decode(InstructionConverterUtil.convertToByteCode("GET_WISDOM")));
+
+    assertArrayEquals(new int[]{8}, vm.getOperandStack());
+    var pop = Program.decode(InstructionConverterUtil.convertToByteCode("ADD"));
+    assertThrows(IllegalStateException.class, () -> vm.execute(pop));
+  }
+
+  @Test
+  void testFailedInstructionLeavesOperandsPopped() {
+    var bytecode = InstructionConverterUtil.convertToByteCode(
+        "LITERAL 7 LITERAL 2 GET_HEALTH LITERAL 7 LITERAL 0 DIVIDE");
+    var vm = new VirtualMachine(new Wizard(45, 7, 11, 0, 0), new Wizard(36, 18, 8, 0, 0));
+
+    assertThrows(ArrayIndexOutOfBoundsException.class, () -> vm.execute(bytecode));
+    assertThrows(ArrayIndexOutOfBoundsException.class,
+        () -> vm.execute(Program.decode(bytecode)));
+    assertArrayEquals(new int[]{7}, vm.getOperandStack());
+    assertEquals(1, vm.getStack().size());
+
+    var divide = Program.decode(Arrays.copyOfRange(bytecode, 5, bytecode.length));
+    assertThrows(ArithmeticException.class, () -> vm.execute(divide));
+    assertArrayEquals(new int[]{7}, vm.getOperandStack());
+  }
+
+  @Test
+  void testInvalidProgram() {
+    assertThrows(IllegalArgumentException.class, () -> Program.decode(new int[]{999}));
+    assertThrows(IllegalArgumentException.class,
+        () -> Program.decode(new int[]{LITERAL.getIntValue()}));
+  }
+
+  @Test
+  void testProgramIsCompiledAfterThreshold() {
+    var vm = new VirtualMachine(new Wizard(45, 7, 11, 0, 0), new Wizard(36, 18, 8, 0, 0));
+    vm.setCompileThreshold(2);
+    var program = Program.decode(
+        InstructionConverterUtil.convertToByteCode("LITERAL 1 LITERAL 1 GET_WISDOM ADD"));
+
+    vm.execute(program);
+    vm.execute(program);
+    assertNull(program.compiled);
+    vm.execute(program);
+    assertNotNull(program.compiled);
+    vm.execute(program);
+
+    assertArrayEquals(new int[]{9, 9, 9, 9}, vm.getOperandStack());
+  }
+
+  @Test
+  void testEqualProgramsShareCompiledCode() {
+    var bytecode = InstructionConverterUtil.convertToByteCode("LITERAL 0 GET_HEALTH");
+    var first = Program.decode(bytecode);
+    var second = Program.decode(bytecode.clone());
+    var vm = new VirtualMachine(new Wizard(45, 7, 11, 0, 0), new Wizard(36, 18, 8, 0, 0));
+    vm.setCompileThreshold(0);
+
+    vm.execute(first);
+    vm.execute(second);
+
+    assertEquals(first, second);
+    assertSame(first.compiled, second.compiled);
+    assertArrayEquals(new int[]{45, 45}, vm.getOperandStack());
+  }
+
+  @Test
+  void testCompiledCodeCacheIsBounded() {
+    var vm = new VirtualMachine(new Wizard(45, 7, 11, 0, 0), new Wizard(36, 18, 8, 0, 0));
+    vm.setCompileThreshold(0);
+    var first = Program.decode(InstructionConverterUtil.convertToByteCode("LITERAL -1"));
+    vm.execute(first);
+
+    for (var i = 0; i < 2 * SpellCompiler.CACHE_SIZE; i++) {
+      vm.execute(Program.decode(InstructionConverterUtil.convertToByteCode("LITERAL " + i)));
+    }
+    vm.execute(first);
+
+    assertEquals(SpellCompiler.CACHE_SIZE, SpellCompiler.cacheSize());
+    assertEquals(-1, vm.getOperandStack()[vm.getOperandStack().length - 1]);
+  }
+
+  @Test
+  void testCompiledProgramMatchesInterpreter() {
+    var random = new Random(42);
+    for (var i = 0; i < 500; i++) {
+      assertCompiledMatchesInterpreted(randomBytecode(random, random.nextInt(600)));
+    }
+  }
+
+  @Test
+  void testCompiledProgramWithDeepStack() {
+    // The second method of the compiled code pushes 70 values onto 190 it finds on the stack, so
+    // it has over 256 local variables.
+    var script = IntStream.range(0, 135).mapToObj(i -> "LITERAL " + i % 2 + " LITERAL " + i + " ")
+        .reduce("", String::concat) + "SET_HEALTH ".repeat(130);
+    assertCompiledMatchesInterpreted(InstructionConverterUtil.convertToByteCode(script));
+  }
+
+  // Valid programs for a stack of three values. Wizard numbers and divisors are mostly literals
+  // pushed just before, so most programs run far, but some are left to values computed earlier,
+  // which may be out of range or zero.
+  private static int[] randomBytecode(Random random, int length) {
+    var instructions = Instruction.values();
+    var bytecode = IntStream.builder();
+    var depth = 3;
+    for (var i = 0; i < length; i++) {
+      var instruction = instructions[random.nextInt(instructions.length)];
+      var safe = random.nextInt(200) != 0;
+      switch (instruction) {
+        case SET_HEALTH:
+        case SET_AGILITY:
+        case SET_WISDOM:
+          if (safe) {
+            bytecode.add(LITERAL.getIntValue()).add(random.nextInt(2));
+            bytecode.add(LITERAL.getIntValue()).add(random.nextInt(5));
+            depth += 2;
+          }
+          break;
+        case GET_HEALTH:
+        case GET_AGILITY:
+        case GET_WISDOM:
+        case PLAY_SOUND:
+        case SPAWN_PARTICLES:
+          if (safe) {
+            bytecode.add(LITERAL.getIntValue()).add(random.nextInt(2));
+            depth++;
+          }
+          break;
+        case DIVIDE:
+          if (safe) {
+            bytecode.add(LITERAL.getIntValue()).add(random.nextInt(3) + 1);
+            depth++;
+          }
+          break;
+        default:
+          break;
+      }
+      if (Program.pops(instruction) > depth) {
+        continue;
+      }
+      bytecode.add(instruction.getIntValue());
+      if (instruction == LITERAL) {
+        bytecode.add(random.nextInt(7) - 2);
+      }
+      depth += Program.pushes(instruction) - Program.pops(instruction);
+    }
+    return bytecode.build().toArray();
+  }
+
+  private static void assertCompiledMatchesInterpreted(int[] bytecode) {
+    var interpreted = new VirtualMachine(new Wizard(1, 0, 2, 0, 0), new Wizard(0, 1, 1, 0, 0));
+    interpreted.setCompileThreshold(Integer.MAX_VALUE);
+    var compiled = new VirtualMachine(new Wizard(1, 0, 2, 0, 0), new Wizard(0, 1, 1, 0, 0));
+    compiled.setCompileThreshold(0);
+    var setUp = InstructionConverterUtil.convertToByteCode("LITERAL 1 LITERAL 0 LITERAL 1");
+    interpreted.execute(Program.decode(setUp));
+    compiled.execute(Program.decode(setUp));
+
+    var expected = runForFailure(interpreted, Program.decode(bytecode));
+    var program = Program.decode(bytecode);
+    var actual = runForFailure(compiled, program);
+
+    assertNotNull(program.compiled);
+    assertEquals(expected, actual);
+    for (var i = 0; i < 2; i++) {
+      var expectedWizard = interpreted.getWizards()[i];
+      var actualWizard = compiled.getWizards()[i];
+      assertEquals(expectedWizard.getHealth(), actualWizard.getHealth());
+      assertEquals(expectedWizard.getAgility(), actualWizard.getAgility());
+      assertEquals(expectedWizard.getWisdom(), actualWizard.getWisdom());
+      assertEquals(expectedWizard.getNumberOfPlayedSounds(),
+          actualWizard.getNumberOfPlayedSounds());
+      assertEquals(expectedWizard.getNumberOfSpawnedParticles(),
+          actualWizard.getNumberOfSpawnedParticles());
+    }
+    assertArrayEquals(interpreted.getOperandStack(), compiled.getOperandStack());
+  }
+
+  private static Class<?> runForFailure(VirtualMachine vm, Program program) {
+    try {
+      vm.execute(program);
+      return null;
+    } catch (RuntimeException e) {
+      return e.getClass();
+    }
+  }
 }
@@ -25,6 +25,8 @@
 package com.iluwatar.caching;
 
 import com.iluwatar.caching.database.DbManager;
+import java.util.EnumMap;
+import java.util.Map;
 import java.util.Optional;
 import lombok.extern.slf4j.Slf4j;
 
@@ -50,6 +52,12 @@ public class AppManager {
    * Cache Store.
    */
   private final CacheStore cacheStore;
+  /**
+   * Loading options by caching policy, {@link LoadingOptions#DEFAULT} for
+   * the policies without an entry.
+   */
+  private final Map<CachingPolicy, LoadingOptions> loadingOptions =
+      new EnumMap<>(CachingPolicy.class);
 
   /**
    * Constructor.
@@ -61,6 +69,18 @@ public class AppManager {
     this.cacheStore = new CacheStore(newDbManager);
   }
 
+  /**
+   * Constructor.
+   *
+   * @param newDbManager database manager
+   * @param evictionPolicy eviction policy of the cache
+   */
+  public AppManager(final DbManager newDbManager,
+                    final EvictionPolicy evictionPolicy) {
+    this.dbManager = newDbManager;
+    this.cacheStore = new CacheStore(newDbManager, evictionPolicy);
+  }
+
   /**
    * Developer/Tester is able to choose whether the application should use
    * MongoDB as its underlying data storage or a simple Java data structure
@@ -77,12 +97,34 @@ public class AppManager {
    */
   public void initCachingPolicy(final CachingPolicy policy) {
     cachingPolicy = policy;
-    if (cachingPolicy == CachingPolicy.BEHIND) {
+    if (cachingPolicy == CachingPolicy.BEHIND_ASYNC) {
+      cacheStore.startWriteBehindFlusher(new WriteBehindFlusher(dbManager));
+    } else {
+      cacheStore.stopWriteBehindFlusher();
+    }
+    if (cachingPolicy == CachingPolicy.BEHIND
+            || cachingPolicy == CachingPolicy.BEHIND_ASYNC) {
       Runtime.getRuntime().addShutdownHook(new Thread(cacheStore::flushCache));
     }
+    cacheStore.setLoadingOptions(
+        loadingOptions.getOrDefault(policy, LoadingOptions.DEFAULT));
     cacheStore.clearCache();
   }
 
+  /**
+   * Configure single-flight and refresh-ahead loading for a caching policy.
+   * Takes effect the next time the policy is initialized. Refresh-ahead
+   * needs a concurrent eviction policy, see
+   * {@link CacheStore#setLoadingOptions(LoadingOptions)}.
+   *
+   * @param policy  {@link CachingPolicy}
+   * @param options {@link LoadingOptions}
+   */
+  public void setLoadingOptions(final CachingPolicy policy,
+                                final LoadingOptions options) {
+    loadingOptions.put(policy, options);
+  }
+
   /**
    * Find user account.
    *
@@ -94,7 +136,8 @@ public class AppManager {
     if (cachingPolicy == CachingPolicy.THROUGH
             || cachingPolicy == CachingPolicy.AROUND) {
       return cacheStore.readThrough(userId);
-    } else if (cachingPolicy == CachingPolicy.BEHIND) {
+    } else if (cachingPolicy == CachingPolicy.BEHIND
+            || cachingPolicy == CachingPolicy.BEHIND_ASYNC) {
       return cacheStore.readThroughWithWriteBackPolicy(userId);
     } else if (cachingPolicy == CachingPolicy.ASIDE) {
       return findAside(userId);
@@ -113,7 +156,8 @@ public class AppManager {
       cacheStore.writeThrough(userAccount);
     } else if (cachingPolicy == CachingPolicy.AROUND) {
       cacheStore.writeAround(userAccount);
-    } else if (cachingPolicy == CachingPolicy.BEHIND) {
+    } else if (cachingPolicy == CachingPolicy.BEHIND
+            || cachingPolicy == CachingPolicy.BEHIND_ASYNC) {
       cacheStore.writeBehind(userAccount);
     } else if (cachingPolicy == CachingPolicy.ASIDE) {
       saveAside(userAccount);
@@ -0,0 +1,126 @@
+/*
+ * This project is licensed under the MIT license. Module model-view-viewmodel is using ZK framework licensed under LGPL (see lgpl-3.0.txt).
+ *
+ * The MIT License
+ * Copyright © 2014-2022 Ilkka Seppälä
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.iluwatar.caching;
+
+import java.util.List;
+
+/**
+ * Contract shared by the cache implementations {@link CacheStore} can sit on.
+ * Implementations keep the entries in least-recently-used order so that the
+ * write-back path can ask for the LRU entry before it gets evicted.
+ */
+public interface CacheEngine {
+
+  /**
+   * Get user account.
+   *
+   * @param userId String
+   * @return {@link UserAccount}, or null if not cached
+   */
+  UserAccount get(String userId);
+
+  /**
+   * Set user account.
+   *
+   * @param userId      {@link String}
+   * @param userAccount {@link UserAccount}
+   */
+  void set(String userId, UserAccount userAccount);
+
+  /**
+   * Replace the cached user account, but only while it is still the given
+   * one. Atomic in caches that are {@link #isConcurrent() concurrent}.
+   *
+   * @param userId      {@link String}
+   * @param expected    {@link UserAccount} the entry must still hold
+   * @param userAccount {@link UserAccount}
+   * @return whether the account was replaced
+   */
+  default boolean replace(String userId, UserAccount expected,
+                          UserAccount userAccount) {
+    if (!contains(userId) || get(userId) != expected) {
+      return false;
+    }
+    set(userId, userAccount);
+    return true;
+  }
+
+  /**
+   * Check if Cache contains the userId.
+   *
+   * @param userId {@link String}
+   * @return boolean
+   */
+  boolean contains(String userId);
+
+  /**
+   * Invalidate cache for user.
+   *
+   * @param userId {@link String}
+   */
+  void invalidate(String userId);
+
+  /**
+   * Check if the cache is full.
+   *
+   * @return boolean
+   */
+  boolean isFull();
+
+  /**
+   * Get LRU data.
+   *
+   * @return {@link UserAccount}
+   */
+  UserAccount getLruData();
+
+  /**
+   * Clear cache.
+   */
+  void clear();
+
+  /**
+   * Returns cache data in list form, most-recently-used first.
+   *
+   * @return {@link List}
+   */
+  List<UserAccount> getCacheDataInListForm();
+
+  /**
+   * Set cache capacity.
+   *
+   * @param newCapacity int
+   */
+  void setCapacity(int newCapacity);
+
+  /**
+   * Check if the cache may be used by several threads at once.
+   *
+   * @return boolean
+   */
+  default boolean isConcurrent() {
+    return false;
+  }
+}
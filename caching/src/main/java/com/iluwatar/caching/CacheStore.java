@@ -26,7 +26,12 @@ package com.iluwatar.caching;
 
 import com.iluwatar.caching.database.DbManager;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
 import lombok.extern.slf4j.Slf4j;
 
@@ -39,15 +44,49 @@ public class CacheStore {
    * Cache capacity.
    */
   private static final int CAPACITY = 3;
+  /**
+   * Threads reloading entries for refresh-ahead.
+   */
+  private static final int REFRESH_THREADS = 2;
 
   /**
-   * Lru cache see {@link LruCache}.
+   * Backing cache, see {@link LruCache} and {@link ConcurrentLruCache}.
    */
-  private LruCache cache;
+  private CacheEngine cache;
   /**
    * DbManager.
    */
   private final DbManager dbManager;
+  /**
+   * Asynchronous write-behind flusher, null when LRU data is written back
+   * on the caller's thread.
+   */
+  private volatile WriteBehindFlusher writeBehindFlusher;
+  /**
+   * How missing and ageing entries are loaded.
+   */
+  private LoadingOptions loadingOptions = LoadingOptions.DEFAULT;
+  /**
+   * DB reads in flight, shared by concurrent misses on the same key.
+   */
+  private final SingleFlight<String, UserAccount> dbReads =
+      new SingleFlight<>();
+  /**
+   * Refresh-ahead reloads in flight. Kept apart from {@link #dbReads}, so
+   * that a miss never takes the result of a reload that started before the
+   * entry was invalidated.
+   */
+  private final SingleFlight<String, UserAccount> refreshes =
+      new SingleFlight<>();
+  /**
+   * When each entry was loaded, in {@link System#nanoTime()}; only tracked
+   * while refresh-ahead is enabled.
+   */
+  private final Map<String, Long> loadedAt = new ConcurrentHashMap<>();
+  /**
+   * Runs refresh-ahead reloads, created on first use.
+   */
+  private ExecutorService refreshExecutor;
 
   /**
    * Cache Store.
@@ -58,6 +97,28 @@ public class CacheStore {
     initCapacity(CAPACITY);
   }
 
+  /**
+   * Cache Store evicting with the given policy.
+   * @param dataBaseManager {@link DbManager}
+   * @param evictionPolicy {@link EvictionPolicy}
+   */
+  public CacheStore(final DbManager dataBaseManager,
+                    final EvictionPolicy evictionPolicy) {
+    this(dataBaseManager, evictionPolicy.createCache(CAPACITY));
+  }
+
+  /**
+   * Cache Store on top of a given cache engine, e.g. a
+   * {@link ConcurrentLruCache} when the store is shared by request threads.
+   * @param dataBaseManager {@link DbManager}
+   * @param cacheEngine {@link CacheEngine}
+   */
+  public CacheStore(final DbManager dataBaseManager,
+                    final CacheEngine cacheEngine) {
+    this.dbManager = dataBaseManager;
+    this.cache = cacheEngine;
+  }
+
   /**
    * Init cache capacity.
    * @param capacity int
@@ -76,14 +137,20 @@ public class CacheStore {
    * @return {@link UserAccount}
    */
   public UserAccount readThrough(final String userId) {
-    if (cache.contains(userId)) {
+    // One lookup: with a concurrent cache the entry may be evicted between
+    // contains() and get().
+    UserAccount cached = cache.get(userId);
+    if (cached != null) {
       LOGGER.info("# Found in Cache!");
-      return cache.get(userId);
+      refreshIfDue(userId, cached);
+      return cached;
     }
     LOGGER.info("# Not found in cache! Go to DB!!");
-    UserAccount userAccount = dbManager.readFromDb(userId);
-    cache.set(userId, userAccount);
-    return userAccount;
+    return load(userId, () -> {
+      UserAccount userAccount = dbManager.readFromDb(userId);
+      cache.set(userId, userAccount);
+      return userAccount;
+    });
   }
 
   /**
@@ -120,19 +187,102 @@ public class CacheStore {
    * @return {@link UserAccount}
    */
   public UserAccount readThroughWithWriteBackPolicy(final String userId) {
-    if (cache.contains(userId)) {
+    UserAccount cached = cache.get(userId);
+    if (cached != null) {
       LOGGER.info("# Found in cache!");
-      return cache.get(userId);
+      return cached;
     }
     LOGGER.info("# Not found in Cache!");
-    UserAccount userAccount = dbManager.readFromDb(userId);
-    if (cache.isFull()) {
-      LOGGER.info("# Cache is FULL! Writing LRU data to DB...");
-      UserAccount toBeWrittenToDb = cache.getLruData();
-      dbManager.upsertDb(toBeWrittenToDb);
+    return load(userId, () -> {
+      UserAccount userAccount = Optional.ofNullable(writeBehindFlusher)
+          .map(flusher -> flusher.getPending(userId))
+          .orElseGet(() -> dbManager.readFromDb(userId));
+      if (cache.isFull()) {
+        LOGGER.info("# Cache is FULL! Writing LRU data to DB...");
+        UserAccount toBeWrittenToDb = cache.getLruData();
+        writeBack(toBeWrittenToDb);
+      }
+      cache.set(userId, userAccount);
+      return userAccount;
+    });
+  }
+
+  /**
+   * Set how missing and ageing entries are loaded. Refresh-ahead only
+   * applies to {@link #readThrough(String)}: with write-back the cache may
+   * hold data newer than the DB. It reloads entries on background threads,
+   * so it needs a {@link CacheEngine#isConcurrent() concurrent} cache such
+   * as {@link ConcurrentLruCache}.
+   * @param options {@link LoadingOptions}
+   * @throws IllegalArgumentException for refresh-ahead on a cache that is
+   *     not concurrent
+   */
+  public void setLoadingOptions(final LoadingOptions options) {
+    if (options.refreshAhead() && !cache.isConcurrent()) {
+      throw new IllegalArgumentException(
+          "Refresh-ahead needs a concurrent cache, e.g. ConcurrentLruCache");
+    }
+    this.loadingOptions = options;
+    if (!options.refreshAhead()) {
+      loadedAt.clear();
+    } else if (refreshExecutor == null) {
+      refreshExecutor = Executors.newFixedThreadPool(REFRESH_THREADS, r -> {
+        var thread = new Thread(r, "cache-refresh-ahead");
+        thread.setDaemon(true);
+        return thread;
+      });
     }
-    cache.set(userId, userAccount);
-    return userAccount;
+  }
+
+  /**
+   * Runs a cache miss load, coalesced with concurrent loads of the same key
+   * when single-flight is enabled. The loader puts the entry in the cache
+   * before followers are released, so no late caller misses again.
+   * @param userId {@link String}
+   * @param loader reads the account and sets it into the cache
+   * @return {@link UserAccount}
+   */
+  private UserAccount load(final String userId,
+                           final Supplier<UserAccount> loader) {
+    Supplier<UserAccount> timedLoader = () -> {
+      var userAccount = loader.get();
+      if (loadingOptions.refreshAhead()) {
+        loadedAt.put(userId, System.nanoTime());
+      }
+      return userAccount;
+    };
+    return loadingOptions.singleFlight()
+        ? dbReads.execute(userId, timedLoader)
+        : timedLoader.get();
+  }
+
+  /**
+   * Reloads a cached entry in the background once it is older than the
+   * refresh-ahead age. The caller keeps getting the cached version. The
+   * reload only replaces that very version, so it cannot bring back an entry
+   * that was invalidated or overwritten meanwhile.
+   * @param userId {@link String}
+   * @param cached {@link UserAccount} found in the cache
+   */
+  private void refreshIfDue(final String userId, final UserAccount cached) {
+    if (!loadingOptions.refreshAhead()) {
+      return;
+    }
+    var loaded = loadedAt.get(userId);
+    if (loaded == null || System.nanoTime() - loaded
+        < loadingOptions.refreshAfter().toNanos()) {
+      return;
+    }
+    refreshes.executeAsync(userId, () -> {
+      LOGGER.info("# Refreshing {} ahead of time...", userId);
+      UserAccount userAccount = dbManager.readFromDb(userId);
+      if (cache.replace(userId, cached, userAccount)) {
+        loadedAt.put(userId, System.nanoTime());
+      } else if (!cache.contains(userId)) {
+        loadedAt.remove(userId);
+      }
+      return userAccount;
+    }, refreshExecutor);
   }
 
   /**
@@ -143,11 +293,62 @@ public class CacheStore {
     if (cache.isFull() && !cache.contains(userAccount.getUserId())) {
       LOGGER.info("# Cache is FULL! Writing LRU data to DB...");
       UserAccount toBeWrittenToDb = cache.getLruData();
-      dbManager.upsertDb(toBeWrittenToDb);
+      writeBack(toBeWrittenToDb);
     }
     cache.set(userAccount.getUserId(), userAccount);
   }
 
+  /**
+   * Writes evicted LRU data to the DB, directly or through the flusher.
+   * @param userAccount {@link UserAccount}
+   */
+  private void writeBack(final UserAccount userAccount) {
+    var flusher = writeBehindFlusher;
+    if (flusher != null) {
+      try {
+        flusher.enqueue(userAccount);
+        return;
+      } catch (IllegalStateException e) {
+        // Closed by another thread: wait for its queue to drain, so an older
+        // version of the account cannot overwrite this one, and write it here.
+        LOGGER.info("# Write-behind flusher is closed, writing to DB...");
+        flusher.close();
+      }
+    }
+    dbManager.upsertDb(userAccount);
+  }
+
+  /**
+   * Hands the write-back of evicted LRU data to a background flusher that
+   * batches the upserts, see {@link WriteBehindFlusher}. A flusher started
+   * earlier is drained and closed first.
+   * @param flusher {@link WriteBehindFlusher} on the same {@link DbManager}
+   */
+  public void startWriteBehindFlusher(final WriteBehindFlusher flusher) {
+    stopWriteBehindFlusher();
+    writeBehindFlusher = flusher;
+  }
+
+  /**
+   * Flushes and closes the background flusher, if any. Evicted LRU data
+   * is written back synchronously afterwards.
+   */
+  public void stopWriteBehindFlusher() {
+    var flusher = writeBehindFlusher;
+    if (flusher != null) {
+      flusher.close();
+      writeBehindFlusher = null;
+    }
+  }
+
+  /**
+   * Background flusher in use.
+   * @return {@link WriteBehindFlusher}, empty for synchronous write-back
+   */
+  public Optional<WriteBehindFlusher> getWriteBehindFlusher() {
+    return Optional.ofNullable(writeBehindFlusher);
+  }
+
   /**
    * Clears cache.
    */
@@ -155,6 +356,7 @@ public class CacheStore {
     if (cache != null) {
       cache.clear();
     }
+    loadedAt.clear();
   }
 
   /**
@@ -162,8 +364,9 @@ public class CacheStore {
    */
   public void flushCache() {
     LOGGER.info("# flushCache...");
+    stopWriteBehindFlusher();
     Optional.ofNullable(cache)
-        .map(LruCache::getCacheDataInListForm)
+        .map(CacheEngine::getCacheDataInListForm)
         .orElse(List.of())
         .forEach(dbManager::updateDb);
     dbManager.disconnect();
@@ -175,7 +378,7 @@ public class CacheStore {
    */
   public String print() {
     return Optional.ofNullable(cache)
-        .map(LruCache::getCacheDataInListForm)
+        .map(CacheEngine::getCacheDataInListForm)
         .orElse(List.of())
         .stream()
         .map(userAccount -> userAccount.toString() + "\n")
@@ -206,5 +409,6 @@ public class CacheStore {
    */
   public void invalidate(final String userId) {
     cache.invalidate(userId);
+    loadedAt.remove(userId);
   }
 }
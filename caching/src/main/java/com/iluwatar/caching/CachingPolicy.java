@@ -28,7 +28,7 @@ import lombok.AllArgsConstructor;
 import lombok.Getter;
 
 /**
- * Enum class containing the four caching strategies implemented in the pattern.
+ * Enum class containing the caching strategies implemented in the pattern.
  */
 @AllArgsConstructor
 @Getter
@@ -45,6 +45,10 @@ public enum CachingPolicy {
    * BEHIND.
    */
   BEHIND("behind"),
+  /**
+   * BEHIND, with evicted data written by a background batching flusher.
+   */
+  BEHIND_ASYNC("behind-async"),
   /**
    * ASIDE.
    */
@@ -0,0 +1,409 @@
+/*
+ * This project is licensed under the MIT license. Module model-view-viewmodel is using ZK framework licensed under LGPL (see lgpl-3.0.txt).
+ *
+ * The MIT License
+ * Copyright © 2014-2022 Ilkka Seppälä
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.iluwatar.caching;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
+import java.util.concurrent.locks.ReentrantLock;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Thread-safe counterpart of {@link LruCache}. Entries live in a
+ * {@link ConcurrentHashMap}, so lookups never block. The LRU ordering is
+ * still a doubly linked-list, but instead of relinking the list on every
+ * read, reads are recorded into striped ring buffers and replayed in batches
+ * under a single eviction lock. Writers take the lock and replay the pending
+ * reads before touching the list, which keeps the ordering strict enough for
+ * the write-back path: {@link #getLruData()} always sees every read that
+ * completed before it was called.
+ */
+@Slf4j
+public class ConcurrentLruCache implements CacheEngine {
+
+  /**
+   * Slots per read buffer, must be a power of two.
+   */
+  private static final int BUFFER_SIZE = 32;
+  /**
+   * Mask to map a buffer index to its slot.
+   */
+  private static final int BUFFER_MASK = BUFFER_SIZE - 1;
+  /**
+   * Pending reads in a buffer that make the reader try to replay them.
+   */
+  private static final int DRAIN_THRESHOLD = BUFFER_SIZE / 2;
+
+  /**
+   * Compares and sets {@link Node#userAccount}.
+   */
+  private static final AtomicReferenceFieldUpdater<Node, UserAccount>
+      USER_ACCOUNT = AtomicReferenceFieldUpdater.newUpdater(Node.class,
+          UserAccount.class, "userAccount");
+
+  /**
+   * Linked-list node.
+   */
+  static final class Node {
+    /**
+     * user id.
+     */
+    private final String userId;
+    /**
+     * User Account.
+     */
+    private volatile UserAccount userAccount;
+    /**
+     * previous, guarded by the eviction lock.
+     */
+    private Node previous;
+    /**
+     * next, guarded by the eviction lock.
+     */
+    private Node next;
+    /**
+     * Whether the node is on the list, guarded by the eviction lock.
+     */
+    private boolean linked;
+
+    /**
+     * Node definition.
+     *
+     * @param id      String
+     * @param account {@link UserAccount}
+     */
+    Node(final String id, final UserAccount account) {
+      this.userId = id;
+      this.userAccount = account;
+    }
+  }
+
+  /**
+   * Bounded ring of recorded reads. Any thread may append, only the holder of
+   * the eviction lock drains.
+   */
+  static final class ReadBuffer {
+    /**
+     * Recorded nodes.
+     */
+    private final AtomicReferenceArray<Node> slots =
+        new AtomicReferenceArray<>(BUFFER_SIZE);
+    /**
+     * Next slot to claim.
+     */
+    private final AtomicLong writeIndex = new AtomicLong();
+    /**
+     * Next slot to drain, written only under the eviction lock.
+     */
+    private volatile long readIndex;
+  }
+
+  /**
+   * Capacity of Cache.
+   */
+  private volatile int capacity;
+  /**
+   * Cache {@link ConcurrentHashMap}.
+   */
+  private final ConcurrentHashMap<String, Node> cache =
+      new ConcurrentHashMap<>();
+  /**
+   * Guards the linked-list and draining of the read buffers.
+   */
+  private final ReentrantLock evictionLock = new ReentrantLock();
+  /**
+   * Read buffers, one is picked per thread.
+   */
+  private final ReadBuffer[] readBuffers;
+  /**
+   * Head, most-recently-used.
+   */
+  private Node head;
+  /**
+   * End, least-recently-used.
+   */
+  private Node end;
+
+  /**
+   * Constructor.
+   *
+   * @param cap Integer.
+   */
+  public ConcurrentLruCache(final int cap) {
+    this.capacity = cap;
+    var stripes = Integer.highestOneBit(
+        Math.max(1, Runtime.getRuntime().availableProcessors() - 1)) << 1;
+    this.readBuffers = new ReadBuffer[stripes];
+    for (var i = 0; i < stripes; i++) {
+      readBuffers[i] = new ReadBuffer();
+    }
+  }
+
+  @Override
+  public UserAccount get(final String userId) {
+    var node = cache.get(userId);
+    if (node == null) {
+      return null;
+    }
+    recordRead(node);
+    return node.userAccount;
+  }
+
+  @Override
+  public void set(final String userId, final UserAccount userAccount) {
+    var existing = cache.get(userId);
+    if (existing != null) {
+      // Updating a resident entry is just a write plus an access.
+      existing.userAccount = userAccount;
+      recordRead(existing);
+      return;
+    }
+    evictionLock.lock();
+    try {
+      drainReadBuffers();
+      var old = cache.get(userId);
+      if (old != null) {
+        old.userAccount = userAccount;
+        unlink(old);
+        linkHead(old);
+        return;
+      }
+      if (cache.size() >= capacity && end != null) {
+        var lru = end;
+        LOGGER.debug("# Cache is FULL! Removing {} from cache...", lru.userId);
+        cache.remove(lru.userId, lru);
+        unlink(lru);
+      }
+      var newNode = new Node(userId, userAccount);
+      cache.put(userId, newNode);
+      linkHead(newNode);
+    } finally {
+      evictionLock.unlock();
+    }
+  }
+
+  @Override
+  public boolean replace(final String userId, final UserAccount expected,
+                         final UserAccount userAccount) {
+    // Not an access: the entry keeps its place in the LRU order.
+    var node = cache.get(userId);
+    return node != null
+        && USER_ACCOUNT.compareAndSet(node, expected, userAccount);
+  }
+
+  @Override
+  public boolean contains(final String userId) {
+    return cache.containsKey(userId);
+  }
+
+  @Override
+  public void invalidate(final String userId) {
+    evictionLock.lock();
+    try {
+      var toBeRemoved = cache.remove(userId);
+      if (toBeRemoved != null) {
+        LOGGER.debug("# {} has been updated! "
+            + "Removing older version from cache...", userId);
+        unlink(toBeRemoved);
+      }
+    } finally {
+      evictionLock.unlock();
+    }
+  }
+
+  @Override
+  public boolean isFull() {
+    return cache.size() >= capacity;
+  }
+
+  @Override
+  public UserAccount getLruData() {
+    evictionLock.lock();
+    try {
+      drainReadBuffers();
+      return end == null ? null : end.userAccount;
+    } finally {
+      evictionLock.unlock();
+    }
+  }
+
+  @Override
+  public void clear() {
+    evictionLock.lock();
+    try {
+      drainReadBuffers();
+      for (var node = head; node != null; node = node.next) {
+        node.linked = false;
+      }
+      head = null;
+      end = null;
+      cache.clear();
+    } finally {
+      evictionLock.unlock();
+    }
+  }
+
+  @Override
+  public List<UserAccount> getCacheDataInListForm() {
+    evictionLock.lock();
+    try {
+      drainReadBuffers();
+      var listOfCacheData = new ArrayList<UserAccount>(cache.size());
+      for (var node = head; node != null; node = node.next) {
+        listOfCacheData.add(node.userAccount);
+      }
+      return listOfCacheData;
+    } finally {
+      evictionLock.unlock();
+    }
+  }
+
+  @Override
+  public boolean isConcurrent() {
+    return true;
+  }
+
+  @Override
+  public void setCapacity(final int newCapacity) {
+    if (capacity > newCapacity) {
+      // Same behaviour as LruCache: a shrink simply clears the cache.
+      clear();
+    } else {
+      this.capacity = newCapacity;
+    }
+  }
+
+  /**
+   * Appends the read to this thread's buffer, replaying the buffers when
+   * they fill up. A full buffer is drained under the lock rather than
+   * dropping the read, so no access is ever lost from the LRU ordering.
+   *
+   * @param node {@link Node}
+   */
+  private void recordRead(final Node node) {
+    var buffer = readBuffers[bufferIndex()];
+    while (true) {
+      var index = buffer.writeIndex.get();
+      var pending = index - buffer.readIndex;
+      if (pending >= BUFFER_SIZE) {
+        evictionLock.lock();
+        try {
+          drainReadBuffers();
+        } finally {
+          evictionLock.unlock();
+        }
+        continue;
+      }
+      if (buffer.writeIndex.compareAndSet(index, index + 1)) {
+        buffer.slots.set((int) index & BUFFER_MASK, node);
+        if (pending + 1 >= DRAIN_THRESHOLD && evictionLock.tryLock()) {
+          try {
+            drainReadBuffers();
+          } finally {
+            evictionLock.unlock();
+          }
+        }
+        return;
+      }
+    }
+  }
+
+  /**
+   * Picks the read buffer for the calling thread.
+   *
+   * @return index into {@link #readBuffers}
+   */
+  private int bufferIndex() {
+    var h = Long.hashCode(Thread.currentThread().getId()) * 0x9E3779B9;
+    return (h ^ (h >>> 16)) & (readBuffers.length - 1);
+  }
+
+  /**
+   * Replays the recorded reads onto the linked-list. Must hold the lock.
+   */
+  private void drainReadBuffers() {
+    for (var buffer : readBuffers) {
+      var index = buffer.readIndex;
+      var limit = buffer.writeIndex.get();
+      while (index < limit) {
+        var slot = (int) index & BUFFER_MASK;
+        var node = buffer.slots.get(slot);
+        if (node == null) {
+          // The writer claimed the slot but has not published yet.
+          break;
+        }
+        buffer.slots.lazySet(slot, null);
+        if (node.linked) {
+          unlink(node);
+          linkHead(node);
+        }
+        index++;
+      }
+      buffer.readIndex = index;
+    }
+  }
+
+  /**
+   * Remove node from linked list. Must hold the lock.
+   *
+   * @param node {@link Node}
+   */
+  private void unlink(final Node node) {
+    if (node.previous != null) {
+      node.previous.next = node.next;
+    } else {
+      head = node.next;
+    }
+    if (node.next != null) {
+      node.next.previous = node.previous;
+    } else {
+      end = node.previous;
+    }
+    node.previous = null;
+    node.next = null;
+    node.linked = false;
+  }
+
+  /**
+   * Move node to the front of the list. Must hold the lock.
+   *
+   * @param node {@link Node}
+   */
+  private void linkHead(final Node node) {
+    node.next = head;
+    node.previous = null;
+    if (head != null) {
+      head.previous = node;
+    }
+    head = node;
+    if (end == null) {
+      end = head;
+    }
+    node.linked = true;
+  }
+}
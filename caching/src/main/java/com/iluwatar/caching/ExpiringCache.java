@@ -0,0 +1,373 @@
+/*
+ * This project is licensed under the MIT license. Module model-view-viewmodel is using ZK framework licensed under LGPL (see lgpl-3.0.txt).
+ *
+ * The MIT License
+ * Copyright © 2014-2022 Ilkka Seppälä
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.iluwatar.caching;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Adds time-based expiry to any {@link CacheEngine}. Entries can expire a
+ * fixed time after they were written, after they were last read, or both.
+ * Deadlines are tracked on a hierarchical {@link TimerWheel} rather than by
+ * scanning the entries: reads and writes advance the wheel, which removes
+ * the expired entries in batches, bucket by bucket. A read also checks the
+ * entry's own deadline, so an expired entry is never returned even if its
+ * bucket has not been reaped yet.
+ *
+ * <p>Reads only take the wheel lock when the wheel is due to advance, so the
+ * decorator is as thread-safe as the engine it wraps.
+ */
+@Slf4j
+public class ExpiringCache implements CacheEngine {
+
+  /**
+   * Expiry bookkeeping of a cached entry.
+   */
+  private static final class Entry extends TimerWheel.Timer {
+    /**
+     * user id.
+     */
+    private final String userId;
+    /**
+     * User Account, handed to the expiry listener.
+     */
+    private volatile UserAccount userAccount;
+    /**
+     * Last write, in milliseconds.
+     */
+    private volatile long writeTime;
+    /**
+     * Last read or write, in milliseconds.
+     */
+    private volatile long accessTime;
+
+    Entry(final String id) {
+      this.userId = id;
+    }
+  }
+
+  /**
+   * Wrapped cache.
+   */
+  private final CacheEngine delegate;
+  /**
+   * Time to live after a write, in milliseconds, 0 if unused.
+   */
+  private final long expireAfterWrite;
+  /**
+   * Time to live after an access, in milliseconds, 0 if unused.
+   */
+  private final long expireAfterAccess;
+  /**
+   * Time source.
+   */
+  private final Clock clock;
+  /**
+   * Receives the accounts that expired.
+   */
+  private final Consumer<UserAccount> expiryListener;
+  /**
+   * Expiry bookkeeping by user id.
+   */
+  private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+  /**
+   * Guards the wheel.
+   */
+  private final ReentrantLock lock = new ReentrantLock();
+  /**
+   * Deadlines.
+   */
+  private final TimerWheel<Entry> wheel;
+  /**
+   * Time of the last advance of the wheel.
+   */
+  private volatile long lastReap;
+
+  /**
+   * Constructor.
+   *
+   * @param cache       wrapped cache
+   * @param afterWrite  time to live after a write, null or zero if unused
+   * @param afterAccess time to live after an access, null or zero if unused
+   * @param timeSource  {@link Clock}
+   * @param listener    receives the accounts that expired, e.g. to write
+   *                    them back under the write-behind policy
+   */
+  public ExpiringCache(final CacheEngine cache, final Duration afterWrite,
+                       final Duration afterAccess, final Clock timeSource,
+                       final Consumer<UserAccount> listener) {
+    this.delegate = cache;
+    this.expireAfterWrite = afterWrite == null ? 0 : afterWrite.toMillis();
+    this.expireAfterAccess = afterAccess == null ? 0 : afterAccess.toMillis();
+    if (expireAfterWrite <= 0 && expireAfterAccess <= 0) {
+      throw new IllegalArgumentException("No positive time to live given");
+    }
+    this.clock = timeSource;
+    this.expiryListener = listener;
+    this.lastReap = clock.millis();
+    this.wheel = new TimerWheel<>(lastReap);
+  }
+
+  /**
+   * Cache whose entries expire a fixed time after they were written.
+   *
+   * @param cache      wrapped cache
+   * @param timeToLive time to live after a write
+   * @return {@link ExpiringCache}
+   */
+  public static ExpiringCache expireAfterWrite(final CacheEngine cache,
+                                               final Duration timeToLive) {
+    return new ExpiringCache(cache, timeToLive, null, Clock.systemUTC(),
+        userAccount -> { });
+  }
+
+  /**
+   * Cache whose entries expire a fixed time after they were last used.
+   *
+   * @param cache      wrapped cache
+   * @param timeToIdle time to live after an access
+   * @return {@link ExpiringCache}
+   */
+  public static ExpiringCache expireAfterAccess(final CacheEngine cache,
+                                                final Duration timeToIdle) {
+    return new ExpiringCache(cache, null, timeToIdle, Clock.systemUTC(),
+        userAccount -> { });
+  }
+
+  @Override
+  public UserAccount get(final String userId) {
+    var now = clock.millis();
+    reapIfDue(now);
+    var entry = entries.get(userId);
+    if (entry != null && deadline(entry) <= now) {
+      expire(entry, now);
+      return null;
+    }
+    var userAccount = delegate.get(userId);
+    if (entry != null && userAccount != null) {
+      entry.accessTime = now;
+    }
+    return userAccount;
+  }
+
+  @Override
+  public void set(final String userId, final UserAccount userAccount) {
+    var now = clock.millis();
+    lock.lock();
+    try {
+      advance(now);
+      delegate.set(userId, userAccount);
+      var entry = entries.computeIfAbsent(userId, Entry::new);
+      entry.userAccount = userAccount;
+      entry.writeTime = now;
+      entry.accessTime = now;
+      wheel.schedule(entry, deadline(entry));
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  @Override
+  public boolean replace(final String userId, final UserAccount expected,
+                         final UserAccount userAccount) {
+    var now = clock.millis();
+    lock.lock();
+    try {
+      var entry = entries.get(userId);
+      if (entry == null || deadline(entry) <= now
+          || !delegate.replace(userId, expected, userAccount)) {
+        return false;
+      }
+      entry.userAccount = userAccount;
+      entry.writeTime = now;
+      wheel.schedule(entry, deadline(entry));
+      return true;
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  @Override
+  public boolean contains(final String userId) {
+    var now = clock.millis();
+    var entry = entries.get(userId);
+    if (entry != null && deadline(entry) <= now) {
+      expire(entry, now);
+      return false;
+    }
+    return delegate.contains(userId);
+  }
+
+  @Override
+  public void invalidate(final String userId) {
+    lock.lock();
+    try {
+      delegate.invalidate(userId);
+      var entry = entries.remove(userId);
+      if (entry != null) {
+        wheel.cancel(entry);
+      }
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  @Override
+  public boolean isFull() {
+    reapIfDue(clock.millis());
+    return delegate.isFull();
+  }
+
+  @Override
+  public UserAccount getLruData() {
+    return delegate.getLruData();
+  }
+
+  @Override
+  public void clear() {
+    lock.lock();
+    try {
+      delegate.clear();
+      entries.clear();
+      wheel.clear();
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  @Override
+  public List<UserAccount> getCacheDataInListForm() {
+    reapIfDue(clock.millis());
+    return delegate.getCacheDataInListForm();
+  }
+
+  @Override
+  public void setCapacity(final int newCapacity) {
+    delegate.setCapacity(newCapacity);
+  }
+
+  @Override
+  public boolean isConcurrent() {
+    return delegate.isConcurrent();
+  }
+
+  /**
+   * Advances the wheel at most once per millisecond, skipping it when
+   * another thread is already doing so.
+   *
+   * @param now current time in milliseconds
+   */
+  private void reapIfDue(final long now) {
+    if (now > lastReap && lock.tryLock()) {
+      try {
+        advance(now);
+      } finally {
+        lock.unlock();
+      }
+    }
+  }
+
+  /**
+   * Advances the wheel, removing the entries that expired. Must hold the
+   * lock.
+   *
+   * @param now current time in milliseconds
+   */
+  private void advance(final long now) {
+    if (now <= lastReap) {
+      return;
+    }
+    lastReap = now;
+    wheel.advance(now, entry -> {
+      var deadline = deadline(entry);
+      if (deadline > now) {
+        // Read since it was scheduled, the deadline moved.
+        wheel.schedule(entry, deadline);
+      } else {
+        remove(entry);
+      }
+    });
+  }
+
+  /**
+   * Removes an expired entry, unless it was written again meanwhile.
+   *
+   * @param entry {@link Entry}
+   * @param now   current time in milliseconds
+   */
+  private void expire(final Entry entry, final long now) {
+    lock.lock();
+    try {
+      if (deadline(entry) > now) {
+        return;
+      }
+      wheel.cancel(entry);
+      remove(entry);
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /**
+   * Removes an entry that is no longer scheduled. Must hold the lock.
+   *
+   * @param entry {@link Entry}
+   */
+  private void remove(final Entry entry) {
+    if (!entries.remove(entry.userId, entry)) {
+      return;
+    }
+    // The wrapped cache may have evicted it for capacity already.
+    if (delegate.contains(entry.userId)) {
+      LOGGER.info("# {} has expired! Removing it from cache...",
+          entry.userId);
+      delegate.invalidate(entry.userId);
+      expiryListener.accept(entry.userAccount);
+    }
+  }
+
+  /**
+   * When an entry expires.
+   *
+   * @param entry {@link Entry}
+   * @return milliseconds
+   */
+  private long deadline(final Entry entry) {
+    var deadline = Long.MAX_VALUE;
+    if (expireAfterWrite > 0) {
+      deadline = entry.writeTime + expireAfterWrite;
+    }
+    if (expireAfterAccess > 0) {
+      deadline = Math.min(deadline, entry.accessTime + expireAfterAccess);
+    }
+    return deadline;
+  }
+}
@@ -0,0 +1,165 @@
+/*
+ * This project is licensed under the MIT license. Module model-view-viewmodel is using ZK framework licensed under LGPL (see lgpl-3.0.txt).
+ *
+ * The MIT License
+ * Copyright © 2014-2022 Ilkka Seppälä
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.iluwatar.caching;
+
+/**
+ * Count-Min sketch of access frequencies used by the TinyLFU admission
+ * filter. Every key is counted in four 4-bit counters packed into a
+ * {@code long[]} table, and its estimate is the smallest of the four. Once
+ * the number of recorded accesses reaches the sample size, all counters are
+ * halved so that the sketch follows changes in popularity.
+ */
+final class FrequencySketch {
+  /**
+   * Seeds of the four hash functions.
+   */
+  private static final long[] SEEDS = {
+      0xc3a5c85c97cb3127L, 0xb492b66fbe98f273L,
+      0x9ae16a3b2f90404fL, 0xcbf29ce484222325L
+  };
+  /**
+   * Clears the high bit of each counter before halving.
+   */
+  private static final long RESET_MASK = 0x7777777777777777L;
+  /**
+   * Largest value of a 4-bit counter.
+   */
+  private static final int MAX_COUNT = 15;
+
+  /**
+   * Sixteen counters per slot.
+   */
+  private long[] table;
+  /**
+   * Mask to map a hash to a slot.
+   */
+  private int tableMask;
+  /**
+   * Recorded accesses after which the counters are halved.
+   */
+  private int sampleSize;
+  /**
+   * Accesses recorded since the last halving.
+   */
+  private int size;
+
+  /**
+   * Constructor.
+   *
+   * @param maximumSize capacity of the cache the sketch serves
+   */
+  FrequencySketch(final int maximumSize) {
+    ensureCapacity(maximumSize);
+  }
+
+  /**
+   * Resizes the sketch for a cache of the given capacity, dropping the
+   * collected counts.
+   *
+   * @param maximumSize capacity of the cache the sketch serves
+   */
+  void ensureCapacity(final int maximumSize) {
+    var slots = Integer.highestOneBit(Math.max(2, maximumSize) - 1) << 1;
+    table = new long[slots];
+    tableMask = slots - 1;
+    sampleSize = 10 * Math.max(1, maximumSize);
+    size = 0;
+  }
+
+  /**
+   * Estimated number of accesses of the key, at most 15.
+   *
+   * @param key String
+   * @return int
+   */
+  int frequency(final String key) {
+    var hash = spread(key.hashCode());
+    var start = (hash & 3) << 2;
+    var frequency = MAX_COUNT;
+    for (var i = 0; i < SEEDS.length; i++) {
+      var shift = (start + i) << 2;
+      var count = (int) ((table[indexOf(hash, i)] >>> shift) & 0xfL);
+      frequency = Math.min(frequency, count);
+    }
+    return frequency;
+  }
+
+  /**
+   * Records an access of the key.
+   *
+   * @param key String
+   */
+  void increment(final String key) {
+    var hash = spread(key.hashCode());
+    var start = (hash & 3) << 2;
+    var added = false;
+    for (var i = 0; i < SEEDS.length; i++) {
+      var index = indexOf(hash, i);
+      var shift = (start + i) << 2;
+      if (((table[index] >>> shift) & 0xfL) < MAX_COUNT) {
+        table[index] += 1L << shift;
+        added = true;
+      }
+    }
+    if (added && ++size >= sampleSize) {
+      reset();
+    }
+  }
+
+  /**
+   * Halves every counter.
+   */
+  private void reset() {
+    for (var i = 0; i < table.length; i++) {
+      table[i] = (table[i] >>> 1) & RESET_MASK;
+    }
+    size /= 2;
+  }
+
+  /**
+   * Slot of the key's counter for the given hash function.
+   *
+   * @param hash spread hash of the key
+   * @param i    hash function
+   * @return int
+   */
+  private int indexOf(final int hash, final int i) {
+    var h = (hash + SEEDS[i]) * SEEDS[i];
+    h += h >>> 32;
+    return (int) h & tableMask;
+  }
+
+  /**
+   * Applies a supplemental hash against poor {@code hashCode()} spreads.
+   *
+   * @param x hashCode
+   * @return int
+   */
+  private static int spread(final int x) {
+    var h = ((x >>> 16) ^ x) * 0x45d9f3b;
+    h = ((h >>> 16) ^ h) * 0x45d9f3b;
+    return (h >>> 16) ^ h;
+  }
+}
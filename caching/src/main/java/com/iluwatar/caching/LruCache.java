@@ -40,7 +40,7 @@ import lombok.extern.slf4j.Slf4j;
  * data. The LRU data is always at the end of the list.
  */
 @Slf4j
-public class LruCache {
+public class LruCache implements CacheEngine {
   /**
    * Static class Node.
    */
@@ -106,6 +106,7 @@ public class LruCache {
    * @param userId String
    * @return {@link UserAccount}
    */
+  @Override
   public UserAccount get(final String userId) {
     if (cache.containsKey(userId)) {
       var node = cache.get(userId);
@@ -157,6 +158,7 @@ public class LruCache {
    * @param userAccount {@link UserAccount}
    * @param userId      {@link String}
    */
+  @Override
   public void set(final String userId, final UserAccount userAccount) {
     if (cache.containsKey(userId)) {
       var old = cache.get(userId);
@@ -183,6 +185,7 @@ public class LruCache {
    * @param userId {@link String}
    * @return boolean
    */
+  @Override
   public boolean contains(final String userId) {
     return cache.containsKey(userId);
   }
@@ -192,6 +195,7 @@ public class LruCache {
    *
    * @param userId {@link String}
    */
+  @Override
   public void invalidate(final String userId) {
     var toBeRemoved = cache.remove(userId);
     if (toBeRemoved != null) {
@@ -205,6 +209,7 @@ public class LruCache {
    * Check if the cache is full.
    * @return boolean
    */
+  @Override
   public boolean isFull() {
     return cache.size() >= capacity;
   }
@@ -214,6 +219,7 @@ public class LruCache {
    *
    * @return {@link UserAccount}
    */
+  @Override
   public UserAccount getLruData() {
     return end.userAccount;
   }
@@ -221,6 +227,7 @@ public class LruCache {
   /**
    * Clear cache.
    */
+  @Override
   public void clear() {
     head = null;
     end = null;
@@ -232,6 +239,7 @@ public class LruCache {
    *
    * @return {@link List}
    */
+  @Override
   public List<UserAccount> getCacheDataInListForm() {
     var listOfCacheData = new ArrayList<UserAccount>();
     var temp = head;
@@ -247,6 +255,7 @@ public class LruCache {
    *
    * @param newCapacity int
    */
+  @Override
   public void setCapacity(final int newCapacity) {
     if (capacity > newCapacity) {
       // Behavior can be modified to accommodate
@@ -0,0 +1,138 @@
+/*
+ * This project is licensed under the MIT license. Module model-view-viewmodel is using ZK framework licensed under LGPL (see lgpl-3.0.txt).
+ *
+ * The MIT License
+ * Copyright © 2014-2022 Ilkka Seppälä
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.iluwatar.caching;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.function.Supplier;
+
+/**
+ * Coalesces concurrent calls for the same key: while a call for a key is
+ * running, other callers for that key wait for its result instead of
+ * starting their own. This stops a thundering herd of cache misses from
+ * reaching the DB.
+ *
+ * @param <K> key type
+ * @param <V> result type
+ */
+public class SingleFlight<K, V> {
+  /**
+   * Calls in flight by key.
+   */
+  private final ConcurrentHashMap<K, CompletableFuture<V>> calls =
+      new ConcurrentHashMap<>();
+
+  /**
+   * Runs the call on the caller's thread, or waits for the one already in
+   * flight for the key.
+   *
+   * @param key  key
+   * @param call call to run
+   * @return result of the call
+   */
+  public V execute(final K key, final Supplier<V> call) {
+    var flight = new CompletableFuture<V>();
+    var existing = calls.putIfAbsent(key, flight);
+    if (existing != null) {
+      return join(existing);
+    }
+    try {
+      var value = call.get();
+      flight.complete(value);
+      return value;
+    } catch (Throwable e) {
+      // errors too, or the callers waiting for this flight would wait forever
+      flight.completeExceptionally(e);
+      throw e;
+    } finally {
+      calls.remove(key, flight);
+    }
+  }
+
+  /**
+   * Runs the call on the executor, unless one is already in flight for the
+   * key, in which case that call's result is returned.
+   *
+   * @param key      key
+   * @param call     call to run
+   * @param executor {@link Executor}
+   * @return result of the call
+   */
+  public CompletableFuture<V> executeAsync(final K key, final Supplier<V> call,
+                                           final Executor executor) {
+    var flight = new CompletableFuture<V>();
+    var existing = calls.putIfAbsent(key, flight);
+    if (existing != null) {
+      return existing;
+    }
+    try {
+      executor.execute(() -> {
+        try {
+          flight.complete(call.get());
+        } catch (Throwable e) {
+          flight.completeExceptionally(e);
+        } finally {
+          calls.remove(key, flight);
+        }
+      });
+    } catch (RuntimeException e) {
+      calls.remove(key, flight);
+      flight.completeExceptionally(e);
+    }
+    return flight;
+  }
+
+  /**
+   * Whether a call is in flight for the key.
+   *
+   * @param key key
+   * @return boolean
+   */
+  public boolean isInFlight(final K key) {
+    return calls.containsKey(key);
+  }
+
+  /**
+   * Waits for a call, rethrowing its failure unwrapped.
+   *
+   * @param flight call in flight
+   * @return result of the call
+   */
+  private V join(final CompletableFuture<V> flight) {
+    try {
+      return flight.join();
+    } catch (CompletionException e) {
+      if (e.getCause() instanceof RuntimeException cause) {
+        throw cause;
+      }
+      if (e.getCause() instanceof Error cause) {
+        throw cause;
+      }
+      throw e;
+    }
+  }
+}
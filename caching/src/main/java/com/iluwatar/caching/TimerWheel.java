@@ -0,0 +1,234 @@
+/*
+ * This project is licensed under the MIT license. Module model-view-viewmodel is using ZK framework licensed under LGPL (see lgpl-3.0.txt).
+ *
+ * The MIT License
+ * Copyright © 2014-2022 Ilkka Seppälä
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.iluwatar.caching;
+
+import java.util.function.Consumer;
+
+/**
+ * Hierarchical timing wheel. Timers are kept in doubly linked buckets, so
+ * scheduling and cancelling are O(1). Each level of the wheel has buckets
+ * covering a power-of-two span of milliseconds, coarser with every level;
+ * when time advances past a bucket its timers either fire or cascade down to
+ * a finer level. Advancing therefore only touches the buckets that became
+ * due, instead of scanning every entry.
+ *
+ * <p>Timers fire up to one bucket span late, callers that need exact expiry
+ * check the deadline themselves. The wheel is not thread-safe.
+ *
+ * @param <T> timer type
+ */
+class TimerWheel<T extends TimerWheel.Timer> {
+  /**
+   * Buckets per level, the last level is an overflow bucket.
+   */
+  private static final int[] BUCKETS = {64, 64, 32, 4, 1};
+  /**
+   * Span of a bucket on each level, in milliseconds: about one second, one
+   * minute, one hour, a day and a half and six days.
+   */
+  private static final long[] SPANS = {
+      1L << 10, 1L << 16, 1L << 22, 1L << 27, 1L << 29, 1L << 29
+  };
+  /**
+   * Shift turning a time into the tick of each level.
+   */
+  private static final int[] SHIFT = {10, 16, 22, 27, 29};
+
+  /**
+   * Node in a bucket's list, its fields belong to the wheel.
+   */
+  abstract static class Timer {
+    /**
+     * When the timer is due, in milliseconds.
+     */
+    long time;
+    /**
+     * previous.
+     */
+    Timer previous;
+    /**
+     * next.
+     */
+    Timer next;
+
+  }
+
+  /**
+   * Bucket list head.
+   */
+  private static final class Sentinel extends Timer {
+    Sentinel() {
+      reset();
+    }
+
+    void reset() {
+      previous = this;
+      next = this;
+    }
+  }
+
+  /**
+   * Buckets by level.
+   */
+  private final Sentinel[][] wheel;
+  /**
+   * Time of the last advance, in milliseconds.
+   */
+  private long currentTime;
+
+  /**
+   * Constructor.
+   *
+   * @param now current time in milliseconds
+   */
+  TimerWheel(final long now) {
+    this.currentTime = now;
+    this.wheel = new Sentinel[BUCKETS.length][];
+    for (var i = 0; i < BUCKETS.length; i++) {
+      wheel[i] = new Sentinel[BUCKETS[i]];
+      for (var j = 0; j < BUCKETS[i]; j++) {
+        wheel[i][j] = new Sentinel();
+      }
+    }
+  }
+
+  /**
+   * Schedules, or reschedules, a timer.
+   *
+   * @param timer timer
+   * @param time  when it is due, in milliseconds
+   */
+  void schedule(final T timer, final long time) {
+    cancel(timer);
+    timer.time = time;
+    var sentinel = findBucket(time);
+    timer.previous = sentinel.previous;
+    timer.next = sentinel;
+    sentinel.previous.next = timer;
+    sentinel.previous = timer;
+  }
+
+  /**
+   * Removes a timer, if scheduled.
+   *
+   * @param timer timer
+   */
+  void cancel(final T timer) {
+    if (timer.next != null) {
+      timer.previous.next = timer.next;
+      timer.next.previous = timer.previous;
+      timer.previous = null;
+      timer.next = null;
+    }
+  }
+
+  /**
+   * Removes every timer.
+   */
+  void clear() {
+    for (var level : wheel) {
+      for (var sentinel : level) {
+        for (var node = sentinel.next; node != sentinel; ) {
+          var next = node.next;
+          node.previous = null;
+          node.next = null;
+          node = next;
+        }
+        sentinel.reset();
+      }
+    }
+  }
+
+  /**
+   * Advances the wheel, firing the timers that became due. A fired timer is
+   * no longer scheduled, the callback may schedule it again.
+   *
+   * @param now     current time in milliseconds
+   * @param onFired receives each due timer
+   */
+  void advance(final long now, final Consumer<T> onFired) {
+    var previousTime = currentTime;
+    currentTime = now;
+    for (var i = 0; i < SHIFT.length; i++) {
+      var previousTicks = previousTime >>> SHIFT[i];
+      var currentTicks = now >>> SHIFT[i];
+      var delta = currentTicks - previousTicks;
+      if (delta <= 0) {
+        break;
+      }
+      expire(i, previousTicks, delta, onFired);
+    }
+  }
+
+  /**
+   * Fires or cascades the timers of the buckets a level went past.
+   *
+   * @param level         level of the wheel
+   * @param previousTicks tick of the level at the last advance
+   * @param delta         ticks the level advanced
+   * @param onFired       receives each due timer
+   */
+  @SuppressWarnings("unchecked")
+  private void expire(final int level, final long previousTicks,
+                      final long delta, final Consumer<T> onFired) {
+    var buckets = wheel[level];
+    var mask = buckets.length - 1;
+    var steps = (int) Math.min(1 + delta, buckets.length);
+    var start = (int) (previousTicks & mask);
+    for (var i = start; i < start + steps; i++) {
+      var sentinel = buckets[i & mask];
+      var node = sentinel.next;
+      sentinel.reset();
+      while (node != sentinel) {
+        var next = node.next;
+        node.previous = null;
+        node.next = null;
+        if (node.time - currentTime > 0) {
+          schedule((T) node, node.time);
+        } else {
+          onFired.accept((T) node);
+        }
+        node = next;
+      }
+    }
+  }
+
+  /**
+   * Bucket for a time.
+   *
+   * @param time milliseconds
+   * @return bucket list head
+   */
+  private Sentinel findBucket(final long time) {
+    var duration = time - currentTime;
+    for (var i = 0; i < BUCKETS.length - 1; i++) {
+      if (duration < SPANS[i + 1]) {
+        var ticks = time >>> SHIFT[i];
+        return wheel[i][(int) (ticks & (BUCKETS[i] - 1))];
+      }
+    }
+    return wheel[BUCKETS.length - 1][0];
+  }
+}
@@ -0,0 +1,134 @@
+/*
+ * This project is licensed under the MIT license. Module model-view-viewmodel is using ZK framework licensed under LGPL (see lgpl-3.0.txt).
+ *
+ * The MIT License
+ * Copyright © 2014-2022 Ilkka Seppälä
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.iluwatar.caching;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.stream.Stream;
+import lombok.extern.slf4j.Slf4j;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Trace-driven cache simulator. It replays a key-access file, one user id
+ * per line, through every {@link EvictionPolicy} and reports the hit ratio
+ * each of them achieves. A miss is served the way
+ * {@link CacheStore#readThrough(String)} does it: the entry is loaded and
+ * set into the cache.
+ *
+ * <p>Example: 'java -cp app.jar com.iluwatar.caching.TraceSimulator
+ * access.log 10000'
+ */
+@Slf4j
+public final class TraceSimulator {
+  /**
+   * Cache capacity used when none is given.
+   */
+  private static final int DEFAULT_CAPACITY = 1000;
+
+  /**
+   * Outcome of replaying a trace through one policy.
+   *
+   * @param policy   {@link EvictionPolicy}
+   * @param requests number of accesses replayed
+   * @param hits     number of accesses served from the cache
+   */
+  public record Result(EvictionPolicy policy, long requests, long hits) {
+    /**
+     * Hit ratio.
+     *
+     * @return hits per request, 0 for an empty trace
+     */
+    public double hitRatio() {
+      return requests == 0 ? 0 : (double) hits / requests;
+    }
+  }
+
+  /**
+   * Private constructor.
+   */
+  private TraceSimulator() {
+  }
+
+  /**
+   * Replays the keys through a cache built with the given policy.
+   *
+   * @param policy   {@link EvictionPolicy}
+   * @param capacity cache capacity
+   * @param keys     accessed user ids, in order
+   * @return {@link Result}
+   */
+  public static Result simulate(final EvictionPolicy policy,
+                                final int capacity,
+                                final Stream<String> keys) {
+    var cache = policy.createCache(capacity);
+    var requests = new long[1];
+    var hits = new long[1];
+    keys.forEach(userId -> {
+      requests[0]++;
+      if (cache.get(userId) != null) {
+        hits[0]++;
+      } else {
+        cache.set(userId, new UserAccount(userId, null, null));
+      }
+    });
+    return new Result(policy, requests[0], hits[0]);
+  }
+
+  /**
+   * Program entry point.
+   *
+   * @param args trace file and, optionally, the cache capacity
+   */
+  public static void main(final String[] args) {
+    if (args.length == 0) {
+      LOGGER.error("Usage: TraceSimulator <trace file> [capacity]");
+      return;
+    }
+    var trace = Path.of(args[0]);
+    var capacity = args.length > 1
+        ? Integer.parseInt(args[1]) : DEFAULT_CAPACITY;
+    // Evictions are logged per entry, which would drown the report.
+    for (var engine : List.of(LruCache.class, ConcurrentLruCache.class,
+        WindowTinyLfuCache.class)) {
+      ((Logger) LoggerFactory.getLogger(engine)).setLevel(Level.WARN);
+    }
+    for (var policy : EvictionPolicy.values()) {
+      try (var keys = Files.lines(trace)) {
+        var result = simulate(policy, capacity, keys.map(String::trim)
+            .filter(line -> !line.isEmpty()));
+        LOGGER.info("{}: {} requests, hit ratio {}", policy.getPolicy(),
+            result.requests(), String.format("%.2f%%",
+                result.hitRatio() * 100));
+      } catch (IOException e) {
+        throw new UncheckedIOException(e);
+      }
+    }
+  }
+}
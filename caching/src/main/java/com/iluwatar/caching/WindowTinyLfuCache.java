@@ -0,0 +1,311 @@
+/*
+ * This project is licensed under the MIT license. Module model-view-viewmodel is using ZK framework licensed under LGPL (see lgpl-3.0.txt).
+ *
+ * The MIT License
+ * Copyright © 2014-2022 Ilkka Seppälä
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.iluwatar.caching;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Window TinyLFU cache. New entries enter a small LRU window (1% of the
+ * capacity). Entries leaving the window have to compete for a place in the
+ * main space, a segmented LRU split into probation and protected areas: the
+ * candidate is admitted only if the {@link FrequencySketch} estimates that it
+ * is accessed more often than the main space's own victim. A scan over cold
+ * keys therefore only churns the window and leaves the hot set in place.
+ *
+ * <p>Like {@link LruCache} the class is not thread-safe. {@link #getLruData()}
+ * returns the entry that the next insertion of a new key would evict, which
+ * is what the write-back path needs before calling {@link #set}.
+ */
+@Slf4j
+public class WindowTinyLfuCache implements CacheEngine {
+  /**
+   * Share of the capacity given to the window, in percent.
+   */
+  private static final int WINDOW_PERCENT = 1;
+  /**
+   * Share of the main space given to the protected segment, in percent.
+   */
+  private static final int PROTECTED_PERCENT = 80;
+
+  /**
+   * Capacity of Cache.
+   */
+  private int capacity;
+  /**
+   * Capacity of the window.
+   */
+  private int windowCapacity;
+  /**
+   * Capacity of the main space (probation and protected).
+   */
+  private int mainCapacity;
+  /**
+   * Capacity of the protected segment.
+   */
+  private int protectedCapacity;
+  /**
+   * Admission window, in access order.
+   */
+  private final Map<String, UserAccount> window = newSegment();
+  /**
+   * Main space entries accessed once since they were admitted.
+   */
+  private final Map<String, UserAccount> probation = newSegment();
+  /**
+   * Main space entries accessed again while on probation.
+   */
+  private final Map<String, UserAccount> protectedSegment = newSegment();
+  /**
+   * Access frequency estimates.
+   */
+  private final FrequencySketch sketch;
+
+  /**
+   * Constructor.
+   *
+   * @param cap Integer.
+   */
+  public WindowTinyLfuCache(final int cap) {
+    this.sketch = new FrequencySketch(cap);
+    resize(cap);
+  }
+
+  @Override
+  public UserAccount get(final String userId) {
+    sketch.increment(userId);
+    if (window.containsKey(userId)) {
+      return window.get(userId);
+    }
+    if (protectedSegment.containsKey(userId)) {
+      return protectedSegment.get(userId);
+    }
+    var userAccount = probation.remove(userId);
+    if (userAccount != null) {
+      promote(userId, userAccount);
+    }
+    return userAccount;
+  }
+
+  @Override
+  public void set(final String userId, final UserAccount userAccount) {
+    if (window.containsKey(userId)) {
+      sketch.increment(userId);
+      window.put(userId, userAccount);
+      window.get(userId);
+      return;
+    }
+    if (protectedSegment.containsKey(userId)) {
+      sketch.increment(userId);
+      protectedSegment.put(userId, userAccount);
+      protectedSegment.get(userId);
+      return;
+    }
+    if (probation.remove(userId) != null) {
+      sketch.increment(userId);
+      promote(userId, userAccount);
+      return;
+    }
+    if (isFull()) {
+      evict();
+    }
+    window.put(userId, userAccount);
+    if (window.size() > windowCapacity) {
+      var candidate = eldest(window);
+      probation.put(candidate, window.remove(candidate));
+    }
+    // Counted only after the eviction so that getLruData() stays exact.
+    sketch.increment(userId);
+  }
+
+  @Override
+  public boolean contains(final String userId) {
+    return window.containsKey(userId)
+        || probation.containsKey(userId)
+        || protectedSegment.containsKey(userId);
+  }
+
+  @Override
+  public void invalidate(final String userId) {
+    var toBeRemoved = window.remove(userId);
+    if (toBeRemoved == null) {
+      toBeRemoved = probation.remove(userId);
+    }
+    if (toBeRemoved == null) {
+      toBeRemoved = protectedSegment.remove(userId);
+    }
+    if (toBeRemoved != null) {
+      LOGGER.info("# {} has been updated! "
+          + "Removing older version from cache...", userId);
+    }
+  }
+
+  @Override
+  public boolean isFull() {
+    return size() >= capacity;
+  }
+
+  @Override
+  public UserAccount getLruData() {
+    var victim = victim();
+    // Read through the iterator: get() would count as an access.
+    return victim == null ? null
+        : victim.values().iterator().next();
+  }
+
+  @Override
+  public void clear() {
+    window.clear();
+    probation.clear();
+    protectedSegment.clear();
+  }
+
+  /**
+   * Returns cache data in list form: the window, then the protected and
+   * probation segments, each most-recently-used first.
+   *
+   * @return {@link List}
+   */
+  @Override
+  public List<UserAccount> getCacheDataInListForm() {
+    var listOfCacheData = new ArrayList<UserAccount>(size());
+    for (var segment : List.of(window, protectedSegment, probation)) {
+      var values = new ArrayList<>(segment.values());
+      for (var i = values.size() - 1; i >= 0; i--) {
+        listOfCacheData.add(values.get(i));
+      }
+    }
+    return listOfCacheData;
+  }
+
+  @Override
+  public void setCapacity(final int newCapacity) {
+    if (capacity > newCapacity) {
+      // Same behaviour as LruCache: a shrink simply clears the cache.
+      clear();
+    } else {
+      resize(newCapacity);
+      sketch.ensureCapacity(newCapacity);
+    }
+  }
+
+  /**
+   * Number of cached entries.
+   *
+   * @return int
+   */
+  private int size() {
+    return window.size() + probation.size() + protectedSegment.size();
+  }
+
+  /**
+   * Splits the capacity between the window and the main space segments.
+   *
+   * @param cap int
+   */
+  private void resize(final int cap) {
+    capacity = cap;
+    windowCapacity = Math.max(1, cap * WINDOW_PERCENT / 100);
+    mainCapacity = Math.max(0, cap - windowCapacity);
+    protectedCapacity = mainCapacity * PROTECTED_PERCENT / 100;
+  }
+
+  /**
+   * Moves an entry that was accessed on probation to the protected segment,
+   * demoting the protected segment's LRU entry when it overflows.
+   *
+   * @param userId      String
+   * @param userAccount {@link UserAccount}
+   */
+  private void promote(final String userId, final UserAccount userAccount) {
+    protectedSegment.put(userId, userAccount);
+    if (protectedSegment.size() > protectedCapacity) {
+      var demoted = eldest(protectedSegment);
+      probation.put(demoted, protectedSegment.remove(demoted));
+    }
+  }
+
+  /**
+   * Evicts the entry chosen by {@link #victim()}.
+   */
+  private void evict() {
+    var segment = victim();
+    if (segment == null) {
+      return;
+    }
+    var userId = eldest(segment);
+    LOGGER.info("# Cache is FULL! Removing {} from cache...", userId);
+    segment.remove(userId);
+    if (segment != window && !window.isEmpty()) {
+      // The window's candidate won the admission and takes the freed slot.
+      var candidate = eldest(window);
+      probation.put(candidate, window.remove(candidate));
+    }
+  }
+
+  /**
+   * Segment whose eldest entry is the next to be evicted. When both the
+   * window and the main space are populated, the window's LRU entry (the
+   * candidate) is admitted only if it is more frequent than the main space's
+   * LRU entry; otherwise the candidate itself is the victim.
+   *
+   * @return segment, or null when the cache is empty
+   */
+  private Map<String, UserAccount> victim() {
+    var mainVictim = !probation.isEmpty() ? probation
+        : !protectedSegment.isEmpty() ? protectedSegment : null;
+    if (window.isEmpty() || mainCapacity == 0) {
+      return window.isEmpty() ? mainVictim : window;
+    }
+    if (mainVictim == null || size() - window.size() < mainCapacity) {
+      return mainVictim == null ? window : mainVictim;
+    }
+    var candidateFrequency = sketch.frequency(eldest(window));
+    var victimFrequency = sketch.frequency(eldest(mainVictim));
+    return candidateFrequency > victimFrequency ? mainVictim : window;
+  }
+
+  /**
+   * Least-recently-used key of a segment.
+   *
+   * @param segment access-ordered segment
+   * @return String
+   */
+  private static String eldest(final Map<String, UserAccount> segment) {
+    return segment.keySet().iterator().next();
+  }
+
+  /**
+   * Creates an access-ordered segment.
+   *
+   * @return {@link Map}
+   */
+  private static Map<String, UserAccount> newSegment() {
+    return new LinkedHashMap<>(16, 0.75f, true);
+  }
+}
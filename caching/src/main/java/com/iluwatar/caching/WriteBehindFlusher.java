@@ -0,0 +1,427 @@
+/*
+ * This project is licensed under the MIT license. Module model-view-viewmodel is using ZK framework licensed under LGPL (see lgpl-3.0.txt).
+ *
+ * The MIT License
+ * Copyright © 2014-2022 Ilkka Seppälä
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.iluwatar.caching;
+
+import com.iluwatar.caching.database.DbManager;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Background flusher for the write-behind policy. Dirty user accounts are
+ * put into a coalescing queue keyed by user id, so an account written many
+ * times before it is flushed costs a single upsert. A daemon thread drains
+ * the queue into {@link DbManager#bulkUpsertDb(List)} batches when
+ *
+ * <ul>
+ *   <li>the queue holds a full batch,</li>
+ *   <li>the oldest dirty entry has waited for the maximum delay, or</li>
+ *   <li>the flusher is being closed.</li>
+ * </ul>
+ *
+ * <p>Writers are blocked once the number of dirty entries, counting the
+ * batch being written, reaches the pending limit, until a batch has been
+ * written. A failed batch is put back on the queue, so counting it keeps the
+ * queue within the limit. Entries stay visible
+ * through {@link #getPending(String)} until their batch has been written, so
+ * a reader never goes to the DB for an account that is still in the queue.
+ */
+@Slf4j
+public class WriteBehindFlusher implements AutoCloseable {
+  /**
+   * Default maximum number of accounts per bulk upsert.
+   */
+  public static final int DEFAULT_BATCH_SIZE = 100;
+  /**
+   * Default maximum time an account stays dirty.
+   */
+  public static final Duration DEFAULT_MAX_DELAY = Duration.ofMillis(200);
+  /**
+   * Default number of dirty and in-flight accounts at which writers are
+   * blocked.
+   */
+  public static final int DEFAULT_MAX_PENDING = 10_000;
+
+  /**
+   * DbManager.
+   */
+  private final DbManager dbManager;
+  /**
+   * Maximum number of accounts per bulk upsert.
+   */
+  private final int batchSize;
+  /**
+   * Maximum time an account stays dirty, in nanoseconds.
+   */
+  private final long maxDelayNanos;
+  /**
+   * Number of dirty and in-flight accounts at which writers are blocked.
+   */
+  private final int maxPending;
+  /**
+   * Dirty accounts by user id, oldest first.
+   */
+  private final Map<String, UserAccount> dirty = new LinkedHashMap<>();
+  /**
+   * When each dirty account was queued, in {@link System#nanoTime()}.
+   */
+  private final Map<String, Long> dirtySince = new LinkedHashMap<>();
+  /**
+   * Batch being written, still served by {@link #getPending(String)}.
+   */
+  private Map<String, UserAccount> inFlight = Map.of();
+  /**
+   * Guards the queue.
+   */
+  private final ReentrantLock lock = new ReentrantLock();
+  /**
+   * Signalled when a flush may be due.
+   */
+  private final Condition flushDue = lock.newCondition();
+  /**
+   * Signalled when a batch has been written, making room in the queue.
+   */
+  private final Condition notFull = lock.newCondition();
+  /**
+   * Flusher thread.
+   */
+  private final Thread flusherThread;
+  /**
+   * False once {@link #close()} was called or the flusher thread ended.
+   */
+  private volatile boolean running = true;
+  /**
+   * Number of bulk upserts issued.
+   */
+  private final AtomicLong flushCount = new AtomicLong();
+  /**
+   * Number of accounts written.
+   */
+  private final AtomicLong flushedAccounts = new AtomicLong();
+  /**
+   * Total time spent in bulk upserts, in nanoseconds.
+   */
+  private final AtomicLong totalFlushNanos = new AtomicLong();
+  /**
+   * Longest bulk upsert, in nanoseconds.
+   */
+  private final AtomicLong maxFlushNanos = new AtomicLong();
+
+  /**
+   * Flusher with the default limits.
+   *
+   * @param dataBaseManager {@link DbManager}
+   */
+  public WriteBehindFlusher(final DbManager dataBaseManager) {
+    this(dataBaseManager, DEFAULT_BATCH_SIZE, DEFAULT_MAX_DELAY,
+        DEFAULT_MAX_PENDING);
+  }
+
+  /**
+   * Constructor.
+   *
+   * @param dataBaseManager {@link DbManager}
+   * @param maxBatchSize    maximum number of accounts per bulk upsert
+   * @param maxDelay        maximum time an account stays dirty
+   * @param pendingLimit    number of dirty and in-flight accounts at which
+   *                        writers block
+   */
+  public WriteBehindFlusher(final DbManager dataBaseManager,
+                            final int maxBatchSize,
+                            final Duration maxDelay,
+                            final int pendingLimit) {
+    if (maxBatchSize < 1 || pendingLimit < maxBatchSize) {
+      throw new IllegalArgumentException(
+          "Batch size must be positive and not exceed the pending limit");
+    }
+    this.dbManager = dataBaseManager;
+    this.batchSize = maxBatchSize;
+    this.maxDelayNanos = maxDelay.toNanos();
+    this.maxPending = pendingLimit;
+    this.flusherThread = new Thread(this::runFlusher, "write-behind-flusher");
+    flusherThread.setDaemon(true);
+    flusherThread.start();
+  }
+
+  /**
+   * Queues an account to be written, replacing a not yet flushed version.
+   * Blocks while the queue is at its pending limit.
+   *
+   * @param userAccount {@link UserAccount}
+   * @throws IllegalStateException if the flusher is closed, also while
+   *                               waiting for room
+   */
+  public void enqueue(final UserAccount userAccount) {
+    var userId = userAccount.getUserId();
+    lock.lock();
+    try {
+      checkRunning();
+      while (dirty.size() + inFlight.size() >= maxPending
+          && !dirty.containsKey(userId)) {
+        LOGGER.info("# Write-behind queue is FULL! Waiting for flush...");
+        notFull.awaitUninterruptibly();
+        checkRunning();
+      }
+      dirty.put(userId, userAccount);
+      dirtySince.putIfAbsent(userId, System.nanoTime());
+      if (dirty.size() == 1 || dirty.size() >= batchSize) {
+        flushDue.signal();
+      }
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /**
+   * Fails once nothing would flush a queued account any more.
+   */
+  private void checkRunning() {
+    if (!running) {
+      throw new IllegalStateException("Write-behind flusher is closed");
+    }
+  }
+
+  /**
+   * Returns the not yet written version of an account.
+   *
+   * @param userId {@link String}
+   * @return {@link UserAccount}, or null if the account is not pending
+   */
+  public UserAccount getPending(final String userId) {
+    lock.lock();
+    try {
+      var userAccount = dirty.get(userId);
+      return userAccount != null ? userAccount : inFlight.get(userId);
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /**
+   * Number of accounts waiting to be flushed.
+   *
+   * @return int
+   */
+  public int getQueueDepth() {
+    lock.lock();
+    try {
+      return dirty.size();
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /**
+   * Number of bulk upserts issued.
+   *
+   * @return long
+   */
+  public long getFlushCount() {
+    return flushCount.get();
+  }
+
+  /**
+   * Number of accounts written.
+   *
+   * @return long
+   */
+  public long getFlushedAccounts() {
+    return flushedAccounts.get();
+  }
+
+  /**
+   * Mean duration of a bulk upsert.
+   *
+   * @return {@link Duration}
+   */
+  public Duration getAverageFlushLatency() {
+    var count = flushCount.get();
+    return Duration.ofNanos(count == 0 ? 0 : totalFlushNanos.get() / count);
+  }
+
+  /**
+   * Longest bulk upsert.
+   *
+   * @return {@link Duration}
+   */
+  public Duration getMaxFlushLatency() {
+    return Duration.ofNanos(maxFlushNanos.get());
+  }
+
+  /**
+   * Flushes every pending account and stops the flusher thread. Accounts
+   * whose flush fails while closing stay pending and are logged.
+   */
+  @Override
+  public void close() {
+    lock.lock();
+    try {
+      running = false;
+      flushDue.signal();
+      notFull.signalAll();
+    } finally {
+      lock.unlock();
+    }
+    try {
+      flusherThread.join();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  /**
+   * Flusher loop. Stops at the first failed flush once closing, as nothing
+   * would end the retries, and wakes blocked writers when it ends.
+   */
+  private void runFlusher() {
+    try {
+      while (true) {
+        var batch = nextBatch();
+        if (batch.isEmpty()) {
+          return;
+        }
+        if (!flush(batch) && !running) {
+          LOGGER.error("# Write-behind flusher closed with {} accounts not written",
+              getQueueDepth());
+          return;
+        }
+      }
+    } finally {
+      lock.lock();
+      try {
+        running = false;
+        notFull.signalAll();
+      } finally {
+        lock.unlock();
+      }
+    }
+  }
+
+  /**
+   * Waits until a flush is due and takes the oldest accounts off the queue.
+   *
+   * @return batch to write, empty when the flusher is closed and drained
+   */
+  private List<UserAccount> nextBatch() {
+    lock.lock();
+    try {
+      while (running) {
+        if (dirty.size() >= batchSize) {
+          break;
+        }
+        if (dirty.isEmpty()) {
+          flushDue.awaitUninterruptibly();
+          continue;
+        }
+        var oldest = dirtySince.values().iterator().next();
+        var wait = oldest + maxDelayNanos - System.nanoTime();
+        if (wait <= 0) {
+          break;
+        }
+        flushDue.awaitNanos(wait);
+      }
+      var batch = new ArrayList<UserAccount>(Math.min(batchSize, dirty.size()));
+      var taken = new LinkedHashMap<String, UserAccount>();
+      var iterator = dirty.entrySet().iterator();
+      while (iterator.hasNext() && batch.size() < batchSize) {
+        var entry = iterator.next();
+        iterator.remove();
+        dirtySince.remove(entry.getKey());
+        taken.put(entry.getKey(), entry.getValue());
+        batch.add(entry.getValue());
+      }
+      inFlight = taken;
+      return batch;
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      return List.of();
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /**
+   * Writes a batch with one bulk upsert. A failed batch is put back on the
+   * queue, behind newer versions of the same accounts.
+   *
+   * @param batch accounts to write
+   * @return whether the batch was written
+   */
+  private boolean flush(final List<UserAccount> batch) {
+    var start = System.nanoTime();
+    try {
+      dbManager.bulkUpsertDb(batch);
+      var elapsed = System.nanoTime() - start;
+      flushCount.incrementAndGet();
+      flushedAccounts.addAndGet(batch.size());
+      totalFlushNanos.addAndGet(elapsed);
+      maxFlushNanos.accumulateAndGet(elapsed, Math::max);
+      LOGGER.debug("# Flushed {} accounts in {} ms", batch.size(),
+          TimeUnit.NANOSECONDS.toMillis(elapsed));
+      return true;
+    } catch (RuntimeException e) {
+      LOGGER.error("# Write-behind flush of {} accounts failed",
+          batch.size(), e);
+      requeue(batch);
+      return false;
+    } finally {
+      lock.lock();
+      try {
+        inFlight = Map.of();
+        notFull.signalAll();
+      } finally {
+        lock.unlock();
+      }
+    }
+  }
+
+  /**
+   * Puts the accounts of a failed batch back on the queue. Writers counted
+   * the batch while it was in flight, so this stays within the pending
+   * limit.
+   *
+   * @param batch accounts to retry
+   */
+  private void requeue(final List<UserAccount> batch) {
+    lock.lock();
+    try {
+      var now = System.nanoTime();
+      for (var userAccount : batch) {
+        if (dirty.putIfAbsent(userAccount.getUserId(), userAccount) == null) {
+          dirtySince.put(userAccount.getUserId(), now);
+        }
+      }
+    } finally {
+      lock.unlock();
+    }
+  }
+}
@@ -25,6 +25,7 @@
 package com.iluwatar.caching.database;
 
 import com.iluwatar.caching.UserAccount;
+import java.util.List;
 
 /**
  * <p>DBManager handles the communication with the underlying data store i.e.
@@ -73,4 +74,11 @@ public interface DbManager {
    * @return {@link UserAccount}
    */
   UserAccount upsertDb(UserAccount userAccount);
+
+  /**
+   * Update records or Insert those that do not exist, in one round trip.
+   *
+   * @param userAccounts {@link List} of {@link UserAccount}
+   */
+  void bulkUpsertDb(List<UserAccount> userAccounts);
 }
@@ -25,8 +25,9 @@
 package com.iluwatar.caching.database;
 
 import com.iluwatar.caching.UserAccount;
-import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * Implementation of DatabaseManager.
@@ -39,11 +40,12 @@ public class VirtualDb implements DbManager {
   private Map<String, UserAccount> db;
 
   /**
-   * Creates new HashMap.
+   * Creates new ConcurrentHashMap, the write-behind flusher writes to it
+   * from its own thread.
    */
   @Override
   public void connect() {
-    db = new HashMap<>();
+    db = new ConcurrentHashMap<>();
   }
 
   @Override
@@ -98,4 +100,14 @@ public class VirtualDb implements DbManager {
   public UserAccount upsertDb(final UserAccount userAccount) {
     return updateDb(userAccount);
   }
+
+  /**
+   * Bulk update.
+   *
+   * @param userAccounts {@link List} of {@link UserAccount}
+   */
+  @Override
+  public void bulkUpsertDb(final List<UserAccount> userAccounts) {
+    userAccounts.forEach(this::upsertDb);
+  }
 }
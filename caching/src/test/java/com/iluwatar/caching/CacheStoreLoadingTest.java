@@ -0,0 +1,209 @@
+/*
+ * This project is licensed under the MIT license. Module model-view-viewmodel is using ZK framework licensed under LGPL (see lgpl-3.0.txt).
+ *
+ * The MIT License
+ * Copyright © 2014-2022 Ilkka Seppälä
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.iluwatar.caching;
+
+import com.iluwatar.caching.database.VirtualDb;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Concurrency stress tests for single-flight and refresh-ahead loading in
+ * {@link CacheStore}.
+ */
+class CacheStoreLoadingTest {
+
+  private static final int THREADS = 32;
+
+  /**
+   * Counts DB reads, each of which takes a while, and the most that ran at
+   * once. Refresh-ahead reads can be held after reading until released.
+   */
+  static class SlowDb extends VirtualDb {
+    final AtomicInteger reads = new AtomicInteger();
+    final AtomicInteger running = new AtomicInteger();
+    final AtomicInteger maxRunning = new AtomicInteger();
+    final AtomicInteger refreshed = new AtomicInteger();
+    final CountDownLatch refreshHeld = new CountDownLatch(1);
+    volatile CountDownLatch refreshRelease = new CountDownLatch(0);
+
+    @Override
+    public UserAccount readFromDb(String userId) {
+      reads.incrementAndGet();
+      maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+      try {
+        Thread.sleep(50);
+        var userAccount = super.readFromDb(userId);
+        if (Thread.currentThread().getName().equals("cache-refresh-ahead")) {
+          refreshHeld.countDown();
+          refreshRelease.await();
+          refreshed.incrementAndGet();
+        }
+        return userAccount;
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        return null;
+      } finally {
+        running.decrementAndGet();
+      }
+    }
+  }
+
+  private SlowDb db;
+  private CacheStore store;
+
+  @BeforeEach
+  void setUp() {
+    db = new SlowDb();
+    db.connect();
+    db.writeToDb(new UserAccount("hot", "Hot", "v1"));
+    store = new CacheStore(db, new ConcurrentLruCache(16));
+  }
+
+  private void readConcurrently(int rounds) throws Exception {
+    var executor = Executors.newFixedThreadPool(THREADS);
+    try {
+      for (var round = 0; round < rounds; round++) {
+        store.invalidate("hot");
+        var start = new CountDownLatch(1);
+        var results = new ArrayList<Future<UserAccount>>();
+        for (var i = 0; i < THREADS; i++) {
+          results.add(executor.submit(() -> {
+            start.await();
+            return store.readThrough("hot");
+          }));
+        }
+        start.countDown();
+        for (var result : results) {
+          assertEquals("Hot", result.get(10, TimeUnit.SECONDS).getUserName());
+        }
+      }
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  @Test
+  void singleFlightShouldIssueOneDbReadPerMiss() throws Exception {
+    store.setLoadingOptions(LoadingOptions.DEFAULT);
+    readConcurrently(10);
+    // A straggler that missed after a load finished may read again, but
+    // never next to another read of the key.
+    assertEquals(1, db.maxRunning.get());
+    assertTrue(db.reads.get() >= 10);
+  }
+
+  @Test
+  void withoutSingleFlightMissesStampedeTheDb() throws Exception {
+    store.setLoadingOptions(new LoadingOptions(false, Duration.ZERO));
+    readConcurrently(1);
+    assertTrue(db.maxRunning.get() > 1);
+  }
+
+  @Test
+  void readsShouldLoadAnEntryEvictedAfterTheLookup() {
+    // Evicts the entry just after reporting it, as a concurrent writer could.
+    var cache = new ConcurrentLruCache(16) {
+      @Override
+      public boolean contains(final String userId) {
+        var found = super.contains(userId);
+        invalidate(userId);
+        return found;
+      }
+    };
+    var racyStore = new CacheStore(db, cache);
+    racyStore.readThrough("hot");
+    assertEquals("v1", racyStore.readThrough("hot").getAdditionalInfo());
+
+    racyStore.set("hot", new UserAccount("hot", "Hot", "v1"));
+    assertEquals("v1",
+        racyStore.readThroughWithWriteBackPolicy("hot").getAdditionalInfo());
+  }
+
+  @Test
+  void refreshAheadNeedsAConcurrentCache() {
+    var lruStore = new CacheStore(db, new LruCache(16));
+    var options = new LoadingOptions(true, Duration.ofMillis(100));
+    assertThrows(IllegalArgumentException.class,
+        () -> lruStore.setLoadingOptions(options));
+  }
+
+  @Test
+  void refreshAheadShouldNotResurrectAnInvalidatedEntry() throws Exception {
+    store.setLoadingOptions(new LoadingOptions(true, Duration.ofMillis(100)));
+    store.readThrough("hot");
+    Thread.sleep(150);
+    db.refreshRelease = new CountDownLatch(1);
+    // Starts a reload that reads v1 and is then held.
+    assertEquals("v1", store.readThrough("hot").getAdditionalInfo());
+    assertTrue(db.refreshHeld.await(5, TimeUnit.SECONDS));
+
+    store.writeAround(new UserAccount("hot", "Hot", "v2"));
+    // The miss must not wait for the held reload, let alone take its result.
+    var reloaded = CompletableFuture.supplyAsync(() -> store.readThrough("hot"));
+    assertEquals("v2", reloaded.get(5, TimeUnit.SECONDS).getAdditionalInfo());
+    db.refreshRelease.countDown();
+    var deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+    while (db.refreshed.get() == 0) {
+      assertTrue(System.nanoTime() < deadline, "refresh did not finish");
+      Thread.sleep(10);
+    }
+    Thread.sleep(50);
+
+    assertEquals("v2", store.get("hot").getAdditionalInfo());
+  }
+
+  @Test
+  void refreshAheadShouldReloadInBackground() throws Exception {
+    store.setLoadingOptions(new LoadingOptions(true, Duration.ofMillis(100)));
+    assertEquals("v1", store.readThrough("hot").getAdditionalInfo());
+    db.updateDb(new UserAccount("hot", "Hot", "v2"));
+
+    Thread.sleep(150);
+    // Due for refresh: the cached version is served while reloading.
+    for (var i = 0; i < THREADS; i++) {
+      assertEquals("v1", store.readThrough("hot").getAdditionalInfo());
+    }
+
+    var deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+    while (!"v2".equals(store.get("hot").getAdditionalInfo())) {
+      assertTrue(System.nanoTime() < deadline, "refresh did not happen");
+      Thread.sleep(10);
+    }
+    assertEquals(2, db.reads.get());
+  }
+}
@@ -0,0 +1,180 @@
+/*
+ * This project is licensed under the MIT license. Module model-view-viewmodel is using ZK framework licensed under LGPL (see lgpl-3.0.txt).
+ *
+ * The MIT License
+ * Copyright © 2014-2022 Ilkka Seppälä
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.iluwatar.caching;
+
+import com.iluwatar.caching.database.VirtualDb;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Tests for {@link ExpiringCache}, driven by a controllable clock.
+ */
+class ExpiringCacheTest {
+
+  /**
+   * Clock that only moves when told to.
+   */
+  static class ManualClock extends Clock {
+    private long millis = 1_000_000;
+
+    void advance(Duration duration) {
+      millis += duration.toMillis();
+    }
+
+    @Override
+    public ZoneId getZone() {
+      return ZoneOffset.UTC;
+    }
+
+    @Override
+    public Clock withZone(ZoneId zone) {
+      return this;
+    }
+
+    @Override
+    public Instant instant() {
+      return Instant.ofEpochMilli(millis);
+    }
+  }
+
+  /**
+   * Counts DB reads.
+   */
+  static class CountingDb extends VirtualDb {
+    final AtomicInteger reads = new AtomicInteger();
+
+    @Override
+    public UserAccount readFromDb(String userId) {
+      reads.incrementAndGet();
+      return super.readFromDb(userId);
+    }
+  }
+
+  private ManualClock clock;
+  private CountingDb db;
+  private List<UserAccount> expired;
+
+  @BeforeEach
+  void setUp() {
+    clock = new ManualClock();
+    db = new CountingDb();
+    db.connect();
+    db.writeToDb(new UserAccount("001", "John", "He is a boy."));
+    expired = new ArrayList<>();
+  }
+
+  @Test
+  void readThroughShouldReloadAfterWriteTtl() {
+    var cache = new ExpiringCache(new LruCache(10), Duration.ofSeconds(30),
+        null, clock, expired::add);
+    var store = new CacheStore(db, cache);
+
+    store.readThrough("001");
+    clock.advance(Duration.ofSeconds(29));
+    store.readThrough("001");
+    assertEquals(1, db.reads.get());
+
+    clock.advance(Duration.ofSeconds(2));
+    store.readThrough("001");
+    assertEquals(2, db.reads.get());
+    assertEquals(1, expired.size());
+  }
+
+  @Test
+  void accessShouldExtendIdleTtl() {
+    var cache = new ExpiringCache(new LruCache(10), null,
+        Duration.ofMinutes(5), clock, expired::add);
+    var store = new CacheStore(db, cache);
+
+    store.readThrough("001");
+    for (var i = 0; i < 10; i++) {
+      clock.advance(Duration.ofMinutes(4));
+      store.readThrough("001");
+    }
+    assertEquals(1, db.reads.get());
+
+    clock.advance(Duration.ofMinutes(6));
+    assertFalse(cache.contains("001"));
+    store.readThrough("001");
+    assertEquals(2, db.reads.get());
+  }
+
+  @Test
+  void writeTtlShouldCapIdleTtl() {
+    var cache = new ExpiringCache(new LruCache(10), Duration.ofMinutes(10),
+        Duration.ofMinutes(5), clock, expired::add);
+    cache.set("001", db.readFromDb("001"));
+    for (var i = 0; i < 3; i++) {
+      clock.advance(Duration.ofMinutes(3));
+      cache.get("001");
+    }
+    clock.advance(Duration.ofMinutes(2));
+    assertNull(cache.get("001"));
+  }
+
+  @Test
+  void shouldReapExpiredEntriesInBatches() {
+    var delegate = new ConcurrentLruCache(5000);
+    var cache = new ExpiringCache(delegate, Duration.ofHours(2), null, clock,
+        expired::add);
+    for (var i = 0; i < 1000; i++) {
+      cache.set("old" + i, new UserAccount("old" + i, "n", "i"));
+      clock.advance(Duration.ofMillis(10));
+    }
+    clock.advance(Duration.ofMinutes(110));
+    cache.set("fresh", new UserAccount("fresh", "n", "i"));
+
+    // A single read advances the wheel past every old entry.
+    clock.advance(Duration.ofMinutes(15));
+    cache.get("fresh");
+    assertEquals(1000, expired.size());
+    var remaining = delegate.getCacheDataInListForm().stream()
+        .map(UserAccount::getUserId).sorted().toList();
+    assertEquals(List.of("fresh"), remaining);
+    assertTrue(cache.contains("fresh"));
+  }
+
+  @Test
+  void shouldRequireTtl() {
+    assertThrows(IllegalArgumentException.class, () ->
+        new ExpiringCache(new LruCache(1), null, Duration.ZERO, clock,
+            expired::add));
+  }
+}
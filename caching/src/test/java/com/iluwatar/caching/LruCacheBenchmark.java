@@ -0,0 +1,156 @@
+/*
+ * This project is licensed under the MIT license. Module model-view-viewmodel is using ZK framework licensed under LGPL (see lgpl-3.0.txt).
+ *
+ * The MIT License
+ * Copyright © 2014-2022 Ilkka Seppälä
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.iluwatar.caching;
+
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * JMH benchmark comparing {@link ConcurrentLruCache} with {@link LruCache}
+ * behind the global lock CacheStore callers need today. The workload is 90%
+ * reads and 10% overwrites of resident keys, so neither engine spends the
+ * run logging evictions.
+ *
+ * <p>Run {@link #main(String[])} from the test classpath; it repeats the run
+ * for 1, 2, 4 and 8 threads.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class LruCacheBenchmark {
+
+  private static final int CAPACITY = 1024;
+  private static final int KEYS = CAPACITY;
+
+  @Param({"lru", "concurrent"})
+  public String engine;
+
+  private CacheEngine cache;
+  private String[] keys;
+  private UserAccount[] accounts;
+
+  @Setup
+  public void setUp() {
+    cache = "lru".equals(engine)
+        ? new SynchronizedEngine(new LruCache(CAPACITY))
+        : new ConcurrentLruCache(CAPACITY);
+    keys = new String[KEYS];
+    accounts = new UserAccount[KEYS];
+    for (var i = 0; i < KEYS; i++) {
+      keys[i] = String.valueOf(i);
+      accounts[i] = new UserAccount(keys[i], "user" + i, "info");
+      cache.set(keys[i], accounts[i]);
+    }
+  }
+
+  @Benchmark
+  public UserAccount readMostly() {
+    var random = ThreadLocalRandom.current();
+    var i = random.nextInt(KEYS);
+    if (random.nextInt(10) == 0) {
+      cache.set(keys[i], accounts[i]);
+      return accounts[i];
+    }
+    return cache.get(keys[i]);
+  }
+
+  public static void main(String[] args) throws RunnerException {
+    for (var threads : new int[] {1, 2, 4, 8}) {
+      new Runner(new OptionsBuilder()
+          .include(LruCacheBenchmark.class.getSimpleName())
+          .threads(threads)
+          .build()).run();
+    }
+  }
+
+  /**
+   * The global lock CacheStore users wrap {@link LruCache} in today.
+   */
+  private record SynchronizedEngine(LruCache delegate) implements CacheEngine {
+
+    @Override
+    public synchronized UserAccount get(String userId) {
+      return delegate.get(userId);
+    }
+
+    @Override
+    public synchronized void set(String userId, UserAccount userAccount) {
+      delegate.set(userId, userAccount);
+    }
+
+    @Override
+    public synchronized boolean contains(String userId) {
+      return delegate.contains(userId);
+    }
+
+    @Override
+    public synchronized void invalidate(String userId) {
+      delegate.invalidate(userId);
+    }
+
+    @Override
+    public synchronized boolean isFull() {
+      return delegate.isFull();
+    }
+
+    @Override
+    public synchronized UserAccount getLruData() {
+      return delegate.getLruData();
+    }
+
+    @Override
+    public synchronized void clear() {
+      delegate.clear();
+    }
+
+    @Override
+    public synchronized List<UserAccount> getCacheDataInListForm() {
+      return delegate.getCacheDataInListForm();
+    }
+
+    @Override
+    public synchronized void setCapacity(int newCapacity) {
+      delegate.setCapacity(newCapacity);
+    }
+  }
+}
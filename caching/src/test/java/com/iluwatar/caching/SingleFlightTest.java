@@ -0,0 +1,103 @@
+/*
+ * This project is licensed under the MIT license. Module model-view-viewmodel is using ZK framework licensed under LGPL (see lgpl-3.0.txt).
+ *
+ * The MIT License
+ * Copyright © 2014-2022 Ilkka Seppälä
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.iluwatar.caching;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Tests for {@link SingleFlight}.
+ */
+class SingleFlightTest {
+
+  @Test
+  void shouldFailWaitingCallersWhenTheCallThrowsAnError() throws Exception {
+    var flights = new SingleFlight<String, String>();
+    var fail = new CountDownLatch(1);
+    var thrown = new AtomicReference<Throwable>();
+    var caller = new Thread(() -> flights.execute("1", () -> {
+      await(fail);
+      throw new AssertionError("load failed");
+    }));
+    caller.setUncaughtExceptionHandler((t, e) -> thrown.set(e));
+    caller.start();
+    while (!flights.isInFlight("1")) {
+      Thread.onSpinWait();
+    }
+
+    var waiting = flights.executeAsync("1", () -> "other", Runnable::run);
+    fail.countDown();
+
+    var failure = assertThrows(ExecutionException.class,
+        () -> waiting.get(5, TimeUnit.SECONDS));
+    assertInstanceOf(AssertionError.class, failure.getCause());
+    caller.join();
+    assertInstanceOf(AssertionError.class, thrown.get());
+    assertFalse(flights.isInFlight("1"));
+  }
+
+  @Test
+  void shouldRethrowAnErrorOfAnAsyncCallUnwrapped() throws Exception {
+    var flights = new SingleFlight<String, String>();
+    var tasks = new ArrayList<Runnable>();
+    var flight = flights.executeAsync("1", () -> {
+      throw new AssertionError("load failed");
+    }, tasks::add);
+    var thrown = new AtomicReference<Throwable>();
+    var caller = new Thread(() -> flights.execute("1", () -> "other"));
+    caller.setUncaughtExceptionHandler((t, e) -> thrown.set(e));
+    caller.start();
+    while (caller.getState() != Thread.State.WAITING) {
+      Thread.onSpinWait();
+    }
+
+    tasks.get(0).run();
+
+    caller.join(5000);
+    assertFalse(caller.isAlive());
+    assertInstanceOf(AssertionError.class, thrown.get());
+    assertEquals("load failed", thrown.get().getMessage());
+    assertThrows(ExecutionException.class, flight::get);
+    assertFalse(flights.isInFlight("1"));
+  }
+
+  private static void await(CountDownLatch latch) {
+    try {
+      latch.await();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+}
@@ -0,0 +1,81 @@
+/*
+ * This project is licensed under the MIT license. Module model-view-viewmodel is using ZK framework licensed under LGPL (see lgpl-3.0.txt).
+ *
+ * The MIT License
+ * Copyright © 2014-2022 Ilkka Seppälä
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.iluwatar.caching;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import org.junit.jupiter.api.io.TempDir;
+
+import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Tests for {@link TraceSimulator}.
+ */
+class TraceSimulatorTest {
+
+  /**
+   * Hot keys interleaved with long scans over keys that are never reused.
+   */
+  private static List<String> scanHeavyTrace() {
+    var random = new Random(42);
+    var trace = new ArrayList<String>();
+    var cold = 0;
+    for (var i = 0; i < 50_000; i++) {
+      if (i % 5000 < 1000) {
+        trace.add("cold" + cold++);
+      } else {
+        trace.add("hot" + random.nextInt(200));
+      }
+    }
+    return trace;
+  }
+
+  @Test
+  void tinyLfuShouldBeatLruOnScans() {
+    var trace = scanHeavyTrace();
+    var lru = TraceSimulator.simulate(EvictionPolicy.LRU, 250, trace.stream());
+    var tinyLfu = TraceSimulator.simulate(EvictionPolicy.TINY_LFU, 250,
+        trace.stream());
+
+    assertEquals(trace.size(), lru.requests());
+    assertTrue(tinyLfu.hitRatio() > lru.hitRatio(),
+        () -> tinyLfu.hitRatio() + " <= " + lru.hitRatio());
+  }
+
+  @Test
+  void shouldReplayTraceFile(@TempDir Path dir) throws Exception {
+    var trace = dir.resolve("trace.txt");
+    Files.write(trace, List.of("1", "2", "1", "", "3", "1"));
+    assertDoesNotThrow(() ->
+        TraceSimulator.main(new String[] {trace.toString(), "2"}));
+  }
+}
@@ -0,0 +1,90 @@
+/*
+ * This project is licensed under the MIT license. Module model-view-viewmodel is using ZK framework licensed under LGPL (see lgpl-3.0.txt).
+ *
+ * The MIT License
+ * Copyright © 2014-2022 Ilkka Seppälä
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.iluwatar.caching;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Tests for {@link WindowTinyLfuCache}.
+ */
+class WindowTinyLfuCacheTest {
+
+  private static UserAccount account(String id) {
+    return new UserAccount(id, "user" + id, "info" + id);
+  }
+
+  @Test
+  void shouldKeepHotEntriesDuringScan() {
+    var cache = new WindowTinyLfuCache(100);
+    for (var i = 0; i < 10_000; i++) {
+      var id = i % 2 == 0 ? "hot" + (i / 2) % 50 : "cold" + i;
+      if (cache.get(id) == null) {
+        cache.set(id, account(id));
+      }
+    }
+    for (var i = 0; i < 50; i++) {
+      assertTrue(cache.contains("hot" + i), "hot" + i);
+    }
+  }
+
+  @Test
+  void lruDataShouldBeTheNextEvictedEntry() {
+    var cache = new WindowTinyLfuCache(10);
+    for (var i = 0; i < 200; i++) {
+      var id = String.valueOf(i % 7 == 0 ? i % 3 : i);
+      if (cache.get(id) != null) {
+        continue;
+      }
+      if (cache.isFull()) {
+        var victim = cache.getLruData().getUserId();
+        cache.set(id, account(id));
+        assertFalse(cache.contains(victim), victim);
+      } else {
+        cache.set(id, account(id));
+      }
+      assertTrue(cache.getCacheDataInListForm().size() <= 10);
+    }
+  }
+
+  @Test
+  void shouldInvalidateAndClear() {
+    var cache = new WindowTinyLfuCache(5);
+    cache.set("1", account("1"));
+    cache.set("2", account("2"));
+    assertEquals("1", cache.get("1").getUserId());
+    cache.invalidate("1");
+    assertNull(cache.get("1"));
+    assertTrue(cache.contains("2"));
+
+    cache.clear();
+    assertTrue(cache.getCacheDataInListForm().isEmpty());
+    assertNull(cache.getLruData());
+  }
+}
@@ -0,0 +1,259 @@
+/*
+ * This project is licensed under the MIT license. Module model-view-viewmodel is using ZK framework licensed under LGPL (see lgpl-3.0.txt).
+ *
+ * The MIT License
+ * Copyright © 2014-2022 Ilkka Seppälä
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.iluwatar.caching;
+
+import com.iluwatar.caching.database.VirtualDb;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Tests for {@link WriteBehindFlusher}.
+ */
+class WriteBehindFlusherTest {
+
+  /**
+   * Records the bulk upserts, can hold them until released and can fail them.
+   */
+  static class RecordingDb extends VirtualDb {
+    final List<Integer> batchSizes = new CopyOnWriteArrayList<>();
+    final AtomicInteger attempts = new AtomicInteger();
+    volatile CountDownLatch release = new CountDownLatch(0);
+    volatile Error crash;
+    volatile RuntimeException failure;
+
+    @Override
+    public void bulkUpsertDb(List<UserAccount> userAccounts) {
+      attempts.incrementAndGet();
+      try {
+        release.await();
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+      if (crash != null) {
+        throw crash;
+      }
+      if (failure != null) {
+        throw failure;
+      }
+      super.bulkUpsertDb(userAccounts);
+      batchSizes.add(userAccounts.size());
+    }
+  }
+
+  private RecordingDb db;
+
+  private static UserAccount account(String id, String name) {
+    return new UserAccount(id, name, "info");
+  }
+
+  @BeforeEach
+  void setUp() {
+    db = new RecordingDb();
+    db.connect();
+  }
+
+  @Test
+  void shouldFlushFullBatches() throws Exception {
+    try (var flusher = new WriteBehindFlusher(db, 10, Duration.ofHours(1), 100)) {
+      for (var i = 0; i < 30; i++) {
+        flusher.enqueue(account(String.valueOf(i), "n"));
+      }
+      waitFor(() -> flusher.getFlushedAccounts() == 30);
+      assertEquals(List.of(10, 10, 10), db.batchSizes);
+      assertEquals(0, flusher.getQueueDepth());
+      assertEquals(3, flusher.getFlushCount());
+    }
+  }
+
+  @Test
+  void shouldFlushAfterMaxDelay() throws Exception {
+    try (var flusher = new WriteBehindFlusher(db, 100, Duration.ofMillis(50), 100)) {
+      flusher.enqueue(account("1", "n"));
+      waitFor(() -> flusher.getFlushedAccounts() == 1);
+      assertEquals("n", db.readFromDb("1").getUserName());
+    }
+  }
+
+  @Test
+  void shouldCoalesceAndDrainOnClose() {
+    var flusher = new WriteBehindFlusher(db, 100, Duration.ofHours(1), 100);
+    flusher.enqueue(account("1", "first"));
+    flusher.enqueue(account("1", "second"));
+    flusher.enqueue(account("2", "other"));
+    assertEquals(2, flusher.getQueueDepth());
+    assertEquals("second", flusher.getPending("1").getUserName());
+    assertNull(db.readFromDb("1"));
+
+    flusher.close();
+    assertEquals(List.of(2), db.batchSizes);
+    assertEquals("second", db.readFromDb("1").getUserName());
+    assertNull(flusher.getPending("1"));
+  }
+
+  @Test
+  void shouldBlockWritersAtPendingLimit() throws Exception {
+    db.release = new CountDownLatch(1);
+    try (var flusher = new WriteBehindFlusher(db, 2, Duration.ofHours(1), 4)) {
+      flusher.enqueue(account("1", "n"));
+      flusher.enqueue(account("2", "n"));
+      // The first batch is now held in the DB, fill the queue up to the limit.
+      waitFor(() -> flusher.getQueueDepth() == 0);
+      flusher.enqueue(account("3", "n"));
+      flusher.enqueue(account("4", "n"));
+      var blocked = CompletableFuture.runAsync(() -> flusher.enqueue(account("5", "n")));
+      Thread.sleep(100);
+      assertFalse(blocked.isDone());
+      assertEquals("n", flusher.getPending("1").getUserName());
+
+      db.release.countDown();
+      blocked.get(5, TimeUnit.SECONDS);
+    }
+    assertEquals(5, db.batchSizes.stream().mapToInt(Integer::intValue).sum());
+  }
+
+  @Test
+  void shouldFailBlockedWritersWhenTheFlusherDies() throws Exception {
+    db.release = new CountDownLatch(1);
+    try (var flusher = new WriteBehindFlusher(db, 2, Duration.ofHours(1), 4)) {
+      flusher.enqueue(account("1", "n"));
+      flusher.enqueue(account("2", "n"));
+      waitFor(() -> flusher.getQueueDepth() == 0);
+      flusher.enqueue(account("3", "n"));
+      flusher.enqueue(account("4", "n"));
+      var blocked = CompletableFuture.runAsync(() -> flusher.enqueue(account("5", "n")));
+      Thread.sleep(100);
+      assertFalse(blocked.isDone());
+
+      db.crash = new Error("simulated flusher crash");
+      db.release.countDown();
+      var e = assertThrows(ExecutionException.class, () -> blocked.get(5, TimeUnit.SECONDS));
+      assertTrue(e.getCause() instanceof IllegalStateException);
+      assertThrows(IllegalStateException.class, () -> flusher.enqueue(account("6", "n")));
+    }
+  }
+
+  @Test
+  void shouldCountTheBatchInFlightTowardsThePendingLimit() throws Exception {
+    var held = new CountDownLatch(1);
+    db.release = held;
+    try (var flusher = new WriteBehindFlusher(db, 2, Duration.ofHours(1), 4)) {
+      flusher.enqueue(account("1", "n"));
+      flusher.enqueue(account("2", "n"));
+      waitFor(() -> flusher.getQueueDepth() == 0);
+      var writer = CompletableFuture.runAsync(() -> {
+        for (var i = 3; i <= 6; i++) {
+          flusher.enqueue(account(String.valueOf(i), "n"));
+        }
+      });
+      Thread.sleep(100);
+
+      // Fail the held batch and hold its retry.
+      db.failure = new IllegalStateException("DB is down");
+      db.release = new CountDownLatch(1);
+      held.countDown();
+      waitFor(() -> db.attempts.get() == 2);
+      // The failed batch went back on the queue without passing the limit.
+      assertTrue(flusher.getQueueDepth() + 2 <= 4, "depth " + flusher.getQueueDepth());
+      assertFalse(writer.isDone());
+
+      db.failure = null;
+      db.release.countDown();
+      writer.get(5, TimeUnit.SECONDS);
+    }
+    for (var i = 1; i <= 6; i++) {
+      assertEquals("n", db.readFromDb(String.valueOf(i)).getUserName());
+    }
+  }
+
+  @Test
+  void cacheStoreShouldFallBackToTheDbWhenTheFlusherIsClosed() {
+    var store = new CacheStore(db);
+    var flusher = new WriteBehindFlusher(db, 10, Duration.ofHours(1), 100);
+    store.startWriteBehindFlusher(flusher);
+    store.writeBehind(account("0", "n0"));
+    // Closed behind the store's back, as a concurrent stop would.
+    flusher.close();
+
+    for (var i = 1; i < 5; i++) {
+      store.writeBehind(account(String.valueOf(i), "n" + i));
+    }
+
+    assertEquals("n0", db.readFromDb("0").getUserName());
+    assertEquals("n1", db.readFromDb("1").getUserName());
+  }
+
+  @Test
+  void shouldKeepAccountsWhoseFlushFailsOnClose() {
+    var flusher = new WriteBehindFlusher(db, 100, Duration.ofHours(1), 100);
+    flusher.enqueue(account("1", "n"));
+    flusher.enqueue(account("2", "n"));
+    db.failure = new IllegalStateException("DB is down");
+
+    flusher.close();
+    assertEquals(2, flusher.getQueueDepth());
+    assertEquals("n", flusher.getPending("1").getUserName());
+    assertNull(db.readFromDb("1"));
+  }
+
+  @Test
+  void cacheStoreShouldWriteEvictedDataInBackground() {
+    var store = new CacheStore(db);
+    store.startWriteBehindFlusher(new WriteBehindFlusher(db, 10, Duration.ofHours(1), 100));
+    for (var i = 0; i < 5; i++) {
+      store.writeBehind(account(String.valueOf(i), "n" + i));
+    }
+    // Evicted accounts are served from the queue until they are flushed.
+    assertTrue(db.batchSizes.isEmpty());
+    assertEquals("n0", store.readThroughWithWriteBackPolicy("0").getUserName());
+
+    store.stopWriteBehindFlusher();
+    assertEquals("n1", db.readFromDb("1").getUserName());
+  }
+
+  private static void waitFor(BooleanSupplier condition)
+      throws InterruptedException {
+    var deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+    while (!condition.getAsBoolean()) {
+      assertTrue(System.nanoTime() < deadline, "timed out");
+      Thread.sleep(10);
+    }
+  }
+}
@@ -29,11 +29,14 @@ import com.iluwatar.caching.constants.CachingConstants;
 import com.mongodb.client.FindIterable;
 import com.mongodb.client.MongoCollection;
 import com.mongodb.client.MongoDatabase;
+import com.mongodb.client.model.BulkWriteOptions;
 import org.bson.Document;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.Mock;
 
+import java.util.List;
+
 import static com.iluwatar.caching.constants.CachingConstants.ADD_INFO;
 import static com.iluwatar.caching.constants.CachingConstants.USER_ID;
 import static com.iluwatar.caching.constants.CachingConstants.USER_NAME;
@@ -100,4 +103,12 @@ class MongoDbTest {
     when(db.getCollection(CachingConstants.USER_ACCOUNT)).thenReturn(mongoCollection);
     assertDoesNotThrow(()-> {mongoDb.upsertDb(userAccount);});
   }
-}
\ No newline at end of file
+
+  @Test
+  void bulkUpsertDb() {
+    MongoCollection<Document> mongoCollection = mock(MongoCollection.class);
+    when(db.getCollection(CachingConstants.USER_ACCOUNT)).thenReturn(mongoCollection);
+    assertDoesNotThrow(()-> {mongoDb.bulkUpsertDb(List.of(userAccount));});
+    verify(mongoCollection).bulkWrite(anyList(), any(BulkWriteOptions.class));
+  }
+}
@@ -26,6 +26,12 @@ package com.iluwatar.event.queue;
 
 import java.io.File;
 import java.io.IOException;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import java.util.function.LongSupplier;
 import javax.sound.sampled.AudioInputStream;
 import javax.sound.sampled.AudioSystem;
 import javax.sound.sampled.LineUnavailableException;
@@ -36,6 +42,12 @@ import lombok.extern.slf4j.Slf4j;
 /**
  * This class implements the Event Queue pattern.
  *
+ * <p>Any number of threads may call {@link #playSound}; a single update thread plays the
+ * requests. The queue is a bounded ring buffer guarded by one lock. When the queue is empty the
+ * update thread parks on a condition instead of spinning, and each time it wakes it takes every
+ * pending request in one batch. A request for a stream that is already queued is merged into the
+ * queued one through an identity index, so that check is O(1). What happens when the queue is full
+ * is decided by the {@link OverflowPolicy}.
  */
 @Slf4j
 public class Audio {
@@ -43,18 +55,62 @@ public class Audio {
 
   private static final int MAX_PENDING = 16;
 
+  private final ReentrantLock lock = new ReentrantLock();
+
+  private final Condition notEmpty = lock.newCondition();
+
+  private final Condition notFull = lock.newCondition();
+
+  private final Map<AudioInputStream, PlayMessage> pendingByStream = new IdentityHashMap<>();
+
+  private final OverflowPolicy overflowPolicy;
+
+  private final Consumer<PlayMessage> player;
+
   private int headIndex;
 
-  private int tailIndex;
+  private int pendingCount;
+
+  private long enqueued;
+
+  private long coalesced;
+
+  private long dropped;
+
+  private long rejected;
+
+  private long dispatched;
+
+  private long batches;
 
   private volatile Thread updateThread = null;
 
   @Getter
-  private final PlayMessage[] pendingAudio = new PlayMessage[MAX_PENDING];
+  private final PlayMessage[] pendingAudio;
 
   // Visible only for testing purposes
   Audio() {
+    this(MAX_PENDING, OverflowPolicy.DROP_OLDEST);
+  }
 
+  /**
+   * Creates an audio service with its own queue.
+   *
+   * @param capacity       maximum number of pending requests
+   * @param overflowPolicy what to do with a request when the queue is full
+   */
+  public Audio(int capacity, OverflowPolicy overflowPolicy) {
+    this(capacity, overflowPolicy, Audio::play);
+  }
+
+  // Visible only for testing purposes
+  Audio(int capacity, OverflowPolicy overflowPolicy, Consumer<PlayMessage> player) {
+    if (capacity <= 0) {
+      throw new IllegalArgumentException("capacity must be positive: " + capacity);
+    }
+    this.pendingAudio = new PlayMessage[capacity];
+    this.overflowPolicy = overflowPolicy;
+    this.player = player;
   }
 
   public static Audio getInstance() {
@@ -62,14 +118,21 @@ public class Audio {
   }
 
   /**
-   * This method stops the Update Method's thread and waits till service stops.
+   * This method stops the Update Method's thread and waits till service stops. Callers waiting for
+   * room in the queue give up.
    */
   public synchronized void stopService() throws InterruptedException {
     if (updateThread != null) {
       updateThread.interrupt();
+      updateThread.join();
+      updateThread = null;
+      lock.lock();
+      try {
+        notFull.signalAll();
+      } finally {
+        lock.unlock();
+      }
     }
-    updateThread.join();
-    updateThread = null;
   }
 
   /**
@@ -82,67 +145,144 @@ public class Audio {
   }
 
   /**
-   * Starts the thread for the Update Method pattern if it was not started previously. Also, when the
-   * thread is ready initializes the indexes of the queue
+   * Starts the thread for the Update Method pattern if it was not started previously.
    */
   public void init() {
-    if (updateThread == null) {
-      updateThread = new Thread(() -> {
-        while (!Thread.currentThread().isInterrupted()) {
-          update();
-        }
-      });
+    var thread = updateThread;
+    if (thread == null || !thread.isAlive()) {
+      startThread();
     }
-    startThread();
   }
 
   /**
    * This is a synchronized thread starter.
    */
   private synchronized void startThread() {
-    if (!updateThread.isAlive()) {
+    if (updateThread == null || !updateThread.isAlive()) {
+      updateThread = new Thread(this::run, "audio-update");
       updateThread.start();
-      headIndex = 0;
-      tailIndex = 0;
     }
   }
 
   /**
-   * This method adds a new audio into the queue.
+   * This method adds a new audio into the queue. If the stream is already pending, the pending
+   * request keeps the larger of the two volumes and nothing new is enqueued.
    *
    * @param stream is the AudioInputStream for the method
    * @param volume is the level of the audio's volume
+   * @return false if the request was rejected by the overflow policy, or the caller was
+   *     interrupted or the service stopped while waiting for room
    */
-  public void playSound(AudioInputStream stream, float volume) {
+  public boolean playSound(AudioInputStream stream, float volume) {
     init();
-    // Walk the pending requests.
-    for (var i = headIndex; i != tailIndex; i = (i + 1) % MAX_PENDING) {
-      var playMessage = getPendingAudio()[i];
-      if (playMessage.getStream() == stream) {
-        // Use the larger of the two volumes.
-        playMessage.setVolume(Math.max(volume, playMessage.getVolume()));
-
-        // Don't need to enqueue.
-        return;
+    lock.lock();
+    try {
+      while (true) {
+        var playMessage = pendingByStream.get(stream);
+        if (playMessage != null) {
+          // Use the larger of the two volumes.
+          playMessage.setVolume(Math.max(volume, playMessage.getVolume()));
+          coalesced++;
+          // Don't need to enqueue.
+          return true;
+        }
+        if (pendingCount < pendingAudio.length) {
+          enqueue(new PlayMessage(stream, volume));
+          return true;
+        }
+        switch (overflowPolicy) {
+          case DROP_OLDEST -> {
+            pendingByStream.remove(dequeue().getStream());
+            dropped++;
+          }
+          case REJECT -> {
+            rejected++;
+            return false;
+          }
+          default -> {
+            if (updateThread == null) {
+              // Stopped: nothing will make room.
+              return false;
+            }
+            try {
+              notFull.await();
+            } catch (InterruptedException e) {
+              Thread.currentThread().interrupt();
+              return false;
+            }
+          }
+        }
       }
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  private void enqueue(PlayMessage playMessage) {
+    pendingAudio[(headIndex + pendingCount) % pendingAudio.length] = playMessage;
+    pendingByStream.put(playMessage.getStream(), playMessage);
+    pendingCount++;
+    enqueued++;
+    if (pendingCount == 1) {
+      notEmpty.signal();
+    }
+  }
+
+  private PlayMessage dequeue() {
+    final var playMessage = pendingAudio[headIndex];
+    pendingAudio[headIndex] = null;
+    headIndex = (headIndex + 1) % pendingAudio.length;
+    pendingCount--;
+    return playMessage;
+  }
+
+  private void run() {
+    var batch = new PlayMessage[pendingAudio.length];
+    try {
+      while (!Thread.currentThread().isInterrupted()) {
+        update(batch);
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
     }
-    getPendingAudio()[tailIndex] = new PlayMessage(stream, volume);
-    tailIndex = (tailIndex + 1) % MAX_PENDING;
   }
 
   /**
-   * This method uses the Update Method pattern. It takes the audio from the queue and plays it
+   * This method uses the Update Method pattern. It parks until requests are pending, takes all of
+   * them at once and plays them outside the lock.
    */
-  private void update() {
-    // If there are no pending requests, do nothing.
-    if (headIndex == tailIndex) {
-      return;
+  private void update(PlayMessage[] batch) throws InterruptedException {
+    int count;
+    lock.lockInterruptibly();
+    try {
+      while (pendingCount == 0) {
+        notEmpty.await();
+      }
+      count = pendingCount;
+      for (var i = 0; i < count; i++) {
+        batch[i] = dequeue();
+        pendingByStream.remove(batch[i].getStream());
+      }
+      dispatched += count;
+      batches++;
+      notFull.signalAll();
+    } finally {
+      lock.unlock();
+    }
+    for (var i = 0; i < count; i++) {
+      try {
+        player.accept(batch[i]);
+      } catch (RuntimeException e) {
+        LOGGER.warn("Failed to play audio", e);
+      }
+      batch[i] = null;
     }
+  }
+
+  private static void play(PlayMessage playMessage) {
     try {
-      var audioStream = getPendingAudio()[headIndex].getStream();
-      headIndex++;
       var clip = AudioSystem.getClip();
-      clip.open(audioStream);
+      clip.open(playMessage.getStream());
       clip.start();
     } catch (LineUnavailableException e) {
       LOGGER.trace("Error occurred while loading the audio: The line is unavailable", e);
@@ -153,6 +293,83 @@ public class Audio {
     }
   }
 
+  /**
+   * Returns the number of requests waiting to be played.
+   *
+   * @return pending request count
+   */
+  public int getPendingCount() {
+    return (int) read(() -> pendingCount);
+  }
+
+  /**
+   * Returns how many requests were added to the queue.
+   *
+   * @return enqueued request count
+   */
+  public long getEnqueuedCount() {
+    return read(() -> enqueued);
+  }
+
+  /**
+   * Returns how many requests were merged into an already pending request for the same stream.
+   *
+   * @return coalesced request count
+   */
+  public long getCoalescedCount() {
+    return read(() -> coalesced);
+  }
+
+  /**
+   * Returns how many pending requests were discarded by {@link OverflowPolicy#DROP_OLDEST}.
+   *
+   * @return dropped request count
+   */
+  public long getDroppedCount() {
+    return read(() -> dropped);
+  }
+
+  /**
+   * Returns how many requests were refused by {@link OverflowPolicy#REJECT}.
+   *
+   * @return rejected request count
+   */
+  public long getRejectedCount() {
+    return read(() -> rejected);
+  }
+
+  /**
+   * Returns how many requests the update thread has taken off the queue.
+   *
+   * @return dispatched request count
+   */
+  public long getDispatchedCount() {
+    return read(() -> dispatched);
+  }
+
+  /**
+   * Returns how many times the update thread woke up and took a batch.
+   *
+   * @return batch count
+   */
+  public long getBatchCount() {
+    return read(() -> batches);
+  }
+
+  private long read(LongSupplier counter) {
+    lock.lock();
+    try {
+      return counter.getAsLong();
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  // Visible only for testing purposes
+  Thread getUpdateThread() {
+    return updateThread;
+  }
+
   /**
    * Returns the AudioInputStream of a file.
    *
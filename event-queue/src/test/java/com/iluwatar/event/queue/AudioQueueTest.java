@@ -0,0 +1,242 @@
+/*
+ * This project is licensed under the MIT license. Module model-view-viewmodel is using ZK framework licensed under LGPL (see lgpl-3.0.txt).
+ *
+ * The MIT License
+ * Copyright © 2014-2022 Ilkka Seppälä
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.iluwatar.event.queue;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+import java.io.ByteArrayInputStream;
+import java.lang.management.ManagementFactory;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.BooleanSupplier;
+import java.util.function.Consumer;
+import javax.sound.sampled.AudioFormat;
+import javax.sound.sampled.AudioInputStream;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests the bounded, coalescing queue behind {@link Audio} without touching the sound system.
+ */
+@Slf4j
+class AudioQueueTest {
+
+  private static final AudioFormat FORMAT = new AudioFormat(44100f, 16, 1, true, false);
+
+  private final List<PlayMessage> played = new CopyOnWriteArrayList<>();
+
+  private final CountDownLatch firstTaken = new CountDownLatch(1);
+
+  private final CountDownLatch release = new CountDownLatch(1);
+
+  private Audio audio;
+
+  @AfterEach
+  void stop() throws InterruptedException {
+    release.countDown();
+    if (audio != null) {
+      audio.stopService();
+    }
+  }
+
+  private static AudioInputStream stream() {
+    return new AudioInputStream(new ByteArrayInputStream(new byte[0]), FORMAT, 0);
+  }
+
+  /**
+   * Creates a service whose player holds the update thread on the first request until
+   * {@link #release} opens, so the test can fill the queue deterministically.
+   */
+  private Audio blockedAudio(int capacity, OverflowPolicy policy) throws InterruptedException {
+    audio = new Audio(capacity, policy, message -> {
+      played.add(message);
+      firstTaken.countDown();
+      try {
+        release.await();
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+    });
+    audio.playSound(stream(), 0f);
+    assertTrue(firstTaken.await(5, TimeUnit.SECONDS));
+    return audio;
+  }
+
+  private static void await(BooleanSupplier condition) throws InterruptedException {
+    var deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+    while (!condition.getAsBoolean()) {
+      assertTrue(System.nanoTime() < deadline, "condition not met in time");
+      Thread.sleep(1);
+    }
+  }
+
+  @Test
+  void testDuplicateStreamsAreCoalesced() throws InterruptedException {
+    var audio = blockedAudio(4, OverflowPolicy.REJECT);
+    var stream = stream();
+    assertTrue(audio.playSound(stream, -10f));
+    assertTrue(audio.playSound(stream, -5f));
+    assertTrue(audio.playSound(stream, -8f));
+    assertEquals(1, audio.getPendingCount());
+    assertEquals(2, audio.getCoalescedCount());
+
+    release.countDown();
+    await(() -> played.size() == 2);
+    assertEquals(stream, played.get(1).getStream());
+    assertEquals(-5f, played.get(1).getVolume());
+  }
+
+  @Test
+  void testDropOldest() throws InterruptedException {
+    var audio = blockedAudio(2, OverflowPolicy.DROP_OLDEST);
+    var first = stream();
+    var second = stream();
+    var third = stream();
+    assertTrue(audio.playSound(first, 0f));
+    assertTrue(audio.playSound(second, 0f));
+    assertTrue(audio.playSound(third, 0f));
+    assertEquals(1, audio.getDroppedCount());
+
+    release.countDown();
+    await(() -> played.size() == 3);
+    assertEquals(second, played.get(1).getStream());
+    assertEquals(third, played.get(2).getStream());
+  }
+
+  @Test
+  void testReject() throws InterruptedException {
+    var audio = blockedAudio(2, OverflowPolicy.REJECT);
+    assertTrue(audio.playSound(stream(), 0f));
+    assertTrue(audio.playSound(stream(), 0f));
+    assertFalse(audio.playSound(stream(), 0f));
+    assertEquals(1, audio.getRejectedCount());
+    assertEquals(2, audio.getPendingCount());
+  }
+
+  @Test
+  void testBlockWaitsForRoom() throws InterruptedException {
+    var audio = blockedAudio(1, OverflowPolicy.BLOCK);
+    assertTrue(audio.playSound(stream(), 0f));
+    var blocked = stream();
+    var producer = new Thread(() -> audio.playSound(blocked, 0f));
+    producer.start();
+    await(() -> producer.getState() == Thread.State.WAITING);
+    assertEquals(1, audio.getEnqueuedCount() - audio.getDispatchedCount());
+
+    release.countDown();
+    producer.join(TimeUnit.SECONDS.toMillis(5));
+    await(() -> played.size() == 3);
+    assertEquals(blocked, played.get(2).getStream());
+  }
+
+  @Test
+  void testBlockedProducerGivesUpWhenStopped() throws InterruptedException {
+    var audio = blockedAudio(1, OverflowPolicy.BLOCK);
+    assertTrue(audio.playSound(stream(), 0f));
+    var accepted = new AtomicBoolean(true);
+    var producer = new Thread(() -> accepted.set(audio.playSound(stream(), 0f)));
+    producer.start();
+    await(() -> producer.getState() == Thread.State.WAITING);
+
+    audio.stopService();
+    producer.join(TimeUnit.SECONDS.toMillis(5));
+    assertFalse(producer.isAlive());
+    assertFalse(accepted.get());
+  }
+
+  @Test
+  void testIdleUpdateThreadParks() throws InterruptedException {
+    var threads = ManagementFactory.getThreadMXBean();
+    assumeTrue(threads.isThreadCpuTimeSupported());
+    audio = new Audio(16, OverflowPolicy.BLOCK, played::add);
+    audio.init();
+    var thread = audio.getUpdateThread();
+    await(() -> thread.getState() == Thread.State.WAITING);
+
+    var before = threads.getThreadCpuTime(thread.getId());
+    Thread.sleep(500);
+    var cpuMillis = TimeUnit.NANOSECONDS.toMillis(threads.getThreadCpuTime(thread.getId()) - before);
+    LOGGER.info("Idle update thread used {} ms CPU in 500 ms", cpuMillis);
+    assertTrue(cpuMillis < 50, "idle update thread is spinning: " + cpuMillis + " ms");
+  }
+
+  @Test
+  void testSaturatedThroughput() throws InterruptedException {
+    var producers = 4;
+    var perProducer = 50_000;
+    var streamsPerProducer = 64;
+    var threads = ManagementFactory.getThreadMXBean();
+    Consumer<PlayMessage> noop = message -> { };
+    audio = new Audio(16, OverflowPolicy.BLOCK, noop);
+    audio.init();
+
+    var start = new CountDownLatch(1);
+    var workers = new Thread[producers];
+    for (var p = 0; p < producers; p++) {
+      workers[p] = new Thread(() -> {
+        var streams = new AudioInputStream[streamsPerProducer];
+        for (var i = 0; i < streams.length; i++) {
+          streams[i] = stream();
+        }
+        try {
+          start.await();
+        } catch (InterruptedException e) {
+          return;
+        }
+        for (var i = 0; i < perProducer; i++) {
+          audio.playSound(streams[i % streams.length], i);
+        }
+      });
+      workers[p].start();
+    }
+    var cpuBefore = threads.getThreadCpuTime(audio.getUpdateThread().getId());
+    var begin = System.nanoTime();
+    start.countDown();
+    for (var worker : workers) {
+      worker.join();
+    }
+    await(() -> audio.getPendingCount() == 0);
+    var elapsed = System.nanoTime() - begin;
+    var cpu = threads.getThreadCpuTime(audio.getUpdateThread().getId()) - cpuBefore;
+
+    var total = (long) producers * perProducer;
+    assertEquals(total, audio.getEnqueuedCount() + audio.getCoalescedCount());
+    assertEquals(audio.getEnqueuedCount(), audio.getDispatchedCount());
+    assertTrue(audio.getBatchCount() < audio.getDispatchedCount());
+    LOGGER.info("{} requests in {} ms ({} req/ms): {} dispatched in {} batches, {} coalesced, "
+            + "update thread CPU {} ms",
+        total, TimeUnit.NANOSECONDS.toMillis(elapsed),
+        total * 1_000_000 / Math.max(1, elapsed),
+        audio.getDispatchedCount(), audio.getBatchCount(), audio.getCoalescedCount(),
+        TimeUnit.NANOSECONDS.toMillis(cpu));
+  }
+}
@@ -24,6 +24,8 @@
  */
 package com.iluwatar.event.sourcing.event;
 
+import com.fasterxml.jackson.annotation.JsonSubTypes;
+import com.fasterxml.jackson.annotation.JsonTypeInfo;
 import java.io.Serializable;
 import lombok.Getter;
 import lombok.RequiredArgsConstructor;
@@ -37,6 +39,13 @@ import lombok.Setter;
 @Setter
 @Getter
 @RequiredArgsConstructor
+@JsonTypeInfo(use = JsonTypeInfo.Id.NAME, include = JsonTypeInfo.As.EXISTING_PROPERTY,
+    property = "eventClassName")
+@JsonSubTypes({
+    @JsonSubTypes.Type(value = AccountCreateEvent.class, name = "AccountCreateEvent"),
+    @JsonSubTypes.Type(value = MoneyDepositEvent.class, name = "MoneyDepositEvent"),
+    @JsonSubTypes.Type(value = MoneyTransferEvent.class, name = "MoneyTransferEvent")
+})
 public abstract class DomainEvent implements Serializable {
 
   private final long sequenceId;
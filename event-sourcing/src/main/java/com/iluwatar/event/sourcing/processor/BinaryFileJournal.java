@@ -0,0 +1,629 @@
+/*
+ * This project is licensed under the MIT license. Module model-view-viewmodel is using ZK framework licensed under LGPL (see lgpl-3.0.txt).
+ *
+ * The MIT License
+ * Copyright © 2014-2022 Ilkka Seppälä
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.iluwatar.event.sourcing.processor;
+
+import com.iluwatar.event.sourcing.event.DomainEvent;
+import java.io.File;
+import java.io.IOException;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.zip.CRC32;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * An append-only event journal of binary records in a directory of rolling segment files.
+ *
+ * <p>Each record is an int length, the CRC32 of the payload and the payload written by
+ * {@link EventCodec}. A segment is named after the journal position of its first byte, so
+ * positions run on from one segment to the next and {@link #seek(long)} simply picks the segment
+ * holding the position. A new segment is started once the current one has grown past the segment
+ * size. On open, a torn or corrupt record at the tail of the last segment, left by a crash in the
+ * middle of a write, is cut off; while reading, a bad record ends the journal.
+ *
+ * <p>How soon an appended event is on disk depends on the {@link Durability}:
+ * <ul>
+ *   <li>{@link Durability#PER_EVENT} writes and syncs every event before it returns.</li>
+ *   <li>{@link Durability#PER_BATCH} does group commit: a flusher thread writes whatever has been
+ *   appended since its last write and syncs it once, so concurrent writers share the sync, and
+ *   each writer returns as soon as the batch holding its event is on disk.</li>
+ *   <li>{@link Durability#TIMED} returns without waiting. The flusher writes in the background
+ *   and syncs at most once per sync interval, so a crash loses at most the last interval.</li>
+ * </ul>
+ */
+@Slf4j
+public class BinaryFileJournal extends EventJournal implements AutoCloseable {
+
+  /**
+   * When an appended event is made durable.
+   */
+  public enum Durability {
+    PER_EVENT, PER_BATCH, TIMED
+  }
+
+  static final long DEFAULT_SEGMENT_SIZE = 64L * 1024 * 1024;
+  static final long DEFAULT_SYNC_INTERVAL_MILLIS = 10;
+
+  private static final String SEGMENT_SUFFIX = ".seg";
+  private static final int HEADER_SIZE = 8;
+  private static final int MAX_RECORD_SIZE = 1 << 20;
+  private static final int BUFFER_SIZE = 64 * 1024;
+  // Appenders wait for the flusher once this many bytes are not yet written.
+  private static final long MAX_BACKLOG = 4L * 1024 * 1024;
+
+  private final File directory;
+  private final Durability durability;
+  private final long segmentSize;
+  private final long syncIntervalNanos;
+
+  // Guards the append side and the progress of the flusher. Taken before ioLock.
+  private final ReentrantLock lock = new ReentrantLock();
+  private final Condition pendingData = lock.newCondition();
+  private final Condition progress = lock.newCondition();
+  private final CRC32 appendCrc = new CRC32();
+  private ByteBuffer pending = ByteBuffer.allocate(BUFFER_SIZE);
+  private ByteBuffer flushing = ByteBuffer.allocate(BUFFER_SIZE);
+  private long appendedPosition;
+  private long writtenPosition;
+  private long durablePosition;
+  private IOException failure;
+  private boolean closed;
+  private final Thread flusher;
+
+  // Guards the segment being written.
+  private final ReentrantLock ioLock = new ReentrantLock();
+  private FileChannel segment;
+  private long segmentBase;
+
+  private final CRC32 readCrc = new CRC32();
+  private FileChannel reader;
+  private ByteBuffer readBuffer;
+  private long readPosition;
+
+  /**
+   * Opens the journal in the directory, with the default segment size and sync interval.
+   *
+   * @param directory  the directory holding the segments, created if missing
+   * @param durability when appended events are synced to disk
+   */
+  public BinaryFileJournal(File directory, Durability durability) {
+    this(directory, durability, DEFAULT_SEGMENT_SIZE, DEFAULT_SYNC_INTERVAL_MILLIS,
+        TimeUnit.MILLISECONDS);
+  }
+
+  /**
+   * Opens the journal in the directory.
+   *
+   * @param directory    the directory holding the segments, created if missing
+   * @param durability   when appended events are synced to disk
+   * @param segmentSize  the size past which a new segment is started
+   * @param syncInterval the longest time between syncs with {@link Durability#TIMED}
+   * @param unit         the unit of the sync interval
+   */
+  public BinaryFileJournal(File directory, Durability durability, long segmentSize,
+      long syncInterval, TimeUnit unit) {
+    if (segmentSize < 1 || syncInterval < 1) {
+      throw new IllegalArgumentException("segmentSize and syncInterval must be positive");
+    }
+    this.directory = directory;
+    this.file = directory;
+    this.durability = durability;
+    this.segmentSize = segmentSize;
+    this.syncIntervalNanos = unit.toNanos(syncInterval);
+    try {
+      Files.createDirectories(directory.toPath());
+      openTail();
+    } catch (IOException e) {
+      throw new RuntimeException(e);
+    }
+    if (durability == Durability.PER_EVENT) {
+      flusher = null;
+    } else {
+      flusher = new Thread(this::flushLoop, "journal-flusher");
+      flusher.setDaemon(true);
+      flusher.start();
+    }
+  }
+
+  /**
+   * Finds where the journal ends, cutting off a torn record, and opens the last segment for
+   * writing.
+   */
+  private void openTail() throws IOException {
+    var bases = segmentBases();
+    if (bases.length == 0) {
+      openSegment(0);
+      return;
+    }
+    var lastBase = bases[bases.length - 1];
+    readPosition = lastBase;
+    while (nextRecord() != null) {
+      // Skips over the valid records.
+    }
+    closeReader();
+    var end = readPosition;
+    readPosition = 0;
+    try (var channel = FileChannel.open(segmentFile(lastBase).toPath(),
+        StandardOpenOption.WRITE)) {
+      if (channel.size() > end - lastBase) {
+        LOGGER.warn("Cutting off {} bytes of torn records at the end of the journal",
+            channel.size() - (end - lastBase));
+        channel.truncate(end - lastBase);
+        channel.force(true);
+      }
+    }
+    segment = FileChannel.open(segmentFile(lastBase).toPath(), StandardOpenOption.WRITE);
+    segment.position(end - lastBase);
+    segmentBase = lastBase;
+    appendedPosition = end;
+    writtenPosition = end;
+    durablePosition = end;
+  }
+
+  private void openSegment(long base) throws IOException {
+    segment = FileChannel.open(segmentFile(base).toPath(), StandardOpenOption.WRITE,
+        StandardOpenOption.CREATE_NEW);
+    segmentBase = base;
+    try (var dir = FileChannel.open(directory.toPath(), StandardOpenOption.READ)) {
+      // Makes the new file itself survive a crash. Not supported on every platform.
+      dir.force(true);
+    } catch (IOException e) {
+      LOGGER.debug("Could not sync the journal directory", e);
+    }
+  }
+
+  private File segmentFile(long base) {
+    return new File(directory, String.format("%020d%s", base, SEGMENT_SUFFIX));
+  }
+
+  private long[] segmentBases() {
+    var names = directory.list((dir, name) -> name.endsWith(SEGMENT_SUFFIX));
+    if (names == null) {
+      return new long[0];
+    }
+    return Arrays.stream(names)
+        .mapToLong(name -> Long.parseLong(name.substring(0, name.length() - SEGMENT_SUFFIX.length())))
+        .sorted()
+        .toArray();
+  }
+
+  @Override
+  void write(DomainEvent domainEvent) {
+    awaitDurable(append(domainEvent));
+  }
+
+  @Override
+  long append(DomainEvent domainEvent) {
+    lock.lock();
+    try {
+      while (appendedPosition - writtenPosition >= MAX_BACKLOG && failure == null) {
+        progress.await();
+      }
+      checkUsable();
+      var start = pending.position();
+      encodeRecord(domainEvent, start);
+      appendedPosition += pending.position() - start;
+      if (durability == Durability.PER_EVENT) {
+        pending.flip();
+        writeSegment(pending, true, appendedPosition);
+        pending.clear();
+        writtenPosition = appendedPosition;
+        durablePosition = appendedPosition;
+      } else {
+        pendingData.signal();
+      }
+      return appendedPosition;
+    } catch (IOException e) {
+      failure = e;
+      throw new RuntimeException(e);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new RuntimeException(e);
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  private void checkUsable() {
+    if (failure != null) {
+      throw new RuntimeException(failure);
+    }
+    if (closed) {
+      throw new IllegalStateException("Journal is closed");
+    }
+  }
+
+  /**
+   * Encodes the event as a record at the start position of the pending buffer. If it cannot be
+   * encoded, or is larger than a reader accepts, the buffer is left as it was, so nothing of it
+   * reaches the file.
+   */
+  private void encodeRecord(DomainEvent domainEvent, int start) {
+    try {
+      while (true) {
+        try {
+          if (pending.capacity() - start < HEADER_SIZE) {
+            throw new BufferOverflowException();
+          }
+          pending.position(start + HEADER_SIZE);
+          EventCodec.encode(domainEvent, pending);
+          break;
+        } catch (BufferOverflowException e) {
+          pending.position(start).flip();
+          pending = ByteBuffer.allocate(pending.capacity() * 2).put(pending);
+        }
+      }
+      var length = pending.position() - start - HEADER_SIZE;
+      if (length > MAX_RECORD_SIZE) {
+        throw new IllegalArgumentException("Event of " + length
+            + " bytes exceeds the largest record of " + MAX_RECORD_SIZE + " bytes");
+      }
+      appendCrc.reset();
+      appendCrc.update(pending.array(), start + HEADER_SIZE, length);
+      pending.putInt(start, length).putInt(start + 4, (int) appendCrc.getValue());
+    } catch (RuntimeException e) {
+      pending.position(start);
+      throw e;
+    }
+  }
+
+  /**
+   * Waits until the event ending at the position is durable. With {@link Durability#TIMED} this
+   * does not wait, as events are only synced by the clock.
+   */
+  @Override
+  void awaitDurable(long position) {
+    if (durability != Durability.PER_BATCH) {
+      return;
+    }
+    lock.lock();
+    try {
+      while (durablePosition < position && failure == null) {
+        progress.await();
+      }
+      if (durablePosition < position) {
+        throw new RuntimeException(failure);
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new RuntimeException(e);
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /**
+   * Waits until everything appended so far has been handed to the file system.
+   */
+  private void awaitWritten() {
+    lock.lock();
+    try {
+      while (writtenPosition < appendedPosition && failure == null) {
+        progress.await();
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new RuntimeException(e);
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  private void flushLoop() {
+    var lastSync = System.nanoTime();
+    while (true) {
+      long batchEnd;
+      boolean stop;
+      lock.lock();
+      try {
+        while (pending.position() == 0 && !closed) {
+          if (durability == Durability.TIMED && durablePosition < writtenPosition) {
+            var wait = syncIntervalNanos - (System.nanoTime() - lastSync);
+            if (wait <= 0) {
+              break;
+            }
+            pendingData.awaitNanos(wait);
+          } else {
+            pendingData.await();
+          }
+        }
+        var swap = pending;
+        pending = flushing;
+        flushing = swap;
+        batchEnd = appendedPosition;
+        stop = closed;
+      } catch (InterruptedException e) {
+        return;
+      } finally {
+        lock.unlock();
+      }
+      var now = System.nanoTime();
+      var sync = durability == Durability.PER_BATCH || stop || now - lastSync >= syncIntervalNanos;
+      try {
+        flushing.flip();
+        sync |= writeSegment(flushing, sync, batchEnd);
+        flushing.clear();
+      } catch (IOException e) {
+        LOGGER.error("Journal write failed", e);
+        publish(batchEnd, false, e);
+        return;
+      }
+      if (sync) {
+        lastSync = now;
+      }
+      publish(batchEnd, sync, null);
+      if (stop) {
+        return;
+      }
+    }
+  }
+
+  /**
+   * Writes the records, syncs them if asked, and starts a new segment if the current one is full.
+   * Returns whether the records were synced.
+   */
+  private boolean writeSegment(ByteBuffer records, boolean sync, long end) throws IOException {
+    ioLock.lock();
+    try {
+      while (records.hasRemaining()) {
+        segment.write(records);
+      }
+      if (end - segmentBase >= segmentSize) {
+        segment.force(false);
+        segment.close();
+        openSegment(end);
+        return true;
+      }
+      if (sync) {
+        segment.force(false);
+      }
+      return sync;
+    } finally {
+      ioLock.unlock();
+    }
+  }
+
+  private void publish(long batchEnd, boolean synced, IOException error) {
+    lock.lock();
+    try {
+      if (error != null) {
+        failure = error;
+      } else {
+        writtenPosition = batchEnd;
+        if (synced) {
+          durablePosition = batchEnd;
+        }
+      }
+      progress.signalAll();
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /**
+   * Read the next domain event.
+   *
+   * @return the domain event, or null at the end of the journal
+   */
+  @Override
+  DomainEvent readNext() {
+    try {
+      var record = nextRecord();
+      if (record == null) {
+        closeReader();
+        return null;
+      }
+      var domainEvent = EventCodec.decode(record);
+      domainEvent.setRealTime(false);
+      return domainEvent;
+    } catch (IOException e) {
+      throw new RuntimeException(e);
+    }
+  }
+
+  /**
+   * Returns the payload of the next valid record, or null at the end of the journal.
+   */
+  private ByteBuffer nextRecord() throws IOException {
+    if (reader == null && !openReader()) {
+      return null;
+    }
+    if (!fill(HEADER_SIZE)) {
+      if (readBuffer.hasRemaining() || !nextSegment() || !fill(HEADER_SIZE)) {
+        return null;
+      }
+    }
+    var start = readBuffer.position();
+    var length = readBuffer.getInt(start);
+    final var checksum = readBuffer.getInt(start + 4);
+    if (length <= 0 || length > MAX_RECORD_SIZE || !fill(HEADER_SIZE + length)) {
+      return null;
+    }
+    start = readBuffer.position();
+    readCrc.reset();
+    readCrc.update(readBuffer.array(), start + HEADER_SIZE, length);
+    if ((int) readCrc.getValue() != checksum) {
+      LOGGER.warn("Checksum mismatch at journal position {}", readPosition);
+      return null;
+    }
+    readBuffer.position(start + HEADER_SIZE + length);
+    readPosition += HEADER_SIZE + length;
+    return ByteBuffer.wrap(readBuffer.array(), start + HEADER_SIZE, length);
+  }
+
+  private boolean openReader() throws IOException {
+    awaitWritten();
+    var bases = segmentBases();
+    var index = Arrays.binarySearch(bases, readPosition);
+    if (index < 0) {
+      index = -index - 2;
+    }
+    if (index < 0) {
+      return false;
+    }
+    reader = FileChannel.open(segmentFile(bases[index]).toPath(), StandardOpenOption.READ);
+    reader.position(readPosition - bases[index]);
+    readBuffer = ByteBuffer.allocate(BUFFER_SIZE).flip();
+    return true;
+  }
+
+  /**
+   * Moves on to the segment starting at the read position, if there is one.
+   */
+  private boolean nextSegment() throws IOException {
+    var next = segmentFile(readPosition);
+    if (!next.exists()) {
+      return false;
+    }
+    reader.close();
+    reader = FileChannel.open(next.toPath(), StandardOpenOption.READ);
+    readBuffer.clear().flip();
+    return true;
+  }
+
+  /**
+   * Reads until at least the given number of bytes are buffered. Returns false at the end of the
+   * segment.
+   */
+  private boolean fill(int bytes) throws IOException {
+    if (readBuffer.remaining() >= bytes) {
+      return true;
+    }
+    if (readBuffer.capacity() < bytes) {
+      readBuffer = ByteBuffer.allocate(bytes).put(readBuffer).flip();
+    }
+    readBuffer.compact();
+    while (readBuffer.position() < bytes && reader.read(readBuffer) >= 0) {
+      // Keeps reading until enough bytes arrive or the segment ends.
+    }
+    readBuffer.flip();
+    return readBuffer.remaining() >= bytes;
+  }
+
+  private void closeReader() throws IOException {
+    if (reader != null) {
+      reader.close();
+      reader = null;
+      readBuffer = null;
+    }
+  }
+
+  @Override
+  long endPosition() {
+    lock.lock();
+    try {
+      return appendedPosition;
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  @Override
+  void seek(long position) {
+    try {
+      closeReader();
+    } catch (IOException e) {
+      throw new RuntimeException(e);
+    }
+    readPosition = position;
+  }
+
+  /**
+   * Deletes every segment and starts over with an empty journal.
+   */
+  @Override
+  void reset() {
+    lock.lock();
+    try {
+      checkUsable();
+      while (writtenPosition < appendedPosition && failure == null) {
+        progress.await();
+      }
+      ioLock.lock();
+      try {
+        seek(0);
+        segment.close();
+        for (var base : segmentBases()) {
+          Files.delete(segmentFile(base).toPath());
+        }
+        openSegment(0);
+        appendedPosition = 0;
+        writtenPosition = 0;
+        durablePosition = 0;
+        LOGGER.info("Journal cleared successfully............");
+      } finally {
+        ioLock.unlock();
+      }
+    } catch (IOException e) {
+      throw new RuntimeException(e);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new RuntimeException(e);
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /**
+   * Writes and syncs everything appended so far, then closes the journal.
+   */
+  @Override
+  public void close() {
+    lock.lock();
+    try {
+      if (closed) {
+        return;
+      }
+      closed = true;
+      pendingData.signal();
+    } finally {
+      lock.unlock();
+    }
+    try {
+      if (flusher != null) {
+        flusher.join();
+      }
+      ioLock.lock();
+      try {
+        segment.force(false);
+        segment.close();
+      } finally {
+        ioLock.unlock();
+      }
+      closeReader();
+    } catch (IOException e) {
+      throw new RuntimeException(e);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new RuntimeException(e);
+    }
+  }
+}
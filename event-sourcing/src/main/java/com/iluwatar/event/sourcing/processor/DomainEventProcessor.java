@@ -25,19 +25,50 @@
 package com.iluwatar.event.sourcing.processor;
 
 import com.iluwatar.event.sourcing.event.DomainEvent;
+import com.iluwatar.event.sourcing.state.AccountAggregate;
+import lombok.extern.slf4j.Slf4j;
 
 /**
  * This is the implementation of event processor. All events are processed by this class. This
  * processor uses eventJournal to persist and recover events.
  *
+ * <p>With a {@link SnapshotStore} the processor also snapshots the {@link AccountAggregate} every
+ * {@code snapshotInterval} events. Recovery then loads the latest snapshot and replays only the
+ * events journaled after it.
+ *
+ * <p>Events may be processed from several threads. Each one is applied and appended to the
+ * journal in turn, but the wait for it to become durable happens outside the processor's lock, so
+ * a journal doing group commit can sync the events of all waiting callers at once.
+ *
  * <p>Created by Serdar Hamzaogullari on 06.08.2017.
  */
+@Slf4j
 public class DomainEventProcessor {
 
   private final EventJournal eventJournal;
+  private final SnapshotStore snapshotStore;
+  private final int snapshotInterval;
+  private int eventsSinceSnapshot;
 
   public DomainEventProcessor(EventJournal eventJournal) {
+    this(eventJournal, null, 0);
+  }
+
+  /**
+   * Instantiates a processor that takes snapshots.
+   *
+   * @param eventJournal     the event journal
+   * @param snapshotStore    where snapshots are kept
+   * @param snapshotInterval number of events between snapshots
+   */
+  public DomainEventProcessor(EventJournal eventJournal, SnapshotStore snapshotStore,
+      int snapshotInterval) {
+    if (snapshotStore != null && snapshotInterval < 1) {
+      throw new IllegalArgumentException("snapshotInterval must be positive: " + snapshotInterval);
+    }
     this.eventJournal = eventJournal;
+    this.snapshotStore = snapshotStore;
+    this.snapshotInterval = snapshotInterval;
   }
 
   /**
@@ -46,24 +77,54 @@ public class DomainEventProcessor {
    * @param domainEvent the domain event
    */
   public void process(DomainEvent domainEvent) {
-    domainEvent.process();
-    eventJournal.write(domainEvent);
+    long position;
+    synchronized (this) {
+      domainEvent.process();
+      position = eventJournal.append(domainEvent);
+      eventsSinceSnapshot++;
+      snapshotIfDue();
+    }
+    eventJournal.awaitDurable(position);
   }
 
   /**
    * Reset.
    */
-  public void reset() {
+  public synchronized void reset() {
     eventJournal.reset();
+    if (snapshotStore != null) {
+      snapshotStore.delete();
+    }
+    eventsSinceSnapshot = 0;
   }
 
   /**
    * Recover.
    */
-  public void recover() {
+  public synchronized void recover() {
+    if (snapshotStore != null) {
+      snapshotStore.read().ifPresent(snapshot -> {
+        if (snapshot.journalPosition() > eventJournal.endPosition()) {
+          LOGGER.warn("Snapshot is ahead of the journal, replaying the whole journal");
+          return;
+        }
+        AccountAggregate.resetState();
+        snapshot.accounts().forEach(AccountAggregate::putAccount);
+        eventJournal.seek(snapshot.journalPosition());
+      });
+    }
     DomainEvent domainEvent;
     while ((domainEvent = eventJournal.readNext()) != null) {
       domainEvent.process();
+      eventsSinceSnapshot++;
+    }
+    snapshotIfDue();
+  }
+
+  private void snapshotIfDue() {
+    if (snapshotStore != null && eventsSinceSnapshot >= snapshotInterval) {
+      snapshotStore.write(eventJournal.endPosition(), AccountAggregate.getAccounts());
+      eventsSinceSnapshot = 0;
     }
   }
 }
@@ -0,0 +1,123 @@
+/*
+ * This project is licensed under the MIT license. Module model-view-viewmodel is using ZK framework licensed under LGPL (see lgpl-3.0.txt).
+ *
+ * The MIT License
+ * Copyright © 2014-2022 Ilkka Seppälä
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.iluwatar.event.sourcing.processor;
+
+import com.iluwatar.event.sourcing.event.AccountCreateEvent;
+import com.iluwatar.event.sourcing.event.DomainEvent;
+import com.iluwatar.event.sourcing.event.MoneyDepositEvent;
+import com.iluwatar.event.sourcing.event.MoneyTransferEvent;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Compact binary encoding of the domain events: a type byte, the sequence id and created time,
+ * then the fields of the event. Strings are UTF-8 with an int length; amounts are the scale and
+ * the unscaled two's-complement bytes of the {@link BigDecimal}.
+ */
+final class EventCodec {
+
+  private static final byte ACCOUNT_CREATE = 1;
+  private static final byte MONEY_DEPOSIT = 2;
+  private static final byte MONEY_TRANSFER = 3;
+
+  private EventCodec() {
+  }
+
+  /**
+   * Encodes the event at the buffer's position.
+   *
+   * @throws java.nio.BufferOverflowException if the buffer is too small
+   */
+  static void encode(DomainEvent event, ByteBuffer buffer) {
+    if (event instanceof AccountCreateEvent create) {
+      header(buffer, ACCOUNT_CREATE, event);
+      buffer.putInt(create.getAccountNo());
+      var owner = create.getOwner().getBytes(StandardCharsets.UTF_8);
+      buffer.putInt(owner.length);
+      buffer.put(owner);
+    } else if (event instanceof MoneyDepositEvent deposit) {
+      header(buffer, MONEY_DEPOSIT, event);
+      buffer.putInt(deposit.getAccountNo());
+      putMoney(buffer, deposit.getMoney());
+    } else if (event instanceof MoneyTransferEvent transfer) {
+      header(buffer, MONEY_TRANSFER, event);
+      buffer.putInt(transfer.getAccountNoFrom());
+      buffer.putInt(transfer.getAccountNoTo());
+      putMoney(buffer, transfer.getMoney());
+    } else {
+      throw new IllegalArgumentException("Unsupported event " + event.getEventClassName());
+    }
+  }
+
+  private static void header(ByteBuffer buffer, byte type, DomainEvent event) {
+    buffer.put(type);
+    buffer.putLong(event.getSequenceId());
+    buffer.putLong(event.getCreatedTime());
+  }
+
+  private static void putMoney(ByteBuffer buffer, BigDecimal money) {
+    var unscaled = money.unscaledValue().toByteArray();
+    buffer.putInt(money.scale());
+    buffer.putShort((short) unscaled.length);
+    buffer.put(unscaled);
+  }
+
+  private static BigDecimal getMoney(ByteBuffer buffer) {
+    var scale = buffer.getInt();
+    var unscaled = new byte[Short.toUnsignedInt(buffer.getShort())];
+    buffer.get(unscaled);
+    return new BigDecimal(new BigInteger(unscaled), scale);
+  }
+
+  /**
+   * Decodes one event from the remaining bytes of the buffer.
+   */
+  static DomainEvent decode(ByteBuffer buffer) {
+    var type = buffer.get();
+    var sequenceId = buffer.getLong();
+    var createdTime = buffer.getLong();
+    return switch (type) {
+      case ACCOUNT_CREATE -> {
+        var accountNo = buffer.getInt();
+        var owner = new byte[buffer.getInt()];
+        buffer.get(owner);
+        yield new AccountCreateEvent(sequenceId, createdTime, accountNo,
+            new String(owner, StandardCharsets.UTF_8));
+      }
+      case MONEY_DEPOSIT -> {
+        var accountNo = buffer.getInt();
+        yield new MoneyDepositEvent(sequenceId, createdTime, accountNo, getMoney(buffer));
+      }
+      case MONEY_TRANSFER -> {
+        var from = buffer.getInt();
+        var to = buffer.getInt();
+        yield new MoneyTransferEvent(sequenceId, createdTime, getMoney(buffer), from, to);
+      }
+      default -> throw new RuntimeException("Journal Event not recognized");
+    };
+  }
+}
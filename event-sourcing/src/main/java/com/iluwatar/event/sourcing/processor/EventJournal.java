@@ -43,6 +43,27 @@ public abstract class EventJournal {
    */
   abstract void write(DomainEvent domainEvent);
 
+  /**
+   * Appends the event without waiting for it to become durable. Journals that share one disk
+   * sync among concurrent writers override this together with {@link #awaitDurable(long)}; the
+   * default simply writes.
+   *
+   * @param domainEvent the domain event.
+   * @return the position just after the event, to pass to {@link #awaitDurable(long)}.
+   */
+  long append(DomainEvent domainEvent) {
+    write(domainEvent);
+    return endPosition();
+  }
+
+  /**
+   * Waits until every event up to the position is as durable as the journal promises.
+   *
+   * @param position a position returned by {@link #append(DomainEvent)}.
+   */
+  void awaitDurable(long position) {
+  }
+
   /**
    * Reset.
    */
@@ -58,4 +79,19 @@ public abstract class EventJournal {
    * @return the domain event.
    */
   abstract DomainEvent readNext();
+
+  /**
+   * Returns the position just after the last event in the journal. A snapshot records it so that
+   * recovery can {@link #seek} past the events the snapshot already covers.
+   *
+   * @return the end position.
+   */
+  abstract long endPosition();
+
+  /**
+   * Makes the next {@link #readNext()} start at a position returned by {@link #endPosition()}.
+   *
+   * @param position the position to read from.
+   */
+  abstract void seek(long position);
 }
@@ -24,51 +24,56 @@
  */
 package com.iluwatar.event.sourcing.processor;
 
-import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
-import com.iluwatar.event.sourcing.event.AccountCreateEvent;
+import com.fasterxml.jackson.databind.exc.InvalidTypeIdException;
 import com.iluwatar.event.sourcing.event.DomainEvent;
-import com.iluwatar.event.sourcing.event.MoneyDepositEvent;
-import com.iluwatar.event.sourcing.event.MoneyTransferEvent;
-import java.io.BufferedReader;
 import java.io.BufferedWriter;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileOutputStream;
 import java.io.IOException;
-import java.io.InputStreamReader;
+import java.io.InputStream;
 import java.io.OutputStreamWriter;
 import java.nio.charset.StandardCharsets;
-import java.util.ArrayList;
-import java.util.List;
+import java.util.Arrays;
 
 /**
  * This is the implementation of event journal. This implementation serialize/deserialize the events
  * with JSON and writes/reads them on a Journal.json file at the working directory.
  *
+ * <p>The journal is read as a stream, one line at a time straight out of a byte buffer, so memory
+ * use does not grow with the history and recovery can start at any line boundary.
+ *
  * <p>Created by Serdar Hamzaogullari on 06.08.2017.
  */
 public class JsonFileJournal extends EventJournal {
 
-  private final List<String> events = new ArrayList<>();
-  private int index = 0;
+  // ObjectMapper is thread-safe once configured, and expensive to create.
+  private static final ObjectMapper MAPPER = new ObjectMapper();
+
+  private static final int BUFFER_SIZE = 64 * 1024;
+
+  private InputStream input;
+  private long readPosition = 0;
+  private byte[] buffer;
+  private int bufferStart;
+  private int bufferEnd;
 
   /**
    * Instantiates a new Json file journal.
    */
   public JsonFileJournal() {
-    file = new File("Journal.json");
-    if (file.exists()) {
-      try (var input = new BufferedReader(
-          new InputStreamReader(new FileInputStream(file), StandardCharsets.UTF_8))) {
-        String line;
-        while ((line = input.readLine()) != null) {
-          events.add(line);
-        }
-      } catch (IOException e) {
-        throw new RuntimeException(e);
-      }
-    } else {
+    this(new File("Journal.json"));
+  }
+
+  /**
+   * Instantiates a new Json file journal on the given file.
+   *
+   * @param file the journal file
+   */
+  public JsonFileJournal(File file) {
+    this.file = file;
+    if (!file.exists()) {
       reset();
     }
   }
@@ -81,10 +86,9 @@ public class JsonFileJournal extends EventJournal {
    */
   @Override
   public void write(DomainEvent domainEvent) {
-    var mapper = new ObjectMapper();
     try (var output = new BufferedWriter(
         new OutputStreamWriter(new FileOutputStream(file, true), StandardCharsets.UTF_8))) {
-      var eventString = mapper.writeValueAsString(domainEvent);
+      var eventString = MAPPER.writeValueAsString(domainEvent);
       output.write(eventString + "\r\n");
     } catch (IOException e) {
       throw new RuntimeException(e);
@@ -98,28 +102,123 @@ public class JsonFileJournal extends EventJournal {
    * @return the domain event
    */
   public DomainEvent readNext() {
-    if (index >= events.size()) {
-      return null;
+    try {
+      if (input == null) {
+        if (!file.exists()) {
+          return null;
+        }
+        var stream = new FileInputStream(file);
+        stream.getChannel().position(readPosition);
+        input = stream;
+        buffer = new byte[BUFFER_SIZE];
+        bufferStart = 0;
+        bufferEnd = 0;
+      }
+      DomainEvent domainEvent;
+      do {
+        domainEvent = parseNextLine();
+      } while (domainEvent == null && input != null);
+      if (domainEvent != null) {
+        domainEvent.setRealTime(false);
+      }
+      return domainEvent;
+    } catch (IOException e) {
+      throw new RuntimeException(e);
     }
-    var event = events.get(index);
-    index++;
+  }
 
-    var mapper = new ObjectMapper();
-    DomainEvent domainEvent;
+  /**
+   * Parses the next line. Returns null for a blank line, or at the end of the file after closing
+   * the input.
+   */
+  private DomainEvent parseNextLine() throws IOException {
+    var newline = indexOfNewline(bufferStart);
+    while (newline < 0) {
+      if (!fill()) {
+        if (bufferStart == bufferEnd) {
+          closeInput();
+          return null;
+        }
+        // The last line has no line break.
+        newline = bufferEnd;
+        break;
+      }
+      newline = indexOfNewline(bufferStart);
+    }
+    var start = bufferStart;
+    var end = newline;
+    bufferStart = Math.min(newline + 1, bufferEnd);
+    readPosition += bufferStart - start;
+    if (end > start && buffer[end - 1] == '\r') {
+      end--;
+    }
+    if (end == start) {
+      return null;
+    }
     try {
-      var jsonElement = mapper.readTree(event);
-      var eventClassName = jsonElement.get("eventClassName").asText();
-      domainEvent = switch (eventClassName) {
-        case "AccountCreateEvent" -> mapper.treeToValue(jsonElement, AccountCreateEvent.class);
-        case "MoneyDepositEvent" -> mapper.treeToValue(jsonElement, MoneyDepositEvent.class);
-        case "MoneyTransferEvent" -> mapper.treeToValue(jsonElement, MoneyTransferEvent.class);
-        default -> throw new RuntimeException("Journal Event not recognized");
-      };
-    } catch (JsonProcessingException jsonProcessingException) {
+      return MAPPER.readValue(buffer, start, end - start, DomainEvent.class);
+    } catch (InvalidTypeIdException e) {
+      throw new RuntimeException("Journal Event not recognized");
+    } catch (IOException e) {
       throw new RuntimeException("Failed to convert JSON");
     }
+  }
+
+  private int indexOfNewline(int from) {
+    for (var i = from; i < bufferEnd; i++) {
+      if (buffer[i] == '\n') {
+        return i;
+      }
+    }
+    return -1;
+  }
+
+  /**
+   * Moves the unread bytes to the front of the buffer, growing it for lines longer than the buffer,
+   * and reads more. Returns false at the end of the file.
+   */
+  private boolean fill() throws IOException {
+    var unread = bufferEnd - bufferStart;
+    if (unread == buffer.length) {
+      buffer = Arrays.copyOf(buffer, buffer.length * 2);
+    }
+    System.arraycopy(buffer, bufferStart, buffer, 0, unread);
+    bufferStart = 0;
+    bufferEnd = unread;
+    var read = input.read(buffer, bufferEnd, buffer.length - bufferEnd);
+    if (read < 0) {
+      return false;
+    }
+    bufferEnd += read;
+    return true;
+  }
+
+  private void closeInput() throws IOException {
+    if (input != null) {
+      input.close();
+      input = null;
+      buffer = null;
+    }
+  }
 
-    domainEvent.setRealTime(false);
-    return domainEvent;
+  @Override
+  long endPosition() {
+    return file.length();
+  }
+
+  @Override
+  void seek(long position) {
+    try {
+      closeInput();
+    } catch (IOException e) {
+      throw new RuntimeException(e);
+    }
+    readPosition = position;
+  }
+
+  @Override
+  void reset() {
+    seek(0);
+    super.reset();
   }
 }
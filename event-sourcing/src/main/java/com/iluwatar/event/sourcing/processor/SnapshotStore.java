@@ -0,0 +1,198 @@
+/*
+ * This project is licensed under the MIT license. Module model-view-viewmodel is using ZK framework licensed under LGPL (see lgpl-3.0.txt).
+ *
+ * The MIT License
+ * Copyright © 2014-2022 Ilkka Seppälä
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.iluwatar.event.sourcing.processor;
+
+import com.iluwatar.event.sourcing.domain.Account;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedOutputStream;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Stores snapshots of the account state in a compact binary file, together with the journal
+ * position the snapshot covers.
+ *
+ * <p>Layout: magic, journal position, account count, then per account its number, owner and money
+ * (scale and unscaled bytes), followed by a CRC32 of everything before it. A snapshot is written
+ * to a temporary file, synced and then renamed over the previous one, so a crash leaves either
+ * the old or the new snapshot; a damaged file is reported and ignored.
+ */
+@Slf4j
+public class SnapshotStore {
+
+  private static final int MAGIC = 0x45534e31;
+
+  // Magic, journal position and account count.
+  private static final int HEADER_SIZE = Integer.BYTES + Long.BYTES + Integer.BYTES;
+
+  // Number, empty owner, scale and a single byte of money.
+  private static final int MIN_ACCOUNT_SIZE = Integer.BYTES + Short.BYTES + Integer.BYTES
+      + Short.BYTES + 1;
+
+  private static final long MAX_SIZE = Integer.MAX_VALUE - 8;
+
+  private final File file;
+
+  /**
+   * A snapshot: the accounts, and the journal position just after the last event they include.
+   *
+   * @param journalPosition journal position to resume replay from
+   * @param accounts        the accounts
+   */
+  public record Snapshot(long journalPosition, List<Account> accounts) {
+  }
+
+  /**
+   * Instantiates a snapshot store writing a Snapshot.bin file at the working directory.
+   */
+  public SnapshotStore() {
+    this(new File("Snapshot.bin"));
+  }
+
+  public SnapshotStore(File file) {
+    this.file = file;
+  }
+
+  /**
+   * Writes a snapshot, replacing the previous one.
+   *
+   * @param journalPosition journal position just after the last event the accounts include
+   * @param accounts        the accounts
+   */
+  public void write(long journalPosition, Collection<Account> accounts) {
+    var temp = new File(file.getPath() + ".tmp");
+    var crc = new CRC32();
+    try (var fileOutput = new FileOutputStream(temp)) {
+      var output = new DataOutputStream(
+          new CheckedOutputStream(new BufferedOutputStream(fileOutput), crc));
+      output.writeInt(MAGIC);
+      output.writeLong(journalPosition);
+      output.writeInt(accounts.size());
+      for (var account : accounts) {
+        output.writeInt(account.getAccountNo());
+        output.writeUTF(account.getOwner());
+        var money = account.getMoney();
+        output.writeInt(money.scale());
+        var unscaled = money.unscaledValue().toByteArray();
+        output.writeShort(unscaled.length);
+        output.write(unscaled);
+      }
+      output.flush();
+      var checksum = crc.getValue();
+      output.writeInt((int) checksum);
+      output.flush();
+      fileOutput.getFD().sync();
+    } catch (IOException e) {
+      throw new RuntimeException(e);
+    }
+    try {
+      Files.move(temp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING,
+          StandardCopyOption.ATOMIC_MOVE);
+    } catch (IOException e) {
+      throw new RuntimeException(e);
+    }
+  }
+
+  /**
+   * Reads the latest snapshot.
+   *
+   * @return the snapshot, or empty if there is none or it is damaged
+   */
+  public Optional<Snapshot> read() {
+    if (!file.exists()) {
+      return Optional.empty();
+    }
+    byte[] bytes;
+    try {
+      if (file.length() > MAX_SIZE) {
+        LOGGER.warn("Snapshot {} is too large, ignoring it", file);
+        return Optional.empty();
+      }
+      bytes = Files.readAllBytes(file.toPath());
+    } catch (IOException e) {
+      LOGGER.warn("Snapshot " + file + " could not be read, ignoring it", e);
+      return Optional.empty();
+    }
+    // The checksum is checked before anything is parsed, so no damaged count or length can steer
+    // the parsing.
+    var body = bytes.length - Integer.BYTES;
+    var crc = new CRC32();
+    crc.update(bytes, 0, Math.max(0, body));
+    if (body < HEADER_SIZE || ByteBuffer.wrap(bytes, body, Integer.BYTES).getInt()
+        != (int) crc.getValue()) {
+      LOGGER.warn("Snapshot {} is damaged, ignoring it", file);
+      return Optional.empty();
+    }
+    try (var input = new DataInputStream(new ByteArrayInputStream(bytes, 0, body))) {
+      if (input.readInt() != MAGIC) {
+        LOGGER.warn("{} is not a snapshot, ignoring it", file);
+        return Optional.empty();
+      }
+      var journalPosition = input.readLong();
+      var count = input.readInt();
+      if (count < 0 || count > (body - HEADER_SIZE) / MIN_ACCOUNT_SIZE) {
+        LOGGER.warn("Snapshot {} is damaged, ignoring it", file);
+        return Optional.empty();
+      }
+      var accounts = new ArrayList<Account>(count);
+      for (var i = 0; i < count; i++) {
+        var account = new Account(input.readInt(), input.readUTF());
+        var scale = input.readInt();
+        var unscaled = new byte[input.readUnsignedShort()];
+        input.readFully(unscaled);
+        account.setMoney(new BigDecimal(new BigInteger(unscaled), scale));
+        accounts.add(account);
+      }
+      return Optional.of(new Snapshot(journalPosition, accounts));
+    } catch (IOException | RuntimeException e) {
+      LOGGER.warn("Snapshot " + file + " is damaged, ignoring it", e);
+      return Optional.empty();
+    }
+  }
+
+  /**
+   * Deletes the snapshot.
+   */
+  public void delete() {
+    if (file.delete()) {
+      LOGGER.info("Snapshot cleared successfully............");
+    }
+  }
+}
@@ -25,6 +25,7 @@
 package com.iluwatar.event.sourcing.state;
 
 import com.iluwatar.event.sourcing.domain.Account;
+import java.util.Collection;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.Optional;
@@ -63,6 +64,15 @@ public class AccountAggregate {
         .orElse(null);
   }
 
+  /**
+   * Gets all accounts.
+   *
+   * @return copies of all accounts
+   */
+  public static Collection<Account> getAccounts() {
+    return accounts.values().stream().map(Account::copy).toList();
+  }
+
   /**
    * Reset state.
    */
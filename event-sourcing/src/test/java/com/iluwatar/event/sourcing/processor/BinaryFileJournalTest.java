@@ -0,0 +1,260 @@
+/*
+ * This project is licensed under the MIT license. Module model-view-viewmodel is using ZK framework licensed under LGPL (see lgpl-3.0.txt).
+ *
+ * The MIT License
+ * Copyright © 2014-2022 Ilkka Seppälä
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.iluwatar.event.sourcing.processor;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.iluwatar.event.sourcing.event.AccountCreateEvent;
+import com.iluwatar.event.sourcing.event.MoneyDepositEvent;
+import com.iluwatar.event.sourcing.event.MoneyTransferEvent;
+import com.iluwatar.event.sourcing.processor.BinaryFileJournal.Durability;
+import com.iluwatar.event.sourcing.state.AccountAggregate;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+
+/**
+ * Tests the segmented {@link BinaryFileJournal}.
+ */
+class BinaryFileJournalTest {
+
+  @TempDir
+  File dir;
+
+  @BeforeEach
+  void setUp() {
+    AccountAggregate.resetState();
+  }
+
+  @AfterEach
+  void tearDown() {
+    AccountAggregate.resetState();
+  }
+
+  private BinaryFileJournal open(Durability durability, long segmentSize) {
+    return new BinaryFileJournal(dir, durability, segmentSize, 5, TimeUnit.MILLISECONDS);
+  }
+
+  private static int countEvents(BinaryFileJournal journal) {
+    var count = 0;
+    while (journal.readNext() != null) {
+      count++;
+    }
+    return count;
+  }
+
+  private static File lastSegment(File dir) {
+    var segments = Objects.requireNonNull(dir.listFiles());
+    var last = segments[0];
+    for (var segment : segments) {
+      if (segment.getName().compareTo(last.getName()) > 0) {
+        last = segment;
+      }
+    }
+    return last;
+  }
+
+  @ParameterizedTest
+  @EnumSource(Durability.class)
+  void eventsSurviveReopening(Durability durability) {
+    try (var journal = open(durability, BinaryFileJournal.DEFAULT_SEGMENT_SIZE)) {
+      journal.write(new AccountCreateEvent(0, 11, 1, "Daenerys Targaryen"));
+      journal.write(new MoneyDepositEvent(1, 12, 1, new BigDecimal("-12345678901234567.125")));
+      journal.write(new MoneyTransferEvent(2, 13, new BigDecimal("10.5"), 1, 2));
+    }
+
+    try (var journal = open(durability, BinaryFileJournal.DEFAULT_SEGMENT_SIZE)) {
+      var created = (AccountCreateEvent) journal.readNext();
+      var deposit = (MoneyDepositEvent) journal.readNext();
+      var transfer = (MoneyTransferEvent) journal.readNext();
+
+      assertEquals("Daenerys Targaryen", created.getOwner());
+      assertEquals(11, created.getCreatedTime());
+      assertEquals(new BigDecimal("-12345678901234567.125"), deposit.getMoney());
+      assertEquals(1, deposit.getSequenceId());
+      assertEquals(2, transfer.getAccountNoTo());
+      assertEquals(new BigDecimal("10.5"), transfer.getMoney());
+      assertFalse(transfer.isRealTime());
+      assertNull(journal.readNext());
+    }
+  }
+
+  @ParameterizedTest
+  @EnumSource(Durability.class)
+  void rejectedEventsLeaveNoTrace(Durability durability) {
+    long end;
+    try (var journal = open(durability, BinaryFileJournal.DEFAULT_SEGMENT_SIZE)) {
+      journal.write(new MoneyDepositEvent(0, 0, 1, BigDecimal.ONE));
+      assertThrows(NullPointerException.class,
+          () -> journal.write(new AccountCreateEvent(1, 0, 2, null)));
+      var tooLarge = new AccountCreateEvent(1, 0, 2, "x".repeat(2 * 1024 * 1024));
+      assertThrows(IllegalArgumentException.class, () -> journal.write(tooLarge));
+      journal.write(new MoneyDepositEvent(1, 0, 1, BigDecimal.ONE));
+      end = journal.endPosition();
+      assertEquals(2, countEvents(journal));
+    }
+
+    assertEquals(end, lastSegment(dir).length());
+    try (var journal = open(durability, BinaryFileJournal.DEFAULT_SEGMENT_SIZE)) {
+      assertEquals(end, journal.endPosition());
+      assertEquals(2, countEvents(journal));
+    }
+  }
+
+  @Test
+  void segmentsRollAndSeekFindsThePosition() {
+    var positions = new ArrayList<Long>();
+    try (var journal = open(Durability.PER_EVENT, 256)) {
+      for (var i = 0; i < 100; i++) {
+        var position = journal.append(new MoneyDepositEvent(i, 0, 1, BigDecimal.ONE));
+        positions.add(position);
+      }
+    }
+    assertTrue(Objects.requireNonNull(dir.list()).length > 10);
+
+    try (var journal = open(Durability.PER_EVENT, 256)) {
+      assertEquals(100, countEvents(journal));
+      assertEquals(positions.get(99), journal.endPosition());
+
+      journal.seek(positions.get(49));
+      assertEquals(50, ((MoneyDepositEvent) journal.readNext()).getSequenceId());
+      assertEquals(49, countEvents(journal));
+    }
+  }
+
+  @Test
+  void tornTailIsCutOffOnOpen() throws IOException {
+    long end;
+    try (var journal = open(Durability.PER_EVENT, BinaryFileJournal.DEFAULT_SEGMENT_SIZE)) {
+      for (var i = 0; i < 10; i++) {
+        journal.write(new MoneyDepositEvent(i, 0, 1, BigDecimal.ONE));
+      }
+      end = journal.endPosition();
+    }
+    try (var segment = new RandomAccessFile(lastSegment(dir), "rw")) {
+      segment.seek(segment.length());
+      segment.writeInt(40);
+      segment.writeInt(0);
+      segment.write(new byte[7]);
+    }
+
+    try (var journal = open(Durability.PER_EVENT, BinaryFileJournal.DEFAULT_SEGMENT_SIZE)) {
+      assertEquals(end, journal.endPosition());
+      assertEquals(end, lastSegment(dir).length());
+      journal.write(new MoneyDepositEvent(10, 0, 1, BigDecimal.ONE));
+      assertEquals(11, countEvents(journal));
+    }
+  }
+
+  @Test
+  void readingStopsAtACorruptRecord() throws IOException {
+    try (var journal = open(Durability.PER_EVENT, BinaryFileJournal.DEFAULT_SEGMENT_SIZE)) {
+      for (var i = 0; i < 10; i++) {
+        journal.write(new MoneyDepositEvent(i, 0, 1, BigDecimal.ONE));
+      }
+      try (var segment = new RandomAccessFile(lastSegment(dir), "rw")) {
+        segment.seek(segment.length() / 2);
+        segment.write(0x7f);
+      }
+
+      assertTrue(countEvents(journal) < 10);
+    }
+  }
+
+  @Test
+  void concurrentProcessorsShareTheJournal() throws InterruptedException {
+    var threads = 8;
+    var eventsPerThread = 500;
+    try (var journal = open(Durability.PER_BATCH, 4096)) {
+      var processor = new DomainEventProcessor(journal);
+      processor.process(new AccountCreateEvent(0, 0, 1, "Daenerys Targaryen"));
+      var sequence = new AtomicLong(1);
+      var workers = new ArrayList<Thread>();
+      for (var t = 0; t < threads; t++) {
+        var worker = new Thread(() -> {
+          for (var i = 0; i < eventsPerThread; i++) {
+            processor.process(
+                new MoneyDepositEvent(sequence.getAndIncrement(), 0, 1, BigDecimal.ONE));
+          }
+        });
+        workers.add(worker);
+        worker.start();
+      }
+      for (var worker : workers) {
+        worker.join();
+      }
+    }
+
+    AccountAggregate.resetState();
+    try (var journal = open(Durability.PER_BATCH, 4096)) {
+      new DomainEventProcessor(journal).recover();
+    }
+    assertEquals(new BigDecimal(threads * eventsPerThread),
+        AccountAggregate.getAccount(1).getMoney());
+  }
+
+  @Test
+  void timedAppendsOutrunningTheFlusherAreKept() {
+    var events = 20_000;
+    try (var journal = open(Durability.TIMED, BinaryFileJournal.DEFAULT_SEGMENT_SIZE)) {
+      for (var i = 0; i < events; i++) {
+        journal.append(new AccountCreateEvent(i, 0, i, "Owner " + "x".repeat(i % 200)));
+      }
+    }
+
+    try (var journal = open(Durability.TIMED, BinaryFileJournal.DEFAULT_SEGMENT_SIZE)) {
+      assertEquals(events, countEvents(journal));
+    }
+  }
+
+  @Test
+  void resetEmptiesTheJournal() {
+    try (var journal = open(Durability.TIMED, 256)) {
+      for (var i = 0; i < 50; i++) {
+        journal.append(new MoneyDepositEvent(i, 0, 1, BigDecimal.ONE));
+      }
+      journal.reset();
+
+      assertEquals(0, journal.endPosition());
+      assertEquals(0, countEvents(journal));
+      assertEquals(1, Objects.requireNonNull(dir.list()).length);
+    }
+  }
+}
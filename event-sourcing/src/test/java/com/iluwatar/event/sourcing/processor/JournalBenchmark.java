@@ -0,0 +1,133 @@
+/*
+ * This project is licensed under the MIT license. Module model-view-viewmodel is using ZK framework licensed under LGPL (see lgpl-3.0.txt).
+ *
+ * The MIT License
+ * Copyright © 2014-2022 Ilkka Seppälä
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.iluwatar.event.sourcing.processor;
+
+import com.iluwatar.event.sourcing.event.AccountCreateEvent;
+import com.iluwatar.event.sourcing.event.DomainEvent;
+import com.iluwatar.event.sourcing.event.MoneyDepositEvent;
+import com.iluwatar.event.sourcing.processor.BinaryFileJournal.Durability;
+import com.iluwatar.event.sourcing.state.AccountAggregate;
+import java.io.File;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * JMH benchmark: events per second through {@link DomainEventProcessor#process(DomainEvent)} with
+ * the {@link JsonFileJournal} and the {@link BinaryFileJournal} in each {@link Durability} mode.
+ * Every call returns once its event is as durable as the journal promises; the JSON journal never
+ * syncs, so it is only as durable as {@link Durability#TIMED} with an unbounded interval.
+ *
+ * <p>Run {@link #main(String[])} from the test classpath. Group commit only pays off when several
+ * callers wait on the disk at once, so the benchmark runs with 1, 4 and 16 threads.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 3, time = 2)
+@Fork(1)
+public class JournalBenchmark {
+
+  private static final int ACCOUNTS = 100;
+
+  @Param({"json", "PER_EVENT", "PER_BATCH", "TIMED"})
+  public String journal;
+
+  private File dir;
+
+  private EventJournal eventJournal;
+
+  private DomainEventProcessor processor;
+
+  private final AtomicLong sequence = new AtomicLong();
+
+  @Setup(Level.Trial)
+  public void setUp() throws IOException {
+    dir = Files.createTempDirectory("journal-benchmark").toFile();
+    eventJournal = "json".equals(journal)
+        ? new JsonFileJournal(new File(dir, "Journal.json"))
+        : new BinaryFileJournal(new File(dir, "segments"), Durability.valueOf(journal));
+    AccountAggregate.resetState();
+    processor = new DomainEventProcessor(eventJournal);
+    for (var i = 0; i < ACCOUNTS; i++) {
+      process(new AccountCreateEvent(sequence.getAndIncrement(), 0, i, "Owner " + i));
+    }
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() throws IOException {
+    if (eventJournal instanceof BinaryFileJournal binary) {
+      binary.close();
+    }
+    AccountAggregate.resetState();
+    try (Stream<Path> files = Files.walk(dir.toPath())) {
+      files.sorted(Comparator.reverseOrder()).map(Path::toFile)
+          .forEach(File::delete);
+    }
+  }
+
+  private void process(DomainEvent event) {
+    event.setRealTime(false);
+    processor.process(event);
+  }
+
+  @Benchmark
+  public void deposit() {
+    var account = ThreadLocalRandom.current().nextInt(ACCOUNTS);
+    process(new MoneyDepositEvent(sequence.getAndIncrement(), 0, account, BigDecimal.ONE));
+  }
+
+  public static void main(String[] args) throws RunnerException {
+    for (var threads : new int[] {1, 4, 16}) {
+      new Runner(new OptionsBuilder()
+          .include(JournalBenchmark.class.getSimpleName())
+          .threads(threads)
+          .build()).run();
+    }
+  }
+}
@@ -0,0 +1,159 @@
+/*
+ * This project is licensed under the MIT license. Module model-view-viewmodel is using ZK framework licensed under LGPL (see lgpl-3.0.txt).
+ *
+ * The MIT License
+ * Copyright © 2014-2022 Ilkka Seppälä
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.iluwatar.event.sourcing.processor;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.iluwatar.event.sourcing.event.AccountCreateEvent;
+import com.iluwatar.event.sourcing.event.DomainEvent;
+import com.iluwatar.event.sourcing.event.MoneyDepositEvent;
+import com.iluwatar.event.sourcing.event.MoneyTransferEvent;
+import com.iluwatar.event.sourcing.state.AccountAggregate;
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * JMH startup benchmark: the time {@link DomainEventProcessor#recover()} takes to rebuild
+ * {@value #ACCOUNTS} accounts from a journal of 1M or 10M events, either by replaying the whole
+ * journal or from the latest snapshot. Snapshots are taken every {@value #SNAPSHOT_INTERVAL}
+ * events, and the journal ends half an interval after the last one, so the snapshot run replays
+ * {@value #SNAPSHOT_INTERVAL} / 2 events.
+ *
+ * <p>Run {@link #main(String[])} from the test classpath. The journals are generated in a
+ * temporary directory; the 10M one takes about 1.5 GB.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 3)
+@Fork(value = 1, jvmArgs = "-Xmx2g")
+public class RecoveryBenchmark {
+
+  private static final int ACCOUNTS = 1000;
+
+  private static final int SNAPSHOT_INTERVAL = 100_000;
+
+  @Param({"1000000", "10000000"})
+  public int events;
+
+  @Param({"replay", "snapshot"})
+  public String recovery;
+
+  private File dir;
+
+  private File journal;
+
+  private SnapshotStore snapshotStore;
+
+  @Setup
+  public void setUp() throws IOException {
+    dir = Files.createTempDirectory("recovery-benchmark").toFile();
+    journal = new File(dir, "Journal.json");
+    snapshotStore = new SnapshotStore(new File(dir, "Snapshot.bin"));
+    generate();
+  }
+
+  /**
+   * Writes the journal in the format of {@link JsonFileJournal} through one stream, since opening
+   * the file per event would dominate the setup, and snapshots the state along the way.
+   */
+  private void generate() throws IOException {
+    AccountAggregate.resetState();
+    var mapper = new ObjectMapper();
+    var random = new Random(42);
+    long position = 0;
+    try (var output = new BufferedOutputStream(new FileOutputStream(journal), 1 << 16)) {
+      for (var i = 0; i < events; i++) {
+        DomainEvent event;
+        if (i < ACCOUNTS) {
+          event = new AccountCreateEvent(i, i, i, "Owner " + i);
+        } else if (i < 2 * ACCOUNTS) {
+          event = new MoneyDepositEvent(i, i, i - ACCOUNTS, new BigDecimal("1000000"));
+        } else if (i % 2 == 0) {
+          event = new MoneyDepositEvent(i, i, random.nextInt(ACCOUNTS), BigDecimal.TEN);
+        } else {
+          event = new MoneyTransferEvent(i, i, BigDecimal.ONE, random.nextInt(ACCOUNTS),
+              random.nextInt(ACCOUNTS));
+        }
+        event.setRealTime(false);
+        event.process();
+        var line = mapper.writeValueAsBytes(event);
+        output.write(line);
+        output.write('\r');
+        output.write('\n');
+        position += line.length + 2;
+        if ((i + 1) % SNAPSHOT_INTERVAL == SNAPSHOT_INTERVAL / 2) {
+          output.flush();
+          snapshotStore.write(position, AccountAggregate.getAccounts());
+        }
+      }
+    }
+    AccountAggregate.resetState();
+  }
+
+  @TearDown
+  public void tearDown() {
+    journal.delete();
+    snapshotStore.delete();
+    dir.delete();
+  }
+
+  @Benchmark
+  public int recover() {
+    AccountAggregate.resetState();
+    var processor = "snapshot".equals(recovery)
+        ? new DomainEventProcessor(new JsonFileJournal(journal), snapshotStore, Integer.MAX_VALUE)
+        : new DomainEventProcessor(new JsonFileJournal(journal));
+    processor.recover();
+    return AccountAggregate.getAccounts().size();
+  }
+
+  public static void main(String[] args) throws RunnerException {
+    new Runner(new OptionsBuilder()
+        .include(RecoveryBenchmark.class.getSimpleName())
+        .build()).run();
+  }
+}
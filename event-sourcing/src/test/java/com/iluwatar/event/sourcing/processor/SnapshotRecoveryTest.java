@@ -0,0 +1,186 @@
+/*
+ * This project is licensed under the MIT license. Module model-view-viewmodel is using ZK framework licensed under LGPL (see lgpl-3.0.txt).
+ *
+ * The MIT License
+ * Copyright © 2014-2022 Ilkka Seppälä
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.iluwatar.event.sourcing.processor;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.iluwatar.event.sourcing.domain.Account;
+import com.iluwatar.event.sourcing.event.AccountCreateEvent;
+import com.iluwatar.event.sourcing.event.DomainEvent;
+import com.iluwatar.event.sourcing.event.MoneyDepositEvent;
+import com.iluwatar.event.sourcing.event.MoneyTransferEvent;
+import com.iluwatar.event.sourcing.state.AccountAggregate;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.List;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * Tests recovery from snapshots and the streaming {@link JsonFileJournal}.
+ */
+class SnapshotRecoveryTest {
+
+  @TempDir
+  File dir;
+
+  private File journalFile;
+
+  private SnapshotStore snapshotStore;
+
+  /**
+   * Counts the events replayed during recovery.
+   */
+  private static class CountingJournal extends JsonFileJournal {
+    private int read;
+
+    CountingJournal(File file) {
+      super(file);
+    }
+
+    @Override
+    public DomainEvent readNext() {
+      var event = super.readNext();
+      if (event != null) {
+        read++;
+      }
+      return event;
+    }
+  }
+
+  @BeforeEach
+  void setUp() {
+    AccountAggregate.resetState();
+    journalFile = new File(dir, "Journal.json");
+    snapshotStore = new SnapshotStore(new File(dir, "Snapshot.bin"));
+  }
+
+  @AfterEach
+  void tearDown() {
+    AccountAggregate.resetState();
+  }
+
+  private void processSampleEvents(int snapshotInterval) {
+    var processor = new DomainEventProcessor(new JsonFileJournal(journalFile), snapshotStore,
+        snapshotInterval);
+    processor.process(new AccountCreateEvent(0, 0, 1, "Daenerys Targaryen"));
+    processor.process(new AccountCreateEvent(1, 0, 2, "Jon Snow"));
+    processor.process(new MoneyDepositEvent(2, 0, 1, new BigDecimal("100000")));
+    processor.process(new MoneyDepositEvent(3, 0, 2, new BigDecimal("100.25")));
+    processor.process(new MoneyTransferEvent(4, 0, new BigDecimal("10000"), 1, 2));
+  }
+
+  private CountingJournal recover() {
+    AccountAggregate.resetState();
+    var journal = new CountingJournal(journalFile);
+    new DomainEventProcessor(journal, snapshotStore, 1000).recover();
+    return journal;
+  }
+
+  @Test
+  void recoveryReplaysOnlyTheTail() {
+    processSampleEvents(3);
+
+    var journal = recover();
+
+    assertEquals(2, journal.read);
+    assertEquals(new BigDecimal("90000"), AccountAggregate.getAccount(1).getMoney());
+    assertEquals(new BigDecimal("10100.25"), AccountAggregate.getAccount(2).getMoney());
+  }
+
+  @Test
+  void damagedSnapshotFallsBackToFullReplay() throws IOException {
+    processSampleEvents(3);
+    try (var snapshot = new RandomAccessFile(new File(dir, "Snapshot.bin"), "rw")) {
+      snapshot.seek(20);
+      snapshot.write(0x7f);
+    }
+
+    var journal = recover();
+
+    assertEquals(5, journal.read);
+    assertEquals(new BigDecimal("10100.25"), AccountAggregate.getAccount(2).getMoney());
+  }
+
+  @Test
+  void damagedAccountCountIsIgnored() throws IOException {
+    snapshotStore.write(42, List.of(new Account(1, "Daenerys Targaryen")));
+    var file = new File(dir, "Snapshot.bin");
+    for (var count : new int[] {Integer.MAX_VALUE, -1, 2}) {
+      try (var snapshot = new RandomAccessFile(file, "rw")) {
+        // just after the magic and the journal position
+        snapshot.seek(12);
+        snapshot.writeInt(count);
+      }
+      assertTrue(snapshotStore.read().isEmpty(), "count " + count);
+    }
+    try (var snapshot = new RandomAccessFile(file, "rw")) {
+      snapshot.setLength(10);
+    }
+    assertTrue(snapshotStore.read().isEmpty());
+  }
+
+  @Test
+  void snapshotRoundTrip() {
+    var daenerys = new Account(1, "Daenerys Targaryen");
+    daenerys.setMoney(new BigDecimal("-12345678901234567890.125"));
+    var jon = new Account(2, "Jon Snow");
+    snapshotStore.write(42, List.of(daenerys, jon));
+
+    var snapshot = snapshotStore.read().orElseThrow();
+
+    assertEquals(42, snapshot.journalPosition());
+    assertEquals(daenerys.toString(), snapshot.accounts().get(0).toString());
+    assertEquals(jon.toString(), snapshot.accounts().get(1).toString());
+  }
+
+  @Test
+  void journalStreamsLinesAcrossBuffersAndBlankLines() throws IOException {
+    var owner = "x".repeat(100_000);
+    var lines = "\r\n{\"sequenceId\":0,\"createdTime\":0,\"accountNo\":7,\"owner\":\"" + owner
+        + "\",\"eventClassName\":\"AccountCreateEvent\",\"realTime\":true}\r\n\r\n"
+        + "{\"sequenceId\":1,\"createdTime\":0,\"accountNo\":7,\"money\":5,"
+        + "\"eventClassName\":\"MoneyDepositEvent\",\"realTime\":true}";
+    Files.writeString(journalFile.toPath(), lines, StandardCharsets.UTF_8);
+
+    var journal = new JsonFileJournal(journalFile);
+    var created = (AccountCreateEvent) journal.readNext();
+    var deposit = (MoneyDepositEvent) journal.readNext();
+
+    assertEquals(owner, created.getOwner());
+    assertEquals(new BigDecimal("5"), deposit.getMoney());
+    assertTrue(!deposit.isRealTime());
+    assertNull(journal.readNext());
+    assertEquals(journalFile.length(), journal.endPosition());
+  }
+}
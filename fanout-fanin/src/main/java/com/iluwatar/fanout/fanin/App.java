@@ -40,6 +40,10 @@ import lombok.extern.slf4j.Slf4j;
  *
  * <p>This pattern is only really useful if you can “chunk” the workload in a meaningful way for
  * splitting up to be processed in parallel.
+ *
+ * <p>{@link FanOutFanIn} starts a thread per request. {@link FanOutFanInEngine} bounds the number
+ * of requests running at a time, can run them on virtual threads, times them out and can cancel
+ * the fan-out on the first failure.
  */
 @Slf4j
 public class App {
@@ -33,6 +33,9 @@ import java.util.concurrent.Executors;
  * FanOutFanIn class processes long-running requests, when any of the processes gets over, result is
  * passed over to the consumer or the callback function. Consumer will aggregate the results as they
  * keep on completing.
+ *
+ * <p>It starts a thread per request, so it only suits a handful of requests; see {@link
+ * FanOutFanInEngine} for many.
  */
 public class FanOutFanIn {
 
@@ -56,6 +59,7 @@ public class FanOutFanIn {
             .toList();
 
     CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).join();
+    service.shutdown();
 
     return consumer.getSumOfSquaredNumbers().get();
   }
@@ -0,0 +1,238 @@
+/*
+ * This project is licensed under the MIT license. Module model-view-viewmodel is using ZK framework licensed under LGPL (see lgpl-3.0.txt).
+ *
+ * The MIT License
+ * Copyright © 2014-2022 Ilkka Seppälä
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.iluwatar.fanout.fanin;
+
+import java.time.Duration;
+import java.util.Set;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicReference;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * FanOutFanInEngine fans requests out like {@link FanOutFanIn}, but at most {@code
+ * maxConcurrency} of them run at a time, whatever the number of requests. Requests are taken from
+ * the {@link Iterable} only as earlier ones finish, so they can be generated on the fly, and each
+ * result goes to the {@link Consumer} as soon as its request completes.
+ *
+ * <p>Requests run on a fixed pool of {@code maxConcurrency} platform threads, or, if asked for and
+ * the JDK has them (21 and later), on a virtual thread each. A request running longer than the
+ * request timeout is interrupted and counts as failed with a {@link TimeoutException}. On the first
+ * failure the engine either cancels all running requests, starts no more and throws, or logs the
+ * failure and carries on without the result of the failed request.
+ *
+ * <p>The engine can be used for any number of fan-outs, one at a time, and must be closed.
+ */
+@Slf4j
+public class FanOutFanInEngine implements AutoCloseable {
+
+  private final int maxConcurrency;
+  private final Duration requestTimeout;
+  private final boolean cancelOnFailure;
+  private final ExecutorService executor;
+  private final ScheduledThreadPoolExecutor timer;
+  /**
+   * Whether the requests run on virtual threads, false on a JDK without them.
+   */
+  @Getter
+  private final boolean virtual;
+
+  /**
+   * Creates an engine on platform threads, without a request timeout, cancelling on failure.
+   * @param maxConcurrency most requests running at a time.
+   */
+  public FanOutFanInEngine(int maxConcurrency) {
+    this(maxConcurrency, false, null, true);
+  }
+
+  /**
+   * Creates an engine.
+   * @param maxConcurrency most requests running at a time.
+   * @param virtualThreads whether to run requests on virtual threads when the JDK has them.
+   * @param requestTimeout how long a request may run, null for no limit.
+   * @param cancelOnFailure whether the first failed request cancels the whole fan-out.
+   */
+  public FanOutFanInEngine(int maxConcurrency, boolean virtualThreads, Duration requestTimeout,
+      boolean cancelOnFailure) {
+    if (maxConcurrency < 1) {
+      throw new IllegalArgumentException("maxConcurrency must be positive");
+    }
+    this.maxConcurrency = maxConcurrency;
+    this.requestTimeout = requestTimeout;
+    this.cancelOnFailure = cancelOnFailure;
+    ExecutorService service = null;
+    if (virtualThreads) {
+      try {
+        // looked up reflectively as the project compiles for a JDK without virtual threads
+        service = (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor")
+            .invoke(null);
+      } catch (ReflectiveOperationException e) {
+        LOGGER.info("Virtual threads are not available, using a fixed thread pool");
+      }
+    }
+    this.virtual = service != null;
+    this.executor = service != null ? service : Executors.newFixedThreadPool(maxConcurrency);
+    this.timer = new ScheduledThreadPoolExecutor(1);
+    // timeouts of requests that finish in time are cancelled, don't keep them queued
+    this.timer.setRemoveOnCancelPolicy(true);
+  }
+
+  /**
+   * Squares all requests and sums the squares up in the consumer.
+   * @param requests numbers that need to be squared and summed up, read as they are needed.
+   * @param consumer takes in the square of every request that completes.
+   * @return aggregated sum of all squared numbers.
+   * @throws CompletionException holding the first failure, if cancelling on failure.
+   * @throws InterruptedException if interrupted, the running requests are then cancelled.
+   */
+  public Long fanOutFanIn(final Iterable<SquareNumberRequest> requests, final Consumer consumer)
+      throws InterruptedException {
+    var fanOut = new FanOut(consumer);
+    try {
+      // fanning out, as fast as requests complete
+      for (var request : requests) {
+        fanOut.permits.acquire();
+        if (fanOut.failure.get() != null) {
+          fanOut.permits.release();
+          break;
+        }
+        fanOut.start(request);
+      }
+      // fanning in: all permits are back once every request is done
+      fanOut.permits.acquire(maxConcurrency);
+      fanOut.permits.release(maxConcurrency);
+    } catch (InterruptedException e) {
+      fanOut.cancelAll();
+      throw e;
+    }
+    var failure = fanOut.failure.get();
+    if (failure != null) {
+      throw new CompletionException(failure);
+    }
+    return consumer.getSumOfSquaredNumbers().get();
+  }
+
+  /**
+   * Stops the threads of the engine, interrupting requests still running.
+   */
+  @Override
+  public void close() {
+    executor.shutdownNow();
+    timer.shutdownNow();
+  }
+
+  /**
+   * The state of one call of fanOutFanIn.
+   */
+  private class FanOut {
+    private final Consumer consumer;
+    private final Semaphore permits = new Semaphore(maxConcurrency);
+    private final Set<RequestTask> running = ConcurrentHashMap.newKeySet();
+    private final AtomicReference<Throwable> failure = new AtomicReference<>();
+
+    FanOut(Consumer consumer) {
+      this.consumer = consumer;
+    }
+
+    void start(SquareNumberRequest request) {
+      var task = new RequestTask(this, request);
+      running.add(task);
+      if (requestTimeout != null) {
+        task.timeout = timer.schedule(task::timeOut, requestTimeout.toNanos(),
+            TimeUnit.NANOSECONDS);
+      }
+      executor.execute(task);
+      if (failure.get() != null) {
+        // failed while starting, missed by cancelAll
+        task.cancel(true);
+      }
+    }
+
+    void fail(Throwable cause) {
+      if (!cancelOnFailure) {
+        LOGGER.warn("Request failed, its result is left out", cause);
+      } else if (failure.compareAndSet(null, cause)) {
+        cancelAll();
+      }
+    }
+
+    void cancelAll() {
+      running.forEach(task -> task.cancel(true));
+    }
+  }
+
+  /**
+   * A running request. It hands its result to the consumer once done, unless cancelled, so a
+   * result is either delivered or the request reported as failed, never both.
+   */
+  private static class RequestTask extends FutureTask<Long> {
+    private final FanOut fanOut;
+    private volatile boolean timedOut;
+    private volatile Future<?> timeout;
+
+    RequestTask(FanOut fanOut, SquareNumberRequest request) {
+      super(request::square);
+      this.fanOut = fanOut;
+    }
+
+    void timeOut() {
+      timedOut = true;
+      cancel(true);
+    }
+
+    @Override
+    protected void done() {
+      var pending = timeout;
+      if (pending != null) {
+        pending.cancel(false);
+      }
+      try {
+        if (!isCancelled()) {
+          fanOut.consumer.add(get());
+        } else if (timedOut) {
+          fanOut.fail(new TimeoutException("request timed out"));
+        }
+      } catch (ExecutionException e) {
+        fanOut.fail(e.getCause());
+      } catch (InterruptedException e) {
+        // cannot happen, get() of a done task does not wait
+        Thread.currentThread().interrupt();
+      } finally {
+        fanOut.running.remove(this);
+        fanOut.permits.release();
+      }
+    }
+  }
+}
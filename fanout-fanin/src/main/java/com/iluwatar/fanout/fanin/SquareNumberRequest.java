@@ -25,7 +25,6 @@
 package com.iluwatar.fanout.fanin;
 
 import java.security.SecureRandom;
-import lombok.AllArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 
 /**
@@ -33,10 +32,33 @@ import lombok.extern.slf4j.Slf4j;
  * at different times.
  */
 @Slf4j
-@AllArgsConstructor
 public class SquareNumberRequest {
 
+  private static final SecureRandom RANDOM = new SecureRandom();
+
   private final Long number;
+  private final long minTimeOut;
+  private final int randomTimeOut;
+
+  /**
+   * Creates a request taking 5-7s.
+   * @param number the number to square.
+   */
+  public SquareNumberRequest(Long number) {
+    this(number, 5000L, 2000);
+  }
+
+  /**
+   * Creates a request taking between minTimeOut and minTimeOut + randomTimeOut milliseconds.
+   * @param number the number to square.
+   * @param minTimeOut least time the request takes, in milliseconds.
+   * @param randomTimeOut bound of the random time added, in milliseconds, 0 for none.
+   */
+  public SquareNumberRequest(Long number, long minTimeOut, int randomTimeOut) {
+    this.number = number;
+    this.minTimeOut = minTimeOut;
+    this.randomTimeOut = randomTimeOut;
+  }
 
   /**
    * Squares the number with a little timeout to give impression of long-running process that return
@@ -44,15 +66,9 @@ public class SquareNumberRequest {
    * @param consumer callback class that takes the result after the delay.
    * */
   public void delayedSquaring(final Consumer consumer) {
-
-    var minTimeOut = 5000L;
-
-    SecureRandom secureRandom = new SecureRandom();
-    var randomTimeOut = secureRandom.nextInt(2000);
-
     try {
-      // this will make the thread sleep from 5-7s.
-      Thread.sleep(minTimeOut + randomTimeOut);
+      // this will make the thread sleep from 5-7s by default.
+      Thread.sleep(timeOut());
     } catch (InterruptedException e) {
       LOGGER.error("Exception while sleep ", e);
       Thread.currentThread().interrupt();
@@ -60,4 +76,20 @@ public class SquareNumberRequest {
       consumer.add(number * number);
     }
   }
+
+  /**
+   * Squares the number after the same delay as {@link #delayedSquaring(Consumer)}, but returns the
+   * square instead of handing it to a consumer, so the caller decides what to do with it.
+   * @return the square of the number.
+   * @throws InterruptedException if interrupted while waiting, the square is then never computed.
+   * @throws ArithmeticException if the square overflows a long.
+   */
+  public Long square() throws InterruptedException {
+    Thread.sleep(timeOut());
+    return Math.multiplyExact(number, number);
+  }
+
+  private long timeOut() {
+    return randomTimeOut > 0 ? minTimeOut + RANDOM.nextInt(randomTimeOut) : minTimeOut;
+  }
 }
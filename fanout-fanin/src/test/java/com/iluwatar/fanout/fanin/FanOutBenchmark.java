@@ -0,0 +1,127 @@
+/*
+ * This project is licensed under the MIT license. Module model-view-viewmodel is using ZK framework licensed under LGPL (see lgpl-3.0.txt).
+ *
+ * The MIT License
+ * Copyright © 2014-2022 Ilkka Seppälä
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.iluwatar.fanout.fanin;
+
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.LongStream;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * JMH benchmark: time to fan out 1k, 100k and 1M {@link SquareNumberRequest}s of 10 ms each and
+ * sum their squares. {@code threadPerRequest} is {@link FanOutFanIn}; it needs a thread per
+ * request, so {@link #main(String[])} runs it for 1k requests only. {@code platform} runs a
+ * {@link FanOutFanInEngine} on 1000 platform threads, {@code virtual} one allowing 10000 requests
+ * at a time on virtual threads, or on platform threads on a JDK without them.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 1)
+@Measurement(iterations = 3)
+@Fork(value = 1, jvmArgs = "-Xmx2g")
+public class FanOutBenchmark {
+
+  private static final long TIME_OUT = 10;
+
+  @Param({"1000", "100000", "1000000"})
+  public int requests;
+
+  private FanOutFanInEngine platform;
+
+  private FanOutFanInEngine virtual;
+
+  @Setup
+  public void setUp() {
+    platform = new FanOutFanInEngine(1000, false, null, true);
+    virtual = new FanOutFanInEngine(10_000, true, null, true);
+  }
+
+  @TearDown
+  public void tearDown() {
+    platform.close();
+    virtual.close();
+  }
+
+  // generated as they are needed, the engine never holds them all
+  private Iterable<SquareNumberRequest> generated() {
+    return () -> new Iterator<>() {
+      private long next = 1;
+
+      @Override
+      public boolean hasNext() {
+        return next <= requests;
+      }
+
+      @Override
+      public SquareNumberRequest next() {
+        return new SquareNumberRequest(next++, TIME_OUT, 0);
+      }
+    };
+  }
+
+  @Benchmark
+  public Long threadPerRequest() {
+    List<SquareNumberRequest> list = LongStream.rangeClosed(1, requests)
+        .mapToObj(n -> new SquareNumberRequest(n, TIME_OUT, 0))
+        .toList();
+    return FanOutFanIn.fanOutFanIn(list, new Consumer(0L));
+  }
+
+  @Benchmark
+  public Long platform() throws InterruptedException {
+    return platform.fanOutFanIn(generated(), new Consumer(0L));
+  }
+
+  @Benchmark
+  public Long virtual() throws InterruptedException {
+    return virtual.fanOutFanIn(generated(), new Consumer(0L));
+  }
+
+  public static void main(String[] args) throws RunnerException {
+    new Runner(new OptionsBuilder()
+        .include(FanOutBenchmark.class.getSimpleName() + ".threadPerRequest")
+        .param("requests", "1000")
+        .build()).run();
+    new Runner(new OptionsBuilder()
+        .include(FanOutBenchmark.class.getSimpleName() + ".(platform|virtual)")
+        .build()).run();
+  }
+}
@@ -0,0 +1,110 @@
+/*
+ * This project is licensed under the MIT license. Module model-view-viewmodel is using ZK framework licensed under LGPL (see lgpl-3.0.txt).
+ *
+ * The MIT License
+ * Copyright © 2014-2022 Ilkka Seppälä
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.iluwatar.fanout.fanin;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.LongStream;
+import org.junit.jupiter.api.Test;
+
+class FanOutFanInEngineTest {
+
+  private static List<SquareNumberRequest> requests(long count, long minTimeOut) {
+    return LongStream.rangeClosed(1, count)
+        .mapToObj(n -> new SquareNumberRequest(n, minTimeOut, 0))
+        .toList();
+  }
+
+  @Test
+  void sumsAllSquaresWithBoundedConcurrency() throws InterruptedException {
+    var running = new AtomicInteger();
+    var mostRunning = new AtomicInteger();
+    var requests = new ArrayList<SquareNumberRequest>();
+    for (var n = 1L; n <= 500; n++) {
+      requests.add(new SquareNumberRequest(n, 1, 0) {
+        @Override
+        public Long square() throws InterruptedException {
+          mostRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+          try {
+            return super.square();
+          } finally {
+            running.decrementAndGet();
+          }
+        }
+      });
+    }
+    try (var engine = new FanOutFanInEngine(8)) {
+      assertEquals(500L * 501 * 1001 / 6, engine.fanOutFanIn(requests, new Consumer(0L)));
+      // the engine can be used again
+      assertEquals(14, engine.fanOutFanIn(requests(3, 1), new Consumer(0L)));
+    }
+    assertTrue(mostRunning.get() <= 8, "ran " + mostRunning.get() + " at once");
+  }
+
+  @Test
+  void timesOutSlowRequests() {
+    try (var engine = new FanOutFanInEngine(4, true, Duration.ofMillis(50), true)) {
+      var start = System.nanoTime();
+      var e = assertThrows(CompletionException.class,
+          () -> engine.fanOutFanIn(requests(3, 10_000), new Consumer(0L)));
+      assertInstanceOf(TimeoutException.class, e.getCause());
+      assertTrue(System.nanoTime() - start < Duration.ofSeconds(5).toNanos());
+    }
+  }
+
+  @Test
+  void cancelsOnFirstFailure() {
+    var requests = new ArrayList<>(requests(20, 10_000));
+    // its square overflows a long
+    requests.add(0, new SquareNumberRequest(Long.MAX_VALUE, 10, 0));
+    var consumer = new Consumer(0L);
+    try (var engine = new FanOutFanInEngine(32)) {
+      var start = System.nanoTime();
+      var e = assertThrows(CompletionException.class,
+          () -> engine.fanOutFanIn(requests, consumer));
+      assertInstanceOf(ArithmeticException.class, e.getCause());
+      assertTrue(System.nanoTime() - start < Duration.ofSeconds(5).toNanos());
+    }
+    assertEquals(0, consumer.getSumOfSquaredNumbers().get());
+  }
+
+  @Test
+  void leavesOutFailedRequestsWithoutCancelling() throws InterruptedException {
+    var requests = new ArrayList<>(requests(5, 1));
+    requests.add(new SquareNumberRequest(Long.MAX_VALUE, 1, 0));
+    try (var engine = new FanOutFanInEngine(2, false, null, false)) {
+      assertEquals(55, engine.fanOutFanIn(requests, new Consumer(0L)));
+    }
+  }
+}
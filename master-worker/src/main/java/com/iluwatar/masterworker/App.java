@@ -24,6 +24,7 @@
  */
 package com.iluwatar.masterworker;
 
+import com.iluwatar.masterworker.system.ArrayTransposeForkJoinMasterWorker;
 import com.iluwatar.masterworker.system.ArrayTransposeMasterWorker;
 import com.iluwatar.masterworker.system.MasterWorker;
 import com.iluwatar.masterworker.system.systemmaster.ArrayTransposeMaster;
@@ -53,6 +54,10 @@ import lombok.extern.slf4j.Slf4j;
  * data and result data respectively. The Input class also has an abstract method divideData which
  * defines how the data is to be divided into segments. These classes are extended by {@link
  * ArrayInput} and {@link ArrayResult}.</p>
+ * <p>Starting a thread per division of the input, and giving each a fixed share, does not suit
+ * large or many jobs. {@link ArrayTransposeForkJoinMasterWorker} keeps a fork/join pool between
+ * jobs, splits the matrix recursively so idle workers can steal work, and transposes it tile by
+ * tile to stay in cache.</p>
  */
 
 @Slf4j
@@ -39,11 +39,15 @@ public class ArrayInput extends Input<int[][]> {
   }
 
   static int[] makeDivisions(int[][] data, int num) {
-    var initialDivision = data.length / num; //equally dividing
+    return makeDivisions(data.length, num);
+  }
+
+  static int[] makeDivisions(int length, int num) {
+    var initialDivision = length / num; //equally dividing
     var divisions = new int[num];
     Arrays.fill(divisions, initialDivision);
-    if (initialDivision * num != data.length) {
-      var extra = data.length - initialDivision * num;
+    if (initialDivision * num != length) {
+      var extra = length - initialDivision * num;
       var l = 0;
       //equally dividing extra among all parts
       while (extra > 0) {
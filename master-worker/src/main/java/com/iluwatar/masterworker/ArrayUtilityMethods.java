@@ -34,6 +34,12 @@ import lombok.extern.slf4j.Slf4j;
 @Slf4j
 public class ArrayUtilityMethods {
 
+  /**
+   * Side of the square tiles transposeBlock works in. A tile of ints is read from 32 rows and
+   * written to 32 rows, 8 KB in all, which fits the L1 cache.
+   */
+  public static final int TRANSPOSE_TILE = 32;
+
   private static final SecureRandom RANDOM = new SecureRandom();
 
   /**
@@ -97,6 +103,30 @@ public class ArrayUtilityMethods {
     return matrix;
   }
 
+  /**
+   * Method transposeBlock writes the transpose of rows rowFrom to rowTo and columns colFrom to
+   * colTo (upper bounds exclusive) of @param src into @param dst, so that dst[j][i] = src[i][j].
+   * The block is walked in square tiles of TRANSPOSE_TILE cells a side, so the rows being read and
+   * the rows being written both stay in cache while a tile is done, instead of every write going
+   * to a new row of dst.
+   */
+
+  public static void transposeBlock(int[][] src, int[][] dst, int rowFrom, int rowTo,
+      int colFrom, int colTo) {
+    for (var i0 = rowFrom; i0 < rowTo; i0 += TRANSPOSE_TILE) {
+      var iMax = Math.min(i0 + TRANSPOSE_TILE, rowTo);
+      for (var j0 = colFrom; j0 < colTo; j0 += TRANSPOSE_TILE) {
+        var jMax = Math.min(j0 + TRANSPOSE_TILE, colTo);
+        for (var j = j0; j < jMax; j++) {
+          var out = dst[j];
+          for (var i = i0; i < iMax; i++) {
+            out[i] = src[i][j];
+          }
+        }
+      }
+    }
+  }
+
   /**
    * Method printMatrix prints input matrix @param matrix.
    */
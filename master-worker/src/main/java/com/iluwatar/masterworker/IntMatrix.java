@@ -0,0 +1,168 @@
+/*
+ * This project is licensed under the MIT license. Module model-view-viewmodel is using ZK framework licensed under LGPL (see lgpl-3.0.txt).
+ *
+ * The MIT License
+ * Copyright © 2014-2022 Ilkka Seppälä
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.iluwatar.masterworker;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import lombok.Getter;
+
+/**
+ * Class IntMatrix is a matrix of ints stored row after row in one flat buffer, either an int[] on
+ * the heap or a direct buffer outside it. A matrix can be a view of a block of a bigger matrix,
+ * sharing its storage: views are how a matrix is divided among workers, and how workers write
+ * their parts of a result in place, without copying anything.
+ */
+
+public final class IntMatrix {
+
+  private final IntBuffer buffer;
+  private final int offset;
+  private final int stride;
+  @Getter
+  private final int rows;
+  @Getter
+  private final int columns;
+
+  private IntMatrix(IntBuffer buffer, int offset, int stride, int rows, int columns) {
+    this.buffer = buffer;
+    this.offset = offset;
+    this.stride = stride;
+    this.rows = rows;
+    this.columns = columns;
+  }
+
+  /**
+   * Method create makes a zeroed matrix of @param rows and @param columns, off the heap if @param
+   * direct is true.
+   *
+   * @return it (IntMatrix).
+   */
+  public static IntMatrix create(int rows, int columns, boolean direct) {
+    if (rows < 0 || columns < 0) {
+      throw new IllegalArgumentException("rows and columns must not be negative");
+    }
+    var cells = (long) rows * columns;
+    if (direct) {
+      if (cells > Integer.MAX_VALUE / Integer.BYTES) {
+        throw new IllegalArgumentException("matrix too large for a direct buffer: " + cells);
+      }
+      var bytes = ByteBuffer.allocateDirect((int) cells * Integer.BYTES);
+      return new IntMatrix(bytes.order(ByteOrder.nativeOrder()).asIntBuffer(), 0, columns, rows,
+          columns);
+    }
+    if (cells > Integer.MAX_VALUE - 8) {
+      throw new IllegalArgumentException("matrix too large for an array: " + cells);
+    }
+    return new IntMatrix(IntBuffer.wrap(new int[(int) cells]), 0, columns, rows, columns);
+  }
+
+  /**
+   * Method of makes a heap matrix holding a copy of @param data.
+   *
+   * @return it (IntMatrix).
+   */
+  public static IntMatrix of(int[][] data) {
+    var matrix = create(data.length, data.length == 0 ? 0 : data[0].length, false);
+    for (var i = 0; i < matrix.rows; i++) {
+      matrix.buffer.put(i * matrix.stride, data[i], 0, matrix.columns);
+    }
+    return matrix;
+  }
+
+  public boolean isDirect() {
+    return this.buffer.isDirect();
+  }
+
+  public int get(int row, int column) {
+    return this.buffer.get(index(row, column));
+  }
+
+  public void set(int row, int column, int value) {
+    this.buffer.put(index(row, column), value);
+  }
+
+  private int index(int row, int column) {
+    if (row < 0 || row >= this.rows || column < 0 || column >= this.columns) {
+      throw new IndexOutOfBoundsException("(" + row + ", " + column + ") outside " + this.rows
+          + "x" + this.columns);
+    }
+    return this.offset + row * this.stride + column;
+  }
+
+  /**
+   * Method view returns the block of @param numRows rows from @param firstRow and @param
+   * numColumns columns from @param firstColumn. The view shares the storage of this matrix.
+   *
+   * @return it (IntMatrix).
+   */
+  public IntMatrix view(int firstRow, int numRows, int firstColumn, int numColumns) {
+    if (firstRow < 0 || numRows < 0 || firstRow + numRows > this.rows
+        || firstColumn < 0 || numColumns < 0 || firstColumn + numColumns > this.columns) {
+      throw new IndexOutOfBoundsException("block outside " + this.rows + "x" + this.columns);
+    }
+    return new IntMatrix(this.buffer, this.offset + firstRow * this.stride + firstColumn,
+        this.stride, numRows, numColumns);
+  }
+
+  /**
+   * Method transposeInto writes the transpose of this matrix into @param target, which must have
+   * as many rows as this matrix has columns and vice versa. Like {@link
+   * ArrayUtilityMethods#transposeBlock}, it works tile by tile.
+   */
+  public void transposeInto(IntMatrix target) {
+    if (target.rows != this.columns || target.columns != this.rows) {
+      throw new IllegalArgumentException("target must be " + this.columns + "x" + this.rows);
+    }
+    var src = this.buffer;
+    var dst = target.buffer;
+    final var tile = ArrayUtilityMethods.TRANSPOSE_TILE;
+    for (var i0 = 0; i0 < this.rows; i0 += tile) {
+      var iMax = Math.min(i0 + tile, this.rows);
+      for (var j0 = 0; j0 < this.columns; j0 += tile) {
+        var jMax = Math.min(j0 + tile, this.columns);
+        for (var j = j0; j < jMax; j++) {
+          var out = target.offset + j * target.stride;
+          for (var i = i0; i < iMax; i++) {
+            dst.put(out + i, src.get(this.offset + i * this.stride + j));
+          }
+        }
+      }
+    }
+  }
+
+  /**
+   * Method toArray copies the matrix into a new int[][].
+   *
+   * @return it (int[][]).
+   */
+  public int[][] toArray() {
+    var data = new int[this.rows][this.columns];
+    for (var i = 0; i < this.rows; i++) {
+      this.buffer.get(this.offset + i * this.stride, data[i], 0, this.columns);
+    }
+    return data;
+  }
+}
@@ -0,0 +1,70 @@
+/*
+ * This project is licensed under the MIT license. Module model-view-viewmodel is using ZK framework licensed under LGPL (see lgpl-3.0.txt).
+ *
+ * The MIT License
+ * Copyright © 2014-2022 Ilkka Seppälä
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.iluwatar.masterworker;
+
+import java.util.ArrayList;
+import java.util.List;
+import lombok.Getter;
+
+/**
+ * Class MatrixInput extends abstract class {@link Input} and contains data of type {@link
+ * IntMatrix}. Unlike {@link ArrayInput}, dividing it copies nothing: every division is a view of
+ * some rows of the same matrix, and remembers at which row of the whole matrix it starts, so a
+ * worker knows where its part of the result goes.
+ */
+
+public class MatrixInput extends Input<IntMatrix> {
+
+  @Getter
+  private final int firstRow;
+
+  public MatrixInput(IntMatrix data) {
+    this(data, 0);
+  }
+
+  MatrixInput(IntMatrix data, int firstRow) {
+    super(data);
+    this.firstRow = firstRow;
+  }
+
+  @Override
+  public List<Input<IntMatrix>> divideData(int num) {
+    if (this.data == null) {
+      return null;
+    }
+    var divisions = ArrayInput.makeDivisions(this.data.getRows(), num);
+    var result = new ArrayList<Input<IntMatrix>>(num);
+    var rowsDone = 0; //number of rows divided so far
+    for (var rows : divisions) {
+      if (rows == 0) {
+        break; //rest of divisions will also be 0
+      }
+      var view = this.data.view(rowsDone, rows, 0, this.data.getColumns());
+      result.add(new MatrixInput(view, this.firstRow + rowsDone));
+      rowsDone += rows;
+    }
+    return result;
+  }
+}
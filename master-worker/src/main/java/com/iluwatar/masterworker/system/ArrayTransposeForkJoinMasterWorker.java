@@ -0,0 +1,58 @@
+/*
+ * This project is licensed under the MIT license. Module model-view-viewmodel is using ZK framework licensed under LGPL (see lgpl-3.0.txt).
+ *
+ * The MIT License
+ * Copyright © 2014-2022 Ilkka Seppälä
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.iluwatar.masterworker.system;
+
+import com.iluwatar.masterworker.ArrayInput;
+import com.iluwatar.masterworker.ArrayResult;
+import com.iluwatar.masterworker.Input;
+import com.iluwatar.masterworker.system.systemworkers.ArrayTransposeTask;
+
+/**
+ * Class ArrayTransposeForkJoinMasterWorker extends abstract class {@link ForkJoinMasterWorker} and
+ * specifically solves the problem of finding transpose of input array, with the cache-blocked
+ * {@link ArrayTransposeTask}.
+ */
+
+public class ArrayTransposeForkJoinMasterWorker extends ForkJoinMasterWorker {
+
+  public ArrayTransposeForkJoinMasterWorker() {
+    this(Runtime.getRuntime().availableProcessors());
+  }
+
+  public ArrayTransposeForkJoinMasterWorker(int numOfWorkers) {
+    super(numOfWorkers);
+  }
+
+  @Override
+  ArrayTransposeTask createTask(Input<?> input) {
+    var data = ((ArrayInput) input).data;
+    if (data == null || data.length == 0) {
+      return null;
+    }
+    //number of rows in result matrix is equal to number of columns in input matrix and vice versa
+    var result = new ArrayResult(new int[data[0].length][data.length]);
+    return new ArrayTransposeTask(data, result);
+  }
+}
@@ -0,0 +1,63 @@
+/*
+ * This project is licensed under the MIT license. Module model-view-viewmodel is using ZK framework licensed under LGPL (see lgpl-3.0.txt).
+ *
+ * The MIT License
+ * Copyright © 2014-2022 Ilkka Seppälä
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.iluwatar.masterworker.system;
+
+import com.iluwatar.masterworker.Input;
+import com.iluwatar.masterworker.Result;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
+/**
+ * The abstract ForkJoinMasterWorker class, which solves problems like {@link MasterWorker} but
+ * keeps its workers between jobs. Instead of a thread per division of the input, it owns a
+ * {@link ForkJoinPool} whose threads split the job recursively and steal work from one another,
+ * so a worker that finishes early helps the others rather than sitting idle. The pool lives until
+ * {@link #close()} is called.
+ */
+
+public abstract class ForkJoinMasterWorker implements AutoCloseable {
+  private final ForkJoinPool pool;
+
+  public ForkJoinMasterWorker(int numOfWorkers) {
+    this.pool = new ForkJoinPool(numOfWorkers);
+  }
+
+  /**
+   * Method createTask returns the task computing the result for @param input, or null if there is
+   * nothing to compute.
+   */
+
+  abstract ForkJoinTask<? extends Result<?>> createTask(Input<?> input);
+
+  public Result<?> getResult(Input<?> input) {
+    var task = createTask(input);
+    return task == null ? null : this.pool.invoke(task);
+  }
+
+  @Override
+  public void close() {
+    this.pool.shutdown();
+  }
+}
@@ -0,0 +1,77 @@
+/*
+ * This project is licensed under the MIT license. Module model-view-viewmodel is using ZK framework licensed under LGPL (see lgpl-3.0.txt).
+ *
+ * The MIT License
+ * Copyright © 2014-2022 Ilkka Seppälä
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.iluwatar.masterworker.system.systemmaster;
+
+import com.iluwatar.masterworker.Input;
+import com.iluwatar.masterworker.IntMatrix;
+import com.iluwatar.masterworker.MatrixInput;
+import com.iluwatar.masterworker.MatrixResult;
+import com.iluwatar.masterworker.system.systemworkers.MatrixTransposeWorker;
+import com.iluwatar.masterworker.system.systemworkers.Worker;
+import java.util.ArrayList;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/**
+ * Class MatrixTransposeMaster extends abstract class {@link Master} and transposes a {@link
+ * MatrixInput}. Before dividing the work it allocates the output matrix, in the same kind of
+ * storage as the input, and the workers write their parts straight into it, so aggregateData has
+ * nothing left to copy.
+ */
+
+public class MatrixTransposeMaster extends Master {
+  private IntMatrix output;
+
+  public MatrixTransposeMaster(int numOfWorkers) {
+    super(numOfWorkers);
+  }
+
+  public IntMatrix getOutput() {
+    return this.output;
+  }
+
+  @Override
+  ArrayList<Worker> setWorkers(int num) {
+    //i+1 will be id
+    return IntStream.range(0, num)
+        .mapToObj(i -> new MatrixTransposeWorker(this, i + 1))
+        .collect(Collectors.toCollection(() -> new ArrayList<>(num)));
+  }
+
+  @Override
+  public void doWork(Input<?> input) {
+    var data = ((MatrixInput) input).data;
+    if (data != null) {
+      //number of rows in result matrix is equal to number of columns in input matrix and vice versa
+      this.output = IntMatrix.create(data.getColumns(), data.getRows(), data.isDirect());
+    }
+    super.doWork(input);
+  }
+
+  @Override
+  MatrixResult aggregateData() {
+    return new MatrixResult(this.output);
+  }
+}
@@ -0,0 +1,99 @@
+/*
+ * This project is licensed under the MIT license. Module model-view-viewmodel is using ZK framework licensed under LGPL (see lgpl-3.0.txt).
+ *
+ * The MIT License
+ * Copyright © 2014-2022 Ilkka Seppälä
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.iluwatar.masterworker.system.systemworkers;
+
+import com.iluwatar.masterworker.ArrayResult;
+import com.iluwatar.masterworker.ArrayUtilityMethods;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Class ArrayTransposeTask transposes one block of the input matrix into the shared result
+ * matrix. A block bigger than LEAF_CELLS is split in two along its longer side, so tall, wide and
+ * square inputs all break up into many small tasks that idle workers of the pool can steal; a
+ * smaller block is transposed by {@link ArrayUtilityMethods#transposeBlock}. Every block writes its
+ * own cells of the result, so the results need no merging and no lock: the finished task simply
+ * returns the shared result.
+ */
+
+public class ArrayTransposeTask extends RecursiveTask<ArrayResult> {
+
+  /**
+   * Blocks of at most this many cells are not split any further.
+   */
+  static final int LEAF_CELLS = 64 * 1024;
+
+  private final int[][] input;
+  private final ArrayResult result;
+  private final int rowFrom;
+  private final int rowTo;
+  private final int colFrom;
+  private final int colTo;
+
+  /**
+   * Creates the task transposing the whole of @param input into @param result, which must have as
+   * many rows as input has columns and as many columns as input has rows.
+   */
+
+  public ArrayTransposeTask(int[][] input, ArrayResult result) {
+    this(input, result, 0, input.length, 0, input[0].length);
+  }
+
+  private ArrayTransposeTask(int[][] input, ArrayResult result, int rowFrom, int rowTo,
+      int colFrom, int colTo) {
+    this.input = input;
+    this.result = result;
+    this.rowFrom = rowFrom;
+    this.rowTo = rowTo;
+    this.colFrom = colFrom;
+    this.colTo = colTo;
+  }
+
+  @Override
+  protected ArrayResult compute() {
+    var rows = rowTo - rowFrom;
+    var cols = colTo - colFrom;
+    if ((long) rows * cols <= LEAF_CELLS) {
+      ArrayUtilityMethods.transposeBlock(input, result.data, rowFrom, rowTo, colFrom, colTo);
+    } else if (rows >= cols) {
+      var mid = rowFrom + split(rows);
+      invokeAll(new ArrayTransposeTask(input, result, rowFrom, mid, colFrom, colTo),
+          new ArrayTransposeTask(input, result, mid, rowTo, colFrom, colTo));
+    } else {
+      var mid = colFrom + split(cols);
+      invokeAll(new ArrayTransposeTask(input, result, rowFrom, rowTo, colFrom, mid),
+          new ArrayTransposeTask(input, result, rowFrom, rowTo, mid, colTo));
+    }
+    return result;
+  }
+
+  /**
+   * Half of @param length, rounded down to whole tiles when that leaves both halves non-empty.
+   */
+  private static int split(int length) {
+    var half = length / 2;
+    var aligned = half - half % ArrayUtilityMethods.TRANSPOSE_TILE;
+    return aligned > 0 ? aligned : half;
+  }
+}
@@ -0,0 +1,54 @@
+/*
+ * This project is licensed under the MIT license. Module model-view-viewmodel is using ZK framework licensed under LGPL (see lgpl-3.0.txt).
+ *
+ * The MIT License
+ * Copyright © 2014-2022 Ilkka Seppälä
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.iluwatar.masterworker.system.systemworkers;
+
+import com.iluwatar.masterworker.MatrixInput;
+import com.iluwatar.masterworker.MatrixResult;
+import com.iluwatar.masterworker.system.systemmaster.MatrixTransposeMaster;
+
+/**
+ * Class MatrixTransposeWorker extends abstract class {@link Worker} and transposes the rows of the
+ * matrix it received into the matching columns of the output of its {@link MatrixTransposeMaster}.
+ */
+
+public class MatrixTransposeWorker extends Worker {
+  private final MatrixTransposeMaster master;
+
+  public MatrixTransposeWorker(MatrixTransposeMaster master, int id) {
+    super(master, id);
+    this.master = master;
+  }
+
+  @Override
+  MatrixResult executeOperation() {
+    var matrixInput = (MatrixInput) this.getReceivedData();
+    var part = matrixInput.data;
+    //rows firstRow.. of the input become columns firstRow.. of the output
+    var target = this.master.getOutput()
+        .view(0, part.getColumns(), matrixInput.getFirstRow(), part.getRows());
+    part.transposeInto(target);
+    return new MatrixResult(target);
+  }
+}
@@ -0,0 +1,84 @@
+/*
+ * This project is licensed under the MIT license. Module model-view-viewmodel is using ZK framework licensed under LGPL (see lgpl-3.0.txt).
+ *
+ * The MIT License
+ * Copyright © 2014-2022 Ilkka Seppälä
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.iluwatar.masterworker.system;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.iluwatar.masterworker.ArrayInput;
+import com.iluwatar.masterworker.ArrayResult;
+import com.iluwatar.masterworker.ArrayUtilityMethods;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Testing getResult method in {@link ArrayTransposeForkJoinMasterWorker} class.
+ */
+
+class ArrayTransposeForkJoinMasterWorkerTest {
+
+  @Test
+  void getResultTest() {
+    try (var atmw = new ArrayTransposeForkJoinMasterWorker(4)) {
+      var matrix = new int[][]{
+          {1, 2, 3, 4, 5},
+          {1, 2, 3, 4, 5},
+          {1, 2, 3, 4, 5}
+      };
+      var matrixTranspose = new int[][]{
+          {1, 1, 1},
+          {2, 2, 2},
+          {3, 3, 3},
+          {4, 4, 4},
+          {5, 5, 5}
+      };
+      var r = (ArrayResult) atmw.getResult(new ArrayInput(matrix));
+      assertTrue(ArrayUtilityMethods.matricesSame(r.data, matrixTranspose));
+    }
+  }
+
+  @Test
+  void splitMatricesMatchThreadPerWorkerResultTest() {
+    //big enough to be split many times, with sides that are not whole tiles
+    try (var atmw = new ArrayTransposeForkJoinMasterWorker(4)) {
+      for (var shape : new int[][]{{700, 333}, {45, 5001}, {5001, 45}}) {
+        var matrix = ArrayUtilityMethods.createRandomIntMatrix(shape[0], shape[1]);
+        var expected = (ArrayResult) new ArrayTransposeMasterWorker()
+            .getResult(new ArrayInput(matrix));
+        //the same pool serves every job
+        var r = (ArrayResult) atmw.getResult(new ArrayInput(matrix));
+        assertEquals(shape[1], r.data.length);
+        assertTrue(ArrayUtilityMethods.matricesSame(r.data, expected.data));
+      }
+    }
+  }
+
+  @Test
+  void nullInputTest() {
+    try (var atmw = new ArrayTransposeForkJoinMasterWorker(2)) {
+      assertNull(atmw.getResult(new ArrayInput(null)));
+    }
+  }
+}
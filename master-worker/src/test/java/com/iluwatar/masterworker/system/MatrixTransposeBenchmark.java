@@ -0,0 +1,97 @@
+/*
+ * This project is licensed under the MIT license. Module model-view-viewmodel is using ZK framework licensed under LGPL (see lgpl-3.0.txt).
+ *
+ * The MIT License
+ * Copyright © 2014-2022 Ilkka Seppälä
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.iluwatar.masterworker.system;
+
+import com.iluwatar.masterworker.ArrayInput;
+import com.iluwatar.masterworker.IntMatrix;
+import com.iluwatar.masterworker.MatrixInput;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * JMH benchmark: time to transpose an 8k by 8k matrix with four worker threads, from an int[][]
+ * with {@link ArrayTransposeMasterWorker}, and from a flat {@link IntMatrix} on and off the heap
+ * with {@link MatrixTransposeMasterWorker}. {@link #main(String[])} adds the GC profiler, whose
+ * gc.alloc.rate.norm is the heap allocated per transpose.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgs = {"-Xmx3g", "-XX:MaxDirectMemorySize=1g"})
+public class MatrixTransposeBenchmark {
+
+  @Param({"8192"})
+  public int size;
+
+  private ArrayInput arrayInput;
+
+  private MatrixInput heapInput;
+
+  private MatrixInput directInput;
+
+  @Setup
+  public void setUp() {
+    arrayInput = new ArrayInput(new int[size][size]);
+    heapInput = new MatrixInput(IntMatrix.create(size, size, false));
+    directInput = new MatrixInput(IntMatrix.create(size, size, true));
+  }
+
+  @Benchmark
+  public Object arrays() {
+    return new ArrayTransposeMasterWorker().getResult(arrayInput);
+  }
+
+  @Benchmark
+  public Object flatHeap() {
+    return new MatrixTransposeMasterWorker().getResult(heapInput);
+  }
+
+  @Benchmark
+  public Object flatDirect() {
+    return new MatrixTransposeMasterWorker().getResult(directInput);
+  }
+
+  public static void main(String[] args) throws RunnerException {
+    new Runner(new OptionsBuilder()
+        .include(MatrixTransposeBenchmark.class.getSimpleName())
+        .addProfiler("gc")
+        .build()).run();
+  }
+}
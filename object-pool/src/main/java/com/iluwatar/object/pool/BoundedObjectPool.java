@@ -0,0 +1,459 @@
+/*
+ * This project is licensed under the MIT license. Module model-view-viewmodel is using ZK framework licensed under LGPL (see lgpl-3.0.txt).
+ *
+ * The MIT License
+ * Copyright © 2014-2022 Ilkka Seppälä
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.iluwatar.object.pool;
+
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Generic object pool for many threads. Unlike {@link ObjectPool} it takes no lock on the common
+ * path and never holds more than <code>maxSize</code> objects.
+ *
+ * <p>Every pooled object has an entry with an atomic state, idle or in use. Checking out claims an
+ * idle entry with a compare-and-set: first among the entries the calling thread checked in
+ * lately, which are likely idle and still in its CPU cache, then among all entries. When none is
+ * idle a new object is created while the pool is below its maximum size, otherwise the caller
+ * waits for one to be checked in, which hands it over directly to a waiting thread.
+ *
+ * <p>A maintenance thread, started when a maintenance interval is given, destroys objects idle
+ * longer than the idle timeout and logs objects checked out longer than the leak threshold,
+ * together with the stack of the code that checked them out. {@link #getMetrics()} reports the
+ * time spent waiting for objects and the utilization of the pool.
+ *
+ * @param <T> Type T of Object in the Pool
+ */
+@Slf4j
+public abstract class BoundedObjectPool<T> implements AutoCloseable {
+
+  private static final int IDLE = 0;
+  private static final int IN_USE = 1;
+  private static final int REMOVED = -1;
+  private static final int LOCAL_ENTRIES = 8;
+  /**
+   * How long a waiting thread blocks on the hand-over before looking at the entries again, in case
+   * an object was checked in while it was not blocked yet.
+   */
+  private static final long RESCAN_NANOS = TimeUnit.MILLISECONDS.toNanos(10);
+
+  private final int maxSize;
+  private final long idleTimeoutNanos;
+  private final long leakThresholdNanos;
+  private final CopyOnWriteArrayList<Entry<T>> entries = new CopyOnWriteArrayList<>();
+  private final Map<T, Entry<T>> entryOf = new ConcurrentHashMap<>();
+  private final ThreadLocal<ArrayDeque<Entry<T>>> localEntries =
+      ThreadLocal.withInitial(ArrayDeque::new);
+  private final AtomicInteger size = new AtomicInteger();
+  private final AtomicInteger waiters = new AtomicInteger();
+  private final SynchronousQueue<Entry<T>> handOver = new SynchronousQueue<>();
+  private final ScheduledExecutorService maintenance;
+  private volatile boolean closed;
+
+  private final LongAdder borrows = new LongAdder();
+  private final LongAdder waitNanos = new LongAdder();
+  private final AtomicLong maxWaitNanos = new AtomicLong();
+  private final LongAdder creations = new LongAdder();
+  private final LongAdder timeouts = new LongAdder();
+  private final LongAdder evictions = new LongAdder();
+  private final LongAdder invalidations = new LongAdder();
+  private final LongAdder leaks = new LongAdder();
+
+  /**
+   * Creates a pool without idle eviction or leak detection.
+   *
+   * @param maxSize most objects the pool holds.
+   */
+  protected BoundedObjectPool(int maxSize) {
+    this(maxSize, Duration.ZERO, Duration.ZERO, Duration.ZERO);
+  }
+
+  /**
+   * Creates a pool.
+   *
+   * @param maxSize             most objects the pool holds.
+   * @param idleTimeout         idle time after which an object is destroyed, zero to keep it.
+   * @param leakThreshold       time checked out after which an object is reported as leaked,
+   *                            zero to not track leaks.
+   * @param maintenanceInterval how often to look for idle and leaked objects, zero to never.
+   */
+  protected BoundedObjectPool(int maxSize, Duration idleTimeout, Duration leakThreshold,
+                              Duration maintenanceInterval) {
+    if (maxSize < 1) {
+      throw new IllegalArgumentException("Pool size must be positive: " + maxSize);
+    }
+    this.maxSize = maxSize;
+    this.idleTimeoutNanos = idleTimeout.toNanos();
+    this.leakThresholdNanos = leakThreshold.toNanos();
+    if (maintenanceInterval.isZero()) {
+      maintenance = null;
+    } else {
+      maintenance = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        var thread = new Thread(runnable, "object-pool-maintenance");
+        thread.setDaemon(true);
+        return thread;
+      });
+      var period = maintenanceInterval.toNanos();
+      maintenance.scheduleAtFixedRate(this::maintain, period, period, TimeUnit.NANOSECONDS);
+    }
+  }
+
+  protected abstract T create();
+
+  /**
+   * Checks an idle object before it is handed out. Objects failing it are destroyed.
+   *
+   * @param instance the object.
+   * @return true if the object can be used, the default.
+   */
+  protected boolean validate(T instance) {
+    return true;
+  }
+
+  /**
+   * Releases the resources of an object leaving the pool. Does nothing by default.
+   *
+   * @param instance the object.
+   */
+  protected void destroy(T instance) {
+    // nothing to release
+  }
+
+  /**
+   * Checkout object from pool, waiting as long as it takes for one.
+   *
+   * @return the object.
+   * @throws InterruptedException if interrupted while waiting.
+   */
+  public T checkOut() throws InterruptedException {
+    return checkOut(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+  }
+
+  /**
+   * Checkout object from pool, waiting up to <code>timeout</code> when all objects are in use
+   * and the pool is full.
+   *
+   * @param timeout how long to wait.
+   * @param unit    unit of the timeout.
+   * @return the object, or null if none was checked in before the timeout.
+   * @throws InterruptedException if interrupted while waiting.
+   */
+  public T checkOut(long timeout, TimeUnit unit) throws InterruptedException {
+    if (closed) {
+      throw new IllegalStateException("Pool is closed");
+    }
+    var entry = claimIdle();
+    if (entry != null) {
+      // an idle object was at hand, counted as no wait at all
+      borrows.increment();
+      return entry.object;
+    }
+    var start = System.nanoTime();
+    entry = createOrWait(start, unit.toNanos(timeout));
+    recordWait(start);
+    if (entry == null) {
+      timeouts.increment();
+      return null;
+    }
+    return entry.object;
+  }
+
+  /**
+   * Returns an object to the pool.
+   *
+   * @param instance an object checked out from this pool.
+   * @throws IllegalArgumentException if the object is not from this pool.
+   * @throws IllegalStateException    if the object is not checked out.
+   */
+  public void checkIn(T instance) {
+    var entry = entryOf.get(instance);
+    if (entry == null) {
+      throw new IllegalArgumentException("Not from this pool: " + instance);
+    }
+    if (idleTimeoutNanos > 0) {
+      entry.lastReturned = System.nanoTime();
+    }
+    if (leakThresholdNanos > 0) {
+      entry.borrowSite = null;
+    }
+    if (!entry.state.compareAndSet(IN_USE, IDLE)) {
+      throw new IllegalStateException("Not checked out: " + instance);
+    }
+    if (closed) {
+      if (entry.state.compareAndSet(IDLE, REMOVED)) {
+        remove(entry);
+      }
+      return;
+    }
+    var local = localEntries.get();
+    if (local.size() == LOCAL_ENTRIES) {
+      local.removeFirst();
+    }
+    local.addLast(entry);
+    if (waiters.get() > 0) {
+      handOver.offer(entry);
+    }
+  }
+
+  /**
+   * Destroys the idle objects and stops the maintenance thread. Objects still checked out are
+   * destroyed when checked in.
+   */
+  @Override
+  public void close() {
+    closed = true;
+    if (maintenance != null) {
+      maintenance.shutdownNow();
+    }
+    for (var entry : entries) {
+      if (entry.state.compareAndSet(IDLE, REMOVED)) {
+        remove(entry);
+      }
+    }
+  }
+
+  /**
+   * Destroys objects idle longer than the idle timeout and reports objects checked out longer
+   * than the leak threshold. Run periodically by the maintenance thread, if any.
+   */
+  public void maintain() {
+    var now = System.nanoTime();
+    for (var entry : entries) {
+      var state = entry.state.get();
+      if (state == IDLE && idleTimeoutNanos > 0 && now - entry.lastReturned > idleTimeoutNanos
+          && entry.state.compareAndSet(IDLE, REMOVED)) {
+        evictions.increment();
+        remove(entry);
+      } else if (state == IN_USE && leakThresholdNanos > 0 && !entry.leakReported
+          && now - entry.borrowedAt > leakThresholdNanos) {
+        var borrowSite = entry.borrowSite;
+        if (borrowSite != null) {
+          entry.leakReported = true;
+          leaks.increment();
+          LOGGER.warn("{} checked out for {} ms and not checked in", entry.object,
+              TimeUnit.NANOSECONDS.toMillis(now - entry.borrowedAt), borrowSite);
+        }
+      }
+    }
+  }
+
+  /**
+   * Snapshot of the pool metrics.
+   *
+   * @return {@link PoolMetrics}
+   */
+  public PoolMetrics getMetrics() {
+    var inUse = 0;
+    var idle = 0;
+    for (var entry : entries) {
+      var state = entry.state.get();
+      if (state == IN_USE) {
+        inUse++;
+      } else if (state == IDLE) {
+        idle++;
+      }
+    }
+    var borrowCount = borrows.sum();
+    var averageWait = borrowCount == 0 ? 0 : waitNanos.sum() / 1000.0 / borrowCount;
+    return new PoolMetrics(maxSize, inUse, idle, borrowCount, creations.sum(), timeouts.sum(),
+        evictions.sum(), invalidations.sum(), leaks.sum(), averageWait,
+        TimeUnit.NANOSECONDS.toMicros(maxWaitNanos.get()), (double) inUse / maxSize);
+  }
+
+  @Override
+  public String toString() {
+    var metrics = getMetrics();
+    return String.format("Pool available=%d inUse=%d", metrics.idle(), metrics.inUse());
+  }
+
+  /*
+   * Claims an idle entry, recently checked in by this thread first.
+   */
+  private Entry<T> claimIdle() {
+    var local = localEntries.get();
+    Entry<T> entry;
+    while ((entry = local.pollLast()) != null) {
+      if (claim(entry)) {
+        return entry;
+      }
+    }
+    for (var candidate : entries) {
+      if (claim(candidate)) {
+        return candidate;
+      }
+    }
+    return null;
+  }
+
+  private boolean claim(Entry<T> entry) {
+    if (!entry.state.compareAndSet(IDLE, IN_USE)) {
+      return false;
+    }
+    if (!validate(entry.object)) {
+      entry.state.set(REMOVED);
+      invalidations.increment();
+      remove(entry);
+      return false;
+    }
+    trackBorrow(entry);
+    return true;
+  }
+
+  private Entry<T> createOrWait(long start, long timeoutNanos) throws InterruptedException {
+    while (true) {
+      var current = size.get();
+      if (current < maxSize) {
+        if (size.compareAndSet(current, current + 1)) {
+          return createEntry();
+        }
+        continue;
+      }
+      var entry = awaitCheckIn(start, timeoutNanos);
+      if (entry != null || System.nanoTime() - start >= timeoutNanos) {
+        return entry;
+      }
+      // an object was destroyed meanwhile, there may be room to create one
+    }
+  }
+
+  private Entry<T> createEntry() {
+    T object;
+    try {
+      object = create();
+    } catch (RuntimeException e) {
+      size.decrementAndGet();
+      throw e;
+    }
+    creations.increment();
+    var entry = new Entry<>(object);
+    entryOf.put(object, entry);
+    entries.add(entry);
+    trackBorrow(entry);
+    return entry;
+  }
+
+  /*
+   * Remembers when and where the entry was checked out, only needed to detect leaks.
+   */
+  private void trackBorrow(Entry<T> entry) {
+    if (leakThresholdNanos > 0) {
+      entry.borrowedAt = System.nanoTime();
+      entry.leakReported = false;
+      entry.borrowSite = new Throwable("Checked out by " + Thread.currentThread().getName());
+    }
+  }
+
+  private Entry<T> awaitCheckIn(long start, long timeoutNanos) throws InterruptedException {
+    waiters.incrementAndGet();
+    try {
+      while (true) {
+        var entry = claimIdle();
+        if (entry != null) {
+          return entry;
+        }
+        if (size.get() < maxSize) {
+          return null;
+        }
+        var remaining = timeoutNanos - (System.nanoTime() - start);
+        if (remaining <= 0) {
+          return null;
+        }
+        entry = handOver.poll(Math.min(remaining, RESCAN_NANOS), TimeUnit.NANOSECONDS);
+        if (entry != null && claim(entry)) {
+          return entry;
+        }
+      }
+    } finally {
+      waiters.decrementAndGet();
+    }
+  }
+
+  private void remove(Entry<T> entry) {
+    entries.remove(entry);
+    entryOf.remove(entry.object);
+    size.decrementAndGet();
+    try {
+      destroy(entry.object);
+    } catch (RuntimeException e) {
+      LOGGER.error("Error destroying {}", entry.object, e);
+    }
+  }
+
+  private void recordWait(long start) {
+    var waited = System.nanoTime() - start;
+    borrows.increment();
+    waitNanos.add(waited);
+    if (waited > maxWaitNanos.get()) {
+      maxWaitNanos.accumulateAndGet(waited, Math::max);
+    }
+  }
+
+  /**
+   * Snapshot of the pool metrics.
+   *
+   * @param maxSize           most objects the pool holds
+   * @param inUse             objects checked out
+   * @param idle              objects available
+   * @param borrows           check outs, including those that timed out
+   * @param creations         objects created
+   * @param timeouts          check outs that timed out
+   * @param evictions         objects destroyed for being idle too long
+   * @param invalidations     objects destroyed for failing validation
+   * @param leaks             objects reported as leaked
+   * @param averageWaitMicros average time a check out waited, in microseconds; finding an idle
+   *                          object right away counts as no wait
+   * @param maxWaitMicros     longest time a check out waited, in microseconds
+   * @param utilization       share of the maximum size checked out, from 0 to 1
+   */
+  public record PoolMetrics(int maxSize, int inUse, int idle, long borrows, long creations,
+                            long timeouts, long evictions, long invalidations, long leaks,
+                            double averageWaitMicros, long maxWaitMicros, double utilization) {
+  }
+
+  /**
+   * A pooled object and its state.
+   */
+  private static final class Entry<T> {
+    private final T object;
+    private final AtomicInteger state = new AtomicInteger(IN_USE);
+    private volatile long borrowedAt;
+    private volatile long lastReturned;
+    private volatile Throwable borrowSite;
+    private volatile boolean leakReported;
+
+    private Entry(T object) {
+      this.object = object;
+    }
+  }
+}
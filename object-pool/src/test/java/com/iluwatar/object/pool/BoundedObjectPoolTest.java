@@ -0,0 +1,199 @@
+/*
+ * This project is licensed under the MIT license. Module model-view-viewmodel is using ZK framework licensed under LGPL (see lgpl-3.0.txt).
+ *
+ * The MIT License
+ * Copyright © 2014-2022 Ilkka Seppälä
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.iluwatar.object.pool;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.Test;
+
+/**
+ * BoundedObjectPoolTest.
+ */
+class BoundedObjectPoolTest {
+
+  @Test
+  void reusesCheckedInObjects() throws Exception {
+    try (var pool = new CounterPool(2)) {
+      var first = pool.checkOut();
+      pool.checkIn(first);
+      for (var i = 0; i < 100; i++) {
+        var counter = pool.checkOut();
+        assertSame(first, counter);
+        pool.checkIn(counter);
+      }
+      assertEquals(1, pool.getMetrics().creations());
+      assertEquals("Pool available=1 inUse=0", pool.toString());
+    }
+  }
+
+  @Test
+  void neverGrowsBeyondMaxSize() throws Exception {
+    try (var pool = new CounterPool(2)) {
+      var first = pool.checkOut();
+      var second = pool.checkOut();
+      assertNotSame(first, second);
+      assertNull(pool.checkOut(20, TimeUnit.MILLISECONDS));
+      var metrics = pool.getMetrics();
+      assertEquals(2, metrics.creations());
+      assertEquals(1, metrics.timeouts());
+      assertEquals(1.0, metrics.utilization());
+      assertTrue(metrics.maxWaitMicros() >= 20_000);
+    }
+  }
+
+  @Test
+  void waitingThreadGetsTheCheckedInObject() throws Exception {
+    var executor = Executors.newSingleThreadExecutor();
+    try (var pool = new CounterPool(1)) {
+      var held = pool.checkOut();
+      var waiting = executor.submit(() -> pool.checkOut(5, TimeUnit.SECONDS));
+      Thread.sleep(50);
+      pool.checkIn(held);
+      assertSame(held, waiting.get(5, TimeUnit.SECONDS));
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  @Test
+  void invalidObjectsAreReplaced() throws Exception {
+    try (var pool = new CounterPool(1)) {
+      var first = pool.checkOut();
+      first.broken = true;
+      pool.checkIn(first);
+      var second = pool.checkOut();
+      assertNotSame(first, second);
+      assertEquals(1, pool.getMetrics().invalidations());
+      assertEquals(1, pool.destroyed.get());
+    }
+  }
+
+  @Test
+  void idleObjectsAreEvicted() throws Exception {
+    try (var pool = new CounterPool(2, Duration.ofMillis(10), Duration.ZERO)) {
+      pool.checkIn(pool.checkOut());
+      Thread.sleep(30);
+      pool.maintain();
+      assertEquals(1, pool.getMetrics().evictions());
+      assertEquals("Pool available=0 inUse=0", pool.toString());
+    }
+  }
+
+  @Test
+  void leakedObjectsAreReportedOnce() throws Exception {
+    try (var pool = new CounterPool(2, Duration.ZERO, Duration.ofMillis(10))) {
+      var leaked = pool.checkOut();
+      Thread.sleep(30);
+      pool.maintain();
+      pool.maintain();
+      assertEquals(1, pool.getMetrics().leaks());
+      pool.checkIn(leaked);
+    }
+  }
+
+  @Test
+  void rejectsForeignAndDoubleCheckIns() throws Exception {
+    try (var pool = new CounterPool(1)) {
+      assertThrows(IllegalArgumentException.class, () -> pool.checkIn(new Counter()));
+      var counter = pool.checkOut();
+      pool.checkIn(counter);
+      assertThrows(IllegalStateException.class, () -> pool.checkIn(counter));
+    }
+  }
+
+  @Test
+  void concurrentBorrowersShareAtMostMaxSizeObjects() throws Exception {
+    var threads = 8;
+    var executor = Executors.newFixedThreadPool(threads);
+    try (var pool = new CounterPool(3)) {
+      var inUse = new AtomicInteger();
+      var maxInUse = new AtomicInteger();
+      var results = new ArrayList<Future<?>>();
+      for (var t = 0; t < threads; t++) {
+        results.add(executor.submit(() -> {
+          for (var i = 0; i < 5_000; i++) {
+            var counter = pool.checkOut();
+            maxInUse.accumulateAndGet(inUse.incrementAndGet(), Math::max);
+            counter.value++;
+            inUse.decrementAndGet();
+            pool.checkIn(counter);
+          }
+          return null;
+        }));
+      }
+      for (var result : results) {
+        result.get(30, TimeUnit.SECONDS);
+      }
+      assertTrue(maxInUse.get() <= 3);
+      assertTrue(pool.getMetrics().creations() <= 3);
+      assertEquals(threads * 5_000L, pool.getMetrics().borrows());
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  private static class Counter {
+    private int value;
+    private boolean broken;
+  }
+
+  private static class CounterPool extends BoundedObjectPool<Counter> {
+    private final AtomicInteger destroyed = new AtomicInteger();
+
+    CounterPool(int maxSize) {
+      super(maxSize);
+    }
+
+    CounterPool(int maxSize, Duration idleTimeout, Duration leakThreshold) {
+      super(maxSize, idleTimeout, leakThreshold, Duration.ZERO);
+    }
+
+    @Override
+    protected Counter create() {
+      return new Counter();
+    }
+
+    @Override
+    protected boolean validate(Counter instance) {
+      return !instance.broken;
+    }
+
+    @Override
+    protected void destroy(Counter instance) {
+      destroyed.incrementAndGet();
+    }
+  }
+}
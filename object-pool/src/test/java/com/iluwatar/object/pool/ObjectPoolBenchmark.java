@@ -0,0 +1,115 @@
+/*
+ * This project is licensed under the MIT license. Module model-view-viewmodel is using ZK framework licensed under LGPL (see lgpl-3.0.txt).
+ *
+ * The MIT License
+ * Copyright © 2014-2022 Ilkka Seppälä
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.iluwatar.object.pool;
+
+import java.util.ArrayList;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.BenchmarkParams;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * JMH contention benchmark of a check out followed by a check in, comparing {@link
+ * OliphauntPool} with {@link BoundedOliphauntPool}. Both pools are filled with one Oliphaunt per
+ * benchmark thread before measuring, so the measurement never pays the second it takes to create
+ * one and the bounded pool never waits.
+ *
+ * <p>Run {@link #main(String[])} from the test classpath; it repeats the run for 1, 2, 4 and 8
+ * threads.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ObjectPoolBenchmark {
+
+  @Param({"synchronized", "bounded"})
+  public String pool;
+
+  private OliphauntPool synchronizedPool;
+  private BoundedOliphauntPool boundedPool;
+
+  @Setup
+  public void setUp(BenchmarkParams params) throws InterruptedException {
+    var threads = params.getThreads();
+    var oliphaunts = new ArrayList<Oliphaunt>();
+    if ("synchronized".equals(pool)) {
+      synchronizedPool = new OliphauntPool();
+      for (var i = 0; i < threads; i++) {
+        oliphaunts.add(synchronizedPool.checkOut());
+      }
+      oliphaunts.forEach(synchronizedPool::checkIn);
+    } else {
+      boundedPool = new BoundedOliphauntPool(threads);
+      for (var i = 0; i < threads; i++) {
+        oliphaunts.add(boundedPool.checkOut());
+      }
+      oliphaunts.forEach(boundedPool::checkIn);
+    }
+  }
+
+  @TearDown
+  public void tearDown() {
+    if (boundedPool != null) {
+      boundedPool.close();
+    }
+  }
+
+  @Benchmark
+  public int checkOutCheckIn() throws InterruptedException {
+    if (synchronizedPool != null) {
+      var oliphaunt = synchronizedPool.checkOut();
+      synchronizedPool.checkIn(oliphaunt);
+      return oliphaunt.getId();
+    }
+    var oliphaunt = boundedPool.checkOut();
+    boundedPool.checkIn(oliphaunt);
+    return oliphaunt.getId();
+  }
+
+  public static void main(String[] args) throws RunnerException {
+    for (var threads : new int[] {1, 2, 4, 8}) {
+      new Runner(new OptionsBuilder()
+          .include(ObjectPoolBenchmark.class.getSimpleName())
+          .threads(threads)
+          .build()).run();
+    }
+  }
+}
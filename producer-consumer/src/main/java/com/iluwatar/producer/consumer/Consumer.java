@@ -24,6 +24,8 @@
  */
 package com.iluwatar.producer.consumer;
 
+import java.util.ArrayList;
+import java.util.List;
 import lombok.extern.slf4j.Slf4j;
 
 /**
@@ -36,6 +38,8 @@ public class Consumer {
 
   private final String name;
 
+  private final List<Item> batch = new ArrayList<>();
+
   public Consumer(String name, ItemQueue queue) {
     this.name = name;
     this.queue = queue;
@@ -50,4 +54,21 @@ public class Consumer {
         item.id(), item.producer());
 
   }
+
+  /**
+   * Consume all available items from the queue, up to <code>maxItems</code>, waiting until there
+   * is at least one.
+   *
+   * @param maxItems most items to consume.
+   * @return the number of items consumed.
+   */
+  public int consumeBatch(int maxItems) throws InterruptedException {
+    batch.clear();
+    var count = queue.drainTo(batch, maxItems);
+    for (var item : batch) {
+      LOGGER.info("Consumer [{}] consume item [{}] produced by [{}]", name,
+          item.id(), item.producer());
+    }
+    return count;
+  }
 }
@@ -24,11 +24,17 @@
  */
 package com.iluwatar.producer.consumer;
 
+import java.util.Collection;
 import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
 
 /**
  * Class as a channel for {@link Producer}-{@link Consumer} exchange.
+ *
+ * <p>This implementation wraps a {@link LinkedBlockingQueue}, which allocates a node per item and
+ * takes a lock on every put and take. {@link SpscRingItemQueue} and {@link MpmcRingItemQueue} are
+ * preallocated ring buffers without locks.
  */
 public class ItemQueue {
 
@@ -36,7 +42,27 @@ public class ItemQueue {
 
   public ItemQueue() {
 
-    queue = new LinkedBlockingQueue<>(5);
+    this(5);
+  }
+
+  /**
+   * Creates a queue holding up to <code>capacity</code> items.
+   *
+   * @param capacity the capacity.
+   */
+  public ItemQueue(int capacity) {
+
+    queue = new LinkedBlockingQueue<>(capacity);
+  }
+
+  /**
+   * Constructor of subclasses which keep the items themselves and override every method.
+   *
+   * @param queue the queue, null if the subclass has none.
+   */
+  protected ItemQueue(BlockingQueue<Item> queue) {
+
+    this.queue = queue;
   }
 
   public void put(Item item) throws InterruptedException {
@@ -49,4 +75,69 @@ public class ItemQueue {
     return queue.take();
   }
 
+  /**
+   * Puts the item, waiting up to <code>timeout</code> for space.
+   *
+   * @param item    the item.
+   * @param timeout how long to wait.
+   * @param unit    unit of the timeout.
+   * @return false if the queue was still full at the timeout.
+   * @throws InterruptedException if interrupted while waiting.
+   */
+  public boolean offer(Item item, long timeout, TimeUnit unit) throws InterruptedException {
+
+    return queue.offer(item, timeout, unit);
+  }
+
+  /**
+   * Takes an item, waiting up to <code>timeout</code> for one.
+   *
+   * @param timeout how long to wait.
+   * @param unit    unit of the timeout.
+   * @return the item, or null if the queue was still empty at the timeout.
+   * @throws InterruptedException if interrupted while waiting.
+   */
+  public Item poll(long timeout, TimeUnit unit) throws InterruptedException {
+
+    return queue.poll(timeout, unit);
+  }
+
+  /**
+   * Takes all available items, up to <code>maxItems</code>, waiting until there is at least one.
+   * A consumer taking items in batches pays the synchronization once per batch instead of once
+   * per item.
+   *
+   * @param items    the collection the items are added to.
+   * @param maxItems most items to take.
+   * @return the number of items taken, at least 1.
+   * @throws InterruptedException if interrupted while waiting.
+   */
+  public int drainTo(Collection<? super Item> items, int maxItems) throws InterruptedException {
+
+    items.add(queue.take());
+    return 1 + queue.drainTo(items, maxItems - 1);
+  }
+
+  /**
+   * Takes all available items, up to <code>maxItems</code>, waiting up to <code>timeout</code>
+   * for at least one.
+   *
+   * @param items    the collection the items are added to.
+   * @param maxItems most items to take.
+   * @param timeout  how long to wait.
+   * @param unit     unit of the timeout.
+   * @return the number of items taken, 0 if the queue was still empty at the timeout.
+   * @throws InterruptedException if interrupted while waiting.
+   */
+  public int drainTo(Collection<? super Item> items, int maxItems, long timeout, TimeUnit unit)
+      throws InterruptedException {
+
+    var first = queue.poll(timeout, unit);
+    if (first == null) {
+      return 0;
+    }
+    items.add(first);
+    return 1 + queue.drainTo(items, maxItems - 1);
+  }
+
 }
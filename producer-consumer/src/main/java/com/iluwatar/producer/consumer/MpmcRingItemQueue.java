@@ -0,0 +1,131 @@
+/*
+ * This project is licensed under the MIT license. Module model-view-viewmodel is using ZK framework licensed under LGPL (see lgpl-3.0.txt).
+ *
+ * The MIT License
+ * Copyright © 2014-2022 Ilkka Seppälä
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.iluwatar.producer.consumer;
+
+import java.util.Collection;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Ring buffer {@link ItemQueue} for any number of {@link Producer} and {@link Consumer} threads,
+ * after Dmitry Vyukov's bounded queue. Every slot has a sequence counter telling whose turn it is:
+ * it equals the position of the next producer allowed to fill the slot, and that position plus one
+ * once filled, for the consumer. Producers claim positions with a compare-and-set on the tail and
+ * consumers on the head, so contention is on the two counters only, and a slot is never touched by
+ * a thread that has not claimed it. A batch drain claims all ready positions with one
+ * compare-and-set.
+ */
+public class MpmcRingItemQueue extends RingItemQueue {
+
+  private final AtomicLongArray sequences;
+  private final AtomicLong head = new AtomicLong();
+  private final AtomicLong tail = new AtomicLong();
+
+  /**
+   * Creates a queue.
+   *
+   * @param capacity     number of slots, a power of two.
+   * @param waitStrategy how to wait for space or items.
+   */
+  public MpmcRingItemQueue(int capacity, WaitStrategy waitStrategy) {
+    super(capacity, waitStrategy);
+    sequences = new AtomicLongArray(capacity);
+    for (var i = 0; i < capacity; i++) {
+      sequences.set(i, i);
+    }
+  }
+
+  @Override
+  boolean tryOffer(Item item) {
+    var position = tail.get();
+    while (true) {
+      var index = (int) position & mask;
+      var turn = sequences.get(index) - position;
+      if (turn == 0) {
+        if (tail.compareAndSet(position, position + 1)) {
+          items[index] = item;
+          sequences.lazySet(index, position + 1);
+          return true;
+        }
+        position = tail.get();
+      } else if (turn < 0) {
+        // the slot still holds the item of the previous lap
+        return false;
+      } else {
+        position = tail.get();
+      }
+    }
+  }
+
+  @Override
+  Item tryPoll() {
+    var position = head.get();
+    while (true) {
+      var index = (int) position & mask;
+      var turn = sequences.get(index) - (position + 1);
+      if (turn == 0) {
+        if (head.compareAndSet(position, position + 1)) {
+          return release(index, position);
+        }
+        position = head.get();
+      } else if (turn < 0) {
+        return null;
+      } else {
+        position = head.get();
+      }
+    }
+  }
+
+  @Override
+  int tryDrainTo(Collection<? super Item> items, int maxItems) {
+    while (true) {
+      var position = head.get();
+      var ready = 0;
+      while (ready < maxItems
+          && sequences.get((int) (position + ready) & mask) == position + ready + 1) {
+        ready++;
+      }
+      if (ready == 0) {
+        return 0;
+      }
+      if (head.compareAndSet(position, position + ready)) {
+        for (var i = 0; i < ready; i++) {
+          items.add(release((int) (position + i) & mask, position + i));
+        }
+        return ready;
+      }
+    }
+  }
+
+  /*
+   * Empties a claimed slot and hands it to the producer of the next lap.
+   */
+  private Item release(int index, long position) {
+    var item = items[index];
+    items[index] = null;
+    sequences.lazySet(index, position + items.length);
+    return item;
+  }
+}
@@ -0,0 +1,150 @@
+/*
+ * This project is licensed under the MIT license. Module model-view-viewmodel is using ZK framework licensed under LGPL (see lgpl-3.0.txt).
+ *
+ * The MIT License
+ * Copyright © 2014-2022 Ilkka Seppälä
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.iluwatar.producer.consumer;
+
+import java.util.Collection;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Base of the ring buffer {@link ItemQueue}s. Subclasses provide the non-blocking operations on a
+ * preallocated array; waiting for space or items is done here with the {@link WaitStrategy}.
+ */
+abstract class RingItemQueue extends ItemQueue {
+
+  protected final Item[] items;
+  protected final int mask;
+  private final WaitStrategy waitStrategy;
+
+  RingItemQueue(int capacity, WaitStrategy waitStrategy) {
+    super(null);
+    if (capacity < 1 || Integer.bitCount(capacity) != 1) {
+      throw new IllegalArgumentException("Capacity must be a power of two: " + capacity);
+    }
+    this.items = new Item[capacity];
+    this.mask = capacity - 1;
+    this.waitStrategy = waitStrategy;
+  }
+
+  /**
+   * Adds the item if there is space.
+   *
+   * @return false if the queue is full.
+   */
+  abstract boolean tryOffer(Item item);
+
+  /**
+   * Takes an item if there is one.
+   *
+   * @return the item, or null if the queue is empty.
+   */
+  abstract Item tryPoll();
+
+  /**
+   * Takes up to <code>maxItems</code> available items without waiting.
+   *
+   * @return the number of items taken.
+   */
+  abstract int tryDrainTo(Collection<? super Item> items, int maxItems);
+
+  /**
+   * Number of slots.
+   *
+   * @return the capacity.
+   */
+  public int capacity() {
+    return items.length;
+  }
+
+  @Override
+  public void put(Item item) throws InterruptedException {
+    for (var attempt = 0; !tryOffer(item); attempt++) {
+      idle(attempt);
+    }
+  }
+
+  @Override
+  public Item take() throws InterruptedException {
+    Item item;
+    for (var attempt = 0; (item = tryPoll()) == null; attempt++) {
+      idle(attempt);
+    }
+    return item;
+  }
+
+  @Override
+  public boolean offer(Item item, long timeout, TimeUnit unit) throws InterruptedException {
+    var deadline = System.nanoTime() + unit.toNanos(timeout);
+    for (var attempt = 0; !tryOffer(item); attempt++) {
+      if (System.nanoTime() - deadline >= 0) {
+        return false;
+      }
+      idle(attempt);
+    }
+    return true;
+  }
+
+  @Override
+  public Item poll(long timeout, TimeUnit unit) throws InterruptedException {
+    var deadline = System.nanoTime() + unit.toNanos(timeout);
+    Item item;
+    for (var attempt = 0; (item = tryPoll()) == null; attempt++) {
+      if (System.nanoTime() - deadline >= 0) {
+        return null;
+      }
+      idle(attempt);
+    }
+    return item;
+  }
+
+  @Override
+  public int drainTo(Collection<? super Item> items, int maxItems) throws InterruptedException {
+    int taken;
+    for (var attempt = 0; (taken = tryDrainTo(items, maxItems)) == 0; attempt++) {
+      idle(attempt);
+    }
+    return taken;
+  }
+
+  @Override
+  public int drainTo(Collection<? super Item> items, int maxItems, long timeout, TimeUnit unit)
+      throws InterruptedException {
+    var deadline = System.nanoTime() + unit.toNanos(timeout);
+    int taken;
+    for (var attempt = 0; (taken = tryDrainTo(items, maxItems)) == 0; attempt++) {
+      if (System.nanoTime() - deadline >= 0) {
+        return 0;
+      }
+      idle(attempt);
+    }
+    return taken;
+  }
+
+  private void idle(int attempt) throws InterruptedException {
+    if (Thread.interrupted()) {
+      throw new InterruptedException();
+    }
+    waitStrategy.idle(attempt);
+  }
+}
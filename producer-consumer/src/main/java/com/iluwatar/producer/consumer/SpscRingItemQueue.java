@@ -0,0 +1,113 @@
+/*
+ * This project is licensed under the MIT license. Module model-view-viewmodel is using ZK framework licensed under LGPL (see lgpl-3.0.txt).
+ *
+ * The MIT License
+ * Copyright © 2014-2022 Ilkka Seppälä
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.iluwatar.producer.consumer;
+
+import java.util.Collection;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Ring buffer {@link ItemQueue} for exactly one {@link Producer} thread and one {@link Consumer}
+ * thread. The producer owns the tail counter and the consumer the head counter, so neither needs a
+ * compare-and-set: each publishes its counter with a release store after touching the slots, and
+ * caches the other's counter so it only reads it again when the ring looks full or empty. A batch
+ * drain moves the head once for the whole batch.
+ *
+ * <p>Using it from more threads loses or duplicates items, use {@link MpmcRingItemQueue} then.
+ */
+public class SpscRingItemQueue extends RingItemQueue {
+
+  /**
+   * Next slot to take, written by the consumer.
+   */
+  private final AtomicLong head = new AtomicLong();
+  /**
+   * Next slot to fill, written by the producer.
+   */
+  private final AtomicLong tail = new AtomicLong();
+  /**
+   * The producer's last read of the head.
+   */
+  private long cachedHead;
+  /**
+   * The consumer's last read of the tail.
+   */
+  private long cachedTail;
+
+  /**
+   * Creates a queue.
+   *
+   * @param capacity     number of slots, a power of two.
+   * @param waitStrategy how to wait for space or items.
+   */
+  public SpscRingItemQueue(int capacity, WaitStrategy waitStrategy) {
+    super(capacity, waitStrategy);
+  }
+
+  @Override
+  boolean tryOffer(Item item) {
+    var position = tail.getPlain();
+    if (position - cachedHead >= items.length) {
+      cachedHead = head.get();
+      if (position - cachedHead >= items.length) {
+        return false;
+      }
+    }
+    items[(int) position & mask] = item;
+    tail.lazySet(position + 1);
+    return true;
+  }
+
+  @Override
+  Item tryPoll() {
+    var position = head.getPlain();
+    if (position >= cachedTail) {
+      cachedTail = tail.get();
+      if (position >= cachedTail) {
+        return null;
+      }
+    }
+    var index = (int) position & mask;
+    var item = items[index];
+    items[index] = null;
+    head.lazySet(position + 1);
+    return item;
+  }
+
+  @Override
+  int tryDrainTo(Collection<? super Item> items, int maxItems) {
+    var position = head.getPlain();
+    cachedTail = tail.get();
+    var count = (int) Math.min(maxItems, cachedTail - position);
+    for (var i = 0; i < count; i++) {
+      var index = (int) (position + i) & mask;
+      items.add(this.items[index]);
+      this.items[index] = null;
+    }
+    if (count > 0) {
+      head.lazySet(position + count);
+    }
+    return count;
+  }
+}
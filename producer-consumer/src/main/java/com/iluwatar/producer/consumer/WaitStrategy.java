@@ -0,0 +1,95 @@
+/*
+ * This project is licensed under the MIT license. Module model-view-viewmodel is using ZK framework licensed under LGPL (see lgpl-3.0.txt).
+ *
+ * The MIT License
+ * Copyright © 2014-2022 Ilkka Seppälä
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.iluwatar.producer.consumer;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * What a thread does while it waits for a ring buffer to have space or items. Ring buffers have no
+ * lock and no condition to wait on, the waiting thread polls; the strategy trades the latency of
+ * noticing a change against the CPU burnt meanwhile.
+ */
+@FunctionalInterface
+public interface WaitStrategy {
+
+  /**
+   * Polls that spin before the yielding and parking strategies back off.
+   */
+  int SPIN_TRIES = 100;
+
+  /**
+   * Longest park of the parking strategy.
+   */
+  long MAX_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+
+  /**
+   * Waits a little before the next poll.
+   *
+   * @param attempt number of polls that failed so far in this wait, starting at 0.
+   */
+  void idle(int attempt);
+
+  /**
+   * Spins on the CPU, lowest latency while it owns a core to itself.
+   *
+   * @return the strategy.
+   */
+  static WaitStrategy busySpin() {
+    return attempt -> Thread.onSpinWait();
+  }
+
+  /**
+   * Spins a little, then yields the CPU to other threads between polls.
+   *
+   * @return the strategy.
+   */
+  static WaitStrategy yielding() {
+    return attempt -> {
+      if (attempt < SPIN_TRIES) {
+        Thread.onSpinWait();
+      } else {
+        Thread.yield();
+      }
+    };
+  }
+
+  /**
+   * Spins a little, then parks for exponentially longer up to {@link #MAX_PARK_NANOS}, nearly
+   * idle on a queue that stays empty or full.
+   *
+   * @return the strategy.
+   */
+  static WaitStrategy parking() {
+    return attempt -> {
+      if (attempt < SPIN_TRIES) {
+        Thread.onSpinWait();
+      } else {
+        var shift = Math.min(attempt - SPIN_TRIES, 20);
+        LockSupport.parkNanos(Math.min(1_000L << shift, MAX_PARK_NANOS));
+      }
+    };
+  }
+}
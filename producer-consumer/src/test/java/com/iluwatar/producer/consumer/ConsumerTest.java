@@ -24,6 +24,10 @@
  */
 package com.iluwatar.producer.consumer;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.reset;
 import static org.mockito.Mockito.spy;
 import static org.mockito.Mockito.times;
@@ -56,4 +60,21 @@ class ConsumerTest {
     verify(queue, times(ITEM_COUNT)).take();
   }
 
+  @Test
+  void testConsumeBatch() throws Exception {
+    final var queue = spy(new ItemQueue());
+    for (var id = 0; id < ITEM_COUNT; id++) {
+      queue.put(new Item("producer", id));
+    }
+
+    reset(queue);
+    final var consumer = new Consumer("consumer", queue);
+
+    assertEquals(3, consumer.consumeBatch(3));
+    assertEquals(2, consumer.consumeBatch(3));
+
+    verify(queue, times(2)).drainTo(anyCollection(), eq(3));
+    verify(queue, never()).take();
+  }
+
 }
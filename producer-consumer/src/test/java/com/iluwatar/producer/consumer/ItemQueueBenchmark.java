@@ -0,0 +1,161 @@
+/*
+ * This project is licensed under the MIT license. Module model-view-viewmodel is using ZK framework licensed under LGPL (see lgpl-3.0.txt).
+ *
+ * The MIT License
+ * Copyright © 2014-2022 Ilkka Seppälä
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.iluwatar.producer.consumer;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Control;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * JMH benchmark comparing the {@link ItemQueue} implementations. Each group has N producer threads
+ * and one consumer thread; the "exchange" group takes items one at a time, the "batch" group with
+ * {@link ItemQueue#drainTo}. Throughput mode reports items per microsecond for the producers,
+ * sample time mode the latency of each put and take. Waits are timed so that every thread notices
+ * the end of an iteration even when the queue stays full or empty.
+ *
+ * <p>Run {@link #main(String[])} from the test classpath; it repeats the run for 1, 2, 4 and 8
+ * producers, leaving the single producer ring out beyond 1.
+ */
+@State(Scope.Group)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ItemQueueBenchmark {
+
+  private static final int CAPACITY = 1024;
+  private static final int BATCH = 64;
+  private static final long WAIT_MICROS = 100;
+
+  @Param({"linked", "spsc-spin", "spsc-yield", "spsc-park", "mpmc-spin", "mpmc-yield",
+      "mpmc-park"})
+  public String queue;
+
+  private ItemQueue itemQueue;
+  private Item item;
+
+  @Setup
+  public void setUp() {
+    itemQueue = create(queue);
+    item = new Item("benchmark", 0);
+  }
+
+  @Benchmark
+  @Group("exchange")
+  public boolean put(Control control) throws InterruptedException {
+    return offer(control);
+  }
+
+  @Benchmark
+  @Group("exchange")
+  public Item take(Control control) throws InterruptedException {
+    Item taken;
+    while ((taken = itemQueue.poll(WAIT_MICROS, TimeUnit.MICROSECONDS)) == null) {
+      if (control.stopMeasurement) {
+        return null;
+      }
+    }
+    return taken;
+  }
+
+  @Benchmark
+  @Group("batch")
+  public boolean putForBatch(Control control) throws InterruptedException {
+    return offer(control);
+  }
+
+  @Benchmark
+  @Group("batch")
+  public int drain(Control control, Batch batch) throws InterruptedException {
+    batch.items.clear();
+    int taken;
+    while ((taken = itemQueue.drainTo(batch.items, BATCH, WAIT_MICROS,
+        TimeUnit.MICROSECONDS)) == 0) {
+      if (control.stopMeasurement) {
+        return 0;
+      }
+    }
+    return taken;
+  }
+
+  private boolean offer(Control control) throws InterruptedException {
+    while (!itemQueue.offer(item, WAIT_MICROS, TimeUnit.MICROSECONDS)) {
+      if (control.stopMeasurement) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private static ItemQueue create(String queue) {
+    return switch (queue) {
+      case "linked" -> new ItemQueue(CAPACITY);
+      case "spsc-spin" -> new SpscRingItemQueue(CAPACITY, WaitStrategy.busySpin());
+      case "spsc-yield" -> new SpscRingItemQueue(CAPACITY, WaitStrategy.yielding());
+      case "spsc-park" -> new SpscRingItemQueue(CAPACITY, WaitStrategy.parking());
+      case "mpmc-spin" -> new MpmcRingItemQueue(CAPACITY, WaitStrategy.busySpin());
+      case "mpmc-yield" -> new MpmcRingItemQueue(CAPACITY, WaitStrategy.yielding());
+      case "mpmc-park" -> new MpmcRingItemQueue(CAPACITY, WaitStrategy.parking());
+      default -> throw new IllegalArgumentException(queue);
+    };
+  }
+
+  /**
+   * The consumer's reusable batch.
+   */
+  @State(Scope.Thread)
+  public static class Batch {
+    final List<Item> items = new ArrayList<>(BATCH);
+  }
+
+  public static void main(String[] args) throws RunnerException {
+    for (var producers : new int[] {1, 2, 4, 8}) {
+      var options = new OptionsBuilder()
+          .include(ItemQueueBenchmark.class.getSimpleName())
+          .threadGroups(producers, 1);
+      if (producers > 1) {
+        options.param("queue", "linked", "mpmc-spin", "mpmc-yield", "mpmc-park");
+      }
+      new Runner(options.build()).run();
+    }
+  }
+}
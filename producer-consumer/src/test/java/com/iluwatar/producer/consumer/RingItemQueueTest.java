@@ -0,0 +1,177 @@
+/*
+ * This project is licensed under the MIT license. Module model-view-viewmodel is using ZK framework licensed under LGPL (see lgpl-3.0.txt).
+ *
+ * The MIT License
+ * Copyright © 2014-2022 Ilkka Seppälä
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.iluwatar.producer.consumer;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.function.IntFunction;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests for {@link SpscRingItemQueue} and {@link MpmcRingItemQueue}.
+ */
+class RingItemQueueTest {
+
+  private static final List<IntFunction<RingItemQueue>> QUEUES = List.of(
+      capacity -> new SpscRingItemQueue(capacity, WaitStrategy.busySpin()),
+      capacity -> new SpscRingItemQueue(capacity, WaitStrategy.parking()),
+      capacity -> new MpmcRingItemQueue(capacity, WaitStrategy.yielding()),
+      capacity -> new MpmcRingItemQueue(capacity, WaitStrategy.parking()));
+
+  @Test
+  void keepsFifoOrderAcrossLaps() throws Exception {
+    for (var factory : QUEUES) {
+      var queue = factory.apply(4);
+      for (var lap = 0; lap < 5; lap++) {
+        for (var id = 0; id < 4; id++) {
+          queue.put(new Item("p", lap * 4 + id));
+        }
+        assertFalse(queue.offer(new Item("p", -1), 1, TimeUnit.MILLISECONDS));
+        for (var id = 0; id < 4; id++) {
+          assertEquals(lap * 4 + id, queue.take().id());
+        }
+        assertNull(queue.poll(1, TimeUnit.MILLISECONDS));
+      }
+    }
+  }
+
+  @Test
+  void drainsUpToTheLimit() throws Exception {
+    for (var factory : QUEUES) {
+      var queue = factory.apply(8);
+      for (var id = 0; id < 6; id++) {
+        queue.put(new Item("p", id));
+      }
+      var batch = new ArrayList<Item>();
+      assertEquals(4, queue.drainTo(batch, 4));
+      assertEquals(2, queue.drainTo(batch, 4));
+      assertEquals(0, queue.drainTo(batch, 4, 1, TimeUnit.MILLISECONDS));
+      for (var id = 0; id < 6; id++) {
+        assertEquals(id, batch.get(id).id());
+      }
+    }
+  }
+
+  @Test
+  void singleProducerHandsOverEveryItemInOrder() throws Exception {
+    var queue = new SpscRingItemQueue(16, WaitStrategy.yielding());
+    var executor = Executors.newSingleThreadExecutor();
+    try {
+      var items = 100_000;
+      executor.submit(() -> {
+        for (var id = 0; id < items; id++) {
+          queue.put(new Item("p", id));
+        }
+        return null;
+      });
+      var batch = new ArrayList<Item>();
+      var expected = 0;
+      while (expected < items) {
+        batch.clear();
+        queue.drainTo(batch, 7);
+        for (var item : batch) {
+          assertEquals(expected++, item.id());
+        }
+      }
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  @Test
+  void manyProducersAndConsumersLoseNothing() throws Exception {
+    var queue = new MpmcRingItemQueue(32, WaitStrategy.yielding());
+    var producers = 4;
+    var consumers = 3;
+    var perProducer = 20_000;
+    var executor = Executors.newFixedThreadPool(producers + consumers);
+    try {
+      for (var p = 0; p < producers; p++) {
+        var name = "p" + p;
+        executor.submit(() -> {
+          for (var id = 0; id < perProducer; id++) {
+            queue.put(new Item(name, id));
+          }
+          return null;
+        });
+      }
+      var results = new ArrayList<Future<List<Item>>>();
+      for (var c = 0; c < consumers; c++) {
+        results.add(executor.submit(() -> {
+          var taken = new ArrayList<Item>();
+          while (queue.drainTo(taken, 16, 200, TimeUnit.MILLISECONDS) > 0) {
+            // keep draining until the producers are done
+          }
+          return taken;
+        }));
+      }
+      var all = new HashSet<Item>();
+      for (var result : results) {
+        var taken = result.get(30, TimeUnit.SECONDS);
+        assertInOrderPerProducer(taken);
+        all.addAll(taken);
+      }
+      assertEquals(producers * perProducer, all.size());
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  @Test
+  void waitingIsInterruptible() throws Exception {
+    var queue = new MpmcRingItemQueue(2, WaitStrategy.parking());
+    Thread.currentThread().interrupt();
+    assertThrows(InterruptedException.class, queue::take);
+  }
+
+  @Test
+  void capacityMustBeAPowerOfTwo() {
+    assertThrows(IllegalArgumentException.class,
+        () -> new SpscRingItemQueue(6, WaitStrategy.busySpin()));
+    assertEquals(8, new MpmcRingItemQueue(8, WaitStrategy.busySpin()).capacity());
+  }
+
+  /*
+   * One consumer sees the items of a producer in the order they were put.
+   */
+  private static void assertInOrderPerProducer(List<Item> taken) {
+    var last = new HashMap<String, Integer>();
+    for (var item : taken) {
+      var previous = last.put(item.producer(), item.id());
+      assertTrue(previous == null || previous < item.id());
+    }
+  }
+}
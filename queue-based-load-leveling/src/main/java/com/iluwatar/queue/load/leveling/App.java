@@ -24,6 +24,7 @@
  */
 package com.iluwatar.queue.load.leveling;
 
+import java.time.Duration;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.TimeUnit;
@@ -55,8 +56,9 @@ import lombok.extern.slf4j.Slf4j;
  *
  * <p>In this example we have a class {@link MessageQueue} to hold the message {@link Message}
  * objects. All the worker threads {@link TaskGenerator} will submit the messages to the
- * MessageQueue. The service executor class {@link ServiceExecutor} will pick up one task at a time
- * from the Queue and execute them.
+ * MessageQueue. The service executor class {@link ServiceExecutor} will pick up batches of tasks
+ * from the Queue and execute them, and {@link ServiceExecutorPool} runs as many service executors
+ * as the current load needs.
  */
 @Slf4j
 public class App {
@@ -75,9 +77,13 @@ public class App {
     // produce a Future for tracking progress of one or more asynchronous tasks.
     ExecutorService executor = null;
 
-    try {
-      // Create a MessageQueue object.
-      var msgQueue = new MessageQueue();
+    // Create a MessageQueue object.
+    var msgQueue = new MessageQueue();
+
+    // Create a pool of services which processes the submitted jobs. It starts with one
+    // ServiceExecutor and adds more while the backlog would take longer than 100 ms to drain.
+    try (var srvPool = new ServiceExecutorPool(msgQueue, msg -> LOGGER.info(msg + " is served."),
+        1, 4, Duration.ofMillis(100), Duration.ofSeconds(1))) {
 
       LOGGER.info("Submitting TaskGenerators and ServiceExecutor threads.");
 
@@ -86,19 +92,13 @@ public class App {
       final var taskRunnable2 = new TaskGenerator(msgQueue, 1);
       final var taskRunnable3 = new TaskGenerator(msgQueue, 2);
 
-      // Create e service which should process the submitted jobs.
-      final var srvRunnable = new ServiceExecutor(msgQueue);
-
-      // Create a ThreadPool of 2 threads and
+      // Create a ThreadPool of 3 threads and
       // submit all Runnable task for execution to executor
-      executor = Executors.newFixedThreadPool(2);
+      executor = Executors.newFixedThreadPool(3);
       executor.submit(taskRunnable1);
       executor.submit(taskRunnable2);
       executor.submit(taskRunnable3);
 
-      // submitting serviceExecutor thread to the Executor service.
-      executor.submit(srvRunnable);
-
       // Initiates an orderly shutdown.
       LOGGER.info("Initiating shutdown."
           + " Executor will shutdown only after all the Threads are completed.");
@@ -110,8 +110,17 @@ public class App {
         LOGGER.info("Executor was shut down and Exiting.");
         executor.shutdownNow();
       }
+
+      // Let the services drain what is left in the queue.
+      while (msgQueue.size() > 0) {
+        Thread.sleep(10);
+      }
+      LOGGER.info("Queue depth: {}", msgQueue.getDepthHistogram());
+      LOGGER.info("Wait time: {}", msgQueue.getWaitTimeHistogram());
+      LOGGER.info("Served {} messages with at most {} services", srvPool.getServedCount(),
+          srvPool.getPeakWorkers());
     } catch (Exception e) {
       LOGGER.error(e.getMessage());
     }
   }
-}
\ No newline at end of file
+}
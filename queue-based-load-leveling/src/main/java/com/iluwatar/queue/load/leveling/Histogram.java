@@ -0,0 +1,130 @@
+/*
+ * This project is licensed under the MIT license. Module model-view-viewmodel is using ZK framework licensed under LGPL (see lgpl-3.0.txt).
+ *
+ * The MIT License
+ * Copyright © 2014-2022 Ilkka Seppälä
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.iluwatar.queue.load.leveling;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Lock-free histogram with power-of-two buckets. Bucket {@code i} counts values {@code v} with
+ * {@code 2^(i-1) <= v < 2^i}; bucket 0 counts zeros. Percentiles are therefore reported as the
+ * upper bound of their bucket, which is within a factor of two of the exact value and costs one
+ * atomic increment per sample.
+ */
+public class Histogram {
+
+  private static final int BUCKETS = 64;
+
+  private final String unit;
+
+  private final AtomicLongArray buckets = new AtomicLongArray(BUCKETS);
+
+  private final LongAdder count = new LongAdder();
+
+  private final LongAdder sum = new LongAdder();
+
+  private final AtomicLong max = new AtomicLong();
+
+  public Histogram(String unit) {
+    this.unit = unit;
+  }
+
+  /**
+   * Records one sample. Negative values are counted as zero.
+   *
+   * @param value the sample
+   */
+  public void record(long value) {
+    var v = Math.max(0, value);
+    buckets.incrementAndGet(Math.min(BUCKETS - 1, Long.SIZE - Long.numberOfLeadingZeros(v)));
+    count.increment();
+    sum.add(v);
+    max.accumulateAndGet(v, Math::max);
+  }
+
+  public long getCount() {
+    return count.sum();
+  }
+
+  public long getMax() {
+    return max.get();
+  }
+
+  /**
+   * Returns the arithmetic mean of all samples.
+   *
+   * @return the mean, or 0 when nothing was recorded
+   */
+  public double getMean() {
+    var n = count.sum();
+    return n == 0 ? 0 : (double) sum.sum() / n;
+  }
+
+  /**
+   * Returns an upper bound for the given percentile.
+   *
+   * @param percentile between 0 and 100
+   * @return the upper bound of the bucket holding the percentile, capped at the maximum sample
+   */
+  public long getPercentile(double percentile) {
+    var snapshot = getBuckets();
+    long total = 0;
+    for (var b : snapshot) {
+      total += b;
+    }
+    if (total == 0) {
+      return 0;
+    }
+    var rank = (long) Math.ceil(total * percentile / 100);
+    long seen = 0;
+    for (var i = 0; i < BUCKETS; i++) {
+      seen += snapshot[i];
+      if (seen >= rank && snapshot[i] > 0) {
+        return Math.min(i == 0 ? 0 : (1L << i) - 1, getMax());
+      }
+    }
+    return getMax();
+  }
+
+  /**
+   * Returns a snapshot of the bucket counts, index {@code i} covering {@code [2^(i-1), 2^i)}.
+   *
+   * @return bucket counts
+   */
+  public long[] getBuckets() {
+    var snapshot = new long[BUCKETS];
+    for (var i = 0; i < BUCKETS; i++) {
+      snapshot[i] = buckets.get(i);
+    }
+    return snapshot;
+  }
+
+  @Override
+  public String toString() {
+    return String.format("count=%d mean=%.1f%s p50<=%d%s p99<=%d%s max=%d%s", getCount(),
+        getMean(), unit, getPercentile(50), unit, getPercentile(99), unit, getMax(), unit);
+  }
+}
@@ -24,8 +24,10 @@
  */
 package com.iluwatar.queue.load.leveling;
 
+import lombok.AccessLevel;
 import lombok.Getter;
 import lombok.RequiredArgsConstructor;
+import lombok.Setter;
 
 /**
  * Message class with only one parameter.
@@ -35,6 +37,11 @@ import lombok.RequiredArgsConstructor;
 public class Message {
   private final String msg;
 
+  // Set by the MessageQueue on submission to measure how long the message waited.
+  @Getter(AccessLevel.PACKAGE)
+  @Setter(AccessLevel.PACKAGE)
+  private long enqueuedNanos;
+
   @Override
   public String toString() {
     return msg;
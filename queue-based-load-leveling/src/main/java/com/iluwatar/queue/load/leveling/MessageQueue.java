@@ -24,35 +24,111 @@
  */
 package com.iluwatar.queue.load.leveling;
 
+import java.util.List;
 import java.util.concurrent.ArrayBlockingQueue;
 import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+import lombok.Getter;
 import lombok.extern.slf4j.Slf4j;
 
 /**
  * MessageQueue class. In this class we will create a Blocking Queue and submit/retrieve all the
  * messages from it.
+ *
+ * <p>The queue is bounded and gives producers explicit back-pressure when it is full: by default
+ * {@link #submitMsg} blocks until there is room, or it waits at most a configured timeout and then
+ * hands the message to a reject callback. The queue depth seen by every submission and the time
+ * every message spent waiting are recorded in histograms.
  */
 @Slf4j
 public class MessageQueue {
 
+  private static final int DEFAULT_CAPACITY = 1024;
+
+  private static final long BLOCK = -1;
+
   private final BlockingQueue<Message> blkQueue;
 
+  private final long offerTimeoutNanos;
+
+  private final Consumer<Message> rejectHandler;
+
+  private final LongAdder rejected = new LongAdder();
+
+  // Queue depth right after each accepted submission.
+  @Getter
+  private final Histogram depthHistogram = new Histogram("");
+
+  // Microseconds between submission and retrieval.
+  @Getter
+  private final Histogram waitTimeHistogram = new Histogram("us");
+
   // Default constructor when called creates Blocking Queue object. 
   public MessageQueue() {
-    this.blkQueue = new ArrayBlockingQueue<>(1024);
+    this(DEFAULT_CAPACITY);
+  }
+
+  /**
+   * Creates a queue whose producers block while it is full.
+   *
+   * @param capacity maximum number of pending messages
+   */
+  public MessageQueue(int capacity) {
+    this.blkQueue = new ArrayBlockingQueue<>(capacity);
+    this.offerTimeoutNanos = BLOCK;
+    this.rejectHandler = null;
+  }
+
+  /**
+   * Creates a queue whose producers wait at most {@code timeout} for room. Messages that still do
+   * not fit are passed to {@code rejectHandler}; a zero timeout rejects immediately.
+   *
+   * @param capacity      maximum number of pending messages
+   * @param timeout       how long a producer may wait for room
+   * @param unit          unit of {@code timeout}
+   * @param rejectHandler called with each message that could not be queued
+   */
+  public MessageQueue(int capacity, long timeout, TimeUnit unit, Consumer<Message> rejectHandler) {
+    this.blkQueue = new ArrayBlockingQueue<>(capacity);
+    this.offerTimeoutNanos = unit.toNanos(timeout);
+    this.rejectHandler = rejectHandler;
   }
 
   /**
    * All the TaskGenerator threads will call this method to insert the Messages in to the Blocking
-   * Queue.
+   * Queue. Blocks or waits according to the back-pressure settings of this queue.
+   *
+   * @return true if the message was queued
    */
-  public void submitMsg(Message msg) {
+  public boolean submitMsg(Message msg) {
+    if (null == msg) {
+      return false;
+    }
+    msg.setEnqueuedNanos(System.nanoTime());
     try {
-      if (null != msg) {
-        blkQueue.add(msg);
+      if (offerTimeoutNanos == BLOCK) {
+        blkQueue.put(msg);
+      } else if (!blkQueue.offer(msg, offerTimeoutNanos, TimeUnit.NANOSECONDS)) {
+        reject(msg);
+        return false;
       }
-    } catch (Exception e) {
-      LOGGER.error(e.getMessage());
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      reject(msg);
+      return false;
+    }
+    depthHistogram.record(blkQueue.size());
+    return true;
+  }
+
+  private void reject(Message msg) {
+    rejected.increment();
+    if (rejectHandler != null) {
+      rejectHandler.accept(msg);
+    } else {
+      LOGGER.warn("{} was not queued", msg);
     }
   }
 
@@ -61,11 +137,50 @@ public class MessageQueue {
    * them. Retrieves and removes the head of this queue, or returns null if this queue is empty.
    */
   public Message retrieveMsg() {
-    try {
-      return blkQueue.poll();
-    } catch (Exception e) {
-      LOGGER.error(e.getMessage());
+    var msg = blkQueue.poll();
+    if (msg != null) {
+      recordWait(msg, System.nanoTime());
+    }
+    return msg;
+  }
+
+  /**
+   * Moves up to {@code maxMessages} messages into {@code batch}, waiting up to {@code timeout} for
+   * the first one to arrive. The rest are drained under a single lock acquisition without waiting,
+   * so a busy queue is consumed in batches while an idle one costs no CPU.
+   *
+   * @param batch       list to append the messages to
+   * @param maxMessages maximum number of messages to take
+   * @param timeout     how long to wait for the first message
+   * @param unit        unit of {@code timeout}
+   * @return the number of messages added, 0 on timeout
+   * @throws InterruptedException if interrupted while waiting
+   */
+  public int retrieveMsgs(List<Message> batch, int maxMessages, long timeout, TimeUnit unit)
+      throws InterruptedException {
+    var first = blkQueue.poll(timeout, unit);
+    if (first == null) {
+      return 0;
+    }
+    var from = batch.size();
+    batch.add(first);
+    var count = 1 + blkQueue.drainTo(batch, maxMessages - 1);
+    var now = System.nanoTime();
+    for (var i = from; i < from + count; i++) {
+      recordWait(batch.get(i), now);
     }
-    return null;
+    return count;
+  }
+
+  private void recordWait(Message msg, long now) {
+    waitTimeHistogram.record(TimeUnit.NANOSECONDS.toMicros(now - msg.getEnqueuedNanos()));
+  }
+
+  public int size() {
+    return blkQueue.size();
+  }
+
+  public long getRejectedCount() {
+    return rejected.sum();
   }
 }
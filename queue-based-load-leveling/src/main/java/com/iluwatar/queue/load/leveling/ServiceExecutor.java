@@ -24,19 +24,35 @@
  */
 package com.iluwatar.queue.load.leveling;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
 import lombok.extern.slf4j.Slf4j;
 
 /**
- * ServiceExecuotr class. This class will pick up Messages one by one from the Blocking Queue and
- * process them.
+ * ServiceExecuotr class. This class will pick up Messages in batches from the Blocking Queue and
+ * process them. It blocks while the queue is empty, so a message is served as soon as it arrives.
  */
 @Slf4j
 public class ServiceExecutor implements Runnable {
 
+  // Maximum number of messages taken from the queue at once.
+  static final int BATCH_SIZE = 32;
+
   private final MessageQueue msgQueue;
 
+  private final Consumer<Message> service;
+
+  private final List<Message> batch = new ArrayList<>(BATCH_SIZE);
+
   public ServiceExecutor(MessageQueue msgQueue) {
+    this(msgQueue, msg -> LOGGER.info(msg + " is served."));
+  }
+
+  public ServiceExecutor(MessageQueue msgQueue, Consumer<Message> service) {
     this.msgQueue = msgQueue;
+    this.service = service;
   }
 
   /**
@@ -45,18 +61,36 @@ public class ServiceExecutor implements Runnable {
   public void run() {
     try {
       while (!Thread.currentThread().isInterrupted()) {
-        var msg = msgQueue.retrieveMsg();
-
-        if (null != msg) {
-          LOGGER.info(msg + " is served.");
-        } else {
+        if (serve(1, TimeUnit.SECONDS) == 0) {
           LOGGER.info("Service Executor: Waiting for Messages to serve .. ");
         }
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
 
-        Thread.sleep(1000);
+  /**
+   * Waits up to {@code timeout} for messages and serves one batch of them.
+   *
+   * @param timeout how long to wait for the first message
+   * @param unit    unit of {@code timeout}
+   * @return the number of messages served, 0 on timeout
+   * @throws InterruptedException if interrupted while waiting
+   */
+  int serve(long timeout, TimeUnit unit) throws InterruptedException {
+    var count = msgQueue.retrieveMsgs(batch, BATCH_SIZE, timeout, unit);
+    try {
+      for (var msg : batch) {
+        try {
+          service.accept(msg);
+        } catch (RuntimeException e) {
+          LOGGER.error("Failed to serve " + msg, e);
+        }
       }
-    } catch (Exception e) {
-      LOGGER.error(e.getMessage());
+    } finally {
+      batch.clear();
     }
+    return count;
   }
 }
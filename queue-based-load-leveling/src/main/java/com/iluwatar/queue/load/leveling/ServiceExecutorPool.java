@@ -0,0 +1,225 @@
+/*
+ * This project is licensed under the MIT license. Module model-view-viewmodel is using ZK framework licensed under LGPL (see lgpl-3.0.txt).
+ *
+ * The MIT License
+ * Copyright © 2014-2022 Ilkka Seppälä
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.iluwatar.queue.load.leveling;
+
+import java.time.Duration;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * A pool of {@link ServiceExecutor} threads that grows and shrinks with the load on a
+ * {@link MessageQueue}.
+ *
+ * <p>A scaler thread samples the queue depth and the average service time every
+ * {@value #SCALE_INTERVAL_MILLIS} ms. By Little's law a backlog of {@code depth} messages served by
+ * {@code n} workers drains in {@code depth * serviceTime / n}, so the pool is grown to the number
+ * of workers that keeps that time under the target latency, up to {@code maxWorkers}. Workers that
+ * find the queue empty for the idle timeout retire themselves, down to {@code minWorkers}.
+ */
+@Slf4j
+public class ServiceExecutorPool implements AutoCloseable {
+
+  static final long SCALE_INTERVAL_MILLIS = 20;
+
+  private final MessageQueue msgQueue;
+
+  private final Consumer<Message> service;
+
+  private final int minWorkers;
+
+  private final int maxWorkers;
+
+  private final long targetLatencyNanos;
+
+  private final long idleTimeoutNanos;
+
+  private final AtomicInteger workers = new AtomicInteger();
+
+  private final AtomicInteger workerIds = new AtomicInteger();
+
+  private final Set<Thread> threads = ConcurrentHashMap.newKeySet();
+
+  private final LongAdder served = new LongAdder();
+
+  private final LongAdder serviceNanos = new LongAdder();
+
+  // Microseconds spent serving each message.
+  @Getter
+  private final Histogram serviceTimeHistogram = new Histogram("us");
+
+  private final Thread scaler;
+
+  @Getter
+  private volatile int peakWorkers;
+
+  private volatile boolean running = true;
+
+  /**
+   * Starts {@code minWorkers} workers and the scaler.
+   *
+   * @param msgQueue      queue to consume
+   * @param service       processes one message
+   * @param minWorkers    workers kept even when idle
+   * @param maxWorkers    upper bound on workers
+   * @param targetLatency how long a backlog may take to drain before the pool grows
+   * @param idleTimeout   how long a surplus worker waits for a message before it retires
+   */
+  public ServiceExecutorPool(MessageQueue msgQueue, Consumer<Message> service, int minWorkers,
+      int maxWorkers, Duration targetLatency, Duration idleTimeout) {
+    if (minWorkers < 1 || maxWorkers < minWorkers) {
+      throw new IllegalArgumentException(
+          "invalid worker bounds: min=" + minWorkers + " max=" + maxWorkers);
+    }
+    this.msgQueue = msgQueue;
+    this.service = service;
+    this.minWorkers = minWorkers;
+    this.maxWorkers = maxWorkers;
+    this.targetLatencyNanos = targetLatency.toNanos();
+    this.idleTimeoutNanos = idleTimeout.toNanos();
+    for (var i = 0; i < minWorkers; i++) {
+      addWorker();
+    }
+    scaler = new Thread(this::scale, "service-executor-scaler");
+    scaler.setDaemon(true);
+    scaler.start();
+  }
+
+  private void addWorker() {
+    int n;
+    do {
+      n = workers.get();
+      if (n >= maxWorkers) {
+        return;
+      }
+    } while (!workers.compareAndSet(n, n + 1));
+    if (n + 1 > peakWorkers) {
+      peakWorkers = n + 1;
+    }
+    var thread = new Thread(this::work, "service-executor-" + workerIds.incrementAndGet());
+    threads.add(thread);
+    thread.start();
+  }
+
+  private boolean retire() {
+    int n;
+    do {
+      n = workers.get();
+      if (n <= minWorkers) {
+        return false;
+      }
+    } while (!workers.compareAndSet(n, n - 1));
+    return true;
+  }
+
+  private void work() {
+    var executor = new ServiceExecutor(msgQueue, this::serve);
+    try {
+      while (running) {
+        if (executor.serve(idleTimeoutNanos, TimeUnit.NANOSECONDS) == 0 && retire()) {
+          LOGGER.debug("{} retired", Thread.currentThread().getName());
+          return;
+        }
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    } finally {
+      threads.remove(Thread.currentThread());
+    }
+  }
+
+  private void serve(Message msg) {
+    var start = System.nanoTime();
+    try {
+      service.accept(msg);
+    } finally {
+      var elapsed = System.nanoTime() - start;
+      serviceNanos.add(elapsed);
+      served.increment();
+      serviceTimeHistogram.record(TimeUnit.NANOSECONDS.toMicros(elapsed));
+    }
+  }
+
+  private void scale() {
+    long lastServed = 0;
+    long lastServiceNanos = 0;
+    long averageServiceNanos = 0;
+    try {
+      while (running) {
+        Thread.sleep(SCALE_INTERVAL_MILLIS);
+        var nowServed = served.sum();
+        var nowServiceNanos = serviceNanos.sum();
+        if (nowServed > lastServed) {
+          averageServiceNanos = (nowServiceNanos - lastServiceNanos) / (nowServed - lastServed);
+          lastServed = nowServed;
+          lastServiceNanos = nowServiceNanos;
+        }
+        var depth = msgQueue.size();
+        if (depth == 0 || averageServiceNanos == 0) {
+          continue;
+        }
+        var desired = (int) Math.min(maxWorkers,
+            (depth * averageServiceNanos + targetLatencyNanos - 1) / targetLatencyNanos);
+        while (running && workers.get() < desired && workers.get() < maxWorkers) {
+          addWorker();
+        }
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  public int getWorkerCount() {
+    return workers.get();
+  }
+
+  public long getServedCount() {
+    return served.sum();
+  }
+
+  /**
+   * Stops the scaler and all workers. Messages still in the queue are left there.
+   *
+   * @throws InterruptedException if interrupted while waiting for the workers to stop
+   */
+  @Override
+  public void close() throws InterruptedException {
+    running = false;
+    scaler.interrupt();
+    scaler.join();
+    for (var thread : threads) {
+      thread.interrupt();
+    }
+    for (var thread : threads) {
+      thread.join();
+    }
+    workers.set(0);
+  }
+}
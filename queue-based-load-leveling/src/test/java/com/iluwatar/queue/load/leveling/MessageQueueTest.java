@@ -25,7 +25,13 @@
 package com.iluwatar.queue.load.leveling;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
 import org.junit.jupiter.api.Test;
 
 /**
@@ -45,4 +51,56 @@ class MessageQueueTest {
     assertEquals("MessageQueue Test", msgQueue.retrieveMsg().getMsg());
   }
 
+  @Test
+  void retrieveMsgsDrainsABatch() throws InterruptedException {
+    var msgQueue = new MessageQueue();
+    for (var i = 0; i < 10; i++) {
+      msgQueue.submitMsg(new Message("m" + i));
+    }
+    var batch = new ArrayList<Message>();
+    assertEquals(4, msgQueue.retrieveMsgs(batch, 4, 1, TimeUnit.SECONDS));
+    assertEquals(6, msgQueue.retrieveMsgs(batch, 100, 1, TimeUnit.SECONDS));
+    assertEquals("m9", batch.get(9).getMsg());
+    assertEquals(0, msgQueue.retrieveMsgs(batch, 100, 10, TimeUnit.MILLISECONDS));
+    assertEquals(10, msgQueue.getWaitTimeHistogram().getCount());
+    assertEquals(10, msgQueue.getDepthHistogram().getMax());
+  }
+
+  @Test
+  void rejectCallbackReceivesOverflow() {
+    List<Message> rejected = new CopyOnWriteArrayList<>();
+    var msgQueue = new MessageQueue(2, 0, TimeUnit.MILLISECONDS, rejected::add);
+    assertTrue(msgQueue.submitMsg(new Message("a")));
+    assertTrue(msgQueue.submitMsg(new Message("b")));
+    var overflow = new Message("c");
+    assertFalse(msgQueue.submitMsg(overflow));
+    assertEquals(List.of(overflow), rejected);
+    assertEquals(1, msgQueue.getRejectedCount());
+  }
+
+  @Test
+  void timedSubmitWaitsBeforeRejecting() {
+    List<Message> rejected = new CopyOnWriteArrayList<>();
+    var msgQueue = new MessageQueue(1, 50, TimeUnit.MILLISECONDS, rejected::add);
+    msgQueue.submitMsg(new Message("a"));
+    var start = System.nanoTime();
+    assertFalse(msgQueue.submitMsg(new Message("b")));
+    assertTrue(System.nanoTime() - start >= TimeUnit.MILLISECONDS.toNanos(50));
+    assertEquals(1, rejected.size());
+  }
+
+  @Test
+  void blockingSubmitWaitsForRoom() throws InterruptedException {
+    var msgQueue = new MessageQueue(1);
+    msgQueue.submitMsg(new Message("a"));
+    var producer = new Thread(() -> msgQueue.submitMsg(new Message("b")));
+    producer.start();
+    while (producer.getState() != Thread.State.WAITING) {
+      Thread.sleep(1);
+    }
+    assertEquals("a", msgQueue.retrieveMsg().getMsg());
+    producer.join(5000);
+    assertEquals("b", msgQueue.retrieveMsg().getMsg());
+  }
+
 }
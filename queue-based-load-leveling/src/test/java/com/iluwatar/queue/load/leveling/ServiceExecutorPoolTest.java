@@ -0,0 +1,97 @@
+/*
+ * This project is licensed under the MIT license. Module model-view-viewmodel is using ZK framework licensed under LGPL (see lgpl-3.0.txt).
+ *
+ * The MIT License
+ * Copyright © 2014-2022 Ilkka Seppälä
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.iluwatar.queue.load.leveling;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Test case for the autoscaling {@link ServiceExecutorPool}.
+ */
+@Slf4j
+class ServiceExecutorPoolTest {
+
+  private static void sleep(long millis) {
+    try {
+      Thread.sleep(millis);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  private static void await(ServiceExecutorPool pool, String what,
+      BooleanSupplier condition) throws InterruptedException {
+    var deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(20);
+    while (!condition.getAsBoolean()) {
+      assertTrue(System.nanoTime() < deadline, what + " not reached, workers="
+          + pool.getWorkerCount());
+      Thread.sleep(5);
+    }
+  }
+
+  @Test
+  void scalesUpUnderBacklogAndDownWhenIdle() throws InterruptedException {
+    var msgQueue = new MessageQueue();
+    try (var pool = new ServiceExecutorPool(msgQueue, msg -> sleep(2), 1, 4,
+        Duration.ofMillis(20), Duration.ofMillis(100))) {
+      assertEquals(1, pool.getWorkerCount());
+      for (var i = 0; i < 400; i++) {
+        msgQueue.submitMsg(new Message("m" + i));
+      }
+      await(pool, "all served", () -> pool.getServedCount() == 400);
+      assertEquals(4, pool.getPeakWorkers());
+      await(pool, "scale down", () -> pool.getWorkerCount() == 1);
+
+      LOGGER.info("Queue depth: {}", msgQueue.getDepthHistogram());
+      LOGGER.info("Wait time: {}", msgQueue.getWaitTimeHistogram());
+      LOGGER.info("Service time: {}", pool.getServiceTimeHistogram());
+      assertEquals(400, msgQueue.getWaitTimeHistogram().getCount());
+      assertEquals(400, pool.getServiceTimeHistogram().getCount());
+    }
+  }
+
+  @Test
+  void servesImmediatelyWhenIdle() throws InterruptedException {
+    var msgQueue = new MessageQueue();
+    try (var pool = new ServiceExecutorPool(msgQueue, msg -> { }, 1, 2,
+        Duration.ofMillis(20), Duration.ofSeconds(1))) {
+      for (var i = 0; i < 20; i++) {
+        msgQueue.submitMsg(new Message("m" + i));
+        Thread.sleep(5);
+      }
+      await(pool, "all served", () -> pool.getServedCount() == 20);
+      // The old executor polled once a second; blocking retrieval serves within milliseconds.
+      assertTrue(msgQueue.getWaitTimeHistogram().getPercentile(99) < 100_000,
+          msgQueue.getWaitTimeHistogram().toString());
+      assertEquals(1, pool.getPeakWorkers());
+    }
+  }
+}
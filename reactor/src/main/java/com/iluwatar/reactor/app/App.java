@@ -25,6 +25,7 @@
 package com.iluwatar.reactor.app;
 
 import com.iluwatar.reactor.framework.AbstractNioChannel;
+import com.iluwatar.reactor.framework.ByteBufferPool;
 import com.iluwatar.reactor.framework.ChannelHandler;
 import com.iluwatar.reactor.framework.Dispatcher;
 import com.iluwatar.reactor.framework.NioDatagramChannel;
@@ -92,6 +93,8 @@ public class App {
   private NioReactor reactor;
   private final List<AbstractNioChannel> channels = new ArrayList<>();
   private final Dispatcher dispatcher;
+  private final int workerReactors;
+  private final ByteBufferPool bufferPool;
 
   /**
    * Creates an instance of App which will use provided dispatcher for dispatching events on
@@ -100,7 +103,30 @@ public class App {
    * @param dispatcher the dispatcher that will be used to dispatch events.
    */
   public App(Dispatcher dispatcher) {
+    this(dispatcher, 0);
+  }
+
+  /**
+   * Creates an instance of App whose reactor hands the TCP connections over to worker reactors.
+   *
+   * @param dispatcher     the dispatcher that will be used to dispatch events.
+   * @param workerReactors number of worker reactors, 0 to serve everything on one reactor.
+   */
+  public App(Dispatcher dispatcher, int workerReactors) {
+    this(dispatcher, workerReactors, new ByteBufferPool());
+  }
+
+  /**
+   * Creates an instance of App whose channels read into buffers from the given pool.
+   *
+   * @param dispatcher     the dispatcher that will be used to dispatch events.
+   * @param workerReactors number of worker reactors, 0 to serve everything on one reactor.
+   * @param bufferPool     the pool of read buffers, or null to allocate a buffer per read.
+   */
+  public App(Dispatcher dispatcher, int workerReactors, ByteBufferPool bufferPool) {
     this.dispatcher = dispatcher;
+    this.workerReactors = workerReactors;
+    this.bufferPool = bufferPool;
   }
 
   /**
@@ -119,7 +145,7 @@ public class App {
     /*
      * The application can customize its event dispatching mechanism.
      */
-    reactor = new NioReactor(dispatcher);
+    reactor = new NioReactor(dispatcher, workerReactors);
 
     /*
      * This represents application specific business logic that dispatcher will call on appropriate
@@ -154,14 +180,14 @@ public class App {
   }
 
   private AbstractNioChannel tcpChannel(int port, ChannelHandler handler) throws IOException {
-    var channel = new NioServerSocketChannel(port, handler);
+    var channel = new NioServerSocketChannel(port, handler, bufferPool);
     channel.bind();
     channels.add(channel);
     return channel;
   }
 
   private AbstractNioChannel udpChannel(int port, ChannelHandler handler) throws IOException {
-    var channel = new NioDatagramChannel(port, handler);
+    var channel = new NioDatagramChannel(port, handler, bufferPool);
     channel.bind();
     channels.add(channel);
     return channel;
@@ -0,0 +1,173 @@
+/*
+ * This project is licensed under the MIT license. Module model-view-viewmodel is using ZK framework licensed under LGPL (see lgpl-3.0.txt).
+ *
+ * The MIT License
+ * Copyright © 2014-2022 Ilkka Seppälä
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.iluwatar.reactor.app;
+
+import com.iluwatar.reactor.framework.AbstractNioChannel;
+import com.iluwatar.reactor.framework.BoundedDispatcher;
+import com.iluwatar.reactor.framework.ChannelHandler;
+import com.iluwatar.reactor.framework.Dispatcher;
+import com.iluwatar.reactor.framework.NioReactor;
+import com.iluwatar.reactor.framework.NioServerSocketChannel;
+import com.iluwatar.reactor.framework.OrderedDispatcher;
+import com.iluwatar.reactor.framework.SameThreadDispatcher;
+import com.iluwatar.reactor.framework.ThreadPoolDispatcher;
+import com.iluwatar.reactor.framework.VirtualThreadDispatcher;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.function.Supplier;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Compares the {@link Dispatcher}s with a handler that blocks, as one calling a database would.
+ * Each run starts a reactor on its own with one TCP channel whose handler sleeps before
+ * acknowledging, and drives it with back to back clients as {@link LoadGenerator} does.
+ *
+ * <p>Example: 'java -cp app.jar com.iluwatar.reactor.app.DispatcherBenchmark 64 5 2' runs 64
+ * connections for 5 seconds per dispatcher with handlers blocking for 2 milliseconds.
+ */
+@Slf4j
+public class DispatcherBenchmark {
+
+  private static final int PORT = 16670;
+  private static final byte[] ACK = "ok\n".getBytes();
+
+  /**
+   * Outcome of one run.
+   *
+   * @param dispatcher        name of the dispatcher
+   * @param requests          number of acknowledged requests
+   * @param requestsPerSecond throughput
+   * @param p99Micros         99th percentile latency in microseconds
+   */
+  public record Result(String dispatcher, long requests, double requestsPerSecond,
+                       long p99Micros) {
+  }
+
+  /**
+   * Benchmark entry.
+   *
+   * @param args connections, duration in seconds and handler blocking time in milliseconds.
+   * @throws Exception if the server fails to start or a client fails.
+   */
+  public static void main(String[] args) throws Exception {
+    var connections = args.length > 0 ? Integer.parseInt(args[0]) : 64;
+    var duration = Duration.ofSeconds(args.length > 1 ? Long.parseLong(args[1]) : 5);
+    var blocking = Duration.ofMillis(args.length > 2 ? Long.parseLong(args[2]) : 2);
+    for (var dispatcher : dispatchers(16).entrySet()) {
+      var result = run(dispatcher.getKey(), dispatcher.getValue().get(), connections, duration,
+          blocking);
+      LOGGER.info("{}: {} requests, {} req/s, p99 {} us", result.dispatcher(), result.requests(),
+          String.format("%.0f", result.requestsPerSecond()), result.p99Micros());
+    }
+  }
+
+  /**
+   * The dispatchers compared, by name.
+   *
+   * @param poolSize number of threads of the pooled dispatchers.
+   * @return factories of fresh dispatchers.
+   */
+  public static Map<String, Supplier<Dispatcher>> dispatchers(int poolSize) {
+    var dispatchers = new LinkedHashMap<String, Supplier<Dispatcher>>();
+    dispatchers.put("same-thread", SameThreadDispatcher::new);
+    dispatchers.put("thread-pool", () -> new ThreadPoolDispatcher(poolSize));
+    dispatchers.put("virtual-thread", VirtualThreadDispatcher::new);
+    dispatchers.put("ordered", () -> new OrderedDispatcher(poolSize));
+    dispatchers.put("bounded", () -> new BoundedDispatcher(poolSize, 8, 4));
+    return dispatchers;
+  }
+
+  /**
+   * Serves {@code connections} clients for {@code duration} with the given dispatcher.
+   *
+   * @param name        name of the dispatcher in the result.
+   * @param dispatcher  the dispatcher, stopped at the end of the run.
+   * @param connections number of concurrent client connections.
+   * @param duration    how long to send requests.
+   * @param blocking    how long the handler blocks per request.
+   * @return {@link Result}
+   * @throws Exception if the server fails to start or a client fails.
+   */
+  public static Result run(String name, Dispatcher dispatcher, int connections, Duration duration,
+                           Duration blocking) throws Exception {
+    var reactor = new NioReactor(dispatcher);
+    var channel = new NioServerSocketChannel(PORT, new BlockingHandler(blocking));
+    channel.bind();
+    reactor.registerChannel(channel).start();
+    var clients = Executors.newFixedThreadPool(connections);
+    try {
+      var deadline = System.nanoTime() + duration.toNanos();
+      var tasks = new ArrayList<Callable<long[]>>();
+      for (var i = 0; i < connections; i++) {
+        var client = "Benchmark client " + i;
+        tasks.add(() -> LoadGenerator.sendUntil(client, PORT, deadline));
+      }
+      var latencies = new ArrayList<long[]>();
+      for (var future : clients.invokeAll(tasks)) {
+        latencies.add(future.get());
+      }
+      var all = latencies.stream().flatMapToLong(Arrays::stream).sorted().toArray();
+      var p99 = all.length == 0 ? 0 : all[(int) Math.ceil(all.length * 0.99) - 1];
+      return new Result(name, all.length, all.length / (duration.toNanos() / 1e9), p99 / 1000);
+    } catch (ExecutionException e) {
+      throw (Exception) e.getCause();
+    } finally {
+      clients.shutdownNow();
+      reactor.stop();
+      dispatcher.stop();
+      channel.getJavaChannel().close();
+    }
+  }
+
+  /*
+   * Sleeps as if waiting on a remote call, then acknowledges.
+   */
+  private static class BlockingHandler implements ChannelHandler {
+    private final long blockingMillis;
+
+    BlockingHandler(Duration blocking) {
+      this.blockingMillis = blocking.toMillis();
+    }
+
+    @Override
+    public void handleChannelRead(AbstractNioChannel channel, Object readObject,
+                                  SelectionKey key) {
+      try {
+        Thread.sleep(blockingMillis);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+      channel.write(ByteBuffer.wrap(ACK), key);
+    }
+  }
+}
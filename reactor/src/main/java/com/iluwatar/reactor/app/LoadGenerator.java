@@ -0,0 +1,232 @@
+/*
+ * This project is licensed under the MIT license. Module model-view-viewmodel is using ZK framework licensed under LGPL (see lgpl-3.0.txt).
+ *
+ * The MIT License
+ * Copyright © 2014-2022 Ilkka Seppälä
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.iluwatar.reactor.app;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import com.iluwatar.reactor.framework.ByteBufferPool;
+import com.iluwatar.reactor.framework.ThreadPoolDispatcher;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import lombok.extern.slf4j.Slf4j;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Load generator for the logging server. It opens a number of TCP connections that send the same
+ * log requests as {@link AppClient}, but back to back instead of with an artificial delay, and
+ * reports the requests per second and the 99th percentile latency. The run is repeated for a
+ * growing number of worker reactors to show how the multi-reactor mode scales, once with pooled
+ * read buffers and once allocating a buffer per read, together with the garbage collections and
+ * the bytes allocated per request in the whole process (clients included).
+ *
+ * <p>Example: 'java -cp app.jar com.iluwatar.reactor.app.LoadGenerator 32 10 0 1 2 4' runs 32
+ * connections for 10 seconds against 0 (single reactor), 1, 2 and 4 worker reactors.
+ */
+@Slf4j
+public class LoadGenerator {
+
+  private static final int[] PORTS = {16666, 16667};
+
+  /**
+   * Outcome of one run.
+   *
+   * @param workerReactors    number of worker reactors
+   * @param pooledBuffers     whether the channels read into pooled buffers
+   * @param requests          number of acknowledged requests
+   * @param requestsPerSecond throughput
+   * @param p99Micros         99th percentile latency in microseconds
+   * @param collections       garbage collections during the run
+   * @param bytesPerRequest   bytes allocated per request
+   */
+  public record Result(int workerReactors, boolean pooledBuffers, long requests,
+                       double requestsPerSecond, long p99Micros, long collections,
+                       long bytesPerRequest) {
+  }
+
+  /**
+   * Load generator entry.
+   *
+   * @param args connections, duration in seconds and worker reactor counts.
+   * @throws Exception if the server fails to start or a client fails.
+   */
+  public static void main(String[] args) throws Exception {
+    var connections = args.length > 0 ? Integer.parseInt(args[0]) : 16;
+    var duration = Duration.ofSeconds(args.length > 1 ? Long.parseLong(args[1]) : 10);
+    var workerCounts = args.length > 2
+        ? Arrays.stream(args, 2, args.length).mapToInt(Integer::parseInt).toArray()
+        : new int[] {0, 1, 2, 4};
+    // One log line per request would measure the console, not the reactor.
+    ((Logger) LoggerFactory.getLogger(LoggingHandler.class)).setLevel(Level.WARN);
+    for (var workers : workerCounts) {
+      for (var pooled : new boolean[] {false, true}) {
+        var result = run(workers, connections, duration, pooled);
+        LOGGER.info("{} worker reactors, {} buffers: {} requests, {} req/s, p99 {} us, {} GCs, "
+                + "{} B/request", result.workerReactors(), pooled ? "pooled" : "per-read",
+            result.requests(), String.format("%.0f", result.requestsPerSecond()),
+            result.p99Micros(), result.collections(), result.bytesPerRequest());
+      }
+    }
+  }
+
+  /**
+   * Starts the logging server with the given number of worker reactors and pooled read buffers,
+   * and drives it with {@code connections} clients for {@code duration}.
+   *
+   * @param workerReactors number of worker reactors, 0 for a single reactor.
+   * @param connections    number of concurrent client connections.
+   * @param duration       how long to send requests.
+   * @return {@link Result}
+   * @throws Exception if the server fails to start or a client fails.
+   */
+  public static Result run(int workerReactors, int connections, Duration duration)
+      throws Exception {
+    return run(workerReactors, connections, duration, true);
+  }
+
+  /**
+   * Starts the logging server with the given number of worker reactors and drives it with
+   * {@code connections} clients for {@code duration}.
+   *
+   * @param workerReactors number of worker reactors, 0 for a single reactor.
+   * @param connections    number of concurrent client connections.
+   * @param duration       how long to send requests.
+   * @param pooledBuffers  whether the server reads into pooled buffers.
+   * @return {@link Result}
+   * @throws Exception if the server fails to start or a client fails.
+   */
+  public static Result run(int workerReactors, int connections, Duration duration,
+                           boolean pooledBuffers) throws Exception {
+    var app = new App(new ThreadPoolDispatcher(Runtime.getRuntime().availableProcessors()),
+        workerReactors, pooledBuffers ? new ByteBufferPool() : null);
+    app.start();
+    var collectionsBefore = collections();
+    var allocatedBefore = allocatedBytesPerThread();
+    var clients = Executors.newFixedThreadPool(connections);
+    try {
+      var deadline = System.nanoTime() + duration.toNanos();
+      var tasks = new ArrayList<Callable<long[]>>();
+      for (var i = 0; i < connections; i++) {
+        var port = PORTS[i % PORTS.length];
+        var name = "Load client " + i;
+        tasks.add(() -> sendUntil(name, port, deadline));
+      }
+      var latencies = new ArrayList<long[]>();
+      for (var future : clients.invokeAll(tasks)) {
+        latencies.add(future.get());
+      }
+      var allocated = allocatedBytesSince(allocatedBefore);
+      var requests = latencies.stream().mapToLong(l -> l.length).sum();
+      return summarize(workerReactors, pooledBuffers, latencies, duration,
+          collections() - collectionsBefore, requests == 0 ? 0 : allocated / requests);
+    } catch (ExecutionException e) {
+      throw (Exception) e.getCause();
+    } finally {
+      clients.shutdownNow();
+      app.stop();
+    }
+  }
+
+  /*
+   * Sends log requests one after the other until the deadline, recording the latency of each.
+   */
+  static long[] sendUntil(String name, int port, long deadline) throws IOException {
+    var latencies = new long[1024];
+    var count = 0;
+    try (var socket = new Socket(InetAddress.getLocalHost(), port)) {
+      socket.setTcpNoDelay(true);
+      var writer = new PrintWriter(socket.getOutputStream());
+      var input = socket.getInputStream();
+      var reply = new byte[1024];
+      while (System.nanoTime() < deadline) {
+        final var start = System.nanoTime();
+        writer.println(name + " - Log request: " + count);
+        writer.flush();
+        if (input.read(reply) < 0) {
+          throw new IOException("Server closed the connection");
+        }
+        if (count == latencies.length) {
+          latencies = Arrays.copyOf(latencies, count * 2);
+        }
+        latencies[count++] = System.nanoTime() - start;
+      }
+    }
+    return Arrays.copyOf(latencies, count);
+  }
+
+  private static Result summarize(int workerReactors, boolean pooledBuffers,
+                                  List<long[]> perClient, Duration duration, long collections,
+                                  long bytesPerRequest) {
+    var all = perClient.stream().flatMapToLong(Arrays::stream).sorted().toArray();
+    var p99 = all.length == 0 ? 0 : all[(int) Math.ceil(all.length * 0.99) - 1];
+    var seconds = duration.toNanos() / 1e9;
+    return new Result(workerReactors, pooledBuffers, all.length, all.length / seconds, p99 / 1000,
+        collections, bytesPerRequest);
+  }
+
+  private static long collections() {
+    return ManagementFactory.getGarbageCollectorMXBeans().stream()
+        .mapToLong(GarbageCollectorMXBean::getCollectionCount)
+        .filter(count -> count > 0)
+        .sum();
+  }
+
+  private static Map<Long, Long> allocatedBytesPerThread() {
+    var threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+    var ids = threads.getAllThreadIds();
+    var bytes = threads.getThreadAllocatedBytes(ids);
+    var allocated = new HashMap<Long, Long>();
+    for (var i = 0; i < ids.length; i++) {
+      allocated.put(ids[i], bytes[i]);
+    }
+    return allocated;
+  }
+
+  /*
+   * Bytes allocated by the threads alive now since the baseline, threads started after the
+   * baseline count from zero.
+   */
+  private static long allocatedBytesSince(Map<Long, Long> baseline) {
+    var total = 0L;
+    for (var entry : allocatedBytesPerThread().entrySet()) {
+      if (entry.getValue() > 0) {
+        total += entry.getValue() - baseline.getOrDefault(entry.getKey(), 0L);
+      }
+    }
+    return total;
+  }
+}
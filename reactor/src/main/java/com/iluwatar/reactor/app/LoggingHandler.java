@@ -25,10 +25,12 @@
 package com.iluwatar.reactor.app;
 
 import com.iluwatar.reactor.framework.AbstractNioChannel;
+import com.iluwatar.reactor.framework.BufferLease;
 import com.iluwatar.reactor.framework.ChannelHandler;
 import com.iluwatar.reactor.framework.NioDatagramChannel.DatagramPacket;
 import java.nio.ByteBuffer;
 import java.nio.channels.SelectionKey;
+import java.nio.charset.StandardCharsets;
 import lombok.extern.slf4j.Slf4j;
 
 /**
@@ -39,6 +41,11 @@ import lombok.extern.slf4j.Slf4j;
 public class LoggingHandler implements ChannelHandler {
 
   private static final byte[] ACK = "Data logged successfully".getBytes();
+  /**
+   * The acknowledgement in a direct buffer, each reply writes a duplicate of it.
+   */
+  private static final ByteBuffer ACK_BUFFER =
+      ByteBuffer.allocateDirect(ACK.length).put(ACK).flip().asReadOnlyBuffer();
 
   /**
    * Decodes the received data and logs it on standard console.
@@ -47,11 +54,15 @@ public class LoggingHandler implements ChannelHandler {
   public void handleChannelRead(AbstractNioChannel channel, Object readObject, SelectionKey key) {
     /*
      * As this handler is attached with both TCP and UDP channels we need to check whether the data
-     * received is a ByteBuffer (from TCP channel) or a DatagramPacket (from UDP channel).
+     * received is a ByteBuffer or BufferLease (from TCP channel) or a DatagramPacket (from UDP
+     * channel).
      */
     if (readObject instanceof ByteBuffer) {
       doLogging((ByteBuffer) readObject);
       sendReply(channel, key);
+    } else if (readObject instanceof BufferLease lease) {
+      doLogging(lease);
+      sendReply(channel, key);
     } else if (readObject instanceof DatagramPacket datagram) {
       doLogging(datagram.getData());
       sendReply(channel, datagram, key);
@@ -69,19 +80,30 @@ public class LoggingHandler implements ChannelHandler {
      * Create a reply acknowledgement datagram packet setting the receiver to the sender of incoming
      * message.
      */
-    var replyPacket = new DatagramPacket(ByteBuffer.wrap(ACK));
+    var replyPacket = new DatagramPacket(ACK_BUFFER.duplicate());
     replyPacket.setReceiver(incomingPacket.getSender());
 
     channel.write(replyPacket, key);
   }
 
   private static void sendReply(AbstractNioChannel channel, SelectionKey key) {
-    var buffer = ByteBuffer.wrap(ACK);
-    channel.write(buffer, key);
+    channel.write(ACK_BUFFER.duplicate(), key);
   }
 
   private static void doLogging(ByteBuffer data) {
     // assuming UTF-8 :(
-    LOGGER.info(new String(data.array(), 0, data.limit()));
+    LOGGER.info(StandardCharsets.UTF_8.decode(data.duplicate()).toString());
+  }
+
+  private static void doLogging(BufferLease lease) {
+    if (lease.count() == 1) {
+      doLogging(lease.buffer(0));
+      return;
+    }
+    var message = new StringBuilder(lease.remaining());
+    for (var i = 0; i < lease.count(); i++) {
+      message.append(StandardCharsets.UTF_8.decode(lease.buffer(i).duplicate()));
+    }
+    LOGGER.info(message.toString());
   }
 }
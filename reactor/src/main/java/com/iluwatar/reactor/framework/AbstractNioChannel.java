@@ -25,6 +25,7 @@
 package com.iluwatar.reactor.framework;
 
 import java.io.IOException;
+import java.nio.ByteBuffer;
 import java.nio.channels.SelectableChannel;
 import java.nio.channels.SelectionKey;
 import java.nio.channels.Selector;
@@ -32,6 +33,8 @@ import java.util.Map;
 import java.util.Queue;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
 import lombok.Getter;
 
 /**
@@ -43,14 +46,33 @@ import lombok.Getter;
  * the concrete implementation. It provides a block writing mechanism wherein when any {@link
  * ChannelHandler} wants to write data back, it queues the data in pending write queue and clears it
  * in block manner. This provides better throughput.
+ *
+ * <p>A block that does not fit in the socket send buffer stays queued, partially written, and the
+ * channel keeps waiting for writability until it is gone. The bytes queued per connection are
+ * checked against a high and a low watermark: crossing the high one makes the connection
+ * unwritable, dropping back to the low one makes it writable again, and the handler is told of
+ * both through {@link ChannelHandler#handleWritabilityChanged}.
  */
 public abstract class AbstractNioChannel {
 
+  /**
+   * Default queued bytes above which a connection becomes unwritable.
+   */
+  public static final int DEFAULT_HIGH_WATERMARK = 64 * 1024;
+  /**
+   * Default queued bytes at or below which a connection becomes writable again.
+   */
+  public static final int DEFAULT_LOW_WATERMARK = 32 * 1024;
+
   private final SelectableChannel channel;
   @Getter
   private final ChannelHandler handler;
-  private final Map<SelectableChannel, Queue<Object>> channelToPendingWrites;
+  private final Map<SelectableChannel, PendingWrites> channelToPendingWrites;
   private NioReactor reactor;
+  @Getter
+  private volatile int lowWatermark = DEFAULT_LOW_WATERMARK;
+  @Getter
+  private volatile int highWatermark = DEFAULT_HIGH_WATERMARK;
 
   /**
    * Creates a new channel.
@@ -71,6 +93,59 @@ public abstract class AbstractNioChannel {
     this.reactor = reactor;
   }
 
+  /**
+   * The reactor this channel is registered with.
+   */
+  NioReactor getReactor() {
+    return reactor;
+  }
+
+  /**
+   * Sets the watermarks of queued bytes applied to every connection of this channel.
+   *
+   * @param lowWatermark  queued bytes at or below which a connection becomes writable again.
+   * @param highWatermark queued bytes above which a connection becomes unwritable.
+   */
+  public void setWriteWatermarks(int lowWatermark, int highWatermark) {
+    if (lowWatermark < 0 || lowWatermark > highWatermark) {
+      throw new IllegalArgumentException(
+          "Invalid watermarks: low " + lowWatermark + ", high " + highWatermark);
+    }
+    this.lowWatermark = lowWatermark;
+    this.highWatermark = highWatermark;
+  }
+
+  /**
+   * Whether the bytes queued for the connection of <code>key</code> are below the high watermark,
+   * or have dropped back to the low one since they crossed it. A handler that keeps writing to an
+   * unwritable connection only grows its queue.
+   *
+   * @param key the key of the connection.
+   * @return true if the handler can write without piling up data.
+   */
+  public boolean isWritable(SelectionKey key) {
+    var pendingWrites = channelToPendingWrites.get(key.channel());
+    return pendingWrites == null || pendingWrites.writable.get();
+  }
+
+  /**
+   * Number of bytes queued and not yet written for the connection of <code>key</code>.
+   *
+   * @param key the key of the connection.
+   * @return queued byte count.
+   */
+  public long getPendingBytes(SelectionKey key) {
+    var pendingWrites = channelToPendingWrites.get(key.channel());
+    return pendingWrites == null ? 0 : pendingWrites.bytes.get();
+  }
+
+  /**
+   * Number of connections with writes queued.
+   */
+  int getQueuedConnections() {
+    return channelToPendingWrites.size();
+  }
+
   /**
    * Get channel.
    *
@@ -107,18 +182,80 @@ public abstract class AbstractNioChannel {
   public abstract Object read(SelectionKey key) throws IOException;
 
   /*
-   * Called from the context of reactor thread when the key becomes writable. The channel writes the
-   * whole pending block of data at once.
+   * Called from the context of reactor thread when the key becomes writable. The channel writes as
+   * much of the pending block as the socket takes, and keeps the key interested in writing until
+   * nothing is left.
    */
   void flush(SelectionKey key) throws IOException {
     var pendingWrites = channelToPendingWrites.get(key.channel());
+    if (pendingWrites == null) {
+      reactor.flushed(key, () -> nothingQueued(key));
+      return;
+    }
+    var written = doWrite(pendingWrites.queue, key);
+    var pendingBytes = pendingWrites.bytes.addAndGet(-written);
+    if (pendingBytes <= lowWatermark && pendingWrites.writable.compareAndSet(false, true)) {
+      handler.handleWritabilityChanged(this, key, true);
+    }
+    if (!pendingWrites.queue.isEmpty()) {
+      // the socket is full, the rest goes out on the next writable event
+      return;
+    }
+    pendingWrites.flushScheduled.set(false);
+    if (!pendingWrites.queue.isEmpty() && pendingWrites.flushScheduled.compareAndSet(false, true)) {
+      // a write slipped in after the queue was drained
+      return;
+    }
+    // We don't have anything more to write so channel is interested in reading more data, unless
+    // a write queued since has already asked for writing
+    reactor.flushed(key, () -> nothingQueued(key));
+  }
+
+  private boolean nothingQueued(SelectionKey key) {
+    var pendingWrites = channelToPendingWrites.get(key.channel());
+    return pendingWrites == null || pendingWrites.queue.isEmpty();
+  }
+
+  /*
+   * Called from the context of reactor thread once the connection of the key is closed, drops what
+   * could not be written. A write racing with the close drops its own data, see write.
+   */
+  void discardPendingWrites(SelectionKey key) {
+    var pendingWrites = channelToPendingWrites.remove(key.channel());
+    if (pendingWrites == null) {
+      return;
+    }
+    Object pendingWrite;
+    while ((pendingWrite = pendingWrites.queue.poll()) != null) {
+      ReferenceCounted.releaseIfCounted(pendingWrite);
+    }
+  }
+
+  /**
+   * Writes as much of the pending block to the channel as it takes. Fully written data is removed
+   * from the queue and released, data the channel could not take stays at the head of the queue,
+   * partially written buffers keeping their position. The default implementation writes one
+   * pending write at a time and assumes each is written completely; channels that can hand several
+   * buffers to a single gathering write, or that can run out of send buffer, override it.
+   *
+   * @param pendingWrites the queued data.
+   * @param key           the key which is writable.
+   * @return the number of bytes written, as counted by {@link #sizeOf(Object)}.
+   * @throws IOException if any I/O error occurs.
+   */
+  protected long doWrite(Queue<Object> pendingWrites, SelectionKey key) throws IOException {
+    var written = 0L;
     Object pendingWrite;
     while ((pendingWrite = pendingWrites.poll()) != null) {
+      written += sizeOf(pendingWrite);
       // ask the concrete channel to make sense of data and write it to java channel
-      doWrite(pendingWrite, key);
+      try {
+        doWrite(pendingWrite, key);
+      } finally {
+        ReferenceCounted.releaseIfCounted(pendingWrite);
+      }
     }
-    // We don't have anything more to write so channel is interested in reading more data
-    reactor.changeOps(key, SelectionKey.OP_READ);
+    return written;
   }
 
   /**
@@ -130,9 +267,27 @@ public abstract class AbstractNioChannel {
    */
   protected abstract void doWrite(Object pendingWrite, SelectionKey key) throws IOException;
 
+  /**
+   * Number of bytes a pending write puts on the wire, counted against the watermarks.
+   *
+   * @param pendingWrite the data to be written on channel.
+   * @return remaining bytes of a {@link ByteBuffer} or {@link BufferLease}, 0 for anything else.
+   */
+  protected int sizeOf(Object pendingWrite) {
+    if (pendingWrite instanceof ByteBuffer buffer) {
+      return buffer.remaining();
+    } else if (pendingWrite instanceof BufferLease lease) {
+      return lease.remaining();
+    }
+    return 0;
+  }
+
   /**
    * Queues the data for writing. The data is not guaranteed to be written on underlying channel
-   * when this method returns. It will be written when the channel is flushed.
+   * when this method returns. It will be written when the channel is flushed. Data that is
+   * {@link ReferenceCounted} is released once written, so a handler writing back a read object
+   * must {@link ReferenceCounted#retain()} it first. Data written to a closed connection is
+   * released and dropped.
    *
    * <p>This method is used by the {@link ChannelHandler} to send reply back to the client. <br>
    * Example:
@@ -152,13 +307,47 @@ public abstract class AbstractNioChannel {
    * @param key  the key which is writable.
    */
   public void write(Object data, SelectionKey key) {
+    if (isClosed(key)) {
+      ReferenceCounted.releaseIfCounted(data);
+      return;
+    }
     var pendingWrites = this.channelToPendingWrites.get(key.channel());
     if (pendingWrites == null) {
-      synchronized (this.channelToPendingWrites) {
-        pendingWrites = this.channelToPendingWrites.computeIfAbsent(key.channel(), k -> new ConcurrentLinkedQueue<>());
-      }
+      pendingWrites = this.channelToPendingWrites.computeIfAbsent(key.channel(),
+          k -> new PendingWrites());
     }
-    pendingWrites.add(data);
-    reactor.changeOps(key, SelectionKey.OP_WRITE);
+    pendingWrites.queue.add(data);
+    // The reactor closes the channel before discarding its writes, so if it was closed meanwhile
+    // the entry may have been made after the discard: nothing else would remove it.
+    if (isClosed(key)) {
+      discardPendingWrites(key);
+      return;
+    }
+    var pendingBytes = pendingWrites.bytes.addAndGet(sizeOf(data));
+    if (pendingBytes > highWatermark && pendingWrites.writable.compareAndSet(true, false)) {
+      handler.handleWritabilityChanged(this, key, false);
+    }
+    // only the first write after a flush needs to make the key interested in writing
+    if (pendingWrites.flushScheduled.compareAndSet(false, true)) {
+      reactor.changeOps(key, SelectionKey.OP_WRITE);
+    }
+  }
+
+  private static boolean isClosed(SelectionKey key) {
+    return !key.isValid() || !key.channel().isOpen();
+  }
+
+  /**
+   * Writes queued for one connection.
+   */
+  private static final class PendingWrites {
+    private final Queue<Object> queue = new ConcurrentLinkedQueue<>();
+    private final AtomicLong bytes = new AtomicLong();
+    private final AtomicBoolean writable = new AtomicBoolean(true);
+    /**
+     * Set from the first write until a flush has drained the queue, while the key is interested in
+     * writing.
+     */
+    private final AtomicBoolean flushScheduled = new AtomicBoolean();
   }
 }
@@ -0,0 +1,128 @@
+/*
+ * This project is licensed under the MIT license. Module model-view-viewmodel is using ZK framework licensed under LGPL (see lgpl-3.0.txt).
+ *
+ * The MIT License
+ * Copyright © 2014-2022 Ilkka Seppälä
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.iluwatar.reactor.framework;
+
+import java.nio.channels.SelectionKey;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A pooled implementation that bounds the read events waiting per channel. When a channel has
+ * <code>highWatermark</code> events queued or running, the dispatcher pauses reading from it
+ * through {@link NioReactor#pauseReading(SelectionKey)}; the unread data stays in the socket and
+ * TCP flow control pushes back on the client. Once the channel is down to <code>lowWatermark</code>
+ * events, reading resumes. A slow or flooding client thus cannot fill the pool queue and the
+ * memory of the server, while the other channels are served as usual.
+ */
+public class BoundedDispatcher implements Dispatcher {
+
+  private final ExecutorService executorService;
+  private final int highWatermark;
+  private final int lowWatermark;
+  private final Map<SelectionKey, AtomicInteger> pendingEvents = new ConcurrentHashMap<>();
+
+  /**
+   * Creates a bounded dispatcher.
+   *
+   * @param poolSize      number of pooled threads
+   * @param highWatermark events per channel at which reading from the channel is paused
+   * @param lowWatermark  events per channel at which reading from the channel is resumed
+   */
+  public BoundedDispatcher(int poolSize, int highWatermark, int lowWatermark) {
+    if (lowWatermark < 0 || lowWatermark >= highWatermark) {
+      throw new IllegalArgumentException(
+          "Invalid watermarks: low " + lowWatermark + ", high " + highWatermark);
+    }
+    this.executorService = Executors.newFixedThreadPool(poolSize);
+    this.highWatermark = highWatermark;
+    this.lowWatermark = lowWatermark;
+  }
+
+  /**
+   * Submits the read event to the pool, pausing reads from the channel when it reaches the high
+   * watermark. <br> Note that this is a non-blocking call and returns immediately.
+   */
+  @Override
+  public void onChannelReadEvent(AbstractNioChannel channel, Object readObject, SelectionKey key) {
+    // only the event loop owning the key adds events, the workers only remove them
+    var pending = pendingEvents.computeIfAbsent(key, k -> new AtomicInteger());
+    if (pending.incrementAndGet() == highWatermark) {
+      channel.getReactor().pauseReading(key);
+    }
+    executorService.execute(() -> {
+      try {
+        Dispatcher.handle(channel, readObject, key);
+      } finally {
+        if (pending.decrementAndGet() == lowWatermark) {
+          channel.getReactor().resumeReading(key);
+        }
+      }
+    });
+  }
+
+  /**
+   * Forgets the count of the closed channel. Its events still running keep their own reference to
+   * the count.
+   */
+  @Override
+  public void onChannelClosed(SelectionKey key) {
+    pendingEvents.remove(key);
+  }
+
+  /**
+   * Number of channels whose events are counted.
+   */
+  int getTrackedChannels() {
+    return pendingEvents.size();
+  }
+
+  /**
+   * Events queued or running for the key.
+   *
+   * @param key the key of a channel.
+   * @return event count.
+   */
+  public int getPendingEvents(SelectionKey key) {
+    var pending = pendingEvents.get(key);
+    return pending == null ? 0 : pending.get();
+  }
+
+  /**
+   * Stops the pool of workers.
+   *
+   * @throws InterruptedException if interrupted while stopping pool of workers.
+   */
+  @Override
+  public void stop() throws InterruptedException {
+    executorService.shutdown();
+    if (!executorService.awaitTermination(4, TimeUnit.SECONDS)) {
+      executorService.shutdownNow();
+    }
+  }
+}
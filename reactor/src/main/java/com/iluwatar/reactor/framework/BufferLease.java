@@ -0,0 +1,156 @@
+/*
+ * This project is licensed under the MIT license. Module model-view-viewmodel is using ZK framework licensed under LGPL (see lgpl-3.0.txt).
+ *
+ * The MIT License
+ * Copyright © 2014-2022 Ilkka Seppälä
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.iluwatar.reactor.framework;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A sequence of pooled direct buffers holding one read, or one write, of a channel. A TCP read
+ * that does not fit in the first buffer continues into further buffers with a scattering read,
+ * so nothing is truncated. Once read, the buffers are flipped and {@link #buffers()} returns them
+ * ready to be consumed in order.
+ *
+ * <p>The lease goes back to its {@link ByteBufferPool} when its reference count drops to zero;
+ * its buffers must not be used after that.
+ */
+public class BufferLease implements ReferenceCounted {
+
+  /**
+   * Most buffers a lease can hold.
+   */
+  static final int MAX_BUFFERS = 16;
+
+  private final ByteBufferPool pool;
+  private final ByteBuffer[] buffers = new ByteBuffer[MAX_BUFFERS];
+  private final AtomicInteger referenceCount = new AtomicInteger();
+  private int count;
+
+  BufferLease(ByteBufferPool pool) {
+    this.pool = pool;
+  }
+
+  void reset() {
+    count = 0;
+    referenceCount.set(1);
+  }
+
+  /**
+   * Appends a fresh buffer from the pool.
+   *
+   * @param capacity bytes needed.
+   * @return false if the lease is full.
+   */
+  boolean addBuffer(int capacity) {
+    if (count == MAX_BUFFERS) {
+      return false;
+    }
+    buffers[count++] = pool.acquire(capacity);
+    return true;
+  }
+
+  /**
+   * The backing array, valid from index 0 to {@link #count()}.
+   */
+  ByteBuffer[] array() {
+    return buffers;
+  }
+
+  /**
+   * Number of buffers held.
+   *
+   * @return count.
+   */
+  public int count() {
+    return count;
+  }
+
+  /**
+   * Prepares the buffers for reading what was written into them.
+   */
+  void flip() {
+    for (var i = 0; i < count; i++) {
+      buffers[i].flip();
+    }
+  }
+
+  /**
+   * The buffers holding the data, in order.
+   *
+   * @return a copy of the buffer array; the buffers themselves are shared.
+   */
+  public ByteBuffer[] buffers() {
+    return Arrays.copyOf(buffers, count);
+  }
+
+  /**
+   * Buffer at the given index.
+   *
+   * @param index from 0 to {@link #count()}.
+   * @return the buffer.
+   */
+  public ByteBuffer buffer(int index) {
+    return buffers[index];
+  }
+
+  /**
+   * Bytes left to consume over all buffers.
+   *
+   * @return byte count.
+   */
+  public int remaining() {
+    var remaining = 0;
+    for (var i = 0; i < count; i++) {
+      remaining += buffers[i].remaining();
+    }
+    return remaining;
+  }
+
+  @Override
+  public void retain() {
+    if (referenceCount.getAndIncrement() <= 0) {
+      referenceCount.getAndDecrement();
+      throw new IllegalStateException("Lease already released");
+    }
+  }
+
+  @Override
+  public void release() {
+    var remaining = referenceCount.decrementAndGet();
+    if (remaining > 0) {
+      return;
+    }
+    if (remaining < 0) {
+      throw new IllegalStateException("Lease released too often");
+    }
+    for (var i = 0; i < count; i++) {
+      pool.recycle(buffers[i]);
+      buffers[i] = null;
+    }
+    count = 0;
+    pool.recycle(this);
+  }
+}
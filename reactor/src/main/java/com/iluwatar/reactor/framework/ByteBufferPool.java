@@ -0,0 +1,157 @@
+/*
+ * This project is licensed under the MIT license. Module model-view-viewmodel is using ZK framework licensed under LGPL (see lgpl-3.0.txt).
+ *
+ * The MIT License
+ * Copyright © 2014-2022 Ilkka Seppälä
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.iluwatar.reactor.framework;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A pool of direct {@link ByteBuffer}s in a few size classes. Direct buffers let the channels read
+ * and write without the JDK copying through its own temporary direct buffer, and pooling them (and
+ * the {@link BufferLease}s wrapping them) means a server under steady load allocates no buffers at
+ * all. Each size class keeps at most a fixed number of idle buffers; when a class runs dry a new
+ * buffer is allocated, and buffers released into a full class are left to the garbage collector.
+ *
+ * <p>The pool is thread-safe, it is shared by all channels and worker reactors of a server.
+ */
+public class ByteBufferPool {
+
+  /**
+   * Capacity of the buffers in each size class.
+   */
+  private static final int[] SIZE_CLASSES = {1024, 4 * 1024, 16 * 1024, 64 * 1024};
+  /**
+   * Default number of idle buffers kept per size class.
+   */
+  public static final int DEFAULT_MAX_IDLE = 256;
+
+  private final ArrayBlockingQueue<ByteBuffer>[] idleBuffers;
+  private final ArrayBlockingQueue<BufferLease> idleLeases;
+  private final AtomicLong allocatedBuffers = new AtomicLong();
+  private final AtomicLong acquiredBuffers = new AtomicLong();
+
+  /**
+   * Creates a pool keeping {@link #DEFAULT_MAX_IDLE} idle buffers per size class.
+   */
+  public ByteBufferPool() {
+    this(DEFAULT_MAX_IDLE);
+  }
+
+  /**
+   * Creates a pool.
+   *
+   * @param maxIdle number of idle buffers kept per size class.
+   */
+  @SuppressWarnings("unchecked")
+  public ByteBufferPool(int maxIdle) {
+    idleBuffers = new ArrayBlockingQueue[SIZE_CLASSES.length];
+    for (var i = 0; i < SIZE_CLASSES.length; i++) {
+      idleBuffers[i] = new ArrayBlockingQueue<>(maxIdle);
+    }
+    idleLeases = new ArrayBlockingQueue<>(maxIdle);
+  }
+
+  /**
+   * Largest buffer the pool hands out.
+   *
+   * @return capacity in bytes.
+   */
+  public static int maxCapacity() {
+    return SIZE_CLASSES[SIZE_CLASSES.length - 1];
+  }
+
+  /**
+   * Leases an empty set of buffers, to be filled with {@link #acquire(int)}.
+   *
+   * @return a lease with a reference count of one.
+   */
+  public BufferLease lease() {
+    var lease = idleLeases.poll();
+    if (lease == null) {
+      lease = new BufferLease(this);
+    }
+    lease.reset();
+    return lease;
+  }
+
+  /**
+   * Takes a cleared buffer of at least the given capacity, up to {@link #maxCapacity()}.
+   *
+   * @param minCapacity bytes needed.
+   * @return a direct buffer.
+   */
+  public ByteBuffer acquire(int minCapacity) {
+    var sizeClass = sizeClassOf(minCapacity);
+    acquiredBuffers.incrementAndGet();
+    var buffer = idleBuffers[sizeClass].poll();
+    if (buffer == null) {
+      allocatedBuffers.incrementAndGet();
+      return ByteBuffer.allocateDirect(SIZE_CLASSES[sizeClass]);
+    }
+    return buffer;
+  }
+
+  /**
+   * Number of buffers allocated because the pool had none idle.
+   *
+   * @return count since the pool was created.
+   */
+  public long getAllocatedBuffers() {
+    return allocatedBuffers.get();
+  }
+
+  /**
+   * Number of buffers handed out.
+   *
+   * @return count since the pool was created.
+   */
+  public long getAcquiredBuffers() {
+    return acquiredBuffers.get();
+  }
+
+  void recycle(ByteBuffer buffer) {
+    for (var i = 0; i < SIZE_CLASSES.length; i++) {
+      if (buffer.capacity() == SIZE_CLASSES[i]) {
+        buffer.clear();
+        idleBuffers[i].offer(buffer);
+        return;
+      }
+    }
+  }
+
+  void recycle(BufferLease lease) {
+    idleLeases.offer(lease);
+  }
+
+  private static int sizeClassOf(int capacity) {
+    for (var i = 0; i < SIZE_CLASSES.length; i++) {
+      if (capacity <= SIZE_CLASSES[i]) {
+        return i;
+      }
+    }
+    throw new IllegalArgumentException("No size class holds " + capacity + " bytes");
+  }
+}
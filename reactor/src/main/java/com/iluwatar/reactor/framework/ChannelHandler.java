@@ -44,4 +44,18 @@ public interface ChannelHandler {
    * @param key        the key on which read event occurred.
    */
   void handleChannelRead(AbstractNioChannel channel, Object readObject, SelectionKey key);
+
+  /**
+   * Called when the data queued for a connection crosses the high watermark of the {@code
+   * channel}, and when it drops back to the low watermark. Does nothing by default.
+   *
+   * @param channel  the channel of the connection.
+   * @param key      the key of the connection.
+   * @param writable false once the high watermark is crossed, true once back at the low one.
+   * @see AbstractNioChannel#setWriteWatermarks(int, int)
+   */
+  default void handleWritabilityChanged(AbstractNioChannel channel, SelectionKey key,
+                                        boolean writable) {
+    // no-op
+  }
 }
@@ -38,6 +38,9 @@ import java.nio.channels.SelectionKey;
  *
  * @see SameThreadDispatcher
  * @see ThreadPoolDispatcher
+ * @see VirtualThreadDispatcher
+ * @see OrderedDispatcher
+ * @see BoundedDispatcher
  */
 public interface Dispatcher {
   /**
@@ -46,6 +49,8 @@ public interface Dispatcher {
    * associated {@link ChannelHandler} of <code>channel</code>.
    *
    * <p>The type of <code>readObject</code> depends on the channel on which data was received.
+   * Once the handler returns the implementation should release the <code>readObject</code>, as
+   * {@link #handle(AbstractNioChannel, Object, SelectionKey)} does, handing pooled buffers back.
    *
    * @param channel    on which read event occurred
    * @param readObject object read by channel
@@ -53,10 +58,35 @@ public interface Dispatcher {
    */
   void onChannelReadEvent(AbstractNioChannel channel, Object readObject, SelectionKey key);
 
+  /**
+   * This hook method is called from the reactor thread once the channel of the key is closed, so
+   * that the implementation can drop what it keeps per channel. Read events of the channel may
+   * still be queued or running.
+   *
+   * @param key of the closed channel
+   */
+  default void onChannelClosed(SelectionKey key) {
+  }
+
   /**
    * Stops dispatching events and cleans up any acquired resources such as threads.
    *
    * @throws InterruptedException if interrupted while stopping dispatcher.
    */
   void stop() throws InterruptedException;
+
+  /**
+   * Calls the handler of the channel and then releases the read object.
+   *
+   * @param channel    on which read event occurred
+   * @param readObject object read by channel
+   * @param key        on which event occurred
+   */
+  static void handle(AbstractNioChannel channel, Object readObject, SelectionKey key) {
+    try {
+      channel.getHandler().handleChannelRead(channel, readObject, key);
+    } finally {
+      ReferenceCounted.releaseIfCounted(readObject);
+    }
+  }
 }
@@ -31,6 +31,8 @@ import java.net.SocketAddress;
 import java.nio.ByteBuffer;
 import java.nio.channels.DatagramChannel;
 import java.nio.channels.SelectionKey;
+import java.util.Queue;
+import lombok.AccessLevel;
 import lombok.Getter;
 import lombok.Setter;
 import lombok.extern.slf4j.Slf4j;
@@ -42,6 +44,7 @@ import lombok.extern.slf4j.Slf4j;
 public class NioDatagramChannel extends AbstractNioChannel {
 
   private final int port;
+  private final ByteBufferPool pool;
 
   /**
    * Creates a {@link DatagramChannel} which will bind at provided port and use <code>handler</code>
@@ -55,8 +58,24 @@ public class NioDatagramChannel extends AbstractNioChannel {
    * @throws IOException if any I/O error occurs.
    */
   public NioDatagramChannel(int port, ChannelHandler handler) throws IOException {
+    this(port, handler, null);
+  }
+
+  /**
+   * Creates a {@link DatagramChannel} which receives into direct buffers taken from
+   * <code>pool</code>. The buffers are big enough for any datagram, and go back to the pool once
+   * the handler returns.
+   *
+   * @param port    the port to be bound to listen for incoming datagram requests.
+   * @param handler the handler to be used for handling incoming requests on this channel.
+   * @param pool    the buffer pool, or null to receive into a fresh heap {@link ByteBuffer}.
+   * @throws IOException if any I/O error occurs.
+   */
+  public NioDatagramChannel(int port, ChannelHandler handler, ByteBufferPool pool)
+      throws IOException {
     super(handler, DatagramChannel.open());
     this.port = port;
+    this.pool = pool;
   }
 
   @Override
@@ -74,6 +93,9 @@ public class NioDatagramChannel extends AbstractNioChannel {
    */
   @Override
   public DatagramPacket read(SelectionKey key) throws IOException {
+    if (pool != null) {
+      return readPooled(key);
+    }
     var buffer = ByteBuffer.allocate(1024);
     var sender = ((DatagramChannel) key.channel()).receive(buffer);
 
@@ -88,6 +110,21 @@ public class NioDatagramChannel extends AbstractNioChannel {
     return packet;
   }
 
+  private DatagramPacket readPooled(SelectionKey key) throws IOException {
+    var lease = pool.lease();
+    try {
+      lease.addBuffer(ByteBufferPool.maxCapacity());
+      var sender = ((DatagramChannel) key.channel()).receive(lease.buffer(0));
+      lease.flip();
+      var packet = new DatagramPacket(lease);
+      packet.setSender(sender);
+      return packet;
+    } catch (IOException e) {
+      lease.release();
+      throw e;
+    }
+  }
+
   /**
    * Get datagram channel.
    *
@@ -120,6 +157,33 @@ public class NioDatagramChannel extends AbstractNioChannel {
     getJavaChannel().send(pendingPacket.getData(), pendingPacket.getReceiver());
   }
 
+  /**
+   * Sends the pending packets until the socket has no room for the next one, which then stays
+   * queued for the next writable event. A datagram is sent whole or not at all.
+   */
+  @Override
+  protected long doWrite(Queue<Object> pendingWrites, SelectionKey key) throws IOException {
+    var written = 0L;
+    Object pendingWrite;
+    while ((pendingWrite = pendingWrites.peek()) != null) {
+      var pendingPacket = (DatagramPacket) pendingWrite;
+      var sent = getJavaChannel().send(pendingPacket.getData(), pendingPacket.getReceiver());
+      if (sent == 0 && pendingPacket.getData().hasRemaining()) {
+        return written;
+      }
+      written += sent;
+      pendingWrites.poll();
+      ReferenceCounted.releaseIfCounted(pendingWrite);
+    }
+    return written;
+  }
+
+  @Override
+  protected int sizeOf(Object pendingWrite) {
+    return pendingWrite instanceof DatagramPacket packet
+        ? packet.getData().remaining() : super.sizeOf(pendingWrite);
+  }
+
   /**
    * Writes the outgoing {@link DatagramPacket} to the channel. The intended receiver of the
    * datagram packet must be set in the <code>data</code> using {@link
@@ -131,11 +195,14 @@ public class NioDatagramChannel extends AbstractNioChannel {
   }
 
   /**
-   * Container of data used for {@link NioDatagramChannel} to communicate with remote peer.
+   * Container of data used for {@link NioDatagramChannel} to communicate with remote peer. A packet
+   * received into a pooled buffer holds the {@link BufferLease} of that buffer.
    */
   @Getter
-  public static class DatagramPacket {
+  public static class DatagramPacket implements ReferenceCounted {
     private final ByteBuffer data;
+    @Getter(AccessLevel.NONE)
+    private final BufferLease lease;
     @Setter
     private SocketAddress sender;
     @Setter
@@ -148,6 +215,26 @@ public class NioDatagramChannel extends AbstractNioChannel {
      */
     public DatagramPacket(ByteBuffer data) {
       this.data = data;
+      this.lease = null;
+    }
+
+    private DatagramPacket(BufferLease lease) {
+      this.data = lease.buffer(0);
+      this.lease = lease;
+    }
+
+    @Override
+    public void retain() {
+      if (lease != null) {
+        lease.retain();
+      }
+    }
+
+    @Override
+    public void release() {
+      if (lease != null) {
+        lease.release();
+      }
     }
   }
 }
@@ -28,11 +28,16 @@ import java.io.IOException;
 import java.nio.channels.SelectionKey;
 import java.nio.channels.Selector;
 import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
 import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
 import lombok.extern.slf4j.Slf4j;
 
 /**
@@ -46,6 +51,12 @@ import lombok.extern.slf4j.Slf4j;
  * #start()} method. {@link NioReactor} uses {@link Selector} for realizing Synchronous Event
  * De-multiplexing.
  *
+ * <p>Multi-reactor mode: a reactor created with worker reactors only accepts connections on its
+ * own selector (the boss) and hands every accepted {@link SocketChannel} to the least loaded of N
+ * worker reactors, each running its own selector loop. All reads and writes of that connection
+ * then happen on the worker, so the I/O work spreads over N threads. Datagram channels have no
+ * accept step and stay on the boss.
+ *
  * <p>NOTE: This is one of the ways to implement NIO reactor, and it does not take care of all
  * possible edge cases which are required in a real application. This implementation is meant to
  * demonstrate the fundamental concepts that lie behind Reactor pattern.
@@ -63,6 +74,26 @@ public class NioReactor {
    */
   private final Queue<Runnable> pendingCommands = new ConcurrentLinkedQueue<>();
   private final ExecutorService reactorMain = Executors.newSingleThreadExecutor();
+  /**
+   * Reactors serving the accepted connections, empty in single reactor mode.
+   */
+  private final NioReactor[] workers;
+  /**
+   * Connections currently served by this reactor, used to pick the least loaded worker.
+   */
+  private final AtomicInteger connections = new AtomicInteger();
+  /**
+   * Where the search for the least loaded worker starts, so ties are broken round-robin.
+   */
+  private int nextWorker;
+  /**
+   * Thread running the event loop, which can change interest operations without a command.
+   */
+  private volatile Thread loopThread;
+  /**
+   * Keys whose reads are paused, only changed by the event loop.
+   */
+  private final Set<SelectionKey> readPaused = ConcurrentHashMap.newKeySet();
 
   /**
    * Creates a reactor which will use provided {@code dispatcher} to dispatch events. The
@@ -72,14 +103,33 @@ public class NioReactor {
    * @throws IOException if any I/O error occurs.
    */
   public NioReactor(Dispatcher dispatcher) throws IOException {
+    this(dispatcher, 0);
+  }
+
+  /**
+   * Creates a multi-reactor: this reactor accepts the connections and {@code workerCount} worker
+   * reactors, sharing the {@code dispatcher}, serve them.
+   *
+   * @param dispatcher  a non-null dispatcher used to dispatch events on registered channels.
+   * @param workerCount number of worker reactors, 0 to serve every channel on this reactor.
+   * @throws IOException if any I/O error occurs.
+   */
+  public NioReactor(Dispatcher dispatcher, int workerCount) throws IOException {
     this.dispatcher = dispatcher;
     this.selector = Selector.open();
+    this.workers = new NioReactor[workerCount];
+    for (var i = 0; i < workerCount; i++) {
+      workers[i] = new NioReactor(dispatcher, 0);
+    }
   }
 
   /**
-   * Starts the reactor event loop in a new thread.
+   * Starts the reactor event loop, and those of the workers, in new threads.
    */
   public void start() {
+    for (var worker : workers) {
+      worker.start();
+    }
     reactorMain.execute(() -> {
       try {
         LOGGER.info("Reactor started, waiting for events...");
@@ -97,6 +147,9 @@ public class NioReactor {
    * @throws IOException          if any I/O error occurs.
    */
   public void stop() throws InterruptedException, IOException {
+    for (var worker : workers) {
+      worker.stop();
+    }
     reactorMain.shutdown();
     selector.wakeup();
     if (!reactorMain.awaitTermination(4, TimeUnit.SECONDS)) {
@@ -124,8 +177,9 @@ public class NioReactor {
   }
 
   private void eventLoop() throws IOException {
-    // honor interrupt request
-    while (!Thread.interrupted()) {
+    loopThread = Thread.currentThread();
+    // honor interrupt and stop requests
+    while (!Thread.interrupted() && !reactorMain.isShutdown()) {
       // honor any pending commands first
       processPendingCommands();
 
@@ -176,9 +230,13 @@ public class NioReactor {
     }
   }
 
-  private static void onChannelWritable(SelectionKey key) throws IOException {
+  private void onChannelWritable(SelectionKey key) {
     var channel = (AbstractNioChannel) key.attachment();
-    channel.flush(key);
+    try {
+      channel.flush(key);
+    } catch (IOException e) {
+      close(key);
+    }
   }
 
   private void onChannelReadable(SelectionKey key) {
@@ -187,11 +245,23 @@ public class NioReactor {
       var readObject = ((AbstractNioChannel) key.attachment()).read(key);
       dispatchReadEvent(key, readObject);
     } catch (IOException e) {
-      try {
-        key.channel().close();
-      } catch (IOException e1) {
-        LOGGER.error("error closing channel", e1);
+      close(key);
+    }
+  }
+
+  private void close(SelectionKey key) {
+    try {
+      if (key.channel() instanceof SocketChannel) {
+        connections.decrementAndGet();
       }
+      readPaused.remove(key);
+      key.channel().close();
+    } catch (IOException e1) {
+      LOGGER.error("error closing channel", e1);
+    } finally {
+      // after closing, so a concurrent write either is discarded here or sees the channel closed
+      ((AbstractNioChannel) key.attachment()).discardPendingWrites(key);
+      dispatcher.onChannelClosed(key);
     }
   }
 
@@ -205,9 +275,74 @@ public class NioReactor {
   private void onChannelAcceptable(SelectionKey key) throws IOException {
     var serverSocketChannel = (ServerSocketChannel) key.channel();
     var socketChannel = serverSocketChannel.accept();
+    if (socketChannel == null) {
+      return;
+    }
     socketChannel.configureBlocking(false);
-    var readKey = socketChannel.register(selector, SelectionKey.OP_READ);
-    readKey.attach(key.attachment());
+    if (workers.length == 0) {
+      connections.incrementAndGet();
+      var readKey = socketChannel.register(selector, SelectionKey.OP_READ);
+      readKey.attach(key.attachment());
+    } else {
+      leastLoadedWorker().registerAccepted(socketChannel, key.attachment());
+    }
+  }
+
+  /*
+   * Only called from the boss event loop, so the round-robin start needs no synchronization.
+   */
+  private NioReactor leastLoadedWorker() {
+    var chosen = workers[nextWorker];
+    for (var i = 1; i < workers.length; i++) {
+      var candidate = workers[(nextWorker + i) % workers.length];
+      if (candidate.connections.get() < chosen.connections.get()) {
+        chosen = candidate;
+      }
+    }
+    nextWorker = (nextWorker + 1) % workers.length;
+    return chosen;
+  }
+
+  /*
+   * Registers a connection accepted by the boss reactor. Registration is done by the worker's own
+   * event loop, as registering while its selector is blocked in select() would block the boss.
+   */
+  private void registerAccepted(SocketChannel socketChannel, Object attachment) {
+    connections.incrementAndGet();
+    pendingCommands.add(() -> {
+      try {
+        socketChannel.register(selector, SelectionKey.OP_READ).attach(attachment);
+      } catch (IOException e) {
+        connections.decrementAndGet();
+        LOGGER.error("error registering accepted channel", e);
+      }
+    });
+    selector.wakeup();
+  }
+
+  /**
+   * Number of worker reactors.
+   *
+   * @return 0 in single reactor mode.
+   */
+  public int getWorkerCount() {
+    return workers.length;
+  }
+
+  /**
+   * Connections served by each worker reactor.
+   *
+   * @return open connection count per worker, or of this reactor in single reactor mode.
+   */
+  public int[] getConnectionCounts() {
+    if (workers.length == 0) {
+      return new int[] {connections.get()};
+    }
+    var counts = new int[workers.length];
+    for (var i = 0; i < workers.length; i++) {
+      counts[i] = workers[i].connections.get();
+    }
+    return counts;
   }
 
   /**
@@ -215,20 +350,100 @@ public class NioReactor {
    * operations of the channel sometime in the future.
    *
    * <p>This is a non-blocking method and does not guarantee that the operations have changed when
-   * this method returns.
+   * this method returns. Called from the event loop of the reactor owning the key, the operations
+   * are changed right away, without a command or a selector wakeup.
    *
    * @param key           the key for which operations have to be changed.
    * @param interestedOps the new interest operations.
    */
   public void changeOps(SelectionKey key, int interestedOps) {
-    pendingCommands.add(new ChangeKeyOpsCommand(key, interestedOps));
+    // Channels only know the reactor they were registered with, which is the boss for
+    // connections served by a worker.
+    var owner = ownerOf(key);
+    owner.runOnLoop(owner.new ChangeKeyOpsCommand(key, interestedOps));
+  }
+
+  /*
+   * Makes the key of a flushed channel interested in reading again, unless data has been queued
+   * since. Called from the event loop, the check runs after any change to OP_WRITE a concurrent
+   * write has queued, so that change can never be undone by this one.
+   */
+  void flushed(SelectionKey key, BooleanSupplier drained) {
+    var owner = ownerOf(key);
+    owner.runOnLoop(() -> owner.new ChangeKeyOpsCommand(key,
+        drained.getAsBoolean() ? SelectionKey.OP_READ : SelectionKey.OP_WRITE).run());
+  }
+
+  /**
+   * Stops reading from the channel of the key until {@link #resumeReading(SelectionKey)}, leaving
+   * the unread data in the socket so TCP flow control slows the peer down. Pending writes still go
+   * out.
+   *
+   * @param key the key whose reads are paused.
+   */
+  public void pauseReading(SelectionKey key) {
+    var owner = ownerOf(key);
+    owner.runOnLoop(() -> {
+      if (key.isValid() && owner.readPaused.add(key)) {
+        key.interestOps(key.interestOps() & ~SelectionKey.OP_READ);
+      }
+    });
+  }
+
+  /**
+   * Reads from the channel of the key again after {@link #pauseReading(SelectionKey)}.
+   *
+   * @param key the key whose reads are resumed.
+   */
+  public void resumeReading(SelectionKey key) {
+    var owner = ownerOf(key);
+    owner.runOnLoop(() -> {
+      // a key busy writing goes back to reading once flushed
+      if (owner.readPaused.remove(key) && key.isValid() && key.interestOps() == 0) {
+        key.interestOps(SelectionKey.OP_READ);
+      }
+    });
+  }
+
+  /**
+   * Whether reads from the channel of the key are paused.
+   *
+   * @param key the key.
+   * @return true between {@link #pauseReading(SelectionKey)} and {@link
+   *     #resumeReading(SelectionKey)}.
+   */
+  public boolean isReadingPaused(SelectionKey key) {
+    return ownerOf(key).readPaused.contains(key);
+  }
+
+  /*
+   * Runs the command right away when called from the event loop, after any command queued before
+   * it, otherwise queues it and wakes the selector up.
+   */
+  private void runOnLoop(Runnable command) {
+    if (Thread.currentThread() == loopThread) {
+      processPendingCommands();
+      command.run();
+      return;
+    }
+    pendingCommands.add(command);
     selector.wakeup();
   }
 
+  private NioReactor ownerOf(SelectionKey key) {
+    for (var worker : workers) {
+      if (key.selector() == worker.selector) {
+        return worker;
+      }
+    }
+    return this;
+  }
+
   /**
-   * A command that changes the interested operations of the key provided.
+   * A command that changes the interested operations of the key provided. Reading stays off while
+   * the key is paused.
    */
-  static class ChangeKeyOpsCommand implements Runnable {
+  class ChangeKeyOpsCommand implements Runnable {
     private final SelectionKey key;
     private final int interestedOps;
 
@@ -238,7 +453,14 @@ public class NioReactor {
     }
 
     public void run() {
-      key.interestOps(interestedOps);
+      // the connection may have been closed since the command was queued
+      if (!key.isValid()) {
+        return;
+      }
+      var ops = readPaused.contains(key) ? interestedOps & ~SelectionKey.OP_READ : interestedOps;
+      if (key.interestOps() != ops) {
+        key.interestOps(ops);
+      }
     }
 
     @Override
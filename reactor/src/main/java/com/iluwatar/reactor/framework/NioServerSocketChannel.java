@@ -31,6 +31,8 @@ import java.nio.ByteBuffer;
 import java.nio.channels.SelectionKey;
 import java.nio.channels.ServerSocketChannel;
 import java.nio.channels.SocketChannel;
+import java.util.Arrays;
+import java.util.Queue;
 import lombok.extern.slf4j.Slf4j;
 
 /**
@@ -40,7 +42,23 @@ import lombok.extern.slf4j.Slf4j;
 @Slf4j
 public class NioServerSocketChannel extends AbstractNioChannel {
 
+  /**
+   * Size of the first buffer of a pooled read, enough for a typical request.
+   */
+  private static final int FIRST_READ_CAPACITY = 1024;
+  /**
+   * Buffers added per scattering read once the first buffer is full.
+   */
+  private static final int SCATTER_WIDTH = 2;
+  /**
+   * Most buffers handed to a single gathering write.
+   */
+  private static final int GATHER_LIMIT = 64;
+  private static final ThreadLocal<ByteBuffer[]> GATHER_BUFFERS =
+      ThreadLocal.withInitial(() -> new ByteBuffer[GATHER_LIMIT]);
+
   private final int port;
+  private final ByteBufferPool pool;
 
   /**
    * Creates a {@link ServerSocketChannel} which will bind at provided port and use
@@ -54,8 +72,24 @@ public class NioServerSocketChannel extends AbstractNioChannel {
    * @throws IOException if any I/O error occurs.
    */
   public NioServerSocketChannel(int port, ChannelHandler handler) throws IOException {
+    this(port, handler, null);
+  }
+
+  /**
+   * Creates a {@link ServerSocketChannel} which reads into direct buffers taken from
+   * <code>pool</code>. Reads are handed to the handler as a {@link BufferLease} which is released
+   * once the handler returns.
+   *
+   * @param port    the port on which channel will be bound to accept incoming connection requests.
+   * @param handler the handler that will handle incoming requests on this channel.
+   * @param pool    the buffer pool, or null to read into a fresh heap {@link ByteBuffer} each time.
+   * @throws IOException if any I/O error occurs.
+   */
+  public NioServerSocketChannel(int port, ChannelHandler handler, ByteBufferPool pool)
+      throws IOException {
     super(handler, ServerSocketChannel.open());
     this.port = port;
+    this.pool = pool;
   }
 
 
@@ -77,12 +111,16 @@ public class NioServerSocketChannel extends AbstractNioChannel {
 
   /**
    * Reads and returns {@link ByteBuffer} from the underlying {@link SocketChannel} represented by
-   * the <code>key</code>. Due to the fact that there is a dedicated channel for each client
-   * connection we don't need to store the sender.
+   * the <code>key</code>, or a {@link BufferLease} when the channel has a pool. Due to the fact
+   * that there is a dedicated channel for each client connection we don't need to store the
+   * sender.
    */
   @Override
-  public ByteBuffer read(SelectionKey key) throws IOException {
+  public Object read(SelectionKey key) throws IOException {
     var socketChannel = (SocketChannel) key.channel();
+    if (pool != null) {
+      return readPooled(socketChannel);
+    }
     var buffer = ByteBuffer.allocate(1024);
     var read = socketChannel.read(buffer);
     buffer.flip();
@@ -92,6 +130,36 @@ public class NioServerSocketChannel extends AbstractNioChannel {
     return buffer;
   }
 
+  /*
+   * Reads into a small first buffer and, as long as the buffers fill up, scatters the rest of the
+   * available bytes over larger ones, so a request bigger than the first buffer arrives whole.
+   */
+  private BufferLease readPooled(SocketChannel socketChannel) throws IOException {
+    var lease = pool.lease();
+    try {
+      lease.addBuffer(FIRST_READ_CAPACITY);
+      if (socketChannel.read(lease.buffer(0)) == -1) {
+        throw new IOException("Socket closed");
+      }
+      while (!lease.buffer(lease.count() - 1).hasRemaining()) {
+        var offset = lease.count();
+        var added = 0;
+        while (added < SCATTER_WIDTH && lease.addBuffer(ByteBufferPool.maxCapacity())) {
+          added++;
+        }
+        if (added == 0
+            || socketChannel.read(lease.array(), offset, lease.count() - offset) <= 0) {
+          break;
+        }
+      }
+      lease.flip();
+      return lease;
+    } catch (IOException e) {
+      lease.release();
+      throw e;
+    }
+  }
+
   /**
    * Binds TCP socket on the provided <code>port</code>.
    *
@@ -111,7 +179,58 @@ public class NioServerSocketChannel extends AbstractNioChannel {
    */
   @Override
   protected void doWrite(Object pendingWrite, SelectionKey key) throws IOException {
-    var pendingBuffer = (ByteBuffer) pendingWrite;
-    ((SocketChannel) key.channel()).write(pendingBuffer);
+    var socketChannel = (SocketChannel) key.channel();
+    if (pendingWrite instanceof BufferLease lease) {
+      socketChannel.write(lease.array(), 0, lease.count());
+    } else {
+      socketChannel.write((ByteBuffer) pendingWrite);
+    }
+  }
+
+  /**
+   * Writes the pending block with gathering writes, coalescing up to {@value #GATHER_LIMIT} queued
+   * buffers into one call instead of one call per buffer. Stops when the socket takes less than it
+   * was given; the partially written buffer keeps its position and is resumed on the next writable
+   * event.
+   */
+  @Override
+  protected long doWrite(Queue<Object> pendingWrites, SelectionKey key) throws IOException {
+    var socketChannel = (SocketChannel) key.channel();
+    var buffers = GATHER_BUFFERS.get();
+    var written = 0L;
+    while (true) {
+      var bufferCount = 0;
+      var offered = 0L;
+      var iterator = pendingWrites.iterator();
+      while (bufferCount <= GATHER_LIMIT - BufferLease.MAX_BUFFERS && iterator.hasNext()) {
+        var pendingWrite = iterator.next();
+        if (pendingWrite instanceof BufferLease lease) {
+          for (var i = 0; i < lease.count(); i++) {
+            buffers[bufferCount++] = lease.buffer(i);
+          }
+        } else {
+          buffers[bufferCount++] = (ByteBuffer) pendingWrite;
+        }
+        offered += sizeOf(pendingWrite);
+      }
+      if (bufferCount == 0) {
+        return written;
+      }
+      long accepted;
+      try {
+        accepted = socketChannel.write(buffers, 0, bufferCount);
+      } finally {
+        Arrays.fill(buffers, 0, bufferCount, null);
+      }
+      written += accepted;
+      Object head;
+      while ((head = pendingWrites.peek()) != null && sizeOf(head) == 0) {
+        pendingWrites.poll();
+        ReferenceCounted.releaseIfCounted(head);
+      }
+      if (accepted < offered) {
+        return written;
+      }
+    }
   }
 }
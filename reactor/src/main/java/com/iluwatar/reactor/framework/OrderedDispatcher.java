@@ -0,0 +1,147 @@
+/*
+ * This project is licensed under the MIT license. Module model-view-viewmodel is using ZK framework licensed under LGPL (see lgpl-3.0.txt).
+ *
+ * The MIT License
+ * Copyright © 2014-2022 Ilkka Seppälä
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.iluwatar.reactor.framework;
+
+import java.nio.channels.SelectionKey;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * An implementation that handles the read events of one channel one after the other, in the order
+ * they were read, while events of different channels run in parallel on a pool of worker threads.
+ *
+ * <p>Every key maps to one of a fixed number of lanes. A lane is a queue of events which is drained
+ * by at most one worker at a time, so a lane needs no thread of its own and an idle connection
+ * costs nothing. Two channels sharing a lane are serialized too; with many more lanes than workers
+ * this rarely matters. After {@value #BATCH} events a lane goes to the back of the pool queue,
+ * so a busy channel does not starve the others.
+ */
+@Slf4j
+public class OrderedDispatcher implements Dispatcher {
+
+  /**
+   * Default number of lanes.
+   */
+  public static final int DEFAULT_LANES = 1024;
+  private static final int BATCH = 16;
+
+  private final ExecutorService executorService;
+  private final Lane[] lanes;
+
+  /**
+   * Creates an ordered dispatcher with {@link #DEFAULT_LANES} lanes.
+   *
+   * @param poolSize number of pooled threads
+   */
+  public OrderedDispatcher(int poolSize) {
+    this(poolSize, DEFAULT_LANES);
+  }
+
+  /**
+   * Creates an ordered dispatcher.
+   *
+   * @param poolSize  number of pooled threads
+   * @param laneCount number of lanes the keys are spread over
+   */
+  public OrderedDispatcher(int poolSize, int laneCount) {
+    this.executorService = Executors.newFixedThreadPool(poolSize);
+    this.lanes = new Lane[laneCount];
+    for (var i = 0; i < laneCount; i++) {
+      lanes[i] = new Lane();
+    }
+  }
+
+  /**
+   * Queues the read event on the lane of its key. <br> Note that this is a non-blocking call and
+   * returns immediately.
+   */
+  @Override
+  public void onChannelReadEvent(AbstractNioChannel channel, Object readObject, SelectionKey key) {
+    laneOf(key).execute(() -> Dispatcher.handle(channel, readObject, key));
+  }
+
+  /**
+   * Stops the pool of workers.
+   *
+   * @throws InterruptedException if interrupted while stopping pool of workers.
+   */
+  @Override
+  public void stop() throws InterruptedException {
+    executorService.shutdown();
+    if (!executorService.awaitTermination(4, TimeUnit.SECONDS)) {
+      executorService.shutdownNow();
+    }
+  }
+
+  private Lane laneOf(SelectionKey key) {
+    var hash = System.identityHashCode(key);
+    hash ^= hash >>> 16;
+    return lanes[(hash & Integer.MAX_VALUE) % lanes.length];
+  }
+
+  /**
+   * Events of the keys mapped to one lane.
+   */
+  private final class Lane implements Runnable {
+    private final Queue<Runnable> events = new ConcurrentLinkedQueue<>();
+    /**
+     * Queued events plus the one running, the lane is submitted to the pool when it leaves 0.
+     */
+    private final AtomicInteger size = new AtomicInteger();
+
+    void execute(Runnable event) {
+      events.add(event);
+      if (size.getAndIncrement() == 0) {
+        executorService.execute(this);
+      }
+    }
+
+    @Override
+    public void run() {
+      var more = true;
+      try {
+        for (var i = 0; i < BATCH && more; i++) {
+          try {
+            events.poll().run();
+          } catch (RuntimeException e) {
+            LOGGER.error("error handling read event", e);
+          } finally {
+            more = size.decrementAndGet() != 0;
+          }
+        }
+      } finally {
+        // also when an event threw an error, so the lane's later events still run
+        if (more) {
+          executorService.execute(this);
+        }
+      }
+    }
+  }
+}
@@ -0,0 +1,55 @@
+/*
+ * This project is licensed under the MIT license. Module model-view-viewmodel is using ZK framework licensed under LGPL (see lgpl-3.0.txt).
+ *
+ * The MIT License
+ * Copyright © 2014-2022 Ilkka Seppälä
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.iluwatar.reactor.framework;
+
+/**
+ * An object holding pooled resources that are handed back once every holder has released it. The
+ * reactor creates read objects with a count of one and the {@link Dispatcher} releases them after
+ * the {@link ChannelHandler} returns, so a handler that keeps a read object beyond that, for
+ * instance to write it back later, has to {@link #retain()} it.
+ */
+public interface ReferenceCounted {
+
+  /**
+   * Adds a holder.
+   */
+  void retain();
+
+  /**
+   * Removes a holder, freeing the resources when it was the last one.
+   */
+  void release();
+
+  /**
+   * Releases the object if it is reference counted.
+   *
+   * @param object a read object or pending write.
+   */
+  static void releaseIfCounted(Object object) {
+    if (object instanceof ReferenceCounted counted) {
+      counted.release();
+    }
+  }
+}
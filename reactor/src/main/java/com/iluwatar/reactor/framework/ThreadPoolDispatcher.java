@@ -54,7 +54,7 @@ public class ThreadPoolDispatcher implements Dispatcher {
    */
   @Override
   public void onChannelReadEvent(AbstractNioChannel channel, Object readObject, SelectionKey key) {
-    executorService.execute(() -> channel.getHandler().handleChannelRead(channel, readObject, key));
+    executorService.execute(() -> Dispatcher.handle(channel, readObject, key));
   }
 
   /**
@@ -65,7 +65,7 @@ public class ThreadPoolDispatcher implements Dispatcher {
   @Override
   public void stop() throws InterruptedException {
     executorService.shutdown();
-    if (executorService.awaitTermination(4, TimeUnit.SECONDS)) {
+    if (!executorService.awaitTermination(4, TimeUnit.SECONDS)) {
       executorService.shutdownNow();
     }
   }
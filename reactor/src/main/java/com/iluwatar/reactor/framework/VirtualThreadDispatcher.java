@@ -0,0 +1,94 @@
+/*
+ * This project is licensed under the MIT license. Module model-view-viewmodel is using ZK framework licensed under LGPL (see lgpl-3.0.txt).
+ *
+ * The MIT License
+ * Copyright © 2014-2022 Ilkka Seppälä
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.iluwatar.reactor.framework;
+
+import java.nio.channels.SelectionKey;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * An implementation that handles every read event in a thread of its own. On a JDK with virtual
+ * threads (21 and later) these are virtual threads, so a handler blocking on I/O parks a cheap
+ * virtual thread instead of holding on to one of a few pooled platform threads. On older JDKs it
+ * falls back to a cached pool of platform threads, which still never queues an event behind a
+ * blocked handler but costs a platform thread per concurrently blocked handler.
+ *
+ * <p>Events of one channel may be handled concurrently and out of order, see {@link
+ * OrderedDispatcher} when that matters.
+ */
+@Slf4j
+public class VirtualThreadDispatcher implements Dispatcher {
+
+  private final ExecutorService executorService;
+  /**
+   * Whether the events run on virtual threads, false on a JDK without them.
+   */
+  @Getter
+  private final boolean virtual;
+
+  /**
+   * Creates a dispatcher starting a thread per read event.
+   */
+  public VirtualThreadDispatcher() {
+    ExecutorService executor;
+    var virtualThreads = true;
+    try {
+      // looked up reflectively as the project compiles for a JDK without virtual threads
+      executor = (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor")
+          .invoke(null);
+    } catch (ReflectiveOperationException e) {
+      LOGGER.info("Virtual threads are not available, using a cached thread pool");
+      executor = Executors.newCachedThreadPool();
+      virtualThreads = false;
+    }
+    this.executorService = executor;
+    this.virtual = virtualThreads;
+  }
+
+  /**
+   * Starts a thread handling the read event. <br> Note that this is a non-blocking call and
+   * returns immediately.
+   */
+  @Override
+  public void onChannelReadEvent(AbstractNioChannel channel, Object readObject, SelectionKey key) {
+    executorService.execute(() -> Dispatcher.handle(channel, readObject, key));
+  }
+
+  /**
+   * Stops accepting events and waits for the running handlers.
+   *
+   * @throws InterruptedException if interrupted while waiting for the handlers.
+   */
+  @Override
+  public void stop() throws InterruptedException {
+    executorService.shutdown();
+    if (!executorService.awaitTermination(4, TimeUnit.SECONDS)) {
+      executorService.shutdownNow();
+    }
+  }
+}
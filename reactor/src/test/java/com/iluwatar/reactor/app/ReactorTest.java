@@ -24,11 +24,14 @@
  */
 package com.iluwatar.reactor.app;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 import com.iluwatar.reactor.framework.SameThreadDispatcher;
 import com.iluwatar.reactor.framework.ThreadPoolDispatcher;
 import java.io.IOException;
+import java.time.Duration;
 import lombok.extern.slf4j.Slf4j;
 import org.junit.jupiter.api.Test;
 
@@ -102,4 +105,62 @@ class ReactorTest {
     app.stop();
     LOGGER.info("testAppUsingSameThreadDispatcher stop");
   }
+
+  /**
+   * Test the application using a boss reactor handing connections to worker reactors.
+   *
+   * @throws IOException          if any I/O error occurs.
+   * @throws InterruptedException if interrupted while stopping the application.
+   */
+  @Test
+  void testAppUsingMultiReactor() throws IOException, InterruptedException {
+    LOGGER.info("testAppUsingMultiReactor start");
+    var app = new App(new ThreadPoolDispatcher(2), 2);
+    app.start();
+
+    assertNotNull(app);
+
+    var client = new AppClient();
+    client.start();
+
+    assertNotNull(client);
+
+    // allow clients to send requests. Artificial delay.
+    try {
+      Thread.sleep(2000);
+    } catch (InterruptedException e) {
+      LOGGER.error("sleep interrupted", e);
+    }
+
+    client.stop();
+
+    app.stop();
+    LOGGER.info("testAppUsingMultiReactor stop");
+  }
+
+  /**
+   * Test that the load generator gets every request acknowledged with worker reactors.
+   *
+   * @throws Exception if the server fails to start or a client fails.
+   */
+  @Test
+  void testLoadGeneratorWithWorkerReactors() throws Exception {
+    var result = LoadGenerator.run(2, 4, Duration.ofMillis(500));
+    assertEquals(2, result.workerReactors());
+    assertTrue(result.requests() > 0);
+  }
+
+  /**
+   * Test that every dispatcher of the benchmark serves requests from blocking handlers.
+   *
+   * @throws Exception if the server fails to start or a client fails.
+   */
+  @Test
+  void testDispatcherBenchmark() throws Exception {
+    for (var dispatcher : DispatcherBenchmark.dispatchers(2).entrySet()) {
+      var result = DispatcherBenchmark.run(dispatcher.getKey(), dispatcher.getValue().get(), 4,
+          Duration.ofMillis(200), Duration.ofMillis(1));
+      assertTrue(result.requests() > 0, dispatcher.getKey());
+    }
+  }
 }
@@ -0,0 +1,211 @@
+/*
+ * This project is licensed under the MIT license. Module model-view-viewmodel is using ZK framework licensed under LGPL (see lgpl-3.0.txt).
+ *
+ * The MIT License
+ * Copyright © 2014-2022 Ilkka Seppälä
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.iluwatar.reactor.framework;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.net.StandardSocketOptions;
+import java.nio.ByteBuffer;
+import java.nio.channels.Pipe;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.SocketChannel;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.BooleanSupplier;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests writing more data than the socket send buffer holds to a slow reader, and writing from
+ * many threads at once.
+ */
+class AbstractNioChannelTest {
+
+  private static final int CHUNKS = 64;
+  private static final int CHUNK_SIZE = 64 * 1024;
+  private static final int ROUNDS = 200;
+  private static final int WRITERS = 4;
+  private static final int WRITES = 32;
+
+  @Test
+  void largeResponseIsResumedAfterPartialWrites() throws Exception {
+    var writability = new CopyOnWriteArrayList<Boolean>();
+    var handler = new StreamingHandler(writability);
+    var reactor = new NioReactor(new SameThreadDispatcher());
+    var channel = new NioServerSocketChannel(16682, handler);
+    channel.setWriteWatermarks(128 * 1024, 512 * 1024);
+    channel.bind();
+    reactor.registerChannel(channel).start();
+    try (var socket = new Socket(InetAddress.getLocalHost(), 16682)) {
+      socket.getOutputStream().write('x');
+      socket.getOutputStream().flush();
+      // let the server fill the socket buffers before reading anything
+      Thread.sleep(300);
+      var input = new DataInputStream(socket.getInputStream());
+      var chunk = new byte[CHUNK_SIZE];
+      for (var i = 0; i < CHUNKS; i++) {
+        input.readFully(chunk);
+        for (var b : chunk) {
+          assertEquals((byte) i, b, "chunk " + i);
+        }
+      }
+      waitFor(() -> writability.size() == 2);
+      assertEquals(List.of(false, true), writability);
+      assertEquals(0, channel.getPendingBytes(handler.key));
+      assertTrue(channel.isWritable(handler.key));
+    } finally {
+      reactor.stop();
+      channel.getJavaChannel().close();
+    }
+  }
+
+  @Test
+  void concurrentWritesAreNeverStranded() throws Exception {
+    var reactor = new NioReactor(new SameThreadDispatcher());
+    var channel = new NioServerSocketChannel(16684, new ConcurrentWritersHandler());
+    channel.bind();
+    reactor.registerChannel(channel).start();
+    try (var socket = new Socket(InetAddress.getLocalHost(), 16684)) {
+      // a write left queued with the key only interested in reading would never arrive
+      socket.setSoTimeout(5000);
+      var input = new DataInputStream(socket.getInputStream());
+      for (var round = 0; round < ROUNDS; round++) {
+        socket.getOutputStream().write('x');
+        socket.getOutputStream().flush();
+        var next = new int[WRITERS];
+        for (var i = 0; i < WRITERS * WRITES; i++) {
+          var writer = input.readInt();
+          assertEquals(next[writer]++, input.readInt(), "round " + round + ", writer " + writer);
+        }
+      }
+    } finally {
+      reactor.stop();
+      channel.getJavaChannel().close();
+    }
+  }
+
+  @Test
+  void writeToAClosedConnectionIsReleased() throws Exception {
+    var channel = new NioServerSocketChannel(0, (c, readObject, key) -> { });
+    var pool = new ByteBufferPool(4);
+    try (var selector = Selector.open()) {
+      var source = Pipe.open().source();
+      source.configureBlocking(false);
+      var key = source.register(selector, SelectionKey.OP_READ);
+      source.close();
+
+      var lease = pool.lease();
+      lease.addBuffer(100);
+      channel.write(lease, key);
+
+      assertThrows(IllegalStateException.class, lease::retain);
+      assertEquals(0, channel.getQueuedConnections());
+      assertEquals(0, channel.getPendingBytes(key));
+    } finally {
+      channel.getJavaChannel().close();
+    }
+  }
+
+  @Test
+  void watermarksMustBeOrdered() throws Exception {
+    var channel = new NioServerSocketChannel(16683, (c, readObject, key) -> { });
+    assertThrows(IllegalArgumentException.class, () -> channel.setWriteWatermarks(10, 5));
+    channel.getJavaChannel().close();
+  }
+
+  private static void waitFor(BooleanSupplier condition)
+      throws InterruptedException {
+    for (var i = 0; i < 100 && !condition.getAsBoolean(); i++) {
+      Thread.sleep(20);
+    }
+  }
+
+  /*
+   * Answers the first read with CHUNKS buffers, each filled with its index.
+   */
+  private static class StreamingHandler implements ChannelHandler {
+    private final List<Boolean> writability;
+    private volatile SelectionKey key;
+
+    StreamingHandler(List<Boolean> writability) {
+      this.writability = writability;
+    }
+
+    @Override
+    public void handleChannelRead(AbstractNioChannel channel, Object readObject,
+                                  SelectionKey key) {
+      this.key = key;
+      for (var i = 0; i < CHUNKS; i++) {
+        var chunk = ByteBuffer.allocate(CHUNK_SIZE);
+        while (chunk.hasRemaining()) {
+          chunk.put((byte) i);
+        }
+        channel.write(chunk.flip(), key);
+      }
+    }
+
+    @Override
+    public void handleWritabilityChanged(AbstractNioChannel channel, SelectionKey key,
+                                         boolean writable) {
+      writability.add(writable);
+    }
+  }
+
+  /*
+   * Answers every read with WRITERS threads each writing WRITES numbered messages, pausing now and
+   * then so flushes drain the queue while others write.
+   */
+  private static class ConcurrentWritersHandler implements ChannelHandler {
+    @Override
+    public void handleChannelRead(AbstractNioChannel channel, Object readObject,
+                                  SelectionKey key) {
+      try {
+        // small messages, sent without waiting for acknowledgements
+        ((SocketChannel) key.channel()).setOption(StandardSocketOptions.TCP_NODELAY, true);
+      } catch (IOException e) {
+        throw new UncheckedIOException(e);
+      }
+      for (var w = 0; w < WRITERS; w++) {
+        var writer = w;
+        new Thread(() -> {
+          for (var i = 0; i < WRITES; i++) {
+            channel.write(ByteBuffer.allocate(8).putInt(writer).putInt(i).flip(), key);
+            if (i % 4 == 0) {
+              LockSupport.parkNanos(20_000);
+            }
+          }
+        }).start();
+      }
+    }
+  }
+}
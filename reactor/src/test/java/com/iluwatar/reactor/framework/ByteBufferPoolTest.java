@@ -0,0 +1,158 @@
+/*
+ * This project is licensed under the MIT license. Module model-view-viewmodel is using ZK framework licensed under LGPL (see lgpl-3.0.txt).
+ *
+ * The MIT License
+ * Copyright © 2014-2022 Ilkka Seppälä
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.iluwatar.reactor.framework;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.iluwatar.reactor.framework.NioDatagramChannel.DatagramPacket;
+import java.io.ByteArrayOutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.nio.ByteBuffer;
+import java.nio.channels.DatagramChannel;
+import java.util.Arrays;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests for {@link ByteBufferPool} and the channels reading into pooled buffers.
+ */
+class ByteBufferPoolTest {
+
+  @Test
+  void releasedBuffersAreReused() {
+    var pool = new ByteBufferPool(4);
+    var lease = pool.lease();
+    lease.addBuffer(100);
+    var buffer = lease.buffer(0);
+    assertTrue(buffer.isDirect());
+    assertEquals(1024, buffer.capacity());
+    lease.release();
+
+    var next = pool.lease();
+    assertSame(lease, next);
+    next.addBuffer(1000);
+    assertSame(buffer, next.buffer(0));
+    assertEquals(1, pool.getAllocatedBuffers());
+    assertEquals(2, pool.getAcquiredBuffers());
+  }
+
+  @Test
+  void retainedLeaseIsKeptUntilLastRelease() {
+    var pool = new ByteBufferPool(4);
+    var lease = pool.lease();
+    lease.addBuffer(5000);
+    lease.retain();
+    lease.release();
+    assertEquals(1, lease.count());
+    lease.release();
+    assertEquals(0, lease.count());
+    assertThrows(IllegalStateException.class, lease::release);
+  }
+
+  @Test
+  void tcpReadIsNotTruncated() throws Exception {
+    var received = new LinkedBlockingQueue<byte[]>();
+    var pool = new ByteBufferPool();
+    var reactor = new NioReactor(new SameThreadDispatcher());
+    var channel = new NioServerSocketChannel(16680, capturing(received), pool);
+    channel.bind();
+    reactor.registerChannel(channel).start();
+    var message = new byte[20_000];
+    Arrays.fill(message, (byte) 'x');
+    try (var socket = new Socket(InetAddress.getLocalHost(), 16680)) {
+      socket.getOutputStream().write(message);
+      socket.getOutputStream().flush();
+      var all = new ByteArrayOutputStream();
+      while (all.size() < message.length) {
+        all.write(poll(received));
+      }
+      assertArrayEquals(message, all.toByteArray());
+      var reply = socket.getInputStream().readNBytes(2);
+      assertArrayEquals("ok".getBytes(), reply);
+    } finally {
+      reactor.stop();
+      channel.getJavaChannel().close();
+    }
+  }
+
+  @Test
+  void datagramIsNotTruncated() throws Exception {
+    var received = new LinkedBlockingQueue<byte[]>();
+    var reactor = new NioReactor(new SameThreadDispatcher());
+    var channel = new NioDatagramChannel(16681, capturing(received), new ByteBufferPool());
+    channel.bind();
+    reactor.registerChannel(channel).start();
+    var message = new byte[5000];
+    Arrays.fill(message, (byte) 'y');
+    try (var client = DatagramChannel.open()) {
+      client.send(ByteBuffer.wrap(message),
+          new InetSocketAddress(InetAddress.getLocalHost(), 16681));
+      assertArrayEquals(message, poll(received));
+    } finally {
+      reactor.stop();
+      channel.getJavaChannel().close();
+    }
+  }
+
+  private static byte[] poll(BlockingQueue<byte[]> received) throws InterruptedException {
+    var bytes = received.poll(5, TimeUnit.SECONDS);
+    if (bytes == null) {
+      throw new AssertionError("Nothing received");
+    }
+    return bytes;
+  }
+
+  /*
+   * Copies what is read, since the buffers go back to the pool when the handler returns.
+   */
+  private static ChannelHandler capturing(BlockingQueue<byte[]> received) {
+    return (channel, readObject, key) -> {
+      if (readObject instanceof BufferLease lease) {
+        var bytes = new byte[lease.remaining()];
+        var offset = 0;
+        for (var i = 0; i < lease.count(); i++) {
+          var buffer = lease.buffer(i);
+          var length = buffer.remaining();
+          buffer.get(bytes, offset, length);
+          offset += length;
+        }
+        received.add(bytes);
+        channel.write(ByteBuffer.wrap("ok".getBytes()), key);
+      } else if (readObject instanceof DatagramPacket packet) {
+        var bytes = new byte[packet.getData().remaining()];
+        packet.getData().get(bytes);
+        received.add(bytes);
+      }
+    };
+  }
+}
@@ -0,0 +1,227 @@
+/*
+ * This project is licensed under the MIT license. Module model-view-viewmodel is using ZK framework licensed under LGPL (see lgpl-3.0.txt).
+ *
+ * The MIT License
+ * Copyright © 2014-2022 Ilkka Seppälä
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.iluwatar.reactor.framework;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.nio.channels.Pipe;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests for the {@link VirtualThreadDispatcher}, {@link OrderedDispatcher} and {@link
+ * BoundedDispatcher}.
+ */
+class DispatcherTest {
+
+  @Test
+  void virtualThreadDispatcherHandlesEveryEvent() throws Exception {
+    var handled = new CountDownLatch(100);
+    var dispatcher = new VirtualThreadDispatcher();
+    var channel = new NioServerSocketChannel(0, (c, readObject, key) -> handled.countDown());
+    try (var selector = Selector.open()) {
+      var key = newKey(selector);
+      for (var i = 0; i < 100; i++) {
+        dispatcher.onChannelReadEvent(channel, i, key);
+      }
+      assertTrue(handled.await(5, TimeUnit.SECONDS));
+    } finally {
+      dispatcher.stop();
+      channel.getJavaChannel().close();
+    }
+  }
+
+  @Test
+  void orderedDispatcherKeepsTheOrderPerKey() throws Exception {
+    var events = 2000;
+    var seen = new ConcurrentHashMap<SelectionKey, List<Integer>>();
+    var handled = new CountDownLatch(events * 2);
+    var concurrent = new AtomicInteger();
+    var maxConcurrent = new AtomicInteger();
+    ChannelHandler handler = (c, readObject, key) -> {
+      maxConcurrent.accumulateAndGet(concurrent.incrementAndGet(), Math::max);
+      seen.computeIfAbsent(key, k -> new CopyOnWriteArrayList<>()).add((Integer) readObject);
+      if ((Integer) readObject % 100 == 0) {
+        sleep(1);
+      }
+      concurrent.decrementAndGet();
+      handled.countDown();
+    };
+    var dispatcher = new OrderedDispatcher(4);
+    var channel = new NioServerSocketChannel(0, handler);
+    try (var selector = Selector.open()) {
+      var first = newKey(selector);
+      var second = newKey(selector);
+      for (var i = 0; i < events; i++) {
+        dispatcher.onChannelReadEvent(channel, i, first);
+        dispatcher.onChannelReadEvent(channel, i, second);
+      }
+      assertTrue(handled.await(10, TimeUnit.SECONDS));
+      var expected = new ArrayList<Integer>();
+      for (var i = 0; i < events; i++) {
+        expected.add(i);
+      }
+      assertEquals(expected, seen.get(first));
+      assertEquals(expected, seen.get(second));
+      assertTrue(maxConcurrent.get() <= 2);
+    } finally {
+      dispatcher.stop();
+      channel.getJavaChannel().close();
+    }
+  }
+
+  @Test
+  void orderedDispatcherKeepsRunningALaneAfterAnError() throws Exception {
+    var handled = new CountDownLatch(10);
+    ChannelHandler handler = (c, readObject, key) -> {
+      if ((Integer) readObject == 0) {
+        throw new AssertionError("handler failed");
+      }
+      handled.countDown();
+    };
+    var dispatcher = new OrderedDispatcher(1, 1);
+    var channel = new NioServerSocketChannel(0, handler);
+    try (var selector = Selector.open()) {
+      var key = newKey(selector);
+      for (var i = 0; i <= 10; i++) {
+        dispatcher.onChannelReadEvent(channel, i, key);
+      }
+      assertTrue(handled.await(5, TimeUnit.SECONDS));
+    } finally {
+      dispatcher.stop();
+      channel.getJavaChannel().close();
+    }
+  }
+
+  @Test
+  void boundedDispatcherPausesReadingOfAnOverloadedChannel() throws Exception {
+    var release = new CountDownLatch(1);
+    var keys = new CopyOnWriteArrayList<SelectionKey>();
+    ChannelHandler handler = (c, readObject, key) -> {
+      keys.add(key);
+      try {
+        release.await();
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+    };
+    var dispatcher = new BoundedDispatcher(1, 4, 2);
+    var reactor = new NioReactor(dispatcher);
+    var channel = new NioServerSocketChannel(16684, handler);
+    channel.bind();
+    reactor.registerChannel(channel).start();
+    try (var socket = new Socket(InetAddress.getLocalHost(), 16684)) {
+      var output = socket.getOutputStream();
+      for (var i = 0; i < 10; i++) {
+        output.write('x');
+        output.flush();
+        sleep(20);
+      }
+      waitFor(() -> !keys.isEmpty());
+      var key = keys.get(0);
+      assertEquals(4, dispatcher.getPendingEvents(key));
+      assertTrue(reactor.isReadingPaused(key));
+
+      release.countDown();
+      waitFor(() -> dispatcher.getPendingEvents(key) == 0);
+      // the resume is handed to the event loop, which may not have run it yet
+      waitFor(() -> !reactor.isReadingPaused(key));
+      assertFalse(reactor.isReadingPaused(key));
+      assertEquals(0, dispatcher.getPendingEvents(key));
+    } finally {
+      release.countDown();
+      reactor.stop();
+      dispatcher.stop();
+      channel.getJavaChannel().close();
+    }
+  }
+
+  @Test
+  void boundedDispatcherForgetsClosedChannels() throws Exception {
+    var handled = new Semaphore(0);
+    var dispatcher = new BoundedDispatcher(2, 4, 2);
+    var reactor = new NioReactor(dispatcher);
+    var channel = new NioServerSocketChannel(16685, (c, readObject, key) -> handled.release());
+    channel.bind();
+    reactor.registerChannel(channel).start();
+    try {
+      for (var i = 0; i < 200; i++) {
+        try (var socket = new Socket(InetAddress.getLocalHost(), 16685)) {
+          socket.getOutputStream().write('x');
+          socket.getOutputStream().flush();
+          // idle by the time it closes
+          assertTrue(handled.tryAcquire(5, TimeUnit.SECONDS));
+        }
+      }
+      waitFor(() -> dispatcher.getTrackedChannels() == 0);
+      assertEquals(0, dispatcher.getTrackedChannels());
+    } finally {
+      reactor.stop();
+      dispatcher.stop();
+      channel.getJavaChannel().close();
+    }
+  }
+
+  @Test
+  void boundedDispatcherRejectsInvertedWatermarks() {
+    assertThrows(IllegalArgumentException.class, () -> new BoundedDispatcher(1, 2, 2));
+  }
+
+  private static SelectionKey newKey(Selector selector) throws IOException {
+    var source = Pipe.open().source();
+    source.configureBlocking(false);
+    return source.register(selector, SelectionKey.OP_READ);
+  }
+
+  private static void waitFor(BooleanSupplier condition) {
+    for (var i = 0; i < 250 && !condition.getAsBoolean(); i++) {
+      sleep(20);
+    }
+  }
+
+  private static void sleep(long millis) {
+    try {
+      Thread.sleep(millis);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+}
@@ -0,0 +1,365 @@
+/*
+ * This project is licensed under the MIT license. Module model-view-viewmodel is using ZK framework licensed under LGPL (see lgpl-3.0.txt).
+ *
+ * The MIT License
+ * Copyright © 2014-2022 Ilkka Seppälä
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.iluwatar.sharding;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * ShardManager with consistent hashing. Every shard is placed on a hash ring at a number of
+ * virtual nodes, and a key belongs to the first virtual node at or after the hash of the key. The
+ * ring is kept as a sorted array, so finding the shard takes a binary search.
+ *
+ * <p>Unlike {@code key % shardCount}, adding or removing a shard only moves the keys on the arcs of
+ * the ring that change hands, about one in {@code shardCount} of them. Those keys are migrated by
+ * {@link #rebalance(int)} a few at a time. Until a key has been moved it is still found through
+ * the ring as it was before the change, so {@link #getData(int)} keeps working throughout.
+ *
+ * <p>Reads and writes may run on any number of threads, also during a migration. Changes of the
+ * shards and migration steps are serialized with each other. A read or write routes and finishes
+ * under the read lock of {@code membership}, which the swaps of the ring take exclusively, so it
+ * never sees a shard half added or removed, nor lands on a donor whose keys were already taken.
+ */
+@Slf4j
+public class ConsistentHashShardManager extends ShardManager {
+
+  static final int DEFAULT_VIRTUAL_NODES = 128;
+
+  private final int virtualNodes;
+
+  private volatile Ring ring = Ring.EMPTY;
+
+  // The ring before the last change, while its keys are being migrated.
+  private volatile Ring previousRing;
+
+  // Removed shards whose keys are not migrated yet.
+  private final Map<Integer, Shard> draining = new ConcurrentHashMap<>();
+
+  private final ReentrantReadWriteLock membership = new ReentrantReadWriteLock();
+
+  private final Deque<Shard> toScan = new ArrayDeque<>();
+
+  private List<Integer> scanKeys;
+
+  private int scanIndex;
+
+  /**
+   * Number of keys moved by the current or last migration.
+   */
+  @Getter
+  private volatile long movedKeys;
+
+  public ConsistentHashShardManager() {
+    this(DEFAULT_VIRTUAL_NODES);
+  }
+
+  /**
+   * Instantiates a manager placing each shard at the given number of virtual nodes. More nodes
+   * spread the keys more evenly, at the cost of a larger ring.
+   *
+   * @param virtualNodes virtual nodes per shard
+   */
+  public ConsistentHashShardManager(int virtualNodes) {
+    if (virtualNodes < 1) {
+      throw new IllegalArgumentException("virtualNodes must be positive: " + virtualNodes);
+    }
+    this.virtualNodes = virtualNodes;
+  }
+
+  /**
+   * The hash ring: virtual node hashes in ascending order and the shard of each.
+   */
+  private record Ring(long[] hashes, int[] shardIds) {
+
+    static final Ring EMPTY = new Ring(new long[0], new int[0]);
+
+    int shardOf(long hash) {
+      var index = Arrays.binarySearch(hashes, hash);
+      if (index < 0) {
+        index = -index - 1;
+      }
+      return shardIds[index == hashes.length ? 0 : index];
+    }
+
+    boolean isEmpty() {
+      return hashes.length == 0;
+    }
+  }
+
+  /**
+   * The splitmix64 finalizer: spreads nearby keys and virtual nodes all over the ring.
+   */
+  static long hash(long value) {
+    var z = value + 0x9E3779B97F4A7C15L;
+    z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+    z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+    return z ^ (z >>> 31);
+  }
+
+  private long virtualNodeHash(int shardId, int replica) {
+    return hash(((long) shardId << 32) | replica);
+  }
+
+  private Ring buildRing() {
+    var nodes = new long[shardMap.size() * virtualNodes][];
+    var n = 0;
+    for (var shardId : shardMap.keySet()) {
+      for (var replica = 0; replica < virtualNodes; replica++) {
+        nodes[n++] = new long[] {virtualNodeHash(shardId, replica), shardId};
+      }
+    }
+    Arrays.sort(nodes, (a, b) -> a[0] != b[0] ? Long.compare(a[0], b[0])
+        : Long.compare(a[1], b[1]));
+    var hashes = new long[n];
+    var shardIds = new int[n];
+    for (var i = 0; i < n; i++) {
+      hashes[i] = nodes[i][0];
+      shardIds[i] = (int) nodes[i][1];
+    }
+    return new Ring(hashes, shardIds);
+  }
+
+  /**
+   * Adds the shard to the ring. The keys it takes over stay on their old shards until they are
+   * migrated by {@link #rebalance(int)}. A migration still in progress is completed first.
+   */
+  @Override
+  public synchronized boolean addNewShard(final Shard shard) {
+    if (shardMap.containsKey(shard.getId()) || draining.containsKey(shard.getId())) {
+      return false;
+    }
+    rebalance();
+    membership.writeLock().lock();
+    try {
+      super.addNewShard(shard);
+      var oldRing = ring;
+      ring = buildRing();
+      if (!oldRing.isEmpty()) {
+        // Only the shards that owned the arcs now starting at the new virtual nodes give up keys.
+        var donors = new LinkedHashSet<Integer>();
+        for (var replica = 0; replica < virtualNodes; replica++) {
+          donors.add(oldRing.shardOf(virtualNodeHash(shard.getId(), replica)));
+        }
+        startMigration(oldRing, donors.stream().map(shardMap::get).toList());
+      }
+    } finally {
+      membership.writeLock().unlock();
+    }
+    return true;
+  }
+
+  /**
+   * Removes the shard from the ring. Its keys stay readable until they are migrated by
+   * {@link #rebalance(int)}. A migration still in progress is completed first.
+   */
+  @Override
+  public synchronized boolean removeShardById(final int shardId) {
+    var shard = shardMap.get(shardId);
+    if (shard == null) {
+      return false;
+    }
+    rebalance();
+    membership.writeLock().lock();
+    try {
+      draining.put(shardId, shard);
+      super.removeShardById(shardId);
+      var oldRing = ring;
+      ring = buildRing();
+      startMigration(oldRing, List.of(shard));
+    } finally {
+      membership.writeLock().unlock();
+    }
+    return true;
+  }
+
+  private void startMigration(Ring oldRing, List<Shard> sources) {
+    previousRing = oldRing;
+    toScan.addAll(sources);
+    movedKeys = 0;
+  }
+
+  public boolean isRebalancing() {
+    return previousRing != null;
+  }
+
+  /**
+   * Migrates keys whose shard changed with the last change of the ring, checking at most
+   * {@code maxKeys} keys. Reads and writes may go on between calls.
+   *
+   * @param maxKeys the most keys to look at in this step
+   * @return the number of keys moved
+   */
+  public synchronized int rebalance(int maxKeys) {
+    var moved = 0;
+    var checked = 0;
+    while (previousRing != null && checked < maxKeys) {
+      if (scanKeys == null || scanIndex == scanKeys.size()) {
+        if (!nextShardToScan()) {
+          break;
+        }
+        continue;
+      }
+      var source = toScan.peekFirst();
+      var key = scanKeys.get(scanIndex++);
+      checked++;
+      var target = shardMap.get(allocateShard(key));
+      if (target != source) {
+        // Copies before removing, so that readers find the key on one shard or the other. A write
+        // during the migration already went to the new shard and wins.
+        var data = source.getDataById(key);
+        if (data != null) {
+          target.storeDataIfAbsent(data);
+          source.removeDataById(key);
+          moved++;
+        }
+      }
+    }
+    movedKeys += moved;
+    return moved;
+  }
+
+  /**
+   * Migrates every key left to move.
+   *
+   * @return the number of keys moved
+   */
+  public int rebalance() {
+    return rebalance(Integer.MAX_VALUE);
+  }
+
+  /**
+   * Takes the keys of the next shard to scan, ending the migration when there is none.
+   */
+  private boolean nextShardToScan() {
+    membership.writeLock().lock();
+    try {
+      if (scanKeys != null) {
+        var done = toScan.removeFirst();
+        draining.remove(done.getId());
+      }
+      if (toScan.isEmpty()) {
+        scanKeys = null;
+        previousRing = null;
+        LOGGER.info("Rebalancing finished, " + movedKeys + " keys moved");
+        return false;
+      }
+      // Taken under the lock, so no write routed by the old ring can still be on its way here.
+      scanKeys = toScan.peekFirst().getKeys();
+      scanIndex = 0;
+      return true;
+    } finally {
+      membership.writeLock().unlock();
+    }
+  }
+
+  @Override
+  public int storeData(Data data) {
+    int shardId;
+    membership.readLock().lock();
+    try {
+      shardId = allocateShard(data);
+      shardMap.get(shardId).storeData(data);
+      var oldRing = previousRing;
+      if (oldRing != null) {
+        var previous = previousShard(oldRing, data.getKey());
+        if (previous != null && previous.getId() != shardId) {
+          // Drops the stale copy so the migration cannot bring it back.
+          previous.removeDataById(data.getKey());
+        }
+      }
+    } finally {
+      membership.readLock().unlock();
+    }
+    LOGGER.info(data + " is stored in Shard " + shardId);
+    return shardId;
+  }
+
+  /**
+   * Get the data stored under the key, wherever it is during a migration.
+   *
+   * @param key data key
+   * @return the data, or null if there is none
+   */
+  public Data getData(int key) {
+    membership.readLock().lock();
+    try {
+      var shard = shardMap.get(allocateShard(key));
+      var data = shard.getDataById(key);
+      var oldRing = previousRing;
+      if (data == null && oldRing != null) {
+        var previous = previousShard(oldRing, key);
+        data = previous != null ? previous.getDataById(key) : null;
+        if (data == null) {
+          // The key may have moved between the two reads.
+          data = shard.getDataById(key);
+        }
+      }
+      return data;
+    } finally {
+      membership.readLock().unlock();
+    }
+  }
+
+  /**
+   * The shard owning the key before the last change, or null once it is drained.
+   */
+  private Shard previousShard(Ring oldRing, int key) {
+    var shardId = oldRing.shardOf(hash(key));
+    var shard = shardMap.get(shardId);
+    return shard != null ? shard : draining.get(shardId);
+  }
+
+  /**
+   * Queries the shards being drained as well; keys are looked up on the live shards first.
+   */
+  @Override
+  protected Collection<Shard> queryTargets() {
+    var shards = new ArrayList<>(shardMap.values());
+    shards.addAll(draining.values());
+    return shards;
+  }
+
+  @Override
+  protected int allocateShard(Data data) {
+    return allocateShard(data.getKey());
+  }
+
+  int allocateShard(int key) {
+    if (ring.isEmpty()) {
+      throw new IllegalStateException("No shard to store the data in");
+    }
+    return ring.shardOf(hash(key));
+  }
+}
@@ -25,8 +25,8 @@
 package com.iluwatar.sharding;
 
 import java.security.SecureRandom;
-import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import lombok.extern.slf4j.Slf4j;
 
 /**
@@ -37,12 +37,12 @@ import lombok.extern.slf4j.Slf4j;
 @Slf4j
 public class LookupShardManager extends ShardManager {
 
-  private final Map<Integer, Integer> lookupMap = new HashMap<>();
+  private final Map<Integer, Integer> lookupMap = new ConcurrentHashMap<>();
 
   @Override
   public int storeData(Data data) {
-    var shardId = allocateShard(data);
-    lookupMap.put(data.getKey(), shardId);
+    // Concurrent first writes of a key agree on one shard.
+    var shardId = lookupMap.computeIfAbsent(data.getKey(), key -> allocateShard(data));
     var shard = shardMap.get(shardId);
     shard.storeData(data);
     LOGGER.info(data + " is stored in Shard " + shardId);
@@ -24,12 +24,18 @@
  */
 package com.iluwatar.sharding;
 
-import java.util.HashMap;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.BooleanSupplier;
+import java.util.function.Predicate;
 import lombok.Getter;
 
 /**
- * The Shard class stored data in a HashMap.
+ * The Shard class stored data in a ConcurrentHashMap, so it can be read, written and queried by
+ * many threads at once.
  */
 public class Shard {
 
@@ -40,7 +46,7 @@ public class Shard {
 
   public Shard(final int id) {
     this.id = id;
-    this.dataStore = new HashMap<>();
+    this.dataStore = new ConcurrentHashMap<>();
   }
 
   public void storeData(Data data) {
@@ -54,4 +60,45 @@ public class Shard {
   public Data getDataById(final int id) {
     return dataStore.get(id);
   }
+
+  public Data storeDataIfAbsent(Data data) {
+    return dataStore.putIfAbsent(data.getKey(), data);
+  }
+
+  public Data removeDataById(final int id) {
+    return dataStore.remove(id);
+  }
+
+  public List<Integer> getKeys() {
+    return new ArrayList<>(dataStore.keySet());
+  }
+
+  /**
+   * Find the data matching the predicate. Writes made during the scan may or may not be seen.
+   *
+   * @param predicate the condition to match
+   * @return the matching data
+   */
+  public List<Data> query(Predicate<Data> predicate) {
+    return query(predicate, () -> false);
+  }
+
+  /**
+   * Find the data matching the predicate, giving up once the scan is no longer wanted.
+   *
+   * @throws CancellationException if {@code cancelled} turned true during the scan
+   */
+  List<Data> query(Predicate<Data> predicate, BooleanSupplier cancelled) {
+    var result = new ArrayList<Data>();
+    var scanned = 0;
+    for (var data : dataStore.values()) {
+      if ((++scanned & 1023) == 0 && cancelled.getAsBoolean()) {
+        throw new CancellationException("Query of shard " + id + " cancelled");
+      }
+      if (predicate.test(data)) {
+        result.add(data);
+      }
+    }
+    return result;
+  }
 }
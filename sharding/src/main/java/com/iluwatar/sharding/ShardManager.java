@@ -24,20 +24,40 @@
  */
 package com.iluwatar.sharding;
 
-import java.util.HashMap;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
 import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Predicate;
 import lombok.extern.slf4j.Slf4j;
 
 /**
  * Abstract class for ShardManager.
+ *
+ * <p>Shards can be added, removed and written from many threads. Queries are scattered to every
+ * shard in parallel and the answers gathered into one {@link QueryResult}. A shard that does not
+ * answer within the timeout, or fails, is left out and named in the result, so a slow shard costs
+ * completeness instead of latency.
  */
 @Slf4j
 public abstract class ShardManager {
 
+  // Shared by all managers. Its threads are daemons, so it never keeps the JVM alive.
+  private static final ForkJoinPool QUERY_POOL =
+      new ForkJoinPool(Math.max(2, Runtime.getRuntime().availableProcessors()));
+
   protected Map<Integer, Shard> shardMap;
 
   public ShardManager() {
-    shardMap = new HashMap<>();
+    shardMap = new ConcurrentHashMap<>();
   }
 
   /**
@@ -48,13 +68,7 @@ public abstract class ShardManager {
    *         {@code false} if the shardId is already existed.
    */
   public boolean addNewShard(final Shard shard) {
-    var shardId = shard.getId();
-    if (!shardMap.containsKey(shardId)) {
-      shardMap.put(shardId, shard);
-      return true;
-    } else {
-      return false;
-    }
+    return shardMap.putIfAbsent(shard.getId(), shard) == null;
   }
 
   /**
@@ -64,12 +78,7 @@ public abstract class ShardManager {
    * @return {@code true} if removed. {@code false} if the shardId is not existed.
    */
   public boolean removeShardById(final int shardId) {
-    if (shardMap.containsKey(shardId)) {
-      shardMap.remove(shardId);
-      return true;
-    } else {
-      return false;
-    }
+    return shardMap.remove(shardId) != null;
   }
 
   /**
@@ -98,4 +107,74 @@ public abstract class ShardManager {
    */
   protected abstract int allocateShard(final Data data);
 
+  /**
+   * Find the data matching the predicate on all shards in parallel.
+   *
+   * @param predicate the condition to match
+   * @param timeout   how long after the start of the query every shard has to answer
+   * @param unit      the unit of the timeout
+   * @return the matching data in key order, and the shards that timed out or failed
+   */
+  public QueryResult query(Predicate<Data> predicate, long timeout, TimeUnit unit) {
+    var deadline = System.nanoTime() + unit.toNanos(timeout);
+    var cancelled = new AtomicBoolean();
+    var shards = new ArrayList<>(queryTargets());
+    var tasks = new ArrayList<ForkJoinTask<List<Data>>>(shards.size());
+    for (var shard : shards) {
+      tasks.add(QUERY_POOL.submit(() -> shard.query(predicate, cancelled::get)));
+    }
+    var merged = new TreeMap<Integer, Data>();
+    var timedOut = new ArrayList<Integer>();
+    var failed = new ArrayList<Integer>();
+    try {
+      for (var i = 0; i < tasks.size(); i++) {
+        var shardId = shards.get(i).getId();
+        try {
+          var remaining = Math.max(0, deadline - System.nanoTime());
+          for (var data : tasks.get(i).get(remaining, TimeUnit.NANOSECONDS)) {
+            merged.putIfAbsent(data.getKey(), data);
+          }
+        } catch (TimeoutException e) {
+          timedOut.add(shardId);
+        } catch (ExecutionException e) {
+          LOGGER.warn("Query of shard " + shardId + " failed", e.getCause());
+          failed.add(shardId);
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+          for (var j = i; j < tasks.size(); j++) {
+            timedOut.add(shards.get(j).getId());
+          }
+          break;
+        }
+      }
+    } finally {
+      // Stops the scans still running.
+      cancelled.set(true);
+    }
+    return new QueryResult(List.copyOf(merged.values()), timedOut, failed);
+  }
+
+  /**
+   * Find the data with keys from {@code fromKey} inclusive to {@code toKey} exclusive on all shards
+   * in parallel.
+   *
+   * @param fromKey the lowest key
+   * @param toKey   the key after the highest key
+   * @param timeout how long after the start of the query every shard has to answer
+   * @param unit    the unit of the timeout
+   * @return the data in key order, and the shards that timed out or failed
+   */
+  public QueryResult queryRange(int fromKey, int toKey, long timeout, TimeUnit unit) {
+    return query(data -> data.getKey() >= fromKey && data.getKey() < toKey, timeout, unit);
+  }
+
+  /**
+   * The shards a query is sent to.
+   *
+   * @return the shards holding data
+   */
+  protected Collection<Shard> queryTargets() {
+    return shardMap.values();
+  }
+
 }
@@ -0,0 +1,194 @@
+/*
+ * This project is licensed under the MIT license. Module model-view-viewmodel is using ZK framework licensed under LGPL (see lgpl-3.0.txt).
+ *
+ * The MIT License
+ * Copyright © 2014-2022 Ilkka Seppälä
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.iluwatar.sharding;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicBoolean;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Unit tests for ConsistentHashShardManager class.
+ */
+class ConsistentHashShardManagerTest {
+
+  private static final int KEYS = 5_000;
+
+  private ConsistentHashShardManager manager;
+
+  @BeforeEach
+  void setup() {
+    manager = new ConsistentHashShardManager();
+    for (var id = 1; id <= 10; id++) {
+      manager.addNewShard(new Shard(id));
+    }
+    for (var key = 0; key < KEYS; key++) {
+      manager.storeData(new Data(key, "data" + key, Data.DataType.TYPE_1));
+    }
+  }
+
+  private void assertAllKeysReadable() {
+    for (var key = 0; key < KEYS; key++) {
+      assertEquals("data" + key, manager.getData(key).getValue());
+    }
+  }
+
+  @Test
+  void keysAreSpreadOverTheShards() {
+    var counts = new int[11];
+    for (var key = 0; key < 100_000; key++) {
+      counts[manager.allocateShard(key)]++;
+    }
+    for (var id = 1; id <= 10; id++) {
+      assertTrue(counts[id] > 7_000 && counts[id] < 13_000, "shard " + id + ": " + counts[id]);
+    }
+  }
+
+  @Test
+  void addingAShardMovesOnlyItsShare() {
+    manager.addNewShard(new Shard(11));
+    assertTrue(manager.isRebalancing());
+
+    var moved = manager.rebalance();
+
+    assertFalse(manager.isRebalancing());
+    assertTrue(moved > KEYS / 20 && moved < KEYS / 6, "moved " + moved);
+    assertEquals(moved, manager.getMovedKeys());
+    for (var key = 0; key < KEYS; key++) {
+      var shard = manager.getShardById(manager.allocateShard(key));
+      assertEquals("data" + key, shard.getDataById(key).getValue());
+    }
+  }
+
+  @Test
+  void readsKeepWorkingWhileRebalancing() {
+    manager.addNewShard(new Shard(11));
+
+    var steps = 0;
+    while (manager.isRebalancing()) {
+      manager.rebalance(200);
+      assertAllKeysReadable();
+      steps++;
+    }
+
+    assertTrue(steps > 1);
+  }
+
+  @Test
+  void removingAShardMovesExactlyItsKeys() {
+    var removed = manager.getShardById(3);
+    var keys = removed.getKeys().size();
+
+    manager.removeShardById(3);
+    assertNull(manager.getShardById(3));
+    assertAllKeysReadable();
+
+    assertEquals(keys, manager.rebalance());
+    assertTrue(removed.getKeys().isEmpty());
+    assertAllKeysReadable();
+  }
+
+  @Test
+  void writesDuringRebalancingWin() {
+    manager.addNewShard(new Shard(11));
+    var key = 0;
+    while (manager.allocateShard(key) != 11) {
+      key++;
+    }
+
+    manager.storeData(new Data(key, "updated", Data.DataType.TYPE_2));
+    manager.rebalance();
+
+    assertEquals("updated", manager.getData(key).getValue());
+    assertSame(manager.getShardById(11).getDataById(key), manager.getData(key));
+  }
+
+  @Test
+  void concurrentMembershipChangesLoseNothing() throws InterruptedException {
+    var writers = 2;
+    var expected = new String[KEYS];
+    for (var key = 0; key < KEYS; key++) {
+      expected[key] = "data" + key;
+    }
+    var stop = new AtomicBoolean();
+    var errors = new ConcurrentLinkedQueue<Throwable>();
+    var threads = new ArrayList<Thread>();
+    for (var w = 0; w < writers; w++) {
+      var writer = w;
+      threads.add(new Thread(() -> {
+        // Each writer owns the keys of its residue, so the last value it stored must survive.
+        for (var round = 0; !stop.get(); round++) {
+          for (var key = writer; key < KEYS; key += writers) {
+            var value = "w" + round + "-" + key;
+            manager.storeData(new Data(key, value, Data.DataType.TYPE_1));
+            expected[key] = value;
+          }
+        }
+      }));
+    }
+    for (var r = 0; r < 2; r++) {
+      threads.add(new Thread(() -> {
+        var random = ThreadLocalRandom.current();
+        while (!stop.get()) {
+          var key = random.nextInt(KEYS);
+          if (manager.getData(key) == null) {
+            throw new AssertionError("key " + key + " not found");
+          }
+        }
+      }));
+    }
+    for (var thread : threads) {
+      thread.setUncaughtExceptionHandler((t, e) -> errors.add(e));
+      thread.start();
+    }
+    try {
+      for (var i = 0; i < 20; i++) {
+        manager.addNewShard(new Shard(100 + i));
+        manager.rebalance(500);
+        manager.removeShardById(i % 2 == 0 ? 100 + i : 1 + i / 2);
+        manager.rebalance(500);
+      }
+    } finally {
+      stop.set(true);
+      for (var thread : threads) {
+        thread.join();
+      }
+    }
+    manager.rebalance();
+
+    assertTrue(errors.isEmpty(), () -> errors.peek().toString());
+    for (var key = 0; key < KEYS; key++) {
+      assertEquals(expected[key], manager.getData(key).getValue(), "key " + key);
+    }
+  }
+}
@@ -0,0 +1,112 @@
+/*
+ * This project is licensed under the MIT license. Module model-view-viewmodel is using ZK framework licensed under LGPL (see lgpl-3.0.txt).
+ *
+ * The MIT License
+ * Copyright © 2014-2022 Ilkka Seppälä
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.iluwatar.sharding;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * JMH benchmark: throughput of writes, point reads and scatter-gather range queries over
+ * {@value #KEYS} keys as the number of shards and of calling threads grows. A range query covers
+ * one percent of the key space, so it scans every shard in full.
+ *
+ * <p>Run {@link #main(String[])} from the test classpath; it repeats the benchmark with 1, 2, 4
+ * and 8 threads.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ScatterGatherBenchmark {
+
+  private static final int KEYS = 100_000;
+
+  private static final int RANGE = KEYS / 100;
+
+  @Param({"1", "4", "16"})
+  public int shards;
+
+  private HashShardManager manager;
+
+  @Setup
+  public void setUp() {
+    manager = new HashShardManager();
+    for (var id = 1; id <= shards; id++) {
+      manager.addNewShard(new Shard(id));
+    }
+    for (var key = 0; key < KEYS; key++) {
+      store(new Data(key, "data" + key, Data.DataType.TYPE_1));
+    }
+  }
+
+  // Skips the per-write logging of storeData, which would dominate the measurement.
+  private void store(Data data) {
+    manager.getShardById(manager.allocateShard(data)).storeData(data);
+  }
+
+  @Benchmark
+  public void write() {
+    var key = ThreadLocalRandom.current().nextInt(KEYS);
+    store(new Data(key, "updated", Data.DataType.TYPE_2));
+  }
+
+  @Benchmark
+  public Data read() {
+    var key = ThreadLocalRandom.current().nextInt(KEYS);
+    return manager.getShardById(manager.allocateShard(new Data(key, null, null)))
+        .getDataById(key);
+  }
+
+  @Benchmark
+  public QueryResult rangeQuery() {
+    var from = ThreadLocalRandom.current().nextInt(KEYS - RANGE);
+    return manager.queryRange(from, from + RANGE, 1, TimeUnit.SECONDS);
+  }
+
+  public static void main(String[] args) throws RunnerException {
+    for (var threads : new int[] {1, 2, 4, 8}) {
+      new Runner(new OptionsBuilder()
+          .include(ScatterGatherBenchmark.class.getSimpleName())
+          .threads(threads)
+          .build()).run();
+    }
+  }
+}
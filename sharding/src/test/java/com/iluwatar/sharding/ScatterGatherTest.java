@@ -0,0 +1,164 @@
+/*
+ * This project is licensed under the MIT license. Module model-view-viewmodel is using ZK framework licensed under LGPL (see lgpl-3.0.txt).
+ *
+ * The MIT License
+ * Copyright © 2014-2022 Ilkka Seppälä
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.iluwatar.sharding;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+import java.util.function.Predicate;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Unit tests for concurrent writes and scatter-gather queries of ShardManager.
+ */
+class ScatterGatherTest {
+
+  private static final int KEYS = 1_000;
+
+  private HashShardManager manager;
+
+  /**
+   * A shard that answers queries only once they are cancelled.
+   */
+  private static class StuckShard extends Shard {
+
+    StuckShard(int id) {
+      super(id);
+    }
+
+    @Override
+    List<Data> query(Predicate<Data> predicate, BooleanSupplier cancelled) {
+      while (!cancelled.getAsBoolean()) {
+        Thread.onSpinWait();
+      }
+      return List.of();
+    }
+  }
+
+  /**
+   * A shard whose queries fail.
+   */
+  private static class BrokenShard extends Shard {
+
+    BrokenShard(int id) {
+      super(id);
+    }
+
+    @Override
+    List<Data> query(Predicate<Data> predicate, BooleanSupplier cancelled) {
+      throw new IllegalStateException("disk on fire");
+    }
+  }
+
+  @BeforeEach
+  void setup() {
+    manager = new HashShardManager();
+    for (var id = 1; id <= 4; id++) {
+      manager.addNewShard(new Shard(id));
+    }
+  }
+
+  private void storeInParallel(ShardManager shardManager, int threads) throws InterruptedException {
+    var workers = new ArrayList<Thread>();
+    for (var t = 0; t < threads; t++) {
+      var first = t;
+      var worker = new Thread(() -> {
+        for (var key = first; key < KEYS; key += threads) {
+          shardManager.storeData(new Data(key, "data" + key, Data.DataType.TYPE_1));
+        }
+      });
+      workers.add(worker);
+      worker.start();
+    }
+    for (var worker : workers) {
+      worker.join();
+    }
+  }
+
+  @Test
+  void concurrentWritesAreAllKept() throws InterruptedException {
+    storeInParallel(manager, 4);
+
+    var result = manager.query(data -> true, 1, TimeUnit.SECONDS);
+
+    assertTrue(result.isComplete());
+    assertEquals(KEYS, result.data().size());
+    for (var key = 0; key < KEYS; key++) {
+      assertEquals(key, result.data().get(key).getKey());
+    }
+  }
+
+  @Test
+  void rangeQueryGathersFromAllShards() throws InterruptedException {
+    storeInParallel(manager, 2);
+
+    var result = manager.queryRange(100, 110, 1, TimeUnit.SECONDS);
+
+    assertEquals(10, result.data().size());
+    assertEquals(100, result.data().get(0).getKey());
+    assertEquals(109, result.data().get(9).getKey());
+  }
+
+  @Test
+  void slowAndBrokenShardsGivePartialResults() throws InterruptedException {
+    storeInParallel(manager, 1);
+    var lookup = new LookupShardManager();
+    lookup.addNewShard(manager.getShardById(1));
+    lookup.addNewShard(new StuckShard(5));
+    lookup.addNewShard(new BrokenShard(6));
+
+    var start = System.nanoTime();
+    var result = lookup.query(data -> true, 100, TimeUnit.MILLISECONDS);
+    var millis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+    assertFalse(result.isComplete());
+    assertEquals(List.of(5), result.timedOutShards());
+    assertEquals(List.of(6), result.failedShards());
+    assertEquals(KEYS / 4, result.data().size());
+    assertTrue(millis < 1_000, "took " + millis + " ms");
+  }
+
+  @Test
+  void consistentHashingQueriesAreCompleteWhileRebalancing() throws InterruptedException {
+    var consistent = new ConsistentHashShardManager();
+    for (var id = 1; id <= 4; id++) {
+      consistent.addNewShard(new Shard(id));
+    }
+    storeInParallel(consistent, 4);
+    consistent.removeShardById(2);
+    consistent.rebalance(KEYS / 10);
+
+    var result = consistent.query(data -> true, 1, TimeUnit.SECONDS);
+
+    assertTrue(consistent.isRebalancing());
+    assertEquals(KEYS, result.data().size());
+  }
+}
@@ -0,0 +1,139 @@
+/*
+ * This project is licensed under the MIT license. Module model-view-viewmodel is using ZK framework licensed under LGPL (see lgpl-3.0.txt).
+ *
+ * The MIT License
+ * Copyright © 2014-2022 Ilkka Seppälä
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.iluwatar.sharding;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * JMH benchmark: the cost of finding the shard of a key with {@link ConsistentHashShardManager}
+ * and {@link HashShardManager}, for 1 to 1024 shards.
+ *
+ * <p>Run {@link #main(String[])} from the test classpath; before the benchmark it prints the
+ * fraction of keys that change shard when one shard is added, for both managers.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ShardLookupBenchmark {
+
+  private static final int KEYS = 1 << 16;
+
+  @Param({"1", "4", "16", "64", "256", "1024"})
+  public int shards;
+
+  private ConsistentHashShardManager consistent;
+
+  private HashShardManager modulo;
+
+  private int[] keys;
+
+  private int next;
+
+  @Setup
+  public void setUp() {
+    consistent = withShards(new ConsistentHashShardManager(), shards);
+    modulo = withShards(new HashShardManager(), shards);
+    var random = new SplittableRandom(42);
+    keys = random.ints(KEYS, 0, Integer.MAX_VALUE).toArray();
+  }
+
+  private static <T extends ShardManager> T withShards(T manager, int shards) {
+    for (var id = 1; id <= shards; id++) {
+      manager.addNewShard(new Shard(id));
+    }
+    return manager;
+  }
+
+  private int nextKey() {
+    return keys[next++ & (KEYS - 1)];
+  }
+
+  @Benchmark
+  public int consistentHash() {
+    return consistent.allocateShard(nextKey());
+  }
+
+  @Benchmark
+  public int modulo() {
+    return modulo.allocateShard(new Data(nextKey(), null, null));
+  }
+
+  /**
+   * Prints the fraction of {@value #KEYS} random keys that move when a shard is added.
+   */
+  private static void printMovedKeys() {
+    var keys = new SplittableRandom(7).ints(KEYS, 0, Integer.MAX_VALUE).toArray();
+    System.out.printf("%-10s %12s %12s %12s%n", "shards", "ideal", "consistent", "modulo");
+    for (var shards = 1; shards <= 1024; shards *= 4) {
+      var consistent = withShards(new ConsistentHashShardManager(), shards);
+      var modulo = withShards(new HashShardManager(), shards);
+      var consistentBefore = new int[KEYS];
+      var moduloBefore = new int[KEYS];
+      for (var i = 0; i < KEYS; i++) {
+        consistentBefore[i] = consistent.allocateShard(keys[i]);
+        moduloBefore[i] = modulo.allocateShard(new Data(keys[i], null, null));
+      }
+      consistent.addNewShard(new Shard(shards + 1));
+      modulo.addNewShard(new Shard(shards + 1));
+      var consistentMoved = 0;
+      var moduloMoved = 0;
+      for (var i = 0; i < KEYS; i++) {
+        if (consistent.allocateShard(keys[i]) != consistentBefore[i]) {
+          consistentMoved++;
+        }
+        if (modulo.allocateShard(new Data(keys[i], null, null)) != moduloBefore[i]) {
+          moduloMoved++;
+        }
+      }
+      System.out.printf("%4d->%-5d %11.2f%% %11.2f%% %11.2f%%%n", shards, shards + 1,
+          100.0 / (shards + 1), 100.0 * consistentMoved / KEYS, 100.0 * moduloMoved / KEYS);
+    }
+  }
+
+  public static void main(String[] args) throws RunnerException {
+    printMovedKeys();
+    new Runner(new OptionsBuilder()
+        .include(ShardLookupBenchmark.class.getSimpleName())
+        .build()).run();
+  }
+}
@@ -25,6 +25,7 @@
 package com.iluwatar.spatialpartition;
 
 import java.security.SecureRandom;
+import java.util.HashMap;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
 import lombok.extern.slf4j.Slf4j;
@@ -56,6 +57,10 @@ import lombok.extern.slf4j.Slf4j;
  * within a certain range from <b>O(n^2) to O(nlogn)</b>, increasing the speed of computations
  * immensely in case of large number of objects, which will have a positive effect on the rendering
  * speed of the game.</p>
+ * <p>Rebuilding the quadtree every frame costs as much as the collision checks it saves. The
+ * <b>{@link LooseQuadTree}</b> is built once and updated as the bubbles move, since a bubble only
+ * changes node after moving about a quarter of a node, and it finds all colliding pairs in one
+ * pass.</p>
  */
 
 @Slf4j
@@ -103,6 +108,41 @@ public class App {
     bubbles.keySet().forEach(key -> LOGGER.info("Bubble {} not popped", key));
   }
 
+  static void withLooseQuadTree(
+      int height, int width, int numOfMovements, Map<Integer, Bubble> bubbles) {
+    //creating the tree once, it is updated in place as bubbles move
+    var rect = new Rect(width / 2D, height / 2D, width, height);
+    var tree = new LooseQuadTree(rect, 8, 16);
+    var handles = new HashMap<Integer, Integer>();
+    bubbles.forEach((i, bubble) ->
+        handles.put(i, tree.insert(i, bubble.coordinateX, bubble.coordinateY, bubble.radius)));
+
+    //will run numOfMovement times or till all bubbles have popped
+    while (numOfMovements > 0 && !bubbles.isEmpty()) {
+      bubbles.forEach((i, bubble) -> {
+        bubble.move();
+        tree.move(handles.get(i), bubble.coordinateX, bubble.coordinateY);
+      });
+      //all bubbles touching another bubble pop
+      for (var pair : tree.findAllCollisions()) {
+        popBubble(LooseQuadTree.firstId(pair), bubbles, handles, tree);
+        popBubble(LooseQuadTree.secondId(pair), bubbles, handles, tree);
+      }
+      numOfMovements--;
+    }
+    //bubbles not popped
+    bubbles.keySet().forEach(key -> LOGGER.info("Bubble {} not popped", key));
+  }
+
+  private static void popBubble(int id, Map<Integer, Bubble> bubbles,
+      Map<Integer, Integer> handles, LooseQuadTree tree) {
+    var handle = handles.remove(id);
+    if (handle != null) {
+      tree.remove(handle);
+      bubbles.get(id).pop(bubbles);
+    }
+  }
+
   /**
    * Program entry point.
    *
@@ -112,11 +152,13 @@ public class App {
   public static void main(String[] args) {
     var bubbles1 = new ConcurrentHashMap<Integer, Bubble>();
     var bubbles2 = new ConcurrentHashMap<Integer, Bubble>();
+    var bubbles3 = new ConcurrentHashMap<Integer, Bubble>();
     var rand = new SecureRandom();
     for (int i = 0; i < 10000; i++) {
       var b = new Bubble(rand.nextInt(300), rand.nextInt(300), i, rand.nextInt(2) + 1);
       bubbles1.put(i, b);
       bubbles2.put(i, b);
+      bubbles3.put(i, b);
       LOGGER.info("Bubble {} with radius {} added at ({},{})",
           i, b.radius, b.coordinateX, b.coordinateY);
     }
@@ -129,5 +171,9 @@ public class App {
     var end2 = System.currentTimeMillis();
     LOGGER.info("Without spatial partition takes {} ms", (end1 - start1));
     LOGGER.info("With spatial partition takes {} ms", (end2 - start2));
+    var start3 = System.currentTimeMillis();
+    App.withLooseQuadTree(300, 300, 20, bubbles3);
+    var end3 = System.currentTimeMillis();
+    LOGGER.info("With loose quadtree takes {} ms", (end3 - start3));
   }
 }
@@ -0,0 +1,548 @@
+/*
+ * This project is licensed under the MIT license. Module model-view-viewmodel is using ZK framework licensed under LGPL (see lgpl-3.0.txt).
+ *
+ * The MIT License
+ * Copyright © 2014-2022 Ilkka Seppälä
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.iluwatar.spatialpartition;
+
+import java.util.Arrays;
+import java.util.concurrent.RecursiveTask;
+import java.util.function.IntConsumer;
+
+/**
+ * A loose quadtree of circles, kept in flat arrays and updated in place.
+ *
+ * <p>Every node covers a square, but holds the circles whose bounding box fits in the square
+ * grown to one and a half times its size, a quarter of a side further out on every side. A circle
+ * then only has to be relocated when it has moved about a quarter of a node away, so most moves of
+ * a frame are a single bounds check. A node splits once it holds more than the capacity, and its
+ * four children merge back into it when the subtree drops to half the capacity.
+ *
+ * <p>Nodes and circles are indexes into parallel arrays, and the circles of a node are a linked
+ * list threaded through the circle arrays, so neither insertion, removal nor moving allocates.
+ * Circles are addressed by the handle returned from {@link #insert(int, int, int, int)}.
+ *
+ * <p>{@link #findAllCollisions()} finds every pair of touching circles, with the subtrees of the
+ * root searched in parallel. The tree must not be changed while it runs.
+ */
+public class LooseQuadTree {
+
+  // How much bigger than its square the loose bounds of a node are.
+  private static final double LOOSENESS = 1.5;
+
+  private static final int NONE = -1;
+  private static final int ROOT = 0;
+
+  // Subtrees holding fewer circles are searched for collisions without forking.
+  private static final int FORK_THRESHOLD = 2048;
+
+  private final int capacity;
+  private final int maxDepth;
+
+  // Nodes. The four children of a node are consecutive, starting at firstChild.
+  private double[] nodeX = new double[16];
+  private double[] nodeY = new double[16];
+  private double[] nodeHalf = new double[16];
+  private int[] firstChild = new int[16];
+  private int[] parent = new int[16];
+  private int[] depth = new int[16];
+  private int[] head = new int[16];
+  private int[] count = new int[16];
+  private int[] subtreeCount = new int[16];
+  private int nodeSlots;
+  private int freeBlocks = NONE;
+  private int nodeCount;
+
+  // Circles. Free slots are linked through itemNext.
+  private int[] itemId = new int[16];
+  private int[] itemX = new int[16];
+  private int[] itemY = new int[16];
+  private int[] itemRadius = new int[16];
+  private int[] itemNode = new int[16];
+  private int[] itemNext = new int[16];
+  private int[] itemPrev = new int[16];
+  private int itemSlots;
+  private int freeItems = NONE;
+  private int size;
+
+  /**
+   * Instantiates an empty tree.
+   *
+   * @param boundary the area the circles live in; circles outside it are kept in the root
+   * @param capacity the number of circles a node holds before it splits
+   * @param maxDepth the depth below which nodes do not split
+   */
+  LooseQuadTree(Rect boundary, int capacity, int maxDepth) {
+    if (capacity < 2 || maxDepth < 0) {
+      throw new IllegalArgumentException("capacity must be at least 2, maxDepth at least 0");
+    }
+    this.capacity = capacity;
+    this.maxDepth = maxDepth;
+    nodeSlots = 1;
+    nodeCount = 1;
+    initNode(ROOT, boundary.coordinateX, boundary.coordinateY,
+        Math.max(boundary.width, boundary.height) / 2, NONE, 0);
+  }
+
+  private void initNode(int node, double x, double y, double half, int parentNode, int level) {
+    nodeX[node] = x;
+    nodeY[node] = y;
+    nodeHalf[node] = half;
+    firstChild[node] = NONE;
+    parent[node] = parentNode;
+    depth[node] = level;
+    head[node] = NONE;
+    count[node] = 0;
+    subtreeCount[node] = 0;
+  }
+
+  int size() {
+    return size;
+  }
+
+  int getNodeCount() {
+    return nodeCount;
+  }
+
+  int getId(int handle) {
+    return itemId[handle];
+  }
+
+  int getX(int handle) {
+    return itemX[handle];
+  }
+
+  int getY(int handle) {
+    return itemY[handle];
+  }
+
+  /**
+   * Adds a circle.
+   *
+   * @return the handle of the circle
+   */
+  int insert(int id, int x, int y, int radius) {
+    var handle = allocateItem();
+    itemId[handle] = id;
+    itemX[handle] = x;
+    itemY[handle] = y;
+    itemRadius[handle] = radius;
+    place(handle, ROOT);
+    size++;
+    return handle;
+  }
+
+  /**
+   * Moves a circle. It is relocated only if it no longer fits the loose bounds of its node.
+   */
+  void move(int handle, int x, int y) {
+    itemX[handle] = x;
+    itemY[handle] = y;
+    var node = itemNode[handle];
+    var radius = itemRadius[handle];
+    if (node == ROOT || fits(node, x, y, radius)) {
+      if (firstChild[node] == NONE
+          || !fits(firstChild[node] + quadrant(node, x, y), x, y, radius)) {
+        return;
+      }
+      // Now fits a child; pushing it down keeps it out of the way of other searches.
+      unlink(handle);
+      place(handle, node);
+      return;
+    }
+    unlink(handle);
+    var ancestor = parent[node];
+    while (ancestor != ROOT && !fits(ancestor, x, y, radius)) {
+      ancestor = parent[ancestor];
+    }
+    place(handle, ancestor);
+    mergeUnderfull(node);
+  }
+
+  /**
+   * Removes a circle. Its handle may be reused by a later insert.
+   */
+  void remove(int handle) {
+    final var node = itemNode[handle];
+    unlink(handle);
+    itemNext[handle] = freeItems;
+    freeItems = handle;
+    size--;
+    mergeUnderfull(node);
+  }
+
+  private int allocateItem() {
+    if (freeItems != NONE) {
+      var handle = freeItems;
+      freeItems = itemNext[handle];
+      return handle;
+    }
+    if (itemSlots == itemId.length) {
+      var length = itemSlots * 2;
+      itemId = Arrays.copyOf(itemId, length);
+      itemX = Arrays.copyOf(itemX, length);
+      itemY = Arrays.copyOf(itemY, length);
+      itemRadius = Arrays.copyOf(itemRadius, length);
+      itemNode = Arrays.copyOf(itemNode, length);
+      itemNext = Arrays.copyOf(itemNext, length);
+      itemPrev = Arrays.copyOf(itemPrev, length);
+    }
+    return itemSlots++;
+  }
+
+  /**
+   * Whether the bounding box of the circle fits the loose bounds of the node.
+   */
+  private boolean fits(int node, int x, int y, int radius) {
+    var loose = LOOSENESS * nodeHalf[node];
+    return Math.abs(x - nodeX[node]) + radius <= loose
+        && Math.abs(y - nodeY[node]) + radius <= loose;
+  }
+
+  private int quadrant(int node, int x, int y) {
+    return (x >= nodeX[node] ? 1 : 0) | (y >= nodeY[node] ? 2 : 0);
+  }
+
+  /**
+   * Links the circle to the deepest node at or below {@code start} that fits it, and splits that
+   * node if it is now over capacity.
+   */
+  private void place(int handle, int start) {
+    var x = itemX[handle];
+    var y = itemY[handle];
+    var radius = itemRadius[handle];
+    var node = start;
+    while (firstChild[node] != NONE) {
+      var child = firstChild[node] + quadrant(node, x, y);
+      if (!fits(child, x, y, radius)) {
+        break;
+      }
+      node = child;
+    }
+    link(handle, node);
+    for (var n = node; n != NONE; n = parent[n]) {
+      subtreeCount[n]++;
+    }
+    if (firstChild[node] == NONE && count[node] > capacity && depth[node] < maxDepth) {
+      split(node);
+    }
+  }
+
+  private void link(int handle, int node) {
+    itemNode[handle] = node;
+    itemPrev[handle] = NONE;
+    itemNext[handle] = head[node];
+    if (head[node] != NONE) {
+      itemPrev[head[node]] = handle;
+    }
+    head[node] = handle;
+    count[node]++;
+  }
+
+  /**
+   * Takes the circle off the list of its node, and out of the counts up to the root.
+   */
+  private void unlink(int handle) {
+    var node = itemNode[handle];
+    detach(handle, node);
+    for (var n = node; n != NONE; n = parent[n]) {
+      subtreeCount[n]--;
+    }
+  }
+
+  private void detach(int handle, int node) {
+    var prev = itemPrev[handle];
+    var next = itemNext[handle];
+    if (prev == NONE) {
+      head[node] = next;
+    } else {
+      itemNext[prev] = next;
+    }
+    if (next != NONE) {
+      itemPrev[next] = prev;
+    }
+    count[node]--;
+  }
+
+  private void split(int node) {
+    var block = allocateBlock();
+    var half = nodeHalf[node] / 2;
+    for (var q = 0; q < 4; q++) {
+      var x = nodeX[node] + ((q & 1) == 0 ? -half : half);
+      var y = nodeY[node] + ((q & 2) == 0 ? -half : half);
+      initNode(block + q, x, y, half, node, depth[node] + 1);
+    }
+    firstChild[node] = block;
+    var handle = head[node];
+    while (handle != NONE) {
+      var next = itemNext[handle];
+      var child = block + quadrant(node, itemX[handle], itemY[handle]);
+      if (fits(child, itemX[handle], itemY[handle], itemRadius[handle])) {
+        detach(handle, node);
+        link(handle, child);
+        subtreeCount[child]++;
+      }
+      handle = next;
+    }
+    for (var q = 0; q < 4; q++) {
+      if (count[block + q] > capacity && depth[block + q] < maxDepth) {
+        split(block + q);
+      }
+    }
+  }
+
+  private int allocateBlock() {
+    nodeCount += 4;
+    if (freeBlocks != NONE) {
+      var block = freeBlocks;
+      freeBlocks = firstChild[block];
+      return block;
+    }
+    if (nodeSlots + 4 > nodeX.length) {
+      var length = nodeX.length * 2;
+      nodeX = Arrays.copyOf(nodeX, length);
+      nodeY = Arrays.copyOf(nodeY, length);
+      nodeHalf = Arrays.copyOf(nodeHalf, length);
+      firstChild = Arrays.copyOf(firstChild, length);
+      parent = Arrays.copyOf(parent, length);
+      depth = Arrays.copyOf(depth, length);
+      head = Arrays.copyOf(head, length);
+      count = Arrays.copyOf(count, length);
+      subtreeCount = Arrays.copyOf(subtreeCount, length);
+    }
+    var block = nodeSlots;
+    nodeSlots += 4;
+    return block;
+  }
+
+  /**
+   * Merges the children of the node and of its ancestors back into them while the subtrees hold no
+   * more than half the capacity.
+   */
+  private void mergeUnderfull(int node) {
+    for (var n = node; n != NONE; n = parent[n]) {
+      if (firstChild[n] != NONE && subtreeCount[n] <= capacity / 2 && childrenAreLeaves(n)) {
+        merge(n);
+      }
+    }
+  }
+
+  private boolean childrenAreLeaves(int node) {
+    var block = firstChild[node];
+    for (var q = 0; q < 4; q++) {
+      if (firstChild[block + q] != NONE) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private void merge(int node) {
+    var block = firstChild[node];
+    for (var q = 0; q < 4; q++) {
+      var handle = head[block + q];
+      while (handle != NONE) {
+        var next = itemNext[handle];
+        link(handle, node);
+        handle = next;
+      }
+    }
+    firstChild[node] = NONE;
+    firstChild[block] = freeBlocks;
+    freeBlocks = block;
+    nodeCount -= 4;
+  }
+
+  /**
+   * Finds the circles whose bounding box intersects the range.
+   *
+   * @param range    the range to search
+   * @param consumer receives the handle of every circle found
+   */
+  void query(Rect range, IntConsumer consumer) {
+    var minX = range.coordinateX - range.width / 2;
+    var maxX = range.coordinateX + range.width / 2;
+    var minY = range.coordinateY - range.height / 2;
+    var maxY = range.coordinateY + range.height / 2;
+    var stack = new int[4 * maxDepth + 4];
+    var top = 0;
+    stack[top++] = ROOT;
+    while (top > 0) {
+      var node = stack[--top];
+      if (node != ROOT && !looseIntersects(node, minX, maxX, minY, maxY)) {
+        continue;
+      }
+      for (var handle = head[node]; handle != NONE; handle = itemNext[handle]) {
+        var radius = itemRadius[handle];
+        if (itemX[handle] - radius <= maxX && itemX[handle] + radius >= minX
+            && itemY[handle] - radius <= maxY && itemY[handle] + radius >= minY) {
+          consumer.accept(handle);
+        }
+      }
+      if (firstChild[node] != NONE) {
+        for (var q = 0; q < 4; q++) {
+          stack[top++] = firstChild[node] + q;
+        }
+      }
+    }
+  }
+
+  private boolean looseIntersects(int node, double minX, double maxX, double minY,
+      double maxY) {
+    var loose = LOOSENESS * nodeHalf[node];
+    return nodeX[node] - loose <= maxX && nodeX[node] + loose >= minX
+        && nodeY[node] - loose <= maxY && nodeY[node] + loose >= minY;
+  }
+
+  /**
+   * Finds all pairs of touching circles, the broad phase and the exact test in one pass. Every
+   * circle looks for partners with a higher handle, so each pair is found once; the subtrees of
+   * the root are searched in parallel.
+   *
+   * @return the pairs of ids, packed as by {@link #pair(int, int)}
+   */
+  long[] findAllCollisions() {
+    return new CollisionTask(ROOT).invoke().toArray();
+  }
+
+  static long pair(int firstId, int secondId) {
+    return ((long) firstId << 32) | (secondId & 0xFFFFFFFFL);
+  }
+
+  static int firstId(long pair) {
+    return (int) (pair >>> 32);
+  }
+
+  static int secondId(long pair) {
+    return (int) pair;
+  }
+
+  private boolean touches(int a, int b) {
+    long dx = itemX[a] - itemX[b];
+    long dy = itemY[a] - itemY[b];
+    long reach = itemRadius[a] + itemRadius[b];
+    return dx * dx + dy * dy <= reach * reach;
+  }
+
+  /**
+   * Adds the collisions of the circle with circles of higher handles to the buffer.
+   */
+  private void collide(int handle, int[] stack, PairBuffer pairs) {
+    var x = itemX[handle];
+    var y = itemY[handle];
+    var reach = itemRadius[handle];
+    var top = 0;
+    stack[top++] = ROOT;
+    while (top > 0) {
+      var node = stack[--top];
+      if (node != ROOT && !looseIntersects(node, x - reach, x + reach, y - reach, y + reach)) {
+        continue;
+      }
+      for (var other = head[node]; other != NONE; other = itemNext[other]) {
+        if (other > handle && touches(handle, other)) {
+          pairs.add(pair(itemId[handle], itemId[other]));
+        }
+      }
+      if (firstChild[node] != NONE) {
+        for (var q = 0; q < 4; q++) {
+          stack[top++] = firstChild[node] + q;
+        }
+      }
+    }
+  }
+
+  /**
+   * Searches collisions for the circles in one subtree, forking for its big child subtrees.
+   */
+  private class CollisionTask extends RecursiveTask<PairBuffer> {
+
+    private final int node;
+
+    CollisionTask(int node) {
+      this.node = node;
+    }
+
+    @Override
+    protected PairBuffer compute() {
+      var pairs = new PairBuffer();
+      var stack = new int[4 * maxDepth + 4];
+      var forked = new CollisionTask[4];
+      if (firstChild[node] != NONE) {
+        for (var q = 0; q < 4; q++) {
+          var child = firstChild[node] + q;
+          if (subtreeCount[child] >= FORK_THRESHOLD) {
+            forked[q] = new CollisionTask(child);
+            forked[q].fork();
+          }
+        }
+      }
+      collideSubtree(node, forked, stack, pairs);
+      for (var q = 3; q >= 0; q--) {
+        if (forked[q] != null) {
+          pairs.addAll(forked[q].join());
+        }
+      }
+      return pairs;
+    }
+
+    private void collideSubtree(int top, CollisionTask[] forked, int[] stack, PairBuffer pairs) {
+      for (var handle = head[top]; handle != NONE; handle = itemNext[handle]) {
+        collide(handle, stack, pairs);
+      }
+      if (firstChild[top] != NONE) {
+        for (var q = 0; q < 4; q++) {
+          if (forked == null || forked[q] == null) {
+            collideSubtree(firstChild[top] + q, null, stack, pairs);
+          }
+        }
+      }
+    }
+  }
+
+  /**
+   * A growable array of packed pairs.
+   */
+  private static final class PairBuffer {
+
+    private long[] pairs = new long[64];
+    private int length;
+
+    void add(long pair) {
+      if (length == pairs.length) {
+        pairs = Arrays.copyOf(pairs, length * 2);
+      }
+      pairs[length++] = pair;
+    }
+
+    void addAll(PairBuffer other) {
+      if (length + other.length > pairs.length) {
+        pairs = Arrays.copyOf(pairs, Math.max(length + other.length, length * 2));
+      }
+      System.arraycopy(other.pairs, 0, pairs, length, other.length);
+      length += other.length;
+    }
+
+    long[] toArray() {
+      return Arrays.copyOf(pairs, length);
+    }
+  }
+}
@@ -0,0 +1,134 @@
+/*
+ * This project is licensed under the MIT license. Module model-view-viewmodel is using ZK framework licensed under LGPL (see lgpl-3.0.txt).
+ *
+ * The MIT License
+ * Copyright © 2014-2022 Ilkka Seppälä
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.iluwatar.spatialpartition;
+
+import java.util.ArrayList;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * JMH benchmark: the time of one frame, in which every bubble moves and all touching bubbles are
+ * found, for 10k, 100k and 1M bubbles. {@code rebuild} builds a new {@link QuadTree} every frame
+ * and queries it around each bubble, as {@link App#withSpatialPartition} does; {@code loose}
+ * moves the bubbles in one {@link LooseQuadTree} and calls
+ * {@link LooseQuadTree#findAllCollisions()}.
+ *
+ * <p>The field grows with the number of bubbles, ten units per bubble along each side, so the
+ * density and the number of collisions per bubble stay the same. Bubbles do not pop, so every
+ * frame does the same work. Run {@link #main(String[])} from the test classpath.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgs = "-Xmx3g")
+public class FrameBenchmark {
+
+  @Param({"10000", "100000", "1000000"})
+  public int bubbles;
+
+  private int side;
+
+  private Bubble[] field;
+
+  private LooseQuadTree tree;
+
+  private int[] handles;
+
+  private final SplittableRandom random = new SplittableRandom(42);
+
+  @Setup
+  public void setUp() {
+    side = (int) (10 * Math.sqrt(bubbles));
+    field = new Bubble[bubbles];
+    tree = new LooseQuadTree(new Rect(side / 2D, side / 2D, side, side), 8, 16);
+    handles = new int[bubbles];
+    for (var i = 0; i < bubbles; i++) {
+      field[i] = new Bubble(random.nextInt(side), random.nextInt(side), i, random.nextInt(2) + 1);
+      handles[i] = tree.insert(i, field[i].coordinateX, field[i].coordinateY, field[i].radius);
+    }
+  }
+
+  // Moves like Bubble.move(), without its SecureRandom, which would dominate both variants.
+  private void move(Bubble bubble) {
+    bubble.coordinateX += random.nextInt(3) - 1;
+    bubble.coordinateY += random.nextInt(3) - 1;
+  }
+
+  @Benchmark
+  public int rebuild() {
+    for (var bubble : field) {
+      move(bubble);
+    }
+    var quadTree = new QuadTree(new Rect(side / 2D, side / 2D, side, side), 4);
+    for (var bubble : field) {
+      quadTree.insert(bubble);
+    }
+    var collisions = 0;
+    var found = new ArrayList<Point>();
+    for (var bubble : field) {
+      found.clear();
+      var range = new Rect(bubble.coordinateX, bubble.coordinateY,
+          2D * bubble.radius, 2D * bubble.radius);
+      quadTree.query(range, found);
+      for (var point : found) {
+        if (point != bubble && bubble.touches((Bubble) point)) {
+          collisions++;
+        }
+      }
+    }
+    return collisions / 2;
+  }
+
+  @Benchmark
+  public int loose() {
+    for (var i = 0; i < field.length; i++) {
+      move(field[i]);
+      tree.move(handles[i], field[i].coordinateX, field[i].coordinateY);
+    }
+    return tree.findAllCollisions().length;
+  }
+
+  public static void main(String[] args) throws RunnerException {
+    new Runner(new OptionsBuilder()
+        .include(FrameBenchmark.class.getSimpleName())
+        .build()).run();
+  }
+}
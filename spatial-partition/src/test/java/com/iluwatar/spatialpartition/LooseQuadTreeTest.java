@@ -0,0 +1,149 @@
+/*
+ * This project is licensed under the MIT license. Module model-view-viewmodel is using ZK framework licensed under LGPL (see lgpl-3.0.txt).
+ *
+ * The MIT License
+ * Copyright © 2014-2022 Ilkka Seppälä
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.iluwatar.spatialpartition;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Testing LooseQuadTree class against brute force.
+ */
+class LooseQuadTreeTest {
+
+  private static final Rect FIELD = new Rect(500, 500, 1000, 1000);
+
+  private final Random random = new Random(42);
+
+  private int[] xs;
+  private int[] ys;
+  private int[] radii;
+  private int[] handles;
+
+  private LooseQuadTree fill(int circles) {
+    var tree = new LooseQuadTree(FIELD, 8, 12);
+    xs = new int[circles];
+    ys = new int[circles];
+    radii = new int[circles];
+    handles = new int[circles];
+    for (var i = 0; i < circles; i++) {
+      xs[i] = random.nextInt(1000);
+      ys[i] = random.nextInt(1000);
+      radii[i] = random.nextInt(3) + 1;
+      handles[i] = tree.insert(i, xs[i], ys[i], radii[i]);
+    }
+    return tree;
+  }
+
+  private void moveAll(LooseQuadTree tree, int step) {
+    for (var i = 0; i < xs.length; i++) {
+      // Some circles wander off the field, where the root keeps them.
+      xs[i] += random.nextInt(2 * step + 1) - step;
+      ys[i] += random.nextInt(2 * step + 1) - step;
+      tree.move(handles[i], xs[i], ys[i]);
+    }
+  }
+
+  private static long normalized(long pair) {
+    var a = LooseQuadTree.firstId(pair);
+    var b = LooseQuadTree.secondId(pair);
+    return LooseQuadTree.pair(Math.min(a, b), Math.max(a, b));
+  }
+
+  private Set<Long> bruteForceCollisions() {
+    var pairs = new HashSet<Long>();
+    for (var i = 0; i < xs.length; i++) {
+      for (var j = i + 1; j < xs.length; j++) {
+        long dx = xs[i] - xs[j];
+        long dy = ys[i] - ys[j];
+        long reach = radii[i] + radii[j];
+        if (dx * dx + dy * dy <= reach * reach) {
+          pairs.add(LooseQuadTree.pair(i, j));
+        }
+      }
+    }
+    return pairs;
+  }
+
+  private static Set<Long> collisions(LooseQuadTree tree) {
+    var found = tree.findAllCollisions();
+    var pairs = new HashSet<Long>();
+    for (var pair : found) {
+      pairs.add(normalized(pair));
+    }
+    assertEquals(found.length, pairs.size(), "a pair was reported twice");
+    return pairs;
+  }
+
+  @Test
+  void collisionsMatchBruteForceAcrossMoves() {
+    var tree = fill(10_000);
+    assertEquals(bruteForceCollisions(), collisions(tree));
+
+    for (var frame = 0; frame < 5; frame++) {
+      moveAll(tree, 20);
+      assertEquals(bruteForceCollisions(), collisions(tree));
+    }
+  }
+
+  @Test
+  void queryMatchesBruteForceAfterMoves() {
+    var tree = fill(3_000);
+    moveAll(tree, 50);
+    var range = new Rect(300, 600, 200, 100);
+
+    var found = new HashSet<Integer>();
+    tree.query(range, handle -> found.add(tree.getId(handle)));
+
+    var expected = new HashSet<Integer>();
+    for (var i = 0; i < xs.length; i++) {
+      if (Math.abs(xs[i] - 300) <= 100 + radii[i] && Math.abs(ys[i] - 600) <= 50 + radii[i]) {
+        expected.add(i);
+      }
+    }
+    assertEquals(expected, found);
+  }
+
+  @Test
+  void removalMergesNodesBack() {
+    var tree = fill(5_000);
+    var grownNodes = tree.getNodeCount();
+    assertTrue(grownNodes > 100);
+
+    for (var i = 3; i < xs.length; i++) {
+      tree.remove(handles[i]);
+    }
+
+    assertEquals(3, tree.size());
+    assertEquals(1, tree.getNodeCount());
+    var reused = tree.insert(99, 10, 10, 1);
+    assertTrue(reused < xs.length);
+    assertEquals(99, tree.getId(reused));
+  }
+}
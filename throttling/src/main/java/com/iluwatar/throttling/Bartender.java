@@ -24,6 +24,7 @@
  */
 package com.iluwatar.throttling;
 
+import com.iluwatar.throttling.limiter.RateLimiter;
 import com.iluwatar.throttling.timer.Throttler;
 import java.util.concurrent.ThreadLocalRandom;
 import org.slf4j.Logger;
@@ -37,18 +38,37 @@ class Bartender {
 
   private static final Logger LOGGER = LoggerFactory.getLogger(Bartender.class);
   private final CallsCount callsCount;
+  private final RateLimiter rateLimiter;
 
   public Bartender(Throttler timer, CallsCount callsCount) {
     this.callsCount = callsCount;
+    this.rateLimiter = null;
     timer.start();
   }
 
+  /**
+   * Creates a bartender that asks the rate limiter instead of counting calls itself. The customers
+   * must be registered with the rate limiter.
+   */
+  public Bartender(RateLimiter rateLimiter) {
+    this.callsCount = null;
+    this.rateLimiter = rateLimiter;
+  }
+
   /**
    * Orders a drink from the bartender.
    * @return customer id which is randomly generated
    */
   public int orderDrink(BarCustomer barCustomer) {
     var tenantName = barCustomer.getName();
+    if (rateLimiter != null) {
+      if (!rateLimiter.tryAcquire(tenantName)) {
+        LOGGER.error("I'm sorry {}, you've had enough for today!", tenantName);
+        return -1;
+      }
+      LOGGER.debug("Serving beer to {}", tenantName);
+      return getRandomCustomerId();
+    }
     var count = callsCount.getCount(tenantName);
     if (count >= barCustomer.getAllowedCallsPerSecond()) {
       LOGGER.error("I'm sorry {}, you've had enough for today!", tenantName);
@@ -24,18 +24,56 @@
  */
 package com.iluwatar.throttling;
 
+import java.util.Iterator;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicLongFieldUpdater;
+import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
 import lombok.extern.slf4j.Slf4j;
 
 /**
  * A class to keep track of the counter of different Tenants.
  *
+ * <p>Every count is tagged with the epoch it was made in, and {@link #reset()} simply starts a new
+ * epoch: counts from older epochs read as zero and are overwritten by the next increment, so a
+ * reset is O(1) and allocates nothing no matter how many tenants there are. Like
+ * {@link java.util.concurrent.atomic.LongAdder}, a tenant's counter is a single word until two
+ * threads collide on it, and only then grows padded per-thread cells. Tenants that have not been
+ * counted for {@code idleEpochs} resets are dropped a slice at a time during {@link #reset()} and
+ * come back on their next call.
  */
 @Slf4j
 public final class CallsCount {
-  private final Map<String, AtomicLong> tenantCallsCount = new ConcurrentHashMap<>();
+
+  private static final int DEFAULT_IDLE_EPOCHS = 60;
+
+  private static final int MIN_SWEEP = 1024;
+
+  private final Map<String, Counter> tenantCallsCount = new ConcurrentHashMap<>();
+
+  private final int idleEpochs;
+
+  private volatile int epoch;
+
+  // Only used by reset(), which the throttle timer calls from a single thread.
+  private Iterator<Counter> sweep;
+
+  public CallsCount() {
+    this(DEFAULT_IDLE_EPOCHS);
+  }
+
+  /**
+   * Creates a counter store that forgets tenants after {@code idleEpochs} resets without calls.
+   *
+   * @param idleEpochs number of quiet resets after which a tenant is dropped
+   */
+  public CallsCount(int idleEpochs) {
+    if (idleEpochs < 1) {
+      throw new IllegalArgumentException("idleEpochs must be positive: " + idleEpochs);
+    }
+    this.idleEpochs = idleEpochs;
+  }
 
   /**
    * Add a new tenant to the map.
@@ -43,33 +81,185 @@ public final class CallsCount {
    * @param tenantName name of the tenant.
    */
   public void addTenant(String tenantName) {
-    tenantCallsCount.putIfAbsent(tenantName, new AtomicLong(0));
+    tenantCallsCount.computeIfAbsent(tenantName, k -> new Counter(k, epoch));
   }
 
   /**
-   * Increment the count of the specified tenant.
+   * Increment the count of the specified tenant. Tenants that were never added, or were dropped
+   * for being idle, are added.
    *
    * @param tenantName name of the tenant.
    */
   public void incrementCount(String tenantName) {
-    tenantCallsCount.get(tenantName).incrementAndGet();
+    while (true) {
+      var counter = tenantCallsCount.get(tenantName);
+      if (counter == null) {
+        counter = tenantCallsCount.computeIfAbsent(tenantName, k -> new Counter(k, epoch));
+      }
+      counter.increment(epoch);
+      if (!counter.sweeping || !isDropped(tenantName, counter)) {
+        return;
+      }
+      // The sweeper dropped the counter just as we counted on it; count again on a new one.
+    }
+  }
+
+  private boolean isDropped(String tenantName, Counter counter) {
+    while (counter.sweeping) {
+      if (tenantCallsCount.get(tenantName) != counter) {
+        return true;
+      }
+      Thread.onSpinWait();
+    }
+    return false;
   }
 
   /**
    * Get count of tenant based on tenant name.
    *
    * @param tenantName name of the tenant.
-   * @return the count of the tenant.
+   * @return the count of the tenant in the current epoch, 0 for unknown tenants.
    */
   public long getCount(String tenantName) {
-    return tenantCallsCount.get(tenantName).get();
+    var counter = tenantCallsCount.get(tenantName);
+    return counter == null ? 0 : counter.sum(epoch);
   }
 
   /**
    * Resets the count of all the tenants in the map.
    */
   public void reset() {
-    tenantCallsCount.replaceAll((k, v) -> new AtomicLong(0));
+    var current = ++epoch;
+    sweepIdleTenants(current);
     LOGGER.info("reset counters");
   }
+
+  /**
+   * Returns the number of tenants currently tracked.
+   *
+   * @return tenant count
+   */
+  public int getTenantCount() {
+    return tenantCallsCount.size();
+  }
+
+  private void sweepIdleTenants(int current) {
+    var budget = Math.max(MIN_SWEEP, tenantCallsCount.size() / idleEpochs);
+    for (var i = 0; i < budget; i++) {
+      if (sweep == null || !sweep.hasNext()) {
+        if (i > 0) {
+          // Start the next pass on the next reset.
+          sweep = null;
+          return;
+        }
+        sweep = tenantCallsCount.values().iterator();
+        if (!sweep.hasNext()) {
+          return;
+        }
+      }
+      var counter = sweep.next();
+      if (current - counter.lastEpoch() < idleEpochs) {
+        continue;
+      }
+      // Announce the sweep before looking at the counter again, so a concurrent increment either
+      // shows up in the second look or sees the flag and waits for the outcome.
+      // A dropped counter keeps the flag, so an increment that lands on it later still notices.
+      counter.sweeping = true;
+      if (current - counter.lastEpoch() < idleEpochs
+          || !tenantCallsCount.remove(counter.tenantName, counter)) {
+        counter.sweeping = false;
+      }
+    }
+  }
+
+  /**
+   * Per-tenant count. Each word packs the epoch in its upper 32 bits and the count made in that
+   * epoch in its lower 32 bits.
+   */
+  private static final class Counter {
+
+    private static final AtomicLongFieldUpdater<Counter> BASE =
+        AtomicLongFieldUpdater.newUpdater(Counter.class, "base");
+
+    private static final AtomicReferenceFieldUpdater<Counter, AtomicLongArray> CELLS =
+        AtomicReferenceFieldUpdater.newUpdater(Counter.class, AtomicLongArray.class, "cells");
+
+    private static final int STRIPES = Math.min(64,
+        Integer.highestOneBit(Math.max(1, Runtime.getRuntime().availableProcessors() - 1) << 1));
+
+    // Cells 16 longs apart keep each one on its own pair of cache lines.
+    private static final int PAD = 16;
+
+    private final String tenantName;
+
+    private volatile long base;
+
+    private volatile AtomicLongArray cells;
+
+    private volatile boolean sweeping;
+
+    private Counter(String tenantName, int epoch) {
+      this.tenantName = tenantName;
+      this.base = pack(epoch, 0);
+    }
+
+    private static long pack(int epoch, long count) {
+      return (long) epoch << 32 | count;
+    }
+
+    // A caller that read the epoch just before a reset counts into the newer epoch already in the
+    // word rather than wiping it out.
+    private static long add(long word, int epoch) {
+      return (int) (word >>> 32) - epoch >= 0 ? word + 1 : pack(epoch, 1);
+    }
+
+    private static long countIn(long word, int epoch) {
+      return (int) (word >>> 32) == epoch ? word & 0xFFFF_FFFFL : 0;
+    }
+
+    void increment(int epoch) {
+      var cs = cells;
+      if (cs == null) {
+        var b = base;
+        if (BASE.compareAndSet(this, b, add(b, epoch))) {
+          return;
+        }
+        CELLS.compareAndSet(this, null, new AtomicLongArray(STRIPES * PAD));
+        cs = cells;
+      }
+      var i = (int) (Thread.currentThread().getId() * 0x9E3779B97F4A7C15L >>> 40) & (STRIPES - 1);
+      while (true) {
+        var c = cs.get(i * PAD);
+        if (cs.compareAndSet(i * PAD, c, add(c, epoch))) {
+          return;
+        }
+        i = (i + 1) & (STRIPES - 1);
+      }
+    }
+
+    long sum(int epoch) {
+      var total = countIn(base, epoch);
+      var cs = cells;
+      if (cs != null) {
+        for (var i = 0; i < STRIPES; i++) {
+          total += countIn(cs.get(i * PAD), epoch);
+        }
+      }
+      return total;
+    }
+
+    int lastEpoch() {
+      var last = (int) (base >>> 32);
+      var cs = cells;
+      if (cs != null) {
+        for (var i = 0; i < STRIPES; i++) {
+          var e = (int) (cs.get(i * PAD) >>> 32);
+          if (e - last > 0) {
+            last = e;
+          }
+        }
+      }
+      return last;
+    }
+  }
 }
@@ -0,0 +1,96 @@
+/*
+ * This project is licensed under the MIT license. Module model-view-viewmodel is using ZK framework licensed under LGPL (see lgpl-3.0.txt).
+ *
+ * The MIT License
+ * Copyright © 2014-2022 Ilkka Seppälä
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.iluwatar.throttling.limiter;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+/**
+ * Keeps the per-tenant state of a {@link RateLimiter} and reads the clock. Times passed to
+ * subclasses are nanoseconds since the limiter was created, so they start near zero.
+ *
+ * @param <S> per-tenant state
+ */
+abstract class AbstractRateLimiter<S> implements RateLimiter {
+
+  private final Map<String, S> tenants = new ConcurrentHashMap<>();
+
+  private final LongSupplier nanoClock;
+
+  private final long epoch;
+
+  AbstractRateLimiter(LongSupplier nanoClock) {
+    this.nanoClock = nanoClock;
+    this.epoch = nanoClock.getAsLong();
+  }
+
+  @Override
+  public void register(String tenant, int permits, long period, TimeUnit unit) {
+    var periodNanos = unit.toNanos(period);
+    if (permits < 0 || permits > maxPermits()) {
+      throw new IllegalArgumentException(
+          "permits must be between 0 and " + maxPermits() + ": " + permits);
+    }
+    if (periodNanos <= 0) {
+      throw new IllegalArgumentException("period must be positive: " + period + " " + unit);
+    }
+    if (periodNanos > maxPeriodNanos()) {
+      throw new IllegalArgumentException(
+          "period must be at most " + maxPeriodNanos() + " ns: " + period + " " + unit);
+    }
+    tenants.put(tenant, newState(permits, periodNanos, now()));
+  }
+
+  @Override
+  public boolean tryAcquire(String tenant) {
+    var state = tenants.get(tenant);
+    if (state == null) {
+      throw new IllegalArgumentException("Unknown tenant: " + tenant);
+    }
+    return acquire(state, now());
+  }
+
+  private long now() {
+    return nanoClock.getAsLong() - epoch;
+  }
+
+  /**
+   * Returns the largest number of permits per period the state can represent.
+   */
+  abstract int maxPermits();
+
+  /**
+   * Returns the longest period the state can represent, in nanoseconds.
+   */
+  long maxPeriodNanos() {
+    return Long.MAX_VALUE;
+  }
+
+  abstract S newState(int permits, long periodNanos, long now);
+
+  abstract boolean acquire(S state, long now);
+}
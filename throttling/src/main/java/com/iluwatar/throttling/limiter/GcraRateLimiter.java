@@ -0,0 +1,93 @@
+/*
+ * This project is licensed under the MIT license. Module model-view-viewmodel is using ZK framework licensed under LGPL (see lgpl-3.0.txt).
+ *
+ * The MIT License
+ * Copyright © 2014-2022 Ilkka Seppälä
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.iluwatar.throttling.limiter;
+
+import java.util.concurrent.atomic.AtomicLongFieldUpdater;
+import java.util.function.LongSupplier;
+
+/**
+ * Generic cell rate algorithm: each tenant keeps only its theoretical arrival time (TAT), the time
+ * at which it would be back to an empty allowance if calls kept arriving at exactly the emission
+ * interval {@code period / permits}. A call is allowed if pushing the TAT one interval further
+ * keeps it within {@code permits} intervals of now, which allows bursts of up to {@code permits}
+ * calls. The state is a single long updated with one compare-and-set; a rejected call writes
+ * nothing.
+ */
+public class GcraRateLimiter extends AbstractRateLimiter<GcraRateLimiter.Cell> {
+
+  public GcraRateLimiter() {
+    this(System::nanoTime);
+  }
+
+  public GcraRateLimiter(LongSupplier nanoClock) {
+    super(nanoClock);
+  }
+
+  @Override
+  int maxPermits() {
+    return Integer.MAX_VALUE;
+  }
+
+  @Override
+  Cell newState(int permits, long periodNanos, long now) {
+    var interval = Math.max(1, periodNanos / Math.max(1, permits));
+    return new Cell(interval, permits * interval, now);
+  }
+
+  @Override
+  boolean acquire(Cell cell, long now) {
+    while (true) {
+      var tat = cell.tat;
+      var next = Math.max(tat, now) + cell.interval;
+      if (next - now > cell.limit) {
+        return false;
+      }
+      if (Cell.TAT.compareAndSet(cell, tat, next)) {
+        return true;
+      }
+    }
+  }
+
+  /**
+   * Per-tenant theoretical arrival time.
+   */
+  static final class Cell {
+
+    private static final AtomicLongFieldUpdater<Cell> TAT =
+        AtomicLongFieldUpdater.newUpdater(Cell.class, "tat");
+
+    private final long interval;
+
+    private final long limit;
+
+    private volatile long tat;
+
+    private Cell(long interval, long limit, long now) {
+      this.interval = interval;
+      this.limit = limit;
+      this.tat = now;
+    }
+  }
+}
@@ -0,0 +1,58 @@
+/*
+ * This project is licensed under the MIT license. Module model-view-viewmodel is using ZK framework licensed under LGPL (see lgpl-3.0.txt).
+ *
+ * The MIT License
+ * Copyright © 2014-2022 Ilkka Seppälä
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.iluwatar.throttling.limiter;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A per-tenant rate limiter that decides each call on its own, from the tenant's state and the
+ * current time. Unlike {@link com.iluwatar.throttling.timer.ThrottleTimerImpl} it needs no timer to
+ * reset counters, so there is no global reset event and no double burst at window boundaries.
+ *
+ * <p>Implementations are thread-safe and {@link #tryAcquire(String)} does not allocate.
+ */
+public interface RateLimiter {
+
+  /**
+   * Registers a tenant, or replaces its configuration and state.
+   *
+   * @param tenant  name of the tenant
+   * @param permits number of calls allowed per period, which is also the largest burst
+   * @param period  length of the period
+   * @param unit    unit of {@code period}
+   * @throws IllegalArgumentException if the permits are negative or too large for this limiter,
+   *                                  or the period is not positive
+   */
+  void register(String tenant, int permits, long period, TimeUnit unit);
+
+  /**
+   * Takes one permit for the tenant if it has one available.
+   *
+   * @param tenant name of a registered tenant
+   * @return true if the call is allowed
+   * @throws IllegalArgumentException if the tenant was never registered
+   */
+  boolean tryAcquire(String tenant);
+}
@@ -0,0 +1,132 @@
+/*
+ * This project is licensed under the MIT license. Module model-view-viewmodel is using ZK framework licensed under LGPL (see lgpl-3.0.txt).
+ *
+ * The MIT License
+ * Copyright © 2014-2022 Ilkka Seppälä
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.iluwatar.throttling.limiter;
+
+import java.util.concurrent.atomic.AtomicLongFieldUpdater;
+import java.util.function.LongSupplier;
+
+/**
+ * Sliding-window counter: calls are counted in fixed windows of one period, and a call is allowed
+ * while the count of the current window plus the previous window's count, weighted by how much of
+ * it still overlaps the sliding period, stays below {@code permits}. This smooths the boundary
+ * where a fixed window lets a tenant spend two periods' worth of calls back to back.
+ *
+ * <p>The window number and both counts are packed into one long (32 bits of window, 16 bits per
+ * count) and updated with a single compare-and-set; a rejected call writes nothing.
+ */
+public class SlidingWindowRateLimiter
+    extends AbstractRateLimiter<SlidingWindowRateLimiter.Window> {
+
+  private static final int COUNT_BITS = 16;
+
+  private static final long COUNT_MASK = (1L << COUNT_BITS) - 1;
+
+  private static final long WINDOW_MASK = 0xFFFF_FFFFL;
+
+  public SlidingWindowRateLimiter() {
+    this(System::nanoTime);
+  }
+
+  public SlidingWindowRateLimiter(LongSupplier nanoClock) {
+    super(nanoClock);
+  }
+
+  @Override
+  int maxPermits() {
+    return (int) COUNT_MASK - 1;
+  }
+
+  @Override
+  Window newState(int permits, long periodNanos, long now) {
+    return new Window(permits, periodNanos, now / periodNanos);
+  }
+
+  @Override
+  boolean acquire(Window window, long now) {
+    var period = window.periodNanos;
+    var index = (now / period) & WINDOW_MASK;
+    var into = now % period;
+    while (true) {
+      var current = window.state;
+      var stored = current >>> (2 * COUNT_BITS);
+      var previous = (current >>> COUNT_BITS) & COUNT_MASK;
+      var count = current & COUNT_MASK;
+      var age = (index - stored) & WINDOW_MASK;
+      var slot = index;
+      var offset = into;
+      if (age == 1) {
+        previous = count;
+        count = 0;
+      } else if (age > WINDOW_MASK / 2) {
+        // Another thread read a later time and moved on to the next window already.
+        slot = stored;
+        offset = 0;
+      } else if (age > 1) {
+        previous = 0;
+        count = 0;
+      }
+      // previous * (period - offset) / period + count < permits, without dividing.
+      if (count >= window.permits
+          || atLeast(previous, period - offset, window.permits - count, period)) {
+        return false;
+      }
+      var next = slot << (2 * COUNT_BITS) | previous << COUNT_BITS | (count + 1);
+      if (Window.STATE.compareAndSet(window, current, next)) {
+        return true;
+      }
+    }
+  }
+
+  /**
+   * Compares {@code a * b >= c * d} for non-negative factors on the full 128-bit products, as a
+   * count times a long period overflows a long.
+   */
+  private static boolean atLeast(long a, long b, long c, long d) {
+    var high = Math.multiplyHigh(a, b);
+    var otherHigh = Math.multiplyHigh(c, d);
+    return high != otherHigh ? high > otherHigh : Long.compareUnsigned(a * b, c * d) >= 0;
+  }
+
+  /**
+   * Per-tenant window counts.
+   */
+  static final class Window {
+
+    private static final AtomicLongFieldUpdater<Window> STATE =
+        AtomicLongFieldUpdater.newUpdater(Window.class, "state");
+
+    private final long permits;
+
+    private final long periodNanos;
+
+    private volatile long state;
+
+    private Window(long permits, long periodNanos, long index) {
+      this.permits = permits;
+      this.periodNanos = periodNanos;
+      this.state = (index & WINDOW_MASK) << (2 * COUNT_BITS);
+    }
+  }
+}
@@ -0,0 +1,139 @@
+/*
+ * This project is licensed under the MIT license. Module model-view-viewmodel is using ZK framework licensed under LGPL (see lgpl-3.0.txt).
+ *
+ * The MIT License
+ * Copyright © 2014-2022 Ilkka Seppälä
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.iluwatar.throttling.limiter;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongFieldUpdater;
+import java.util.function.LongSupplier;
+
+/**
+ * Token bucket: a tenant's bucket holds up to {@code permits} tokens, refills at {@code permits}
+ * per period and every call takes one token.
+ *
+ * <p>The token count and the time of the last refill are packed into one long, 16 bits of tokens
+ * below 48 bits of nanoseconds, and updated with a single compare-and-set. Refills advance the
+ * stored time only by the whole tokens they add, so no fraction of a token is lost. A rejected
+ * call writes nothing. The time field wraps after about 78 hours, so periods may be at most half
+ * of that, and a bucket not used for that long is taken to be full whatever the field says.
+ */
+public class TokenBucketRateLimiter extends AbstractRateLimiter<TokenBucketRateLimiter.Bucket> {
+
+  private static final int TOKEN_BITS = 16;
+
+  private static final long TOKEN_MASK = (1L << TOKEN_BITS) - 1;
+
+  private static final long TIME_MASK = (1L << (Long.SIZE - TOKEN_BITS)) - 1;
+
+  // Elapsed times this close below the wrap point are clock races between threads, not wraps.
+  private static final long MAX_SKEW = TimeUnit.SECONDS.toNanos(1);
+
+  // Idle this long, a bucket is full: longer than any period, shorter than the wrap of the field.
+  private static final long FULL_AFTER = TIME_MASK / 2;
+
+  public TokenBucketRateLimiter() {
+    this(System::nanoTime);
+  }
+
+  public TokenBucketRateLimiter(LongSupplier nanoClock) {
+    super(nanoClock);
+  }
+
+  @Override
+  int maxPermits() {
+    return (int) TOKEN_MASK;
+  }
+
+  @Override
+  long maxPeriodNanos() {
+    return FULL_AFTER;
+  }
+
+  @Override
+  Bucket newState(int permits, long periodNanos, long now) {
+    return new Bucket(permits, Math.max(1, periodNanos / Math.max(1, permits)), now);
+  }
+
+  @Override
+  boolean acquire(Bucket bucket, long now) {
+    while (true) {
+      var current = bucket.state;
+      var tokens = current & TOKEN_MASK;
+      var last = current >>> TOKEN_BITS;
+      var elapsed = (now - last) & TIME_MASK;
+      if (elapsed > TIME_MASK - MAX_SKEW) {
+        // Another thread read a later time and refilled already.
+        elapsed = 0;
+      }
+      // The masked time cannot tell how often it wrapped while the bucket sat idle.
+      var refill = now - bucket.used > FULL_AFTER ? bucket.capacity
+          : elapsed / bucket.nanosPerToken;
+      if (tokens + refill >= bucket.capacity) {
+        tokens = bucket.capacity;
+        last = now;
+      } else {
+        tokens += refill;
+        last += refill * bucket.nanosPerToken;
+      }
+      if (tokens == 0) {
+        return false;
+      }
+      if (Bucket.STATE.compareAndSet(bucket, current, pack(tokens - 1, last))) {
+        if (now - bucket.used > MAX_SKEW) {
+          bucket.used = now;
+        }
+        return true;
+      }
+    }
+  }
+
+  private static long pack(long tokens, long time) {
+    return (time & TIME_MASK) << TOKEN_BITS | tokens;
+  }
+
+  /**
+   * Per-tenant bucket.
+   */
+  static final class Bucket {
+
+    private static final AtomicLongFieldUpdater<Bucket> STATE =
+        AtomicLongFieldUpdater.newUpdater(Bucket.class, "state");
+
+    private final long capacity;
+
+    private final long nanosPerToken;
+
+    private volatile long state;
+
+    // Full-width time of a recent call, updated at most once per MAX_SKEW.
+    private volatile long used;
+
+    private Bucket(long capacity, long nanosPerToken, long now) {
+      this.capacity = capacity;
+      this.nanosPerToken = nanosPerToken;
+      this.state = pack(capacity, now);
+      this.used = now;
+    }
+  }
+}
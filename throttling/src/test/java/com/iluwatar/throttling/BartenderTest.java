@@ -26,7 +26,9 @@ package com.iluwatar.throttling;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 
+import com.iluwatar.throttling.limiter.TokenBucketRateLimiter;
 import com.iluwatar.throttling.timer.Throttler;
+import java.util.concurrent.TimeUnit;
 import java.util.stream.IntStream;
 import org.junit.jupiter.api.Test;
 
@@ -48,4 +50,16 @@ class BartenderTest {
     var counter = callsCount.getCount(tenant.getName());
     assertEquals(2, counter, "Counter limit must be reached");
   }
+
+  @Test
+  void rateLimitedCustomerApiTest() {
+    var tenant = new BarCustomer("pirate", 2, callsCount);
+    var rateLimiter = new TokenBucketRateLimiter(() -> 0L);
+    rateLimiter.register(tenant.getName(), tenant.getAllowedCallsPerSecond(), 1, TimeUnit.SECONDS);
+    var service = new Bartender(rateLimiter);
+
+    var served = IntStream.range(0, 5).map(i -> service.orderDrink(tenant)).filter(id -> id > 0)
+        .count();
+    assertEquals(2, served, "Rate limit must be reached");
+  }
 }
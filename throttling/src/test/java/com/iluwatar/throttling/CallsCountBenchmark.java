@@ -0,0 +1,188 @@
+/*
+ * This project is licensed under the MIT license. Module model-view-viewmodel is using ZK framework licensed under LGPL (see lgpl-3.0.txt).
+ *
+ * The MIT License
+ * Copyright © 2014-2022 Ilkka Seppälä
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.iluwatar.throttling;
+
+import java.lang.management.ManagementFactory;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.lang.ref.Reference;
+import java.util.function.Supplier;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * JMH benchmark of {@link CallsCount} against the map of {@link AtomicLong}s it used to be, with
+ * {@value #TENANTS} tenants: increments of one hot tenant by every thread, increments spread over
+ * all tenants, and the periodic reset.
+ *
+ * <p>Run {@link #main(String[])} from the test classpath; it prints the heap footprint of both
+ * stores first and then repeats the benchmark for 1, 2, 4 and 8 threads.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CallsCountBenchmark {
+
+  private static final int TENANTS = 100_000;
+
+  @Param({"atomicLong", "striped"})
+  public String store;
+
+  private final String[] tenants = names();
+
+  private Map<String, AtomicLong> atomicLongs;
+
+  private CallsCount callsCount;
+
+  /**
+   * Each thread starts at a different tenant.
+   */
+  @State(Scope.Thread)
+  public static class Cursor {
+    private int next = (int) (Thread.currentThread().getId() * 7919 % TENANTS);
+
+    int next() {
+      var i = next;
+      next = i + 1 == TENANTS ? 0 : i + 1;
+      return i;
+    }
+  }
+
+  private static String[] names() {
+    var names = new String[TENANTS];
+    for (var i = 0; i < TENANTS; i++) {
+      names[i] = "tenant-" + i;
+    }
+    return names;
+  }
+
+  private static Map<String, AtomicLong> atomicLongs(String[] tenants) {
+    var map = new ConcurrentHashMap<String, AtomicLong>();
+    for (var tenant : tenants) {
+      map.put(tenant, new AtomicLong());
+    }
+    return map;
+  }
+
+  private static CallsCount callsCount(String[] tenants) {
+    var callsCount = new CallsCount();
+    for (var tenant : tenants) {
+      callsCount.addTenant(tenant);
+    }
+    return callsCount;
+  }
+
+  @Setup
+  public void setUp() {
+    if ("atomicLong".equals(store)) {
+      atomicLongs = atomicLongs(tenants);
+    } else {
+      callsCount = callsCount(tenants);
+    }
+  }
+
+  private void increment(String tenant) {
+    if (callsCount != null) {
+      callsCount.incrementCount(tenant);
+    } else {
+      atomicLongs.get(tenant).incrementAndGet();
+    }
+  }
+
+  @Benchmark
+  public void hotTenant() {
+    increment(tenants[0]);
+  }
+
+  @Benchmark
+  public void spreadTenants(Cursor cursor) {
+    increment(tenants[cursor.next()]);
+  }
+
+  @Benchmark
+  @BenchmarkMode(Mode.SingleShotTime)
+  @OutputTimeUnit(TimeUnit.MICROSECONDS)
+  @Warmup(iterations = 20)
+  @Measurement(iterations = 100)
+  public void reset() {
+    if (callsCount != null) {
+      callsCount.reset();
+    } else {
+      atomicLongs.replaceAll((k, v) -> new AtomicLong(0));
+    }
+  }
+
+  private static long usedHeap() {
+    var memory = ManagementFactory.getMemoryMXBean();
+    for (var i = 0; i < 3; i++) {
+      System.gc();
+    }
+    return memory.getHeapMemoryUsage().getUsed();
+  }
+
+  private static void footprint(String name, Supplier<Object> store) {
+    var before = usedHeap();
+    var retained = store.get();
+    var after = usedHeap();
+    System.out.printf("%-10s %,d tenants: %,d bytes (%d bytes/tenant, names excluded)%n", name,
+        TENANTS, after - before, (after - before) / TENANTS);
+    Reference.reachabilityFence(retained);
+  }
+
+  public static void main(String[] args) throws RunnerException {
+    var tenants = names();
+    footprint("atomicLong", () -> atomicLongs(tenants));
+    footprint("striped", () -> {
+      var callsCount = callsCount(tenants);
+      for (var tenant : tenants) {
+        callsCount.incrementCount(tenant);
+      }
+      return callsCount;
+    });
+    for (var threads : new int[] {1, 2, 4, 8}) {
+      new Runner(new OptionsBuilder()
+          .include(CallsCountBenchmark.class.getSimpleName())
+          .threads(threads)
+          .build()).run();
+    }
+  }
+}
@@ -0,0 +1,112 @@
+/*
+ * This project is licensed under the MIT license. Module model-view-viewmodel is using ZK framework licensed under LGPL (see lgpl-3.0.txt).
+ *
+ * The MIT License
+ * Copyright © 2014-2022 Ilkka Seppälä
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.iluwatar.throttling;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.CountDownLatch;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests for the epoch-based, striped {@link CallsCount}.
+ */
+class CallsCountTest {
+
+  @Test
+  void resetStartsANewEpoch() {
+    var callsCount = new CallsCount();
+    callsCount.addTenant("dwarf");
+    callsCount.incrementCount("dwarf");
+    callsCount.incrementCount("dwarf");
+    assertEquals(2, callsCount.getCount("dwarf"));
+    callsCount.reset();
+    assertEquals(0, callsCount.getCount("dwarf"));
+    callsCount.incrementCount("dwarf");
+    assertEquals(1, callsCount.getCount("dwarf"));
+    assertEquals(0, callsCount.getCount("elf"));
+  }
+
+  @Test
+  void contendedIncrementsAreExact() throws InterruptedException {
+    var callsCount = new CallsCount();
+    callsCount.addTenant("dwarf");
+    var start = new CountDownLatch(1);
+    var threads = new Thread[8];
+    for (var t = 0; t < threads.length; t++) {
+      threads[t] = new Thread(() -> {
+        try {
+          start.await();
+        } catch (InterruptedException e) {
+          return;
+        }
+        for (var i = 0; i < 100_000; i++) {
+          callsCount.incrementCount("dwarf");
+        }
+      });
+      threads[t].start();
+    }
+    start.countDown();
+    for (var thread : threads) {
+      thread.join();
+    }
+    assertEquals(800_000, callsCount.getCount("dwarf"));
+  }
+
+  @Test
+  void idleTenantsExpireAndComeBack() {
+    var callsCount = new CallsCount(2);
+    callsCount.addTenant("dwarf");
+    callsCount.addTenant("human");
+    callsCount.reset();
+    callsCount.incrementCount("human");
+    callsCount.reset();
+    assertEquals(1, callsCount.getTenantCount());
+    assertEquals(0, callsCount.getCount("dwarf"));
+
+    callsCount.incrementCount("dwarf");
+    assertEquals(1, callsCount.getCount("dwarf"));
+    assertEquals(2, callsCount.getTenantCount());
+  }
+
+  @Test
+  void resetDoesNotAllocatePerTenant() {
+    var threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+    var callsCount = new CallsCount(Integer.MAX_VALUE);
+    for (var i = 0; i < 100_000; i++) {
+      callsCount.addTenant("tenant-" + i);
+    }
+    callsCount.reset();
+    var id = Thread.currentThread().getId();
+    var before = threads.getThreadAllocatedBytes(id);
+    for (var i = 0; i < 100; i++) {
+      callsCount.reset();
+    }
+    var perReset = (threads.getThreadAllocatedBytes(id) - before) / 100;
+    // Replacing every counter would allocate over 2 MB per reset here.
+    assertTrue(perReset < 8 * 1024, perReset + " bytes per reset");
+  }
+}
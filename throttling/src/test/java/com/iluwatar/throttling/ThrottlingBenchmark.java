@@ -0,0 +1,138 @@
+/*
+ * This project is licensed under the MIT license. Module model-view-viewmodel is using ZK framework licensed under LGPL (see lgpl-3.0.txt).
+ *
+ * The MIT License
+ * Copyright © 2014-2022 Ilkka Seppälä
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.iluwatar.throttling;
+
+import com.iluwatar.throttling.limiter.GcraRateLimiter;
+import com.iluwatar.throttling.limiter.RateLimiter;
+import com.iluwatar.throttling.limiter.SlidingWindowRateLimiter;
+import com.iluwatar.throttling.limiter.TokenBucketRateLimiter;
+import com.iluwatar.throttling.timer.ThrottleTimerImpl;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * JMH benchmark of the per-call cost of a throttling decision with {@value #TENANTS} tenants,
+ * each allowed {@value #PERMITS} calls per second. {@code callsCount} is the timer-reset
+ * {@link CallsCount} check done by {@link Bartender}; the others are the timer-free
+ * {@link RateLimiter}s. Each thread walks the tenants round-robin, so with millions of calls per
+ * second both the allow and the reject path are measured.
+ *
+ * <p>Run {@link #main(String[])} from the test classpath; it repeats the run for 1, 2, 4 and 8
+ * threads. Add {@code -prof gc} on the JMH command line to confirm the limiters do not allocate.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ThrottlingBenchmark {
+
+  private static final int TENANTS = 10_000;
+
+  private static final int PERMITS = 1_000;
+
+  @Param({"callsCount", "tokenBucket", "slidingWindow", "gcra"})
+  public String limiter;
+
+  private final String[] tenants = new String[TENANTS];
+
+  private CallsCount callsCount;
+
+  private RateLimiter rateLimiter;
+
+  /**
+   * Each thread starts at a different tenant.
+   */
+  @State(Scope.Thread)
+  public static class Cursor {
+    private int next = (int) (Thread.currentThread().getId() * 7919 % TENANTS);
+
+    int next() {
+      var i = next;
+      next = i + 1 == TENANTS ? 0 : i + 1;
+      return i;
+    }
+  }
+
+  @Setup
+  public void setUp() {
+    for (var i = 0; i < TENANTS; i++) {
+      tenants[i] = "tenant-" + i;
+    }
+    switch (limiter) {
+      case "callsCount" -> {
+        callsCount = new CallsCount();
+        for (var tenant : tenants) {
+          callsCount.addTenant(tenant);
+        }
+        new ThrottleTimerImpl(1000, callsCount).start();
+      }
+      case "tokenBucket" -> rateLimiter = new TokenBucketRateLimiter();
+      case "slidingWindow" -> rateLimiter = new SlidingWindowRateLimiter();
+      default -> rateLimiter = new GcraRateLimiter();
+    }
+    if (rateLimiter != null) {
+      for (var tenant : tenants) {
+        rateLimiter.register(tenant, PERMITS, 1, TimeUnit.SECONDS);
+      }
+    }
+  }
+
+  @Benchmark
+  public boolean tryAcquire(Cursor cursor) {
+    var tenant = tenants[cursor.next()];
+    if (rateLimiter != null) {
+      return rateLimiter.tryAcquire(tenant);
+    }
+    if (callsCount.getCount(tenant) >= PERMITS) {
+      return false;
+    }
+    callsCount.incrementCount(tenant);
+    return true;
+  }
+
+  public static void main(String[] args) throws RunnerException {
+    for (var threads : new int[] {1, 2, 4, 8}) {
+      new Runner(new OptionsBuilder()
+          .include(ThrottlingBenchmark.class.getSimpleName())
+          .threads(threads)
+          .build()).run();
+    }
+  }
+}
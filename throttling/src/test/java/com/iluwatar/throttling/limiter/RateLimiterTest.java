@@ -0,0 +1,204 @@
+/*
+ * This project is licensed under the MIT license. Module model-view-viewmodel is using ZK framework licensed under LGPL (see lgpl-3.0.txt).
+ *
+ * The MIT License
+ * Copyright © 2014-2022 Ilkka Seppälä
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.iluwatar.throttling.limiter;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.function.LongSupplier;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests the timer-free {@link RateLimiter}s against a manual clock.
+ */
+class RateLimiterTest {
+
+  private static final long SECOND = TimeUnit.SECONDS.toNanos(1);
+
+  private static final List<Function<LongSupplier, RateLimiter>> LIMITERS = List.of(
+      TokenBucketRateLimiter::new, SlidingWindowRateLimiter::new, GcraRateLimiter::new);
+
+  private final AtomicLong clock = new AtomicLong(42 * SECOND);
+
+  private static int acquire(RateLimiter limiter, String tenant, int calls) {
+    var allowed = 0;
+    for (var i = 0; i < calls; i++) {
+      if (limiter.tryAcquire(tenant)) {
+        allowed++;
+      }
+    }
+    return allowed;
+  }
+
+  @Test
+  void burstIsLimitedToPermits() {
+    for (var factory : LIMITERS) {
+      var limiter = factory.apply(clock::get);
+      limiter.register("dwarf", 4, 1, TimeUnit.SECONDS);
+      limiter.register("human", 2, 1, TimeUnit.SECONDS);
+      assertEquals(4, acquire(limiter, "dwarf", 10), limiter.getClass().getSimpleName());
+      assertEquals(2, acquire(limiter, "human", 10), limiter.getClass().getSimpleName());
+    }
+  }
+
+  @Test
+  void permitsComeBackOverTime() {
+    for (var factory : LIMITERS) {
+      var limiter = factory.apply(clock::get);
+      limiter.register("dwarf", 4, 1, TimeUnit.SECONDS);
+      assertEquals(4, acquire(limiter, "dwarf", 4));
+      clock.addAndGet(2 * SECOND);
+      assertEquals(4, acquire(limiter, "dwarf", 10), limiter.getClass().getSimpleName());
+    }
+  }
+
+  @Test
+  void noDoubleBurstAtWindowBoundary() {
+    for (var factory : LIMITERS) {
+      clock.set(100 * SECOND);
+      var limiter = factory.apply(clock::get);
+      limiter.register("dwarf", 100, 1, TimeUnit.SECONDS);
+      // Spend the whole allowance at the end of one second and try again right after it.
+      clock.addAndGet(SECOND - 1_000_000);
+      var total = acquire(limiter, "dwarf", 1000);
+      clock.addAndGet(2_000_000);
+      total += acquire(limiter, "dwarf", 1000);
+      // A timer reset would allow 200 here.
+      assertTrue(total <= 101, limiter.getClass().getSimpleName() + " allowed " + total);
+    }
+  }
+
+  @Test
+  void tokenBucketRefillsOneTokenPerInterval() {
+    var limiter = new TokenBucketRateLimiter(clock::get);
+    limiter.register("dwarf", 4, 1, TimeUnit.SECONDS);
+    assertEquals(4, acquire(limiter, "dwarf", 4));
+    clock.addAndGet(SECOND / 4 - 1);
+    assertFalse(limiter.tryAcquire("dwarf"));
+    clock.addAndGet(1);
+    assertTrue(limiter.tryAcquire("dwarf"));
+    assertFalse(limiter.tryAcquire("dwarf"));
+    // Partial intervals are kept: two halves make one token.
+    clock.addAndGet(SECOND / 8);
+    assertFalse(limiter.tryAcquire("dwarf"));
+    clock.addAndGet(SECOND / 8);
+    assertTrue(limiter.tryAcquire("dwarf"));
+  }
+
+  @Test
+  void slidingWindowWeighsPreviousWindow() {
+    clock.set(0);
+    var limiter = new SlidingWindowRateLimiter(clock::get);
+    limiter.register("dwarf", 10, 1, TimeUnit.SECONDS);
+    assertEquals(10, acquire(limiter, "dwarf", 20));
+    // A quarter into the next window, three quarters of the previous count still apply.
+    clock.set(SECOND + SECOND / 4);
+    assertEquals(3, acquire(limiter, "dwarf", 20));
+  }
+
+  @Test
+  void slidingWindowSupportsLongPeriodsAndManyPermits() {
+    var period = TimeUnit.DAYS.toNanos(30);
+    clock.set(0);
+    var limiter = new SlidingWindowRateLimiter(clock::get);
+    limiter.register("dwarf", 65_534, 30, TimeUnit.DAYS);
+    assertEquals(65_534, acquire(limiter, "dwarf", 70_000));
+    // Half into the next window, half of the previous count still applies.
+    clock.set(period + period / 2);
+    assertEquals(32_767, acquire(limiter, "dwarf", 70_000));
+  }
+
+  @Test
+  void tokenBucketIsFullAfterIdlingPastTheClockWrap() {
+    var limiter = new TokenBucketRateLimiter(clock::get);
+    limiter.register("dwarf", 4, 1, TimeUnit.SECONDS);
+    assertEquals(4, acquire(limiter, "dwarf", 4));
+    // The 48 bits of stored time see only the last eighth of a second of this.
+    clock.addAndGet((1L << 48) + SECOND / 8);
+    assertEquals(4, acquire(limiter, "dwarf", 10));
+    assertThrows(IllegalArgumentException.class,
+        () -> limiter.register("hobbit", 1, 3, TimeUnit.DAYS));
+  }
+
+  @Test
+  void gcraSpacesCallsByEmissionInterval() {
+    var limiter = new GcraRateLimiter(clock::get);
+    limiter.register("dwarf", 10, 1, TimeUnit.SECONDS);
+    assertEquals(10, acquire(limiter, "dwarf", 20));
+    clock.addAndGet(SECOND / 10);
+    assertEquals(1, acquire(limiter, "dwarf", 20));
+  }
+
+  @Test
+  void concurrentCallsNeverExceedPermits() throws InterruptedException {
+    for (var factory : LIMITERS) {
+      var limiter = factory.apply(clock::get);
+      limiter.register("dwarf", 1000, 1, TimeUnit.HOURS);
+      var allowed = new AtomicInteger();
+      var start = new CountDownLatch(1);
+      var threads = new Thread[4];
+      for (var t = 0; t < threads.length; t++) {
+        threads[t] = new Thread(() -> {
+          try {
+            start.await();
+          } catch (InterruptedException e) {
+            return;
+          }
+          allowed.addAndGet(acquire(limiter, "dwarf", 10_000));
+        });
+        threads[t].start();
+      }
+      start.countDown();
+      for (var thread : threads) {
+        thread.join();
+      }
+      assertEquals(1000, allowed.get(), limiter.getClass().getSimpleName());
+    }
+  }
+
+  @Test
+  void invalidUsageIsRejected() {
+    for (var factory : LIMITERS) {
+      var limiter = factory.apply(clock::get);
+      assertThrows(IllegalArgumentException.class, () -> limiter.tryAcquire("nobody"));
+      assertThrows(IllegalArgumentException.class,
+          () -> limiter.register("dwarf", -1, 1, TimeUnit.SECONDS));
+      assertThrows(IllegalArgumentException.class,
+          () -> limiter.register("dwarf", 1, 0, TimeUnit.SECONDS));
+      limiter.register("teetotaler", 0, 1, TimeUnit.SECONDS);
+      assertFalse(limiter.tryAcquire("teetotaler"));
+    }
+    assertThrows(IllegalArgumentException.class, () -> new TokenBucketRateLimiter(clock::get)
+        .register("dwarf", 1 << 16, 1, TimeUnit.SECONDS));
+  }
+}